@@ -13,20 +13,24 @@ package org.eclipse.pde.api.tools.generator;
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.LineNumberReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -39,12 +43,17 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.Signature;
 import org.eclipse.jdt.core.ToolFactory;
@@ -60,8 +69,12 @@ import org.eclipse.jdt.core.util.ISignatureAttribute;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
 import org.eclipse.jdt.internal.core.JavadocConstants;
 import org.eclipse.pde.api.tools.generator.util.Util;
+import org.eclipse.pde.api.tools.internal.IApiCoreConstants;
 import org.eclipse.pde.api.tools.internal.IApiXmlConstants;
 import org.eclipse.pde.api.tools.internal.provisional.ProfileModifiers;
+import org.eclipse.pde.api.tools.internal.search.ComponentSymbolIndex;
+import org.eclipse.pde.api.tools.internal.util.SymbolTable;
+import org.eclipse.pde.api.tools.internal.util.XmlStreamWriter;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.Attribute;
 import org.objectweb.asm.ClassAdapter;
@@ -71,9 +84,6 @@ import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodAdapter;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
-import org.w3c.dom.DOMException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 /**
  * This is a java application to generate the EE descriptions for specified EE names:
@@ -94,25 +104,31 @@ import org.w3c.dom.Element;
  * </ol>
  * This can be called using:
  * -output c:/EE_descriptions -config C:\OSGi_profiles\configuration.properties -EEs JRE-1.1,J2SE-1.2,J2SE-1.3,J2SE-1.4,J2SE-1.5,JavaSE-1.6,JavaSE-1.7,CDC-1.0_Foundation-1.0,CDC-1.1_Foundation-1.1,OSGi_Minimum-1.0,OSGi_Minimum-1.1,OSGi_Minimum-1.2
+ * <p>The optional arguments are:</p>
+ * <ul>
+ * <li><code>-threads &lt;count&gt;</code>: the number of threads used to read the class files of a profile, the
+ * number of available processors by default,</li>
+ * <li><code>-binary</code>: also generate the symbol table of each profile next to its stubs.</li>
+ * </ul>
  */
 public class EEGenerator {
 	static class AbstractNode {
 		protected int addedProfileValue = -1;
 		protected int removedProfileValue = -1;
 
-		public void persistAnnotations(Element element) {
+		public void persistAnnotations(XmlStreamWriter writer) throws IOException {
 			if (this.addedProfileValue != -1) {
-				element.setAttribute(IApiXmlConstants.ATTR_ADDED_PROFILE, Integer.toString(this.addedProfileValue));
+				writer.attribute(IApiXmlConstants.ATTR_ADDED_PROFILE, Integer.toString(this.addedProfileValue));
 			}
 			if (this.removedProfileValue != -1) {
-				element.setAttribute(IApiXmlConstants.ATTR_REMOVED_PROFILE, Integer.toString(this.removedProfileValue));
+				writer.attribute(IApiXmlConstants.ATTR_REMOVED_PROFILE, Integer.toString(this.removedProfileValue));
 			}
 		}
 
-		public void persistAnnotations(Element element, String OSGiProfileName) {
+		public void persistAnnotations(XmlStreamWriter writer, String OSGiProfileName) throws IOException {
 			int value = ProfileModifiers.getValue(OSGiProfileName);
 			if (value != -1) {
-				element.setAttribute(IApiXmlConstants.ATTR_PROFILE, Integer.toString(value));
+				writer.attribute(IApiXmlConstants.ATTR_PROFILE, Integer.toString(value));
 			}
 		}
 
@@ -170,18 +186,18 @@ public class EEGenerator {
 			return result;
 		}
 
-		public void persistXML(Document document, Element parent) {
-			Element field = document.createElement(IApiXmlConstants.ELEMENT_FIELD);
-			parent.appendChild(field);
-			field.setAttribute(IApiXmlConstants.ATTR_NAME, new String(this.name));
-			field.setAttribute(IApiXmlConstants.ATTR_STATUS, Integer.toString(getStatus()));
+		public void persistXML(XmlStreamWriter writer) throws IOException {
+			writer.startElement(IApiXmlConstants.ELEMENT_FIELD);
+			writer.attribute(IApiXmlConstants.ATTR_NAME, new String(this.name));
+			writer.attribute(IApiXmlConstants.ATTR_STATUS, Integer.toString(getStatus()));
+			writer.endElement();
 		}
 
-		public void persistXML(Document document, Element parent, String OSGiProfileName) {
-			Element field = document.createElement(IApiXmlConstants.ELEMENT_FIELD);
-			parent.appendChild(field);
-			field.setAttribute(IApiXmlConstants.ATTR_NAME, new String(this.name));
-			persistAnnotations(field, OSGiProfileName);
+		public void persistXML(XmlStreamWriter writer, String OSGiProfileName) throws IOException {
+			writer.startElement(IApiXmlConstants.ELEMENT_FIELD);
+			writer.attribute(IApiXmlConstants.ATTR_NAME, new String(this.name));
+			persistAnnotations(writer, OSGiProfileName);
+			writer.endElement();
 		}
 
 		@Override
@@ -255,20 +271,21 @@ public class EEGenerator {
 			return result;
 		}
 		
-		public void persistXML(Document document, Element parent) {
-			Element method = document.createElement(IApiXmlConstants.ELEMENT_METHOD);
-			parent.appendChild(method);
-			method.setAttribute(IApiXmlConstants.ATTR_NAME, new String(this.selector));
-			method.setAttribute(IApiXmlConstants.ATTR_SIGNATURE, new String(this.signature));
-			method.setAttribute(IApiXmlConstants.ATTR_STATUS, Integer.toString(getStatus()));
+		public void persistXML(XmlStreamWriter writer) throws IOException {
+			writer.startElement(IApiXmlConstants.ELEMENT_METHOD);
+			writer.attribute(IApiXmlConstants.ATTR_NAME, new String(this.selector));
+			writer.attribute(IApiXmlConstants.ATTR_SIGNATURE, new String(this.signature));
+			writer.attribute(IApiXmlConstants.ATTR_STATUS, Integer.toString(getStatus()));
+			writer.endElement();
 		}
 
-		public void persistXML(Document document, Element parent, String OSGiProfileName) {
-			Element method = document.createElement(IApiXmlConstants.ELEMENT_METHOD);
-			parent.appendChild(method);
-			method.setAttribute(IApiXmlConstants.ATTR_NAME, new String(this.selector));
-			method.setAttribute(IApiXmlConstants.ATTR_SIGNATURE, new String(this.signature));
-			persistAnnotations(method, OSGiProfileName);
+		public void persistXML(XmlStreamWriter writer, String OSGiProfileName) throws IOException {
+			writer.startElement(IApiXmlConstants.ELEMENT_METHOD);
+			// attributes are written in the order the former DOM serialization used
+			writer.attribute(IApiXmlConstants.ATTR_NAME, new String(this.selector));
+			persistAnnotations(writer, OSGiProfileName);
+			writer.attribute(IApiXmlConstants.ATTR_SIGNATURE, new String(this.signature));
+			writer.endElement();
 		}
 
 		@Override
@@ -345,7 +362,7 @@ public class EEGenerator {
 			result = prime * result + ((name == null) ? 0 : name.hashCode());
 			return result;
 		}
-		public void persistAsClassStubsForZip(ZipOutputStream zipOutputStream, ProfileInfo info) throws IOException {
+		public void persistAsClassStubsForZip(ZipOutputStream zipOutputStream, ProfileInfo info, Collection<String> symbols) throws IOException {
 			if (this.types == null) return;
 			Collections.sort(this.types);
 			for (Iterator<Type> iterator2 = this.types.iterator(); iterator2.hasNext();) {
@@ -353,21 +370,22 @@ public class EEGenerator {
 				StringBuffer buffer = new StringBuffer(this.name.replace('.', '/'));
 				String simpleName = type.getSimpleName();
 				buffer.append('/').append(simpleName.replace('.', '$'));
-				byte[] classFileBytes = info.getClassFileBytes(type);
+				byte[] classFileBytes = info.getClassFileBytes(type, symbols);
 				if (classFileBytes != null) {
 					Util.writeZipFileEntry(zipOutputStream, String.valueOf(buffer), classFileBytes);
 				}
 			}
 		}
-		public void persistXML(Document document, Element element, String OSGiProfileName) {
-			Element pkg = document.createElement(IApiXmlConstants.ELEMENT_PACKAGE);
-			pkg.setAttribute(IApiXmlConstants.ATTR_NAME, this.name);
-			element.appendChild(pkg);
-			if (this.types == null) return;
-			Collections.sort(this.types);
-			for (Iterator<Type> iterator2 = this.types.iterator(); iterator2.hasNext();) {
-				iterator2.next().persistXML(document, pkg, OSGiProfileName);
+		public void persistXML(XmlStreamWriter writer, String OSGiProfileName) throws IOException {
+			writer.startElement(IApiXmlConstants.ELEMENT_PACKAGE);
+			writer.attribute(IApiXmlConstants.ATTR_NAME, this.name);
+			if (this.types != null) {
+				Collections.sort(this.types);
+				for (Iterator<Type> iterator2 = this.types.iterator(); iterator2.hasNext();) {
+					iterator2.next().persistXML(writer, OSGiProfileName);
+				}
 			}
+			writer.endElement();
 		}
 		public int size() {
 			return this.types == null ? 0 : this.types.size();
@@ -496,6 +514,8 @@ public class EEGenerator {
 		// set of type names that don't have javadoc
 		Set<String> blackList;
 		String cacheLocation;
+		// map of class file entry names to the jar file they are read from
+		Map<String, File> classFileLocations;
 		Map<String, Package> data;
 		String docRoot;
 		long generatedSize;
@@ -508,6 +528,8 @@ public class EEGenerator {
 		long totalSize;
 		
 		Set<String> whiteList;
+		// jar files opened to generate the stubs
+		Map<File, ZipFile> openJars;
 
 		private ProfileInfo(
 				String profilename,
@@ -528,7 +550,7 @@ public class EEGenerator {
 			this.whiteList = initializeWhiteList(whitelist);
 		}
 		
-		private void addToBlackList(String typeName) {
+		private synchronized void addToBlackList(String typeName) {
 			if (this.blackList != null) {
 				this.blackList.add(typeName);
 				return;
@@ -543,14 +565,15 @@ public class EEGenerator {
 			}
 			File cacheDir = new File(this.cacheLocation);
 			if (!cacheDir.exists()) {
-				if (!cacheDir.mkdirs()) {
+				// types are read by several threads, the directory may have been created by another one
+				if (!cacheDir.mkdirs() && !cacheDir.isDirectory()) {
 					System.err.println("Cache creation failed for " + typeName + " for profile " + this.getProfileName()); //$NON-NLS-1$ //$NON-NLS-2$
 					return;
 				}
 			}
 			File profileCache = new File(cacheDir, getProfileFileName());
 			if (!profileCache.exists()) {
-				if (!profileCache.mkdirs()) {
+				if (!profileCache.mkdirs() && !profileCache.isDirectory()) {
 					System.err.println("Cache creation failed for " + typeName + " for profile " + this.getProfileName()); //$NON-NLS-1$ //$NON-NLS-2$
 					return;
 				}
@@ -562,7 +585,7 @@ public class EEGenerator {
 			} else {
 				File parentFile = docType.getParentFile();
 				if (!parentFile.exists()) {
-					if (!parentFile.mkdirs()) {
+					if (!parentFile.mkdirs() && !parentFile.isDirectory()) {
 						System.err.println("Cache creation failed for " + typeName + " for profile " + this.getProfileName()); //$NON-NLS-1$ //$NON-NLS-2$
 						return;
 					}
@@ -586,14 +609,19 @@ public class EEGenerator {
 			}
 		}
 		
-		void generateEEDescription(String outputDir) {
+		void dispose() {
+			this.data = null;
+			this.classFileLocations = null;
+		}
+
+		void generateEEDescription(String outputDir, boolean binary) {
 			if (this.data == null) {
 				System.err.println("No data to persist for " + this.getProfileName()); //$NON-NLS-1$
 				return;
 			}
 			String subDir = getSubDir();
 			persistData(outputDir, subDir);
-			persistDataAsClassFilesInZipFormat(outputDir, subDir);
+			persistDataAsClassFilesInZipFormat(outputDir, subDir, binary);
 		}
 
 		public Map<String,Type> getAllTypes() {
@@ -616,43 +644,46 @@ public class EEGenerator {
 
 		private File getCacheRoot() {
 			File cacheDir = new File(this.cacheLocation);
-			if (cacheDir.exists() || cacheDir.mkdirs()) {
+			if (cacheDir.mkdirs() || cacheDir.isDirectory()) {
 				File profileCache = new File(cacheDir, getProfileFileName());
-				if (profileCache.exists() || profileCache.mkdirs()) {
+				if (profileCache.mkdirs() || profileCache.isDirectory()) {
 					return profileCache;
 				}
 			}
 			return null;
 		}
 
-		public byte[] getClassFileBytes(Type type) {
-			if (this.allFiles == null) {
+		/**
+		 * Returns the bytes of the stub of the given type, or <code>null</code> if the type is not part of the stubs.
+		 * The symbol keys of the stub are added to the given collection.
+		 * 
+		 * @param type the type to get the stub of
+		 * @param symbols the collection to add the symbol keys to or <code>null</code>
+		 * @return the stub bytes or <code>null</code>
+		 */
+		public byte[] getClassFileBytes(Type type, Collection<String> symbols) {
+			if (this.classFileLocations == null) {
 				throw new IllegalStateException("No jar files to open"); //$NON-NLS-1$
 			}
 			String typeName = new String(type.name);
 			byte[] classFileBytes = null; 
-			try {
-				String zipFileEntryName = typeName.replace('.', '/') + ".class"; //$NON-NLS-1$
-				loop: for (int i = 0, max = this.allFiles.length; i < max; i++) {
-					ZipFile zipFile = new ZipFile(allFiles[i]);
+			String zipFileEntryName = typeName.replace('.', '/') + ".class"; //$NON-NLS-1$
+			File location = this.classFileLocations.get(zipFileEntryName);
+			if (location != null) {
+				try {
+					ZipFile zipFile = getJar(location);
+					ZipEntry zipEntry = zipFile.getEntry(zipFileEntryName);
+					InputStream inputStream = new BufferedInputStream(zipFile.getInputStream(zipEntry));
 					try {
-						ZipEntry zipEntry = zipFile.getEntry(zipFileEntryName);
-						if (zipEntry == null) continue loop;
-						InputStream inputStream = new BufferedInputStream(zipFile.getInputStream(zipEntry));
-						try {
-							classFileBytes = Util.getInputStreamAsByteArray(inputStream, -1);
-							break loop;
-						} finally {
-							inputStream.close();
-						}
+						classFileBytes = Util.getInputStreamAsByteArray(inputStream, -1);
 					} finally {
-						zipFile.close();
+						inputStream.close();
 					}
+				} catch (ZipException e) {
+					e.printStackTrace();
+				} catch (IOException e) {
+					e.printStackTrace();
 				}
-			} catch (ZipException e) {
-				e.printStackTrace();
-			} catch (IOException e) {
-				e.printStackTrace();
 			}
 			if (classFileBytes == null) {
 				throw new IllegalStateException("Could not retrieve byte[] for " + typeName); //$NON-NLS-1$
@@ -663,10 +694,45 @@ public class EEGenerator {
 			if (visitor.shouldIgnore()) {
 				return null;
 			}
-			
+			if (symbols != null) {
+				symbols.addAll(visitor.getSymbols());
+			}
 			return visitor.getStub().getBytes();
 		}
 
+		/**
+		 * Returns the given jar file, opening it the first time it is asked for. The jar files stay open
+		 * until {@link #closeJars()} is called.
+		 * @param file the jar file
+		 * @return the opened jar file
+		 * @throws IOException if the jar file cannot be opened
+		 */
+		private ZipFile getJar(File file) throws IOException {
+			if (this.openJars == null) {
+				this.openJars = new HashMap<File, ZipFile>();
+			}
+			ZipFile zipFile = this.openJars.get(file);
+			if (zipFile == null) {
+				zipFile = new ZipFile(file);
+				this.openJars.put(file, zipFile);
+			}
+			return zipFile;
+		}
+
+		private void closeJars() {
+			if (this.openJars == null) {
+				return;
+			}
+			for (ZipFile zipFile : this.openJars.values()) {
+				try {
+					zipFile.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+			this.openJars = null;
+		}
+
 		public char[] getFromCache(String typeName) {
 			if (!CACHE_ENABLED || this.cacheLocation == null) {
 				return null;
@@ -769,7 +835,7 @@ public class EEGenerator {
 			return values;
 		}
 
-		public void initializeData() throws IOException {
+		public void initializeData(int threads) throws IOException {
 			String pname = this.getProfileName();
 			if (pname == null) {
 				// invalid profile info
@@ -795,45 +861,170 @@ public class EEGenerator {
 			Set<String> knownPackages = initializePackages(osgiProfileName);
 			Map<String, Type> allVisibleTypes = new HashMap<String, Type>();
 			Map<String, Type> allTypes = new HashMap<String, Type>();
-			this.totalSize = 0;
-			for (int i = 0, max = allFiles.length; i < max; i++) {
-				File currentFile = allFiles[i];
-				this.totalSize += currentFile.length();
-				ZipFile zipFile = new ZipFile(currentFile);
+			ZipFile docZip = null;
+			if (this.JREdoc != null) {
 				try {
-					for (Enumeration<? extends ZipEntry> enumeration = zipFile.entries(); enumeration.hasMoreElements(); ) {
-						ZipEntry zipEntry = enumeration.nextElement();
-						if (!zipEntry.getName().endsWith(".class")) continue; //$NON-NLS-1$
-						InputStream inputStream = new BufferedInputStream(zipFile.getInputStream(zipEntry));
-						IClassFileReader classFileReader = null;
-						try {
-							classFileReader = ToolFactory.createDefaultClassFileReader(inputStream, IClassFileReader.ALL_BUT_METHOD_BODIES);
-						} finally {
-							inputStream.close();
-						}
-						if (classFileReader == null) continue;
-						char[] className = classFileReader.getClassName();
-						char[] packageName = null;
-						int lastIndexOf = CharOperation.lastIndexOf('/', className);
-						if (lastIndexOf == -1) {
-							packageName = new char[0];
-						} else {
-							packageName = CharOperation.subarray(className, 0, lastIndexOf);
-						}
-						if (this.isMatching(knownPackages, packageName)) {
-							Type type = Type.newType(this, classFileReader, this.JREdoc, this.JREURL, this.docRoot);
-							if (type != null) {
-								if (type.isProtected() || type.isPublic()) {
-									allVisibleTypes.put(type.getFullQualifiedName(), type);
+					docZip = new ZipFile(this.JREdoc);
+				} catch(FileNotFoundException e) {
+					// no zip file
+				}
+			}
+			try {
+				for (Type type : readTypes(knownPackages, docZip, threads)) {
+					if (type.isProtected() || type.isPublic()) {
+						allVisibleTypes.put(type.getFullQualifiedName(), type);
+					}
+					allTypes.put(type.getFullQualifiedName(), type);
+				}
+				collectDocumentedTypes(allVisibleTypes, allTypes, docZip);
+			} finally {
+				if (docZip != null) {
+					docZip.close();
+				}
+			}
+			if (DEBUG) {
+				System.out.println("Time spent for gathering datas for " + pname + " : " + (System.currentTimeMillis() - time) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+
+			if (this.blackList != null) {
+				// persist black list
+				this.persistBlackList();
+			}
+		}
+
+		/**
+		 * Reads the types of all of the jar files of the profile that belong to one of the given packages, in the
+		 * order of the jar files and of their entries. The class files are read from the jar files by the calling
+		 * thread and parsed by the given number of threads.
+		 * 
+		 * @param knownPackages the names of the packages of the profile
+		 * @param docZip the javadoc zip or <code>null</code>
+		 * @param threads the number of threads to parse the class files with
+		 * @return the types read
+		 * @throws IOException if a jar file cannot be read
+		 */
+		private List<Type> readTypes(final Set<String> knownPackages, final ZipFile docZip, int threads) throws IOException {
+			List<Type> types = new ArrayList<Type>();
+			ThreadPoolExecutor executor = null;
+			List<Future<Type>> futures = null;
+			if (threads > 1) {
+				// the queue is bounded so that only a limited number of class files are held in memory: once
+				// it is full the reading thread parses the class files itself until the workers catch up
+				executor = new ThreadPoolExecutor(
+						threads,
+						threads,
+						0L,
+						TimeUnit.MILLISECONDS,
+						new ArrayBlockingQueue<Runnable>(threads * 64),
+						new ThreadPoolExecutor.CallerRunsPolicy());
+				futures = new ArrayList<Future<Type>>();
+			}
+			this.totalSize = 0;
+			this.classFileLocations = new HashMap<String, File>();
+			try {
+				for (int i = 0, max = allFiles.length; i < max; i++) {
+					File currentFile = allFiles[i];
+					this.totalSize += currentFile.length();
+					ZipFile zipFile = new ZipFile(currentFile);
+					try {
+						for (Enumeration<? extends ZipEntry> enumeration = zipFile.entries(); enumeration.hasMoreElements(); ) {
+							ZipEntry zipEntry = enumeration.nextElement();
+							String entryName = zipEntry.getName();
+							if (!entryName.endsWith(".class")) continue; //$NON-NLS-1$
+							if (!this.classFileLocations.containsKey(entryName)) {
+								// the stubs are generated from the first jar file containing the class file
+								this.classFileLocations.put(entryName, currentFile);
+							}
+							InputStream inputStream = new BufferedInputStream(zipFile.getInputStream(zipEntry));
+							final byte[] classFileBytes;
+							try {
+								classFileBytes = Util.getInputStreamAsByteArray(inputStream, -1);
+							} finally {
+								inputStream.close();
+							}
+							if (executor == null) {
+								Type type = readType(classFileBytes, knownPackages, docZip);
+								if (type != null) {
+									types.add(type);
 								}
-								allTypes.put(type.getFullQualifiedName(), type);
+							} else {
+								futures.add(executor.submit(new Callable<Type>() {
+									public Type call() {
+										return readType(classFileBytes, knownPackages, docZip);
+									}
+								}));
 							}
 						}
+					} finally {
+						zipFile.close();
+					}
+				}
+				if (futures != null) {
+					for (Future<Type> future : futures) {
+						Type type = getResult(future);
+						if (type != null) {
+							types.add(type);
+						}
 					}
-				} finally {
-					zipFile.close();
+				}
+			} finally {
+				if (executor != null) {
+					executor.shutdownNow();
 				}
 			}
+			return types;
+		}
+
+		private static Type getResult(Future<Type> future) throws IOException {
+			try {
+				return future.get();
+			} catch (InterruptedException e) {
+				throw new IOException("Interrupted while reading the class files", e); //$NON-NLS-1$
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IOException("Could not read a class file", cause); //$NON-NLS-1$
+			}
+		}
+
+		/**
+		 * Parses the given class file and returns its type if it belongs to one of the given packages
+		 * @param classFileBytes the contents of the class file
+		 * @param knownPackages the names of the packages of the profile
+		 * @param docZip the javadoc zip or <code>null</code>
+		 * @return the type or <code>null</code>
+		 */
+		Type readType(byte[] classFileBytes, Set<String> knownPackages, ZipFile docZip) {
+			IClassFileReader classFileReader = ToolFactory.createDefaultClassFileReader(new ByteArrayInputStream(classFileBytes), IClassFileReader.ALL_BUT_METHOD_BODIES);
+			if (classFileReader == null) {
+				return null;
+			}
+			char[] className = classFileReader.getClassName();
+			char[] packageName = null;
+			int lastIndexOf = CharOperation.lastIndexOf('/', className);
+			if (lastIndexOf == -1) {
+				packageName = new char[0];
+			} else {
+				packageName = CharOperation.subarray(className, 0, lastIndexOf);
+			}
+			if (!this.isMatching(knownPackages, packageName)) {
+				return null;
+			}
+			return Type.newType(this, classFileReader, docZip, this.JREURL, this.docRoot);
+		}
+
+		/**
+		 * Groups the visible types that are documented, together with their super classes, per package
+		 * @param allVisibleTypes the visible types read from the jar files
+		 * @param allTypes all of the types read from the jar files
+		 * @param docZip the javadoc zip or <code>null</code>
+		 */
+		private void collectDocumentedTypes(Map<String, Type> allVisibleTypes, Map<String, Type> allTypes, ZipFile docZip) {
 			// list all results
 			List<Type> visibleTypes = new ArrayList<Type>();
 			visibleTypes.addAll(allVisibleTypes.values());
@@ -863,23 +1054,9 @@ public class EEGenerator {
 				}
 			}
 			List<Type> isInDoc = new ArrayList<Type>();
-			ZipFile docZip = null;
-			if (this.JREdoc != null) {
-				try {
-					docZip = new ZipFile(this.JREdoc);
-				} catch(FileNotFoundException e) {
-					// no zip file
-				}
-			}
-			try {
-				for (Type type : allVisibleTypes.values()) {
-					if (checkDocStatus(this, type, docZip, this.JREURL, this.docRoot)) {
-						isInDoc.add(type);
-					}
-				}
-			} finally {
-				if (docZip != null) {
-					docZip.close();
+			for (Type type : allVisibleTypes.values()) {
+				if (checkDocStatus(this, type, docZip, this.JREURL, this.docRoot)) {
+					isInDoc.add(type);
 				}
 			}
 			HashMap<String, Package> typesPerPackage = new HashMap<String, Package>();
@@ -894,14 +1071,6 @@ public class EEGenerator {
 				package1.addType(type);
 			}
 			this.data = typesPerPackage;
-			if (DEBUG) {
-				System.out.println("Time spent for gathering datas for " + pname + " : " + (System.currentTimeMillis() - time) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-			}
-
-			if (this.blackList != null) {
-				// persist black list
-				this.persistBlackList();
-			}
 		}
 
 		private boolean isMatching(Set<String> knownPackages, char[] packageName) {
@@ -915,7 +1084,7 @@ public class EEGenerator {
 			return knownPackages.contains(currentPackage) || this.isOnWhiteList(currentPackage);
 		}
 
-		private boolean isOnBlackList(String typeName) {
+		private synchronized boolean isOnBlackList(String typeName) {
 			if (this.blackList != null) {
 				return this.blackList.contains(typeName);
 			}
@@ -953,10 +1122,9 @@ public class EEGenerator {
 			}
 		}
 		private void persistChildren(
-				Document document,
-				Element xmlElement,
+				XmlStreamWriter writer,
 				Map<String, Package> packageMap,
-				String OSGiProfileName) {
+				String OSGiProfileName) throws IOException {
 			Set<String> keySet = packageMap.keySet();
 			String[] sortedKeys = new String[keySet.size()];
 			keySet.toArray(sortedKeys);
@@ -965,7 +1133,7 @@ public class EEGenerator {
 				String key = sortedKeys[i];
 				Package package1 = packageMap.get(key);
 				if (package1 != null) {
-					package1.persistXML(document, xmlElement, OSGiProfileName);
+					package1.persistXML(writer, OSGiProfileName);
 				} else {
 					System.err.println("Missing package for profile info XML serialization: " + key); //$NON-NLS-1$
 				}
@@ -974,7 +1142,8 @@ public class EEGenerator {
 		private void persistChildrenAsClassFile(
 				ZipOutputStream zipOutputStream,
 				Map<String, Package> packageMap,
-				ProfileInfo info) throws IOException {
+				ProfileInfo info,
+				Collection<String> symbols) throws IOException {
 			Set<String> keySet = packageMap.keySet();
 			String[] sortedKeys = new String[keySet.size()];
 			keySet.toArray(sortedKeys);
@@ -983,33 +1152,41 @@ public class EEGenerator {
 				String key = sortedKeys[i];
 				Package package1 = packageMap.get(key);
 				if (package1 != null) {
-					package1.persistAsClassStubsForZip(zipOutputStream, info);
+					package1.persistAsClassStubsForZip(zipOutputStream, info, symbols);
 				} else {
 					System.err.println("Missing package for profile info zip serialization: " + key); //$NON-NLS-1$
 				}
 			}
 		}
 		private void persistData(String rootName, String subDirName) {
+			String profileName2 = this.getProfileName();
+			File file = Util.getOutputFile(rootName, subDirName, profileName2 + ".xml"); //$NON-NLS-1$
+			XmlStreamWriter writer = null;
 			try {
-				Document document = org.eclipse.pde.api.tools.internal.util.Util.newDocument();	
-				Element component = document.createElement(IApiXmlConstants.ELEMENT_COMPONENT);
-				String profileName2 = this.getProfileName();
-				component.setAttribute(IApiXmlConstants.ATTR_ID, profileName2);
-				component.setAttribute(IApiXmlConstants.ATTR_VERSION, IApiXmlConstants.API_DESCRIPTION_CURRENT_VERSION);
-				document.appendChild(component);
-				persistChildren(document, component, this.data, profileName2);
-				String contents = org.eclipse.pde.api.tools.internal.util.Util.serializeDocument(document);
-				String fileName = profileName2 + ".xml"; //$NON-NLS-1$
-				Util.write(rootName, subDirName, fileName, contents);
-			} catch (DOMException e) {
-				e.printStackTrace();
-			} catch (CoreException e) {
+				// the description is written while the packages are visited instead of being built as a DOM first
+				writer = new XmlStreamWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), IApiCoreConstants.UTF_8)));
+				writer.startDocument();
+				writer.startElement(IApiXmlConstants.ELEMENT_COMPONENT);
+				writer.attribute(IApiXmlConstants.ATTR_ID, profileName2);
+				writer.attribute(IApiXmlConstants.ATTR_VERSION, IApiXmlConstants.API_DESCRIPTION_CURRENT_VERSION);
+				persistChildren(writer, this.data, profileName2);
+				writer.endDocument();
+			} catch (IOException e) {
 				e.printStackTrace();
+			} finally {
+				if (writer != null) {
+					try {
+						writer.close();
+					} catch (IOException e) {
+						// ignore
+					}
+				}
 			}
 		}
 		private void persistDataAsClassFilesInZipFormat(
 				String rootName,
-				String subDirName) {
+				String subDirName,
+				boolean binary) {
 			ZipOutputStream zipOutputStream = null;
 			String profileName2 = this.getProfileFileName();
 			File root = new File(rootName);
@@ -1033,18 +1210,29 @@ public class EEGenerator {
 				System.err.println("Could not create the output file : " + file.getAbsolutePath()); //$NON-NLS-1$
 				return;
 			}
+			Set<String> symbols = binary ? new HashSet<String>() : null;
 			try {
-				persistChildrenAsClassFile(zipOutputStream, this.data, this);
+				persistChildrenAsClassFile(zipOutputStream, this.data, this, symbols);
 				zipOutputStream.flush();
 			} catch (IOException e) {
 				e.printStackTrace();
 			} finally {
+				closeJars();
 				try {
 					zipOutputStream.close();
 				} catch (IOException e) {
 					// ignore
 				}
 			}
+			if (symbols != null) {
+				File symbolsFile = new File(subDir, profileName2 + ComponentSymbolIndex.EXTENSION);
+				try {
+					SymbolTable.write(symbolsFile, ComponentSymbolIndex.getProfileFingerprint(file), symbols);
+					System.out.println("The symbol table for the profile " + this.profileName + " has " + symbols.size() + " symbols and " + symbolsFile.length() + " bytes."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
 			this.generatedSize = file.length();
 			System.out.println("The stub for the profile " + this.profileName + " was generated from " + this.totalSize + " bytes."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			System.out.println("Its generated size is " + this.generatedSize + " bytes."); //$NON-NLS-1$ //$NON-NLS-2$
@@ -1167,7 +1355,10 @@ public class EEGenerator {
 		int flags;
 		String name;
 		StubClass stub;
+		// symbol keys of the stub, see ComponentSymbolIndex
+		List<String> symbols = new ArrayList<String>();
 		Type type;
+		String typeName;
 
 		/**
 		 * Constructor
@@ -1182,6 +1373,10 @@ public class EEGenerator {
 			return this.stub;
 		}
 
+		public List<String> getSymbols() {
+			return this.symbols;
+		}
+
 		/**
 		 * @return if this class file should be ignored or not
 		 */
@@ -1199,6 +1394,8 @@ public class EEGenerator {
 				String superName,
 				String[] interfaces) {
 			this.name = className;
+			this.typeName = className.replace('/', '.');
+			this.symbols.add(this.typeName);
 			this.stub = new StubClass(access, className, superName, interfaces);
 		}
 
@@ -1228,6 +1425,7 @@ public class EEGenerator {
 				return null;
 			}
 			this.stub.addField(fieldName);
+			this.symbols.add(ComponentSymbolIndex.getFieldKey(this.typeName, fieldName));
 			return null;
 		}
 		
@@ -1262,6 +1460,7 @@ public class EEGenerator {
 				return null;
 			}
 			final StubMethod method = this.stub.addMethod(methodName, desc);
+			this.symbols.add(ComponentSymbolIndex.getMethodKey(this.typeName, methodName, desc));
 			return new MethodAdapter(super.visitMethod(access, methodName, desc, signature, exceptions)) {
 				@Override
 				public AnnotationVisitor visitAnnotation(String sig, boolean visible) {
@@ -1416,7 +1615,7 @@ public class EEGenerator {
 		public static Type newType(
 				ProfileInfo info,
 				IClassFileReader reader,
-				String docZipFileName,
+				ZipFile docZip,
 				String docURL,
 				String docRoot) {
 			int startingIndex = 0;
@@ -1442,7 +1641,7 @@ public class EEGenerator {
 					}
 				}
 			}
-			return new Type(info, startingIndex, reader, docZipFileName, docURL, docRoot);
+			return new Type(info, startingIndex, reader, docZip, docURL, docRoot);
 		}
 
 		Set<Field> fields;
@@ -1457,109 +1656,88 @@ public class EEGenerator {
 				ProfileInfo info,
 				int startingIndex,
 				IClassFileReader reader,
-				String docZipFileName,
+				ZipFile docZip,
 				String docURL,
 				String docRoot) {
-			ZipFile docZip = null;
-			try {
-				if (docZipFileName != null) {
-					try {
-						docZip = new ZipFile(docZipFileName);
-					} catch(FileNotFoundException e) {
-						// no zip file
+			char[] className = reader.getClassName();
+			className = CharOperation.replaceOnCopy(className, '/', '.');
+			this.name = className;
+			if (DEBUG) {
+				System.out.println("Adding type: " + String.valueOf(className)); //$NON-NLS-1$
+			}
+			char[] scname = reader.getSuperclassName();
+			if (scname != null) {
+				scname = CharOperation.replaceOnCopy(scname, '/', '.');
+				this.superclassName = scname;
+			}
+			char[][] interfaceNames = CharOperation.deepCopy(reader.getInterfaceNames());
+			for (int i = 0, max = interfaceNames.length; i < max; i++) {
+				CharOperation.replace(interfaceNames[i], '/', '.');
+			}
+			this.superinterfacesNames = interfaceNames;
+			this.modifiers = reader.getAccessFlags();
+			char[] contents = getDocContents(info, this, docZip, docURL, docRoot);
+			IFieldInfo[] fieldInfos = reader.getFieldInfos();
+			int length = fieldInfos.length;
+			for (int i = 0; i < length; i++) {
+				IFieldInfo fieldInfo = fieldInfos[i];
+				if (isVisibleField(this.modifiers, fieldInfo.getAccessFlags())
+						&& checkDocStatus(fieldInfo, contents)) {
+					if (fields == null) {
+						this.fields = new HashSet<Field>();
 					}
-				}
-				char[] className = reader.getClassName();
-				className = CharOperation.replaceOnCopy(className, '/', '.');
-				this.name = className;
-				if (DEBUG) {
-					System.out.println("Adding type: " + String.valueOf(className)); //$NON-NLS-1$
-				}
-				char[] scname = reader.getSuperclassName();
-				if (scname != null) {
-					scname = CharOperation.replaceOnCopy(scname, '/', '.');
-					this.superclassName = scname;
-				}
-				char[][] interfaceNames = CharOperation.deepCopy(reader.getInterfaceNames());
-				for (int i = 0, max = interfaceNames.length; i < max; i++) {
-					CharOperation.replace(interfaceNames[i], '/', '.');
-				}
-				this.superinterfacesNames = interfaceNames;
-				this.modifiers = reader.getAccessFlags();
-				char[] contents = getDocContents(info, this, docZip, docURL, docRoot);
-				IFieldInfo[] fieldInfos = reader.getFieldInfos();
-				int length = fieldInfos.length;
-				for (int i = 0; i < length; i++) {
-					IFieldInfo fieldInfo = fieldInfos[i];
-					if (isVisibleField(this.modifiers, fieldInfo.getAccessFlags())
-							&& checkDocStatus(fieldInfo, contents)) {
-						if (fields == null) {
-							this.fields = new HashSet<Field>();
-						}
-						Field field = new Field(fieldInfo.getName(), fieldInfo.getDescriptor());
-						fields.add(field);
-						if (DEBUG) {
-							System.out.println("Adding field: " + field); //$NON-NLS-1$
-						}
+					Field field = new Field(fieldInfo.getName(), fieldInfo.getDescriptor());
+					fields.add(field);
+					if (DEBUG) {
+						System.out.println("Adding field: " + field); //$NON-NLS-1$
 					}
 				}
-				IMethodInfo[] methodInfos = reader.getMethodInfos();
-				length = methodInfos.length;
-				for (int i = 0, max = methodInfos.length; i < max; i++) {
-					IMethodInfo methodInfo = methodInfos[i];
-					IClassFileAttribute[] attributes = methodInfo.getAttributes();
-					ISignatureAttribute signatureAttribute = null;
-					for (int j = 0, max2 = attributes.length; j < max2; j++) {
-						IClassFileAttribute currentAttribute = attributes[j];
-						if (CharOperation.equals(currentAttribute.getAttributeName(), IAttributeNamesConstants.SIGNATURE)) {
-							signatureAttribute = (ISignatureAttribute) currentAttribute;
-							break;
-						}
+			}
+			IMethodInfo[] methodInfos = reader.getMethodInfos();
+			length = methodInfos.length;
+			for (int i = 0, max = methodInfos.length; i < max; i++) {
+				IMethodInfo methodInfo = methodInfos[i];
+				IClassFileAttribute[] attributes = methodInfo.getAttributes();
+				ISignatureAttribute signatureAttribute = null;
+				for (int j = 0, max2 = attributes.length; j < max2; j++) {
+					IClassFileAttribute currentAttribute = attributes[j];
+					if (CharOperation.equals(currentAttribute.getAttributeName(), IAttributeNamesConstants.SIGNATURE)) {
+						signatureAttribute = (ISignatureAttribute) currentAttribute;
+						break;
 					}
-					char[] signature = null;
-					if (signatureAttribute != null) {
-						signature = signatureAttribute.getSignature();
+				}
+				char[] signature = null;
+				if (signatureAttribute != null) {
+					signature = signatureAttribute.getSignature();
+				} else {
+					signature = methodInfo.getDescriptor();
+				}
+				int accessFlags = methodInfo.getAccessFlags();
+				if (isVisibleMethod(this.modifiers, accessFlags)) {
+					char[] methodDocName = null;
+					int index = startingIndex;
+					if (methodInfo.isConstructor()) {
+						// use the type simple name
+						methodDocName = Util.getSimpleNameAsCharArray(this.name);
 					} else {
-						signature = methodInfo.getDescriptor();
+						methodDocName = methodInfo.getName();
+						index = 0;
 					}
-					int accessFlags = methodInfo.getAccessFlags();
-					if (isVisibleMethod(this.modifiers, accessFlags)) {
-						char[] methodDocName = null;
-						int index = startingIndex;
-						if (methodInfo.isConstructor()) {
-							// use the type simple name
-							methodDocName = Util.getSimpleNameAsCharArray(this.name);
-						} else {
-							methodDocName = methodInfo.getName();
-							index = 0;
+					if (checkDocStatus(index, accessFlags, methodDocName, signature, contents)) {
+						if (methods == null) {
+							this.methods = new HashSet<Method>();
 						}
-						if (checkDocStatus(index, accessFlags, methodDocName, signature, contents)) {
-							if (methods == null) {
-								this.methods = new HashSet<Method>();
-							}
-							Method method = new Method(
-									accessFlags,
-									methodInfo.getName(),
-									methodInfo.getDescriptor(),
-									signatureAttribute == null ? null : signature);
-							methods.add(method);
-							if (DEBUG) {
-								System.out.println("Adding method: " + method); //$NON-NLS-1$
-							}
+						Method method = new Method(
+								accessFlags,
+								methodInfo.getName(),
+								methodInfo.getDescriptor(),
+								signatureAttribute == null ? null : signature);
+						methods.add(method);
+						if (DEBUG) {
+							System.out.println("Adding method: " + method); //$NON-NLS-1$
 						}
 					}
 				}
-			} catch(IOException e) {
-				// no zip file
-				System.err.println("Missing doc zip at " + docZipFileName); //$NON-NLS-1$
-			} finally {
-				if (docZip != null) {
-					try {
-						docZip.close();
-					} catch (IOException e) {
-						// ignore
-					}
-				}
 			}
 		}
 
@@ -1647,24 +1825,24 @@ public class EEGenerator {
 			return isPublic(this.modifiers);
 		}
 
-		public void persistXML(Document document, Element parent, String OSGiProfileName) {
-			Element type = document.createElement(IApiXmlConstants.ELEMENT_TYPE);
-			parent.appendChild(type);
-			type.setAttribute(IApiXmlConstants.ATTR_NAME, getSimpleName());
+		public void persistXML(XmlStreamWriter writer, String OSGiProfileName) throws IOException {
+			writer.startElement(IApiXmlConstants.ELEMENT_TYPE);
+			// attributes are written in the order the former DOM serialization used
+			writer.attribute(IApiXmlConstants.ATTR_INTERFACE, Boolean.toString((this.modifiers & ClassFileConstants.AccInterface) != 0));
+			writer.attribute(IApiXmlConstants.ATTR_NAME, getSimpleName());
+			persistAnnotations(writer, OSGiProfileName);
 			if (this.superclassName != null) {
-				type.setAttribute(IApiXmlConstants.ATTR_SUPER_CLASS, new String(this.superclassName));
+				writer.attribute(IApiXmlConstants.ATTR_SUPER_CLASS, new String(this.superclassName));
 			}
 			if (this.superinterfacesNames != null && this.superinterfacesNames.length != 0) {
-				type.setAttribute(IApiXmlConstants.ATTR_SUPER_INTERFACES, Util.getInterfaces(this.superinterfacesNames));
+				writer.attribute(IApiXmlConstants.ATTR_SUPER_INTERFACES, Util.getInterfaces(this.superinterfacesNames));
 			}
-			type.setAttribute(IApiXmlConstants.ATTR_INTERFACE, Boolean.toString((this.modifiers & ClassFileConstants.AccInterface) != 0));
-			persistAnnotations(type, OSGiProfileName);
 			if (this.fields != null) {
 				Field[] allFields = new Field[this.fields.size()];
 				this.fields.toArray(allFields);
 				Arrays.sort(allFields);
 				for (int i = 0, max = allFields.length; i < max; i++) {
-					allFields[i].persistXML(document, type, OSGiProfileName);
+					allFields[i].persistXML(writer, OSGiProfileName);
 				}
 			}
 			if (this.methods != null) {
@@ -1672,9 +1850,10 @@ public class EEGenerator {
 				this.methods.toArray(allMethods);
 				Arrays.sort(allMethods);
 				for (int i = 0, max = allMethods.length; i < max; i++) {
-					allMethods[i].persistXML(document, type, OSGiProfileName);
+					allMethods[i].persistXML(writer, OSGiProfileName);
 				}
 			}
+			writer.endElement();
 		}
 		@Override
 		public String toString() {
@@ -1753,7 +1932,7 @@ public class EEGenerator {
 		EEGenerator generator = new EEGenerator();
 		generator.configure(args);
 		if (!generator.isInitialized()) {
-			System.err.println("Usage: -output <path to root to output files> -config <path to configuration file> -EEs <list of EE to generate separated with commas>"); //$NON-NLS-1$
+			System.err.println("Usage: -output <path to root to output files> -config <path to configuration file> -EEs <list of EE to generate separated with commas> [-threads <number of threads>] [-binary]"); //$NON-NLS-1$
 			return;
 		}
 		String property = System.getProperty("DEBUG"); //$NON-NLS-1$
@@ -1761,12 +1940,15 @@ public class EEGenerator {
 		generator.run();
 	}
 	private ProfileInfo[] allProfiles;
+	boolean binary;
 	String configurationFile;
 	
 	String[] EEToGenerate;
 
 	String output;
 
+	int threads = Runtime.getRuntime().availableProcessors();
+
 	private boolean checkFileProperty(String property) {
 		if (property == null) {
 			return false;
@@ -1791,6 +1973,7 @@ public class EEGenerator {
 		final int OUTPUT = 1;
 		final int CONFIG = 2;
 		final int EEs = 3;
+		final int THREADS = 4;
 		int mode = DEFAULT;
 		while (++index < argCount) {
 			currentArg = args[index];
@@ -1814,6 +1997,14 @@ public class EEGenerator {
 						mode = EEs;
 						continue;
 					}
+					if ("-threads".equals(currentArg)) { //$NON-NLS-1$
+						mode = THREADS;
+						continue;
+					}
+					if ("-binary".equals(currentArg)) { //$NON-NLS-1$
+						this.binary = true;
+						continue;
+					}
 					// ignore unknown arguments - might be passed in by the Eclipse application
 					continue;
 				case OUTPUT :
@@ -1841,6 +2032,17 @@ public class EEGenerator {
 					}
 					mode = DEFAULT;
 					continue;
+				case THREADS :
+					try {
+						this.threads = Integer.parseInt(currentArg);
+					} catch(NumberFormatException e) {
+						throw new IllegalArgumentException("Wrong threads value: " + currentArg); //$NON-NLS-1$
+					}
+					if (this.threads < 1) {
+						throw new IllegalArgumentException("Wrong threads value: " + currentArg); //$NON-NLS-1$
+					}
+					mode = DEFAULT;
+					continue;
 			}
 		}
 		if (this.output == null) {
@@ -1962,12 +2164,14 @@ public class EEGenerator {
 			ProfileInfo profileInfo = allProfiles[i];
 			if (profileInfo != null) {
 				try {
-					profileInfo.initializeData();
+					profileInfo.initializeData(this.threads);
 				} catch (IOException e) {
 					e.printStackTrace();
 				}
 				// persist the EE description
-				profileInfo.generateEEDescription(this.output);
+				profileInfo.generateEEDescription(this.output, this.binary);
+				// the data of a profile is not needed anymore once it has been persisted
+				profileInfo.dispose();
 			}
 		}
 	}
@@ -227,18 +227,30 @@ public class Util {
 		return subarray;
 	}
 	
+	/**
+	 * Returns the file with the given name in the given sub directory of the given root directory,
+	 * creating the directories if needed
+	 * @param rootDirName the root directory
+	 * @param subDirName the sub directory
+	 * @param fileName the file name, slashes are replaced with underscores
+	 * @return the file
+	 */
+	public static File getOutputFile(String rootDirName, String subDirName, String fileName) {
+		File rootDir = new File(rootDirName);
+		rootDir.mkdirs();
+		File subDir = new File(rootDir, subDirName);
+		subDir.mkdirs();
+		String fname = fileName;
+		if (fname.indexOf('/') != -1) {
+			fname = fname.replace('/', '_');
+		}
+		return new File(subDir, fname);
+	}
+
 	public static void write(String rootDirName, String subDirName, String fileName, String contents) {
 		BufferedWriter writer = null;
 		try {
-			File rootDir = new File(rootDirName);
-			rootDir.mkdirs();
-			File subDir = new File(rootDir, subDirName);
-			subDir.mkdirs();
-			String fname = fileName;
-			if (fname.indexOf('/') != -1) {
-				fname = fname.replace('/', '_');
-			}
-			writer = new BufferedWriter(new FileWriter(new File(subDir, fname)));
+			writer = new BufferedWriter(new FileWriter(getOutputFile(rootDirName, subDirName, fileName)));
 			writer.write(contents);
 			writer.flush();
 		} catch (IOException e) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2010 IBM Corporation and others.
+ * Copyright (c) 2009, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,7 +12,9 @@ package org.eclipse.pde.api.tools.anttasks.tests;
 
 import java.util.Properties;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
+import org.eclipse.pde.api.tools.internal.util.Util;
 
 public class ApiToolingAnalysisAntTaskTests extends AntRunnerTestCase {
 	public String getTestResourcesFolder() {
@@ -127,4 +129,32 @@ public class ApiToolingAnalysisAntTaskTests extends AntRunnerTestCase {
 		assertTrue("deltatest folder must exist", folder.exists());
 		assertTrue("report.xml file must be there", folder.getFile("report.xml").exists());
 	}
+	
+	/**
+	 * Tests that analyzing several components on more than one thread reports the same problems
+	 * as analyzing them on a single thread
+	 */
+	public void test8() throws Exception {
+		IFolder buildFolder = newTest("test8");
+		String buildXMLPath = buildFolder.getFile("build.xml").getLocation().toOSString();
+		String[] components = new String[] {"deltatest", "deltatest1", "deltatest2"};
+		String[] threads = new String[] {"1", "3"};
+		for (int i = 0; i < threads.length; i++) {
+			Properties properties = new Properties();
+			properties.put("reference_location", buildFolder.getFile("before").getLocation().toOSString());
+			properties.put("current_location", buildFolder.getFile("after").getLocation().toOSString());
+			properties.put("report_location", buildFolder.getFolder("report" + threads[i]).getLocation().toOSString());
+			properties.put("threads", threads[i]);
+			runAntScript(buildXMLPath, new String[] {"run"}, buildFolder.getLocation().toOSString(), properties);
+		}
+		for (int i = 0; i < components.length; i++) {
+			IFile single = buildFolder.getFolder("report1").getFolder(components[i]).getFile("report.xml");
+			IFile parallel = buildFolder.getFolder("report3").getFolder(components[i]).getFile("report.xml");
+			assertTrue("report.xml file must be there for " + components[i], single.exists());
+			assertTrue("parallel report.xml file must be there for " + components[i], parallel.exists());
+			assertEquals("the reports must not depend on the number of threads for " + components[i],
+					Util.getFileContentAsString(single.getLocation().toFile()),
+					Util.getFileContentAsString(parallel.getLocation().toFile()));
+		}
+	}
 }
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.builder.tests.compatibility;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.pde.api.tools.internal.ApiBaselineManager;
+import org.eclipse.pde.api.tools.internal.builder.ApiChangeScheduler;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
+
+/**
+ * Tests the decisions of the {@link ApiChangeScheduler} to propagate or skip changes
+ * of a required project
+ * 
+ * @since 1.0.400
+ */
+public class ApiChangeSchedulerTests extends CompatibilityTest {
+
+	static final String TYPE_NAME = "a/classes/fields/AddPrivateField";
+	
+	/**
+	 * Constructor
+	 * @param name
+	 */
+	public ApiChangeSchedulerTests(String name) {
+		super(name);
+	}
+	
+	/**
+	 * @return the tests for this class
+	 */
+	public static Test suite() {
+		return buildTestSuite(ApiChangeSchedulerTests.class);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.builder.tests.ApiBuilderTest#getTestingProjectName()
+	 */
+	@Override
+	protected String getTestingProjectName() {
+		// not used
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.builder.tests.ApiBuilderTest#getDefaultProblemId()
+	 */
+	@Override
+	protected int getDefaultProblemId() {
+		// not used
+		return 0;
+	}
+	
+	/**
+	 * Replaces the source of the test type, builds and records the API state of the built file
+	 * @param scheduler
+	 * @param project
+	 * @param body the body of the test type followed by any secondary types
+	 * @return the source file of the test type
+	 */
+	IFile update(ApiChangeScheduler scheduler, IProject project, String body) {
+		IPath path = getEnv().addClass(project.getFullPath().append("src/a/classes/fields"), "AddPrivateField",
+				"package a.classes.fields;\npublic class AddPrivateField {\n" + body);
+		incrementalBuild();
+		IFile file = getEnv().getWorkspace().getRoot().getFile(path);
+		record(scheduler, project, file);
+		return file;
+	}
+	
+	/**
+	 * Records the API state of the test type with the scheduler
+	 * @param scheduler
+	 * @param project
+	 * @param file
+	 */
+	void record(ApiChangeScheduler scheduler, IProject project, IFile file) {
+		IApiBaseline baseline = ApiBaselineManager.getManager().getWorkspaceBaseline();
+		scheduler.recordBuiltType(file, TYPE_NAME, baseline.getApiComponent(project));
+	}
+	
+	/**
+	 * Tests that changes are propagated until a dependent build completed and are skipped 
+	 * while the API of the changed types stays the same
+	 * 
+	 * @throws Exception
+	 */
+	public void testPropagateAndSkip() throws Exception {
+		ApiChangeScheduler scheduler = ApiChangeScheduler.getDefault();
+		IProject project = getEnv().getProject("bundle.a");
+		IProject dependent = getEnv().getWorkspace().getRoot().getProject("dependent.of.bundle.a");
+		scheduler.forget(project);
+		scheduler.forget(dependent);
+		IFile file = project.getFile(new Path("src/a/classes/fields/AddPrivateField.java"));
+		assertTrue("changes without a recorded API state should be propagated", scheduler.shouldPropagate(dependent, file));
+		record(scheduler, project, file);
+		assertTrue("an API state that was not analyzed should be propagated", scheduler.shouldPropagate(dependent, file));
+		scheduler.endBuild(dependent, false);
+		assertTrue("changes propagated to a failed build should be propagated again", scheduler.shouldPropagate(dependent, file));
+		scheduler.endBuild(dependent, true);
+		assertFalse("an analyzed API state should not be propagated again", scheduler.shouldPropagate(dependent, file));
+		scheduler.endBuild(dependent, true);
+		
+		file = update(scheduler, project, "\tprivate int field = 0;\n}\n");
+		assertFalse("adding a private field should not be propagated", scheduler.shouldPropagate(dependent, file));
+		scheduler.endBuild(dependent, true);
+		
+		file = update(scheduler, project, "\tpublic int field = 0;\n}\n");
+		assertTrue("adding a public field should be propagated", scheduler.shouldPropagate(dependent, file));
+		scheduler.endBuild(dependent, true);
+		
+		file = update(scheduler, project, "\tpublic int field = 0;\n}\nclass Secondary {\n\tpublic void m() {}\n}\n");
+		assertTrue("adding a secondary type should be propagated", scheduler.shouldPropagate(dependent, file));
+		scheduler.endBuild(dependent, true);
+		
+		file = update(scheduler, project, "\tpublic int field = 0;\n}\nclass Secondary {\n\tpublic void m() {\n\t\tm();\n\t}\n}\n");
+		assertFalse("changing a method body of a secondary type should not be propagated", scheduler.shouldPropagate(dependent, file));
+		scheduler.endBuild(dependent, true);
+		
+		file = update(scheduler, project, "\tpublic int field = 0;\n}\nclass Secondary {\n\tpublic void m() {}\n\tpublic void n() {}\n}\n");
+		assertTrue("adding a method to a secondary type should be propagated", scheduler.shouldPropagate(dependent, file));
+		scheduler.endBuild(dependent, true);
+		assertFalse("the analyzed API state should not be propagated again", scheduler.shouldPropagate(dependent, file));
+		scheduler.forget(dependent);
+	}
+}
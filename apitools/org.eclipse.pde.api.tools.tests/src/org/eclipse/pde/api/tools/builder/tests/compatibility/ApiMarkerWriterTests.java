@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.builder.tests.compatibility;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.pde.api.tools.internal.builder.ApiMarkerWriter;
+import org.eclipse.pde.api.tools.internal.provisional.IApiMarkerConstants;
+
+/**
+ * Tests that the {@link ApiMarkerWriter} keeps, replaces and deletes existing markers
+ * 
+ * @since 1.0.400
+ */
+public class ApiMarkerWriterTests extends CompatibilityTest {
+
+	/**
+	 * The file the markers are created on
+	 */
+	IFile file = null;
+	
+	/**
+	 * Constructor
+	 * @param name
+	 */
+	public ApiMarkerWriterTests(String name) {
+		super(name);
+	}
+	
+	/**
+	 * @return the tests for this class
+	 */
+	public static Test suite() {
+		return buildTestSuite(ApiMarkerWriterTests.class);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.builder.tests.ApiBuilderTest#getTestingProjectName()
+	 */
+	@Override
+	protected String getTestingProjectName() {
+		// not used
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.builder.tests.ApiBuilderTest#getDefaultProblemId()
+	 */
+	@Override
+	protected int getDefaultProblemId() {
+		// not used
+		return 0;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.builder.tests.compatibility.CompatibilityTest#setUp()
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		file = getEnv().getProject("bundle.a").getFile("markers.txt");
+		file.create(new ByteArrayInputStream(new byte[0]), true, null);
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.builder.tests.compatibility.CompatibilityTest#tearDown()
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		if(file != null && file.exists()) {
+			file.delete(true, null);
+		}
+		super.tearDown();
+	}
+	
+	/**
+	 * Returns the marker attributes for the given message and severity
+	 * @param message
+	 * @param severity
+	 * @return the attribute map
+	 */
+	Map<String, Object> attributes(String message, int severity) {
+		HashMap<String, Object> attributes = new HashMap<String, Object>();
+		attributes.put(IMarker.MESSAGE, message);
+		attributes.put(IMarker.SEVERITY, new Integer(severity));
+		return attributes;
+	}
+	
+	/**
+	 * Creates a marker of the given type directly on the test file
+	 * @param type
+	 * @param attributes
+	 * @return the new marker
+	 * @throws Exception
+	 */
+	IMarker create(String type, Map<String, Object> attributes) throws Exception {
+		IMarker marker = file.createMarker(type);
+		marker.setAttributes(attributes);
+		return marker;
+	}
+	
+	/**
+	 * Returns the markers of the given type on the test file
+	 * @param type
+	 * @return the markers
+	 * @throws Exception
+	 */
+	IMarker[] markers(String type) throws Exception {
+		return file.findMarkers(type, false, IResource.DEPTH_ZERO);
+	}
+	
+	/**
+	 * Tests that an existing marker with the same attributes as a new one is kept
+	 * 
+	 * @throws Exception
+	 */
+	public void testKeep() throws Exception {
+		String type = IApiMarkerConstants.COMPATIBILITY_PROBLEM_MARKER;
+		IMarker marker = create(type, attributes("removed", IMarker.SEVERITY_ERROR));
+		ApiMarkerWriter writer = new ApiMarkerWriter(file.getProject());
+		writer.deleteMarkers(file, type, false, IResource.DEPTH_ZERO);
+		writer.createMarker(file, type, attributes("removed", IMarker.SEVERITY_ERROR));
+		writer.apply(null);
+		IMarker[] markers = markers(type);
+		assertEquals("there should be one marker", 1, markers.length);
+		assertEquals("the existing marker should be kept", marker.getId(), markers[0].getId());
+		assertTrue("the writer should be empty after applying it", writer.isEmpty());
+	}
+	
+	/**
+	 * Tests that an existing marker with different attributes is replaced by the new one
+	 * 
+	 * @throws Exception
+	 */
+	public void testReplace() throws Exception {
+		String type = IApiMarkerConstants.COMPATIBILITY_PROBLEM_MARKER;
+		IMarker marker = create(type, attributes("removed", IMarker.SEVERITY_ERROR));
+		ApiMarkerWriter writer = new ApiMarkerWriter(file.getProject());
+		writer.deleteMarkers(file, type, false, IResource.DEPTH_ZERO);
+		writer.createMarker(file, type, attributes("changed", IMarker.SEVERITY_ERROR));
+		writer.apply(null);
+		IMarker[] markers = markers(type);
+		assertEquals("there should be one marker", 1, markers.length);
+		assertFalse("the existing marker should be deleted", marker.exists());
+		assertEquals("wrong message", "changed", markers[0].getAttribute(IMarker.MESSAGE, null));
+	}
+	
+	/**
+	 * Tests that existing markers are deleted if no new marker replaces them
+	 * 
+	 * @throws Exception
+	 */
+	public void testDelete() throws Exception {
+		String type = IApiMarkerConstants.COMPATIBILITY_PROBLEM_MARKER;
+		IMarker marker = create(type, attributes("removed", IMarker.SEVERITY_ERROR));
+		ApiMarkerWriter writer = new ApiMarkerWriter(file.getProject());
+		writer.deleteMarkers(file, type, false, IResource.DEPTH_ZERO);
+		assertTrue("the marker should only be deleted when the writer is applied", marker.exists());
+		writer.apply(null);
+		assertEquals("there should be no markers", 0, markers(type).length);
+	}
+	
+	/**
+	 * Tests that an existing use scan marker with the same message and severity is kept, even if its other
+	 * attributes differ, and that the other use scan markers are deleted
+	 * 
+	 * @throws Exception
+	 */
+	public void testUseScanKeep() throws Exception {
+		String type = IApiMarkerConstants.API_USESCAN_PROBLEM_MARKER;
+		Map<String, Object> attributes = attributes("missing type", IMarker.SEVERITY_WARNING);
+		attributes.put(IMarker.LINE_NUMBER, new Integer(3));
+		IMarker marker = create(type, attributes);
+		IMarker other = create(type, attributes("missing method", IMarker.SEVERITY_WARNING));
+		ApiMarkerWriter writer = new ApiMarkerWriter(file.getProject());
+		writer.createUseScanMarker(file, type, attributes("Missing Type", IMarker.SEVERITY_WARNING));
+		writer.apply(null);
+		IMarker[] markers = markers(type);
+		assertEquals("there should be one marker", 1, markers.length);
+		assertEquals("the existing marker should be kept", marker.getId(), markers[0].getId());
+		assertFalse("the marker with another message should be deleted", other.exists());
+	}
+	
+	/**
+	 * Tests that an existing use scan marker with a different severity is replaced by the new one
+	 * 
+	 * @throws Exception
+	 */
+	public void testUseScanReplace() throws Exception {
+		String type = IApiMarkerConstants.API_USESCAN_PROBLEM_MARKER;
+		IMarker marker = create(type, attributes("missing type", IMarker.SEVERITY_WARNING));
+		ApiMarkerWriter writer = new ApiMarkerWriter(file.getProject());
+		writer.createUseScanMarker(file, type, attributes("missing type", IMarker.SEVERITY_ERROR));
+		writer.apply(null);
+		IMarker[] markers = markers(type);
+		assertEquals("there should be one marker", 1, markers.length);
+		assertFalse("the existing marker should be deleted", marker.exists());
+		assertEquals("wrong severity", IMarker.SEVERITY_ERROR, markers[0].getAttribute(IMarker.SEVERITY, -1));
+	}
+}
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.builder.tests.compatibility;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.pde.api.tools.internal.builder.BuildState;
+import org.eclipse.pde.api.tools.internal.comparator.Delta;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.comparator.IDelta;
+
+/**
+ * Tests the log format of the saved {@link BuildState}
+ * 
+ * @since 1.0.400
+ */
+public class BuildStateTests extends CompatibilityTest {
+
+	/**
+	 * The saved state of the test project before the test ran
+	 */
+	byte[] savedstate = null;
+	
+	/**
+	 * Constructor
+	 * @param name
+	 */
+	public BuildStateTests(String name) {
+		super(name);
+	}
+	
+	/**
+	 * @return the tests for this class
+	 */
+	public static Test suite() {
+		return buildTestSuite(BuildStateTests.class);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.builder.tests.ApiBuilderTest#getTestingProjectName()
+	 */
+	@Override
+	protected String getTestingProjectName() {
+		// not used
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.builder.tests.ApiBuilderTest#getDefaultProblemId()
+	 */
+	@Override
+	protected int getDefaultProblemId() {
+		// not used
+		return 0;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.builder.tests.compatibility.CompatibilityTest#setUp()
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		File file = getStateFile();
+		assertTrue("the test project should have a saved build state", file.exists());
+		savedstate = new byte[(int) file.length()];
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			in.readFully(savedstate);
+		}
+		finally {
+			in.close();
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.builder.tests.compatibility.CompatibilityTest#tearDown()
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		if(savedstate != null) {
+			FileOutputStream out = new FileOutputStream(getStateFile());
+			try {
+				out.write(savedstate);
+			}
+			finally {
+				out.close();
+			}
+		}
+		super.tearDown();
+	}
+	
+	/**
+	 * @return the test project
+	 */
+	IProject getProject() {
+		return getEnv().getProject("bundle.a");
+	}
+	
+	/**
+	 * @return the file the build state of the test project is saved in
+	 */
+	File getStateFile() {
+		return getProject().getWorkingLocation(ApiPlugin.PLUGIN_ID).append("state.dat").toFile();
+	}
+	
+	/**
+	 * Reads the saved build state of the test project
+	 * @return the build state
+	 * @throws Exception
+	 */
+	BuildState readState() throws Exception {
+		BuildState state = BuildState.getLastBuiltState(getProject());
+		assertNotNull("the build state should be readable", state);
+		return state;
+	}
+	
+	/**
+	 * Creates a new delta for a method of the given type
+	 * @param typename
+	 * @param kind
+	 * @param key
+	 * @return a new delta
+	 */
+	IDelta newDelta(String typename, int kind, String key) {
+		return new Delta(null, IDelta.CLASS_ELEMENT_TYPE, kind, IDelta.METHOD, typename, key, key);
+	}
+	
+	/**
+	 * Returns a description of each of the given deltas
+	 * @param deltas
+	 * @return the descriptions
+	 */
+	Set<String> describe(IDelta[] deltas) {
+		HashSet<String> descriptions = new HashSet<String>();
+		for (int i = 0; i < deltas.length; i++) {
+			descriptions.add(deltas[i].getTypeName()+"#"+deltas[i].getKey()+":"+deltas[i].getKind()+":"+deltas[i].getFlags());
+		}
+		return descriptions;
+	}
+	
+	/**
+	 * Asserts that the given states record the same deltas
+	 * @param expected
+	 * @param state
+	 */
+	void assertDeltas(BuildState expected, BuildState state) {
+		assertEquals("wrong compatible changes", describe(expected.getCompatibleChanges()), describe(state.getCompatibleChanges()));
+		assertEquals("wrong breaking changes", describe(expected.getBreakingChanges()), describe(state.getBreakingChanges()));
+	}
+	
+	/**
+	 * Tests that changes appended to the log are read back and match a compact snapshot of the state
+	 * 
+	 * @throws Exception
+	 */
+	public void testRoundTrip() throws Exception {
+		BuildState state = readState();
+		state.addCompatibleChange(newDelta("a.B", IDelta.ADDED, "m()V"));
+		state.addBreakingChange(newDelta("a.C", IDelta.REMOVED, "n()V"));
+		state.addApiToolingDependentProject("dependent.of.bundle.a");
+		long length = getStateFile().length();
+		BuildState.setLastBuiltState(getProject(), state);
+		assertTrue("the changes should be appended", getStateFile().length() > length);
+		BuildState read = readState();
+		assertDeltas(state, read);
+		assertTrue("the dependent project should be saved", read.getApiToolingDependentProjects().contains("dependent.of.bundle.a"));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		BuildState.write(read, out);
+		out.close();
+		BuildState copy = BuildState.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertNotNull("the snapshot should be readable", copy);
+		assertDeltas(read, copy);
+	}
+	
+	/**
+	 * Tests that a partially written final save is ignored and overwritten by the next save
+	 * 
+	 * @throws Exception
+	 */
+	public void testPartialRecord() throws Exception {
+		BuildState state = readState();
+		state.addBreakingChange(newDelta("a.C", IDelta.REMOVED, "n()V"));
+		BuildState.setLastBuiltState(getProject(), state);
+		BuildState committed = readState();
+		long length = getStateFile().length();
+		state = readState();
+		state.addBreakingChange(newDelta("a.D", IDelta.REMOVED, "o()V"));
+		BuildState.setLastBuiltState(getProject(), state);
+		// cut off the end of the last save
+		RandomAccessFile raf = new RandomAccessFile(getStateFile(), "rw");
+		try {
+			assertTrue("the second save should have been appended", raf.length() > length + 3);
+			raf.setLength(raf.length() - 3);
+		}
+		finally {
+			raf.close();
+		}
+		state = readState();
+		assertDeltas(committed, state);
+		state.addCompatibleChange(newDelta("a.B", IDelta.ADDED, "m()V"));
+		BuildState.setLastBuiltState(getProject(), state);
+		BuildState read = readState();
+		assertDeltas(state, read);
+		assertEquals("the partial save should have been dropped", 1, read.getCompatibleChanges().length - committed.getCompatibleChanges().length);
+	}
+	
+	/**
+	 * Tests that the log is rewritten as a snapshot once it holds many more records than deltas
+	 * 
+	 * @throws Exception
+	 */
+	public void testCompaction() throws Exception {
+		long max = 0;
+		BuildState state = null;
+		for (int i = 0; i < 400; i++) {
+			state = readState();
+			state.cleanup("a.C");
+			state.addBreakingChange(newDelta("a.C", IDelta.REMOVED, "m"+i+"()V"));
+			BuildState.setLastBuiltState(getProject(), state);
+			max = Math.max(max, getStateFile().length());
+		}
+		assertTrue("the log should have been compacted", getStateFile().length() < max);
+		BuildState read = readState();
+		assertDeltas(state, read);
+		assertTrue("only the last delta should be left", describe(read.getBreakingChanges()).contains("a.C#m399()V:"+IDelta.REMOVED+":"+IDelta.METHOD));
+	}
+	
+	/**
+	 * Tests that the complete state is written if the log was removed since it was read
+	 * 
+	 * @throws Exception
+	 */
+	public void testRemovedLog() throws Exception {
+		BuildState state = readState();
+		state.addBreakingChange(newDelta("a.C", IDelta.REMOVED, "n()V"));
+		assertTrue("the log should be removed", getStateFile().delete());
+		BuildState.setLastBuiltState(getProject(), state);
+		assertDeltas(state, readState());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2010 IBM Corporation and others.
+ * Copyright (c) 2008, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -86,6 +86,10 @@ public abstract class CompatibilityTest extends ApiBuilderTest {
 			VersionTest.class,
 			BundleMergeSplitTests.class,
 			BundleVersionTests.class,
+			DependentsIndexTests.class,
+			ApiChangeSchedulerTests.class,
+			BuildStateTests.class,
+			ApiMarkerWriterTests.class,
 		};
 		return classes;
 	}
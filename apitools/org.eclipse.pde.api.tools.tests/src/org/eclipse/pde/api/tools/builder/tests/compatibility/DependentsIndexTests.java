@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.builder.tests.compatibility;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.internal.core.JavaModelManager;
+import org.eclipse.jdt.internal.core.builder.ReferenceCollection;
+import org.eclipse.jdt.internal.core.builder.State;
+import org.eclipse.jdt.internal.core.builder.StringSet;
+import org.eclipse.jdt.internal.core.util.SimpleLookupTable;
+import org.eclipse.pde.api.tools.internal.builder.DependentsIndex;
+
+/**
+ * Tests the {@link DependentsIndex} against the references of the JDT build state
+ * 
+ * @since 1.0.400
+ */
+public class DependentsIndexTests extends CompatibilityTest {
+
+	/**
+	 * Constructor
+	 * @param name
+	 */
+	public DependentsIndexTests(String name) {
+		super(name);
+	}
+	
+	/**
+	 * @return the tests for this class
+	 */
+	public static Test suite() {
+		return buildTestSuite(DependentsIndexTests.class);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.builder.tests.ApiBuilderTest#getTestingProjectName()
+	 */
+	@Override
+	protected String getTestingProjectName() {
+		// not used
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.builder.tests.ApiBuilderTest#getDefaultProblemId()
+	 */
+	@Override
+	protected int getDefaultProblemId() {
+		// not used
+		return 0;
+	}
+	
+	/**
+	 * Returns the last JDT build state of the given project
+	 * @param project
+	 * @return the JDT build state
+	 * @throws CoreException
+	 */
+	State getState(IProject project) throws CoreException {
+		State state = (State) JavaModelManager.getJavaModelManager().getLastBuiltState(project, null);
+		assertNotNull("there should be a JDT build state", state);
+		return state;
+	}
+	
+	/**
+	 * Collects the type locators referencing the given simple name by walking all of the references of the state
+	 * @param state
+	 * @param name
+	 * @return the type locators referencing the name
+	 */
+	Set<String> scan(State state, String name) {
+		StringSet set = new StringSet(1);
+		set.add(name);
+		char[][] interned = ReferenceCollection.internSimpleNames(set, false);
+		char[][] names = new char[][] {interned.length > 0 ? interned[0] : name.toCharArray()};
+		HashSet<String> locators = new HashSet<String>();
+		SimpleLookupTable references = state.getReferences();
+		for (int i = 0; i < references.keyTable.length; i++) {
+			String locator = (String) references.keyTable[i];
+			if(locator != null && ((ReferenceCollection) references.valueTable[i]).includes(null, names, null)) {
+				locators.add(locator);
+			}
+		}
+		return locators;
+	}
+	
+	/**
+	 * Asserts that the index returns the same dependents for the given name as a walk over all references
+	 * @param state
+	 * @param index
+	 * @param name
+	 */
+	void assertDependents(State state, DependentsIndex index, String name) {
+		assertEquals("wrong dependents of "+name, scan(state, name), index.getDependents(state, new String[] {name}));
+	}
+	
+	/**
+	 * Tests that indexed names find the same dependents as the full scan, before and after
+	 * a changed source file has been re-indexed
+	 * 
+	 * @throws Exception
+	 */
+	public void testDependents() throws Exception {
+		IProject project = getEnv().getProject("bundle.a");
+		State state = getState(project);
+		DependentsIndex index = new DependentsIndex();
+		assertDependents(state, index, "AddPrivateField");
+		assertDependents(state, index, "Object");
+		assertEquals("both names should be indexed", 2, index.size());
+		IPath path = getEnv().addClass(project.getFullPath().append("src/a/classes/fields"), "UsesAddPrivateField",
+				"package a.classes.fields;\npublic class UsesAddPrivateField {\n\tAddPrivateField field;\n}\n");
+		incrementalBuild();
+		state = getState(project);
+		String locator = path.removeFirstSegments(1).toString();
+		index.update(state, new String[] {locator});
+		assertTrue("the added type should be a dependent", index.getDependents(state, new String[] {"AddPrivateField"}).contains(locator));
+		assertDependents(state, index, "AddPrivateField");
+		assertDependents(state, index, "Object");
+	}
+}
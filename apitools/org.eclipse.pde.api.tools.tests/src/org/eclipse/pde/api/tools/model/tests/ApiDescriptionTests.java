@@ -26,6 +26,7 @@ import org.eclipse.pde.api.tools.internal.ApiDescription;
 import org.eclipse.pde.api.tools.internal.ApiDescriptionProcessor;
 import org.eclipse.pde.api.tools.internal.ApiDescriptionXmlCreator;
 import org.eclipse.pde.api.tools.internal.IApiCoreConstants;
+import org.eclipse.pde.api.tools.internal.builder.RestrictionIndex;
 import org.eclipse.pde.api.tools.internal.model.ApiModelFactory;
 import org.eclipse.pde.api.tools.internal.provisional.ApiDescriptionVisitor;
 import org.eclipse.pde.api.tools.internal.provisional.Factory;
@@ -811,4 +812,41 @@ public class ApiDescriptionTests extends TestCase {
 		IApiComponent componentA = profile.getApiComponent("component.a");
 		assertTrue("Should have an .api_description file", componentA.hasApiDescription());
 	}	
+	
+	/**
+	 * Tests that the flattened restriction index resolves the same annotations as the description,
+	 * including elements without a node of their own, and that it is rebuilt when the description changes
+	 */
+	public void testRestrictionIndex() {
+		IApiDescription manifest = buildManifest();
+		RestrictionIndex index = RestrictionIndex.getIndex(manifest);
+		assertNotNull("the description should be indexed", index);
+		IElementDescriptor[] elements = new IElementDescriptor[] {
+				Factory.typeDescriptor("A"),
+				Factory.typeDescriptor("C"),
+				Factory.fieldDescriptor("D", "f1"),
+				Factory.fieldDescriptor("D", "unknown"),
+				Factory.methodDescriptor("B", "m1", Signature.createMethodSignature(new String[0], Signature.SIG_VOID)),
+				Factory.typeDescriptor("a.b.c.spi.SpiD"),
+				Factory.fieldDescriptor("a.b.c.spi.SpiD","f3"),
+				Factory.typeDescriptor("a.b.c.internal.PA"),
+				Factory.typeDescriptor("x.y.Unknown")
+		};
+		for (int i = 0; i < elements.length; i++) {
+			IApiAnnotations expected = manifest.resolveAnnotations(elements[i]);
+			IApiAnnotations actual = index.resolve(elements[i]);
+			if(expected == null) {
+				assertNull("should not resolve " + elements[i], actual);
+				continue;
+			}
+			assertNotNull("should resolve " + elements[i], actual);
+			assertEquals("wrong visibility for " + elements[i], expected.getVisibility(), actual.getVisibility());
+			assertEquals("wrong restrictions for " + elements[i], expected.getRestrictions(), actual.getRestrictions());
+		}
+		assertSame("the index should be shared", index, RestrictionIndex.getIndex(manifest));
+		manifest.setRestrictions(Factory.typeDescriptor("A"), RestrictionModifiers.NO_EXTEND);
+		RestrictionIndex changed = RestrictionIndex.getIndex(manifest);
+		assertNotSame("the index should be rebuilt", index, changed);
+		assertEquals("the new restriction should be indexed", RestrictionModifiers.NO_EXTEND, changed.resolve(Factory.typeDescriptor("A")).getRestrictions());
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 IBM Corporation and others.
+ * Copyright (c) 2009, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.model.tests;
 
+import java.util.Vector;
+
 import junit.framework.TestCase;
 
 import org.eclipse.pde.api.tools.internal.model.ApiModelCache;
@@ -161,4 +163,51 @@ public class ApiModelCacheTests extends TestCase {
 		assertTrue("The type 'a.b.c.testee1' should have been removed from the cache", ApiModelCache.getCache().removeElementInfo(element));
 		assertTrue("The cache should be empty", ApiModelCache.getCache().isEmpty());
 	}
+	
+	/**
+	 * Tests caching, retrieving and removing types from several threads at once, the way the 
+	 * workers of a parallel search or analysis use the shared cache
+	 * 
+	 * @throws Exception
+	 */
+	public void testConcurrentAccess() throws Exception {
+		final Vector<String> failures = new Vector<String>();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			final String compid = TEST_COMP_ID + i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int j = 0; j < 20; j++) {
+							String typename = "a.b.c.testee" + j;
+							ApiModelCache.getCache().cacheElementInfo(TestSuiteHelper.createTestingApiType(TEST_BASELINE_ID, compid, typename, "()V", null, 0, null));
+							ApiModelCache.getCache().cacheElementInfo(TestSuiteHelper.createTestingApiType(TEST_BASELINE_ID, compid, typename + "$inner", "()V", null, 0, null));
+						}
+						for (int j = 0; j < 20; j++) {
+							String typename = "a.b.c.testee" + j;
+							if (ApiModelCache.getCache().getElementInfo(TEST_BASELINE_ID, compid, typename, IApiElement.TYPE) == null) {
+								failures.add("The type " + typename + " should have been retrieved for " + compid);
+							}
+							if (ApiModelCache.getCache().getElementInfo(TEST_BASELINE_ID, compid, typename + "$inner", IApiElement.TYPE) == null) {
+								failures.add("The type " + typename + "$inner should have been retrieved for " + compid);
+							}
+							if (!ApiModelCache.getCache().removeElementInfo(TEST_BASELINE_ID, compid, typename, IApiElement.TYPE)) {
+								failures.add("The type " + typename + " should have been removed for " + compid);
+							}
+						}
+					}
+					catch (Throwable t) {
+						failures.add(t.toString());
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+		assertTrue("There should be no failures: " + failures, failures.isEmpty());
+		assertTrue("The cache should be empty", ApiModelCache.getCache().isEmpty());
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 IBM Corporation and others.
+ * Copyright (c) 2007, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,10 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.model.tests;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Map;
+import java.util.TreeSet;
 
 import junit.framework.TestCase;
 
@@ -22,11 +25,13 @@ import org.eclipse.pde.api.tools.internal.ApiDescription;
 import org.eclipse.pde.api.tools.internal.CompilationUnit;
 import org.eclipse.pde.api.tools.internal.model.ArchiveApiTypeContainer;
 import org.eclipse.pde.api.tools.internal.model.DirectoryApiTypeContainer;
+import org.eclipse.pde.api.tools.internal.provisional.ApiDescriptionVisitor;
 import org.eclipse.pde.api.tools.internal.provisional.Factory;
 import org.eclipse.pde.api.tools.internal.provisional.IApiAnnotations;
 import org.eclipse.pde.api.tools.internal.provisional.IApiDescription;
 import org.eclipse.pde.api.tools.internal.provisional.RestrictionModifiers;
 import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor;
 import org.eclipse.pde.api.tools.internal.provisional.model.ApiTypeContainerVisitor;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiElement;
@@ -1059,4 +1064,63 @@ public class TagScannerTests extends TestCase {
 		IApiAnnotations description = manifest.resolveAnnotations(Factory.fieldDescriptor("a.b.c.InvalidTagScanField3", "field"));
 		assertNull("there should be no annotations for field 'field'", description);
 	}
+	
+	/**
+	 * Collects all of the Java source files in the given directory and its sub directories
+	 * @param dir
+	 * @param units the list to add the compilation units to
+	 */
+	private void collectCompilationUnits(File dir, ArrayList<CompilationUnit> units) {
+		File[] files = dir.listFiles();
+		for (int i = 0; i < files.length; i++) {
+			if(files[i].isDirectory()) {
+				collectCompilationUnits(files[i], units);
+			}
+			else if(files[i].getName().endsWith(".java")) {
+				units.add(new CompilationUnit(files[i].getAbsolutePath()));
+			}
+		}
+	}
+	
+	/**
+	 * Scans the given units with the given number of threads and returns a description of each 
+	 * annotated element of the resulting API description, followed by the number of units that could not be scanned
+	 * @param units
+	 * @param threads
+	 * @return the sorted descriptions of the annotated elements
+	 */
+	private TreeSet<String> scanAll(CompilationUnit[] units, int threads) {
+		IApiDescription manifest = newDescription();
+		int failures = 0;
+		try {
+			TagScanner.newScanner().scan(units, manifest, null, null, threads, null);
+		}
+		catch(CoreException e) {
+			failures = e.getStatus().isMultiStatus() ? e.getStatus().getChildren().length : 1;
+		}
+		final TreeSet<String> elements = new TreeSet<String>();
+		manifest.accept(new ApiDescriptionVisitor() {
+			@Override
+			public boolean visitElement(IElementDescriptor element, IApiAnnotations description) {
+				elements.add(element.toString()+" visibility="+description.getVisibility()+" restrictions="+description.getRestrictions());
+				return true;
+			}
+		}, null);
+		elements.add("failures="+failures);
+		return elements;
+	}
+	
+	/**
+	 * Tests that scanning all of the test sources on several threads results in the same API description
+	 * as scanning them on the calling thread
+	 */
+	public void testParallelScan() {
+		ArrayList<CompilationUnit> units = new ArrayList<CompilationUnit>();
+		collectCompilationUnits(SRC_LOC.toFile(), units);
+		CompilationUnit[] sources = units.toArray(new CompilationUnit[units.size()]);
+		assertTrue("there should be test sources to scan", sources.length > 1);
+		TreeSet<String> sequential = scanAll(sources, 1);
+		assertTrue("the scan should annotate elements", sequential.size() > 1);
+		assertEquals("the parallel scan should result in the same API description", sequential, scanAll(sources, 4));
+	}
 }
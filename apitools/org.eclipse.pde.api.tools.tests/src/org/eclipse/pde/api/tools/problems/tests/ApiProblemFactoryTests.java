@@ -171,7 +171,27 @@ public class ApiProblemFactoryTests extends AbstractApiTest {
 				null, new String[] {"fooconstructor"}, null, null, -1, -1, -1, IElementDescriptor.TYPE, IApiProblem.API_LEAK, IApiProblem.LEAK_CONSTRUCTOR_PARAMETER);
 		validateProblem(1, problem);
 	}
-	
+
+	/**
+	 * Tests that cached messages are only reused for the same message arguments
+	 */
+	public void testCachedMessages() {
+		int id = ApiProblemFactory.getProblemMessageId(IApiProblem.CATEGORY_USAGE, IElementDescriptor.TYPE, IApiProblem.ILLEGAL_EXTEND, IApiProblem.NO_FLAGS);
+		String[] args = new String[] {"foo"};
+		String message = ApiProblemFactory.getLocalizedMessage(id, args);
+		assertTrue("the message should contain the argument", message.indexOf("foo") > -1);
+		assertEquals("the message should be the same", message, ApiProblemFactory.getLocalizedMessage(id, new String[] {"foo"}));
+		args[0] = "bar";
+		String other = ApiProblemFactory.getLocalizedMessage(id, args);
+		assertTrue("the message should contain the new argument", other.indexOf("bar") > -1);
+		assertFalse("the message should not contain the old argument", other.indexOf("foo") > -1);
+		assertEquals("the first message should still be cached", message, ApiProblemFactory.getLocalizedMessage(id, new String[] {"foo"}));
+		String[] conversion = new String[] {"X", Integer.toString(IDelta.CLASS_ELEMENT_TYPE), Integer.toString(IDelta.INTERFACE_ELEMENT_TYPE)};
+		message = ApiProblemFactory.getLocalizedMessage(ApiProblemFactory.TYPE_CONVERSION_ID, conversion);
+		assertFalse("the message should be correct", message.startsWith(this.fDefaultMessage));
+		assertEquals("the message should be the same", message, ApiProblemFactory.getLocalizedMessage(ApiProblemFactory.TYPE_CONVERSION_ID, conversion));
+	}
+
 	/**
 	 * Tests the {@link ApiProblemFactory#newApiComponentResolutionProblem(String, String[], String[], Object[], int, int)} method
 	 */
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.problems.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.eclipse.pde.api.tools.internal.problems.ApiProblemFactory;
+import org.eclipse.pde.api.tools.internal.problems.ApiProblemList;
+import org.eclipse.pde.api.tools.internal.provisional.IApiMarkerConstants;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.problems.IApiProblem;
+
+/**
+ * Tests the {@link ApiProblemList}
+ *
+ * @since 1.0.400
+ */
+public class ApiProblemListTests extends TestCase {
+
+	/**
+	 * Creates the problems used by the tests: usage problems in types <code>c</code>, <code>a</code> and <code>b</code>,
+	 * a since tag problem without a type name and a duplicate of the first problem
+	 * @return the problems
+	 */
+	private IApiProblem[] createProblems() {
+		return new IApiProblem[] {
+			ApiProblemFactory.newApiUsageProblem("/p/c.java", "c", new String[] {"c", "x"},
+					new String[] {IApiMarkerConstants.API_MARKER_ATTR_ID}, new Object[] {new Integer(IApiMarkerConstants.API_USAGE_MARKER_ID)},
+					3, 10, 20, IElementDescriptor.TYPE, IApiProblem.ILLEGAL_EXTEND),
+			ApiProblemFactory.newApiUsageProblem("/p/a.java", "a", new String[] {"a", "x"},
+					new String[] {IApiMarkerConstants.API_MARKER_ATTR_ID, IApiMarkerConstants.MARKER_ATTR_HANDLE_ID}, new Object[] {new Integer(IApiMarkerConstants.API_USAGE_MARKER_ID), "handle"},
+					1, 2, 3, IElementDescriptor.TYPE, IApiProblem.ILLEGAL_EXTEND),
+			ApiProblemFactory.newApiUsageProblem("/p/b.java", "b", new String[] {"b", "x"}, null, null,
+					-1, -1, -1, IElementDescriptor.TYPE, IApiProblem.ILLEGAL_IMPLEMENT),
+			ApiProblemFactory.newApiSinceTagProblem("/p/a.java", null, new String[] {"a"}, null, null,
+					5, 6, 7, IElementDescriptor.RESOURCE, IApiProblem.SINCE_TAG_MISSING),
+			ApiProblemFactory.newApiUsageProblem("/p/c.java", "c", new String[] {"c", "x"}, null, null,
+					4, 10, 20, IElementDescriptor.TYPE, IApiProblem.ILLEGAL_EXTEND),
+		};
+	}
+
+	/**
+	 * Asserts that the given problems are equal, including their positions and extra marker attributes
+	 * @param expected
+	 * @param problem
+	 */
+	private void assertProblem(IApiProblem expected, IApiProblem problem) {
+		assertEquals("wrong problem", expected, problem);
+		assertEquals("wrong resource path", expected.getResourcePath(), problem.getResourcePath());
+		assertEquals("wrong line number", expected.getLineNumber(), problem.getLineNumber());
+		assertEquals("wrong char start", expected.getCharStart(), problem.getCharStart());
+		assertEquals("wrong char end", expected.getCharEnd(), problem.getCharEnd());
+		assertEquals("wrong message", expected.getMessage(), problem.getMessage());
+		assertTrue("wrong extra ids", Arrays.equals(expected.getExtraMarkerAttributeIds(), problem.getExtraMarkerAttributeIds()));
+		assertTrue("wrong extra values", Arrays.equals(expected.getExtraMarkerAttributeValues(), problem.getExtraMarkerAttributeValues()));
+	}
+
+	/**
+	 * Tests that the problems of a list are the ones it was created with and share their strings
+	 */
+	public void testGetProblems() {
+		IApiProblem[] problems = createProblems();
+		ApiProblemList list = new ApiProblemList(problems);
+		assertEquals("wrong size", problems.length, list.size());
+		for (int i = 0; i < problems.length; i++) {
+			assertProblem(problems[i], list.get(i));
+			assertEquals("wrong id", problems[i].getId(), list.getId(i));
+			assertEquals("wrong category", problems[i].getCategory(), list.getCategory(i));
+			assertEquals("wrong message", problems[i].getMessage(), list.getMessage(i));
+		}
+		assertSame("the message arguments should be shared", list.get(0).getMessageArguments(), list.get(4).getMessageArguments());
+		assertSame("the type names should be shared", list.getTypeName(0), list.get(4).getTypeName());
+		try {
+			list.get(problems.length);
+			fail("the index should be out of bounds");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Tests filtering a list by category and removing duplicate messages
+	 */
+	public void testFilter() {
+		IApiProblem[] problems = createProblems();
+		ApiProblemList list = new ApiProblemList(problems);
+		ApiProblemList usage = list.getProblems(IApiProblem.CATEGORY_USAGE);
+		assertEquals("wrong number of usage problems", 4, usage.size());
+		assertEquals("wrong number of since tag problems", 1, list.getProblems(IApiProblem.CATEGORY_SINCETAGS).size());
+		assertEquals("wrong number of version problems", 0, list.getProblems(IApiProblem.CATEGORY_VERSION).size());
+		assertEquals("the list should not be modified", problems.length, list.size());
+		usage.removeDuplicateMessages();
+		assertEquals("the duplicate should be removed", 3, usage.size());
+		assertProblem(problems[0], usage.get(0));
+		assertProblem(problems[1], usage.get(1));
+		assertProblem(problems[2], usage.get(2));
+	}
+
+	/**
+	 * Tests sorting a list by type name
+	 */
+	public void testSort() {
+		IApiProblem[] problems = createProblems();
+		ApiProblemList list = new ApiProblemList(problems);
+		list.sortByTypeName();
+		assertNull("problems without a type name should be first", list.getTypeName(0));
+		assertProblem(problems[1], list.get(1));
+		assertProblem(problems[2], list.get(2));
+		// the sort is stable
+		assertProblem(problems[0], list.get(3));
+		assertProblem(problems[4], list.get(4));
+		list = new ApiProblemList(0);
+		for (int i = 0; i < 100; i++) {
+			list.add(ApiProblemFactory.newApiUsageProblem(null, "type" + ((i * 37) % 100 + 1000), new String[] {"x"}, null, null,
+					i, -1, -1, IElementDescriptor.TYPE, IApiProblem.ILLEGAL_EXTEND));
+		}
+		list.sortByTypeName();
+		for (int i = 0; i < 100; i++) {
+			assertEquals("wrong order", "type" + (1000 + i), list.getTypeName(i));
+		}
+	}
+
+	/**
+	 * Tests writing a list and reading it back
+	 *
+	 * @throws Exception
+	 */
+	public void testReadWrite() throws Exception {
+		IApiProblem[] problems = createProblems();
+		ApiProblemList list = new ApiProblemList(problems).getProblems(IApiProblem.CATEGORY_USAGE);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		list.write(out);
+		out.close();
+		ApiProblemList read = ApiProblemList.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertEquals("wrong size", list.size(), read.size());
+		for (int i = 0; i < list.size(); i++) {
+			assertProblem(list.get(i), read.get(i));
+		}
+	}
+}
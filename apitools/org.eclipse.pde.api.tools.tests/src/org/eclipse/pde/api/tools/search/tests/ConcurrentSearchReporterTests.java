@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.search.tests;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiElement;
+import org.eclipse.pde.api.tools.internal.provisional.search.IApiSearchReporter;
+import org.eclipse.pde.api.tools.internal.provisional.search.IMetadata;
+import org.eclipse.pde.api.tools.internal.search.ConcurrentSearchReporter;
+import org.eclipse.pde.api.tools.internal.search.SkippedComponent;
+
+/**
+ * Tests the {@link ConcurrentSearchReporter}
+ *
+ * @since 1.0.400
+ */
+public class ConcurrentSearchReporterTests extends TestCase {
+
+	/**
+	 * Reporter that records the elements results were reported for
+	 */
+	class RecordingReporter implements IApiSearchReporter {
+		ArrayList<IApiElement> reported = new ArrayList<IApiElement>();
+		public void reportResults(IApiElement element, IReference[] references) {
+			reported.add(element);
+		}
+		public void reportNotSearched(IApiElement[] elements) {}
+		public void reportMetadata(IMetadata data) {}
+		public void reportCounts() {}
+	}
+
+	IApiElement[] getElements(int count) {
+		IApiElement[] elements = new IApiElement[count];
+		for (int i = 0; i < count; i++) {
+			elements[i] = new SkippedComponent("component"+i, "1.0.0", null);
+		}
+		return elements;
+	}
+
+	/**
+	 * Tests that results are only passed on once all preceding elements are done
+	 */
+	public void testResultsReportedInScopeOrder() {
+		RecordingReporter recorder = new RecordingReporter();
+		IApiElement[] elements = getElements(3);
+		ConcurrentSearchReporter reporter = new ConcurrentSearchReporter(recorder, elements);
+		reporter.reportResults(elements[2], new IReference[0]);
+		reporter.reportResults(elements[1], new IReference[0]);
+		reporter.elementDone(elements[2]);
+		reporter.elementDone(elements[1]);
+		assertEquals("nothing should be reported before the first element is done", 0, recorder.reported.size());
+		assertEquals("no elements should be counted as reported", 0, reporter.getReportedCount());
+		reporter.reportResults(elements[0], new IReference[0]);
+		reporter.reportResults(elements[0], new IReference[0]);
+		reporter.elementDone(elements[0]);
+		assertEquals("all batches should have been reported", 4, recorder.reported.size());
+		assertSame("the first batch should be from the first element", elements[0], recorder.reported.get(0));
+		assertSame("the second batch should be from the first element", elements[0], recorder.reported.get(1));
+		assertSame("the third batch should be from the second element", elements[1], recorder.reported.get(2));
+		assertSame("the fourth batch should be from the third element", elements[2], recorder.reported.get(3));
+		assertTrue("the reporter should be complete", reporter.waitForProgress(1));
+	}
+
+	/**
+	 * Tests that results reported from many threads are all passed on in scope order
+	 *
+	 * @throws Exception
+	 */
+	public void testResultsReportedFromThreads() throws Exception {
+		RecordingReporter recorder = new RecordingReporter();
+		final IApiElement[] elements = getElements(50);
+		final ConcurrentSearchReporter reporter = new ConcurrentSearchReporter(recorder, elements);
+		Thread[] threads = new Thread[5];
+		for (int i = 0; i < threads.length; i++) {
+			final int offset = i;
+			threads[i] = new Thread() {
+				public void run() {
+					for (int j = elements.length - 1 - offset; j >= 0; j -= 5) {
+						reporter.reportResults(elements[j], new IReference[0]);
+						reporter.elementDone(elements[j]);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+		assertEquals("all elements should have been reported", elements.length, recorder.reported.size());
+		for (int i = 0; i < elements.length; i++) {
+			assertSame("element "+i+" was reported out of order", elements[i], recorder.reported.get(i));
+		}
+	}
+}
@@ -10,10 +10,18 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.search.tests;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiElement;
 import org.eclipse.pde.api.tools.internal.provisional.search.ApiSearchEngine;
+import org.eclipse.pde.api.tools.internal.provisional.search.IApiSearchReporter;
 import org.eclipse.pde.api.tools.internal.provisional.search.IApiSearchRequestor;
+import org.eclipse.pde.api.tools.internal.provisional.search.IMetadata;
+import org.eclipse.pde.api.tools.internal.search.UseSearchRequestor;
 
 /**
  * Tests the {@link org.eclipse.pde.api.tools.internal.provisional.search.ApiSearchEngine}
@@ -22,6 +30,38 @@ import org.eclipse.pde.api.tools.internal.provisional.search.IApiSearchRequestor
  */
 public class SearchEngineTests extends SearchTest {
 	
+	/**
+	 * Reporter that records a description of every reported reference
+	 */
+	class RecordingReporter implements IApiSearchReporter {
+		ArrayList<String> results = new ArrayList<String>();
+		public void reportResults(IApiElement element, IReference[] references) {
+			for (int i = 0; i < references.length; i++) {
+				IReference ref = references[i];
+				results.add(element.getName()+" "+ref.getMember().getName()+":"+ref.getLineNumber()+" "+ref.getReferenceKind()+" "+ 
+						ref.getReferencedTypeName()+"#"+ref.getReferencedMemberName()+" "+ref.getReferenceFlags());
+			}
+		}
+		public void reportNotSearched(IApiElement[] elements) {}
+		public void reportMetadata(IMetadata data) {}
+		public void reportCounts() {}
+	}
+	
+	/**
+	 * Creates a new {@link UseSearchRequestor} searching the test scope for references to the test baseline
+	 * @param mask
+	 * @return a new {@link UseSearchRequestor}
+	 * @throws Exception
+	 */
+	UseSearchRequestor newUseSearchRequestor(int mask) throws Exception {
+		HashSet<String> ids = new HashSet<String>();
+		IApiComponent[] components = getTestBaseline().getApiComponents();
+		for (int i = 0; i < components.length; i++) {
+			ids.add(components[i].getSymbolicName());
+		}
+		return new UseSearchRequestor(ids, this.scope.getApiComponents(), mask);
+	}
+	
 	/**
 	 * Tests the the engine properly aborts with invalid <code>null</code> arguments
 	 */
@@ -202,6 +242,34 @@ public class SearchEngineTests extends SearchTest {
 		}
 	}
 	
+	/**
+	 * Tests that searching on several threads reports the same references as a single-threaded search
+	 */
+	public void testParallelSearch() {
+		ApiSearchEngine engine = new ApiSearchEngine();
+		try {
+			this.scope = getTestScope(DEFAULT_SCOPE_PROJECTS);
+			TEST_REQUESTOR.setScopeBaseline(this.scope);
+			TEST_REQUESTOR.setSearchMask(IApiSearchRequestor.INCLUDE_API | IApiSearchRequestor.INCLUDE_INTERNAL);
+			TEST_REPORTER.setExpectedReferences(
+					new String[] {P2_NAME, P3_NAME}, 
+					new int[][] {{IReference.REF_FIELDDECL, IReference.REF_FIELDDECL}, {IReference.REF_FIELDDECL, IReference.REF_FIELDDECL, IReference.REF_FIELDDECL}});
+			TEST_REPORTER.setExpectedNotSearched(null);
+			engine.search(getTestBaseline(), TEST_REQUESTOR, TEST_REPORTER, 3, null);
+			//the illegal use detectors are built for the component being searched by each thread
+			int mask = IApiSearchRequestor.INCLUDE_API | IApiSearchRequestor.INCLUDE_INTERNAL | IApiSearchRequestor.INCLUDE_ILLEGAL_USE;
+			RecordingReporter sequential = new RecordingReporter();
+			engine.search(getTestBaseline(), newUseSearchRequestor(mask), sequential, null);
+			RecordingReporter parallel = new RecordingReporter();
+			engine.search(getTestBaseline(), newUseSearchRequestor(mask), parallel, 3, null);
+			assertFalse("references should have been found", sequential.results.isEmpty());
+			assertEquals("the parallel search should report the same references", sequential.results, parallel.results);
+		}
+		catch(Exception e) {
+			fail("The search engine should not throw an exception: "+e.getMessage());
+		}
+	}
+	
 	/**
 	 * Search with tracing on (causing the console to have content)
 	 */
@@ -28,15 +28,24 @@ import org.eclipse.pde.api.tools.model.tests.ElementDescriptorTests;
 import org.eclipse.pde.api.tools.model.tests.TagScannerTests;
 import org.eclipse.pde.api.tools.problems.tests.ApiFilterTests;
 import org.eclipse.pde.api.tools.problems.tests.ApiProblemFactoryTests;
+import org.eclipse.pde.api.tools.problems.tests.ApiProblemListTests;
 import org.eclipse.pde.api.tools.problems.tests.ApiProblemTests;
 import org.eclipse.pde.api.tools.reference.tests.SearchScopeTests;
+import org.eclipse.pde.api.tools.search.tests.ConcurrentSearchReporterTests;
 import org.eclipse.pde.api.tools.search.tests.SearchEngineTests;
 import org.eclipse.pde.api.tools.search.tests.SkippedComponentTests;
 import org.eclipse.pde.api.tools.search.tests.UseSearchTests;
+import org.eclipse.pde.api.tools.tests.benchmarks.BenchmarkTests;
+import org.eclipse.pde.api.tools.util.tests.BaselineIndexTests;
+import org.eclipse.pde.api.tools.util.tests.BuildMetricsTests;
 import org.eclipse.pde.api.tools.util.tests.HeadlessApiBaselineManagerTests;
+import org.eclipse.pde.api.tools.util.tests.PatternFilterTests;
+import org.eclipse.pde.api.tools.util.tests.ProfileSymbolsTests;
 import org.eclipse.pde.api.tools.util.tests.SignaturesTests;
+import org.eclipse.pde.api.tools.util.tests.SymbolTableTests;
 import org.eclipse.pde.api.tools.util.tests.TarEntryTests;
 import org.eclipse.pde.api.tools.util.tests.TarExceptionTests;
+import org.eclipse.pde.api.tools.util.tests.TarFileTests;
 import org.eclipse.pde.api.tools.util.tests.UtilTests;
 
 /**
@@ -63,10 +72,16 @@ public class ApiToolsTestSuite extends TestSuite {
 		addTest(new TestSuite(SearchEngineTests.class));
 		addTest(new TestSuite(SkippedComponentTests.class));
 		addTest(new TestSuite(UseSearchTests.class));
+		addTest(new TestSuite(ConcurrentSearchReporterTests.class));
 		addTest(new TestSuite(HeadlessApiBaselineManagerTests.class));
+		addTest(new TestSuite(BaselineIndexTests.class));
 		addTest(new TestSuite(TagScannerTests.class));
 		addTest(new TestSuite(ComponentManifestTests.class));
 		addTest(new TestSuite(UtilTests.class));
+		addTest(new TestSuite(PatternFilterTests.class));
+		addTest(new TestSuite(SymbolTableTests.class));
+		addTest(new TestSuite(ProfileSymbolsTests.class));
+		addTest(new TestSuite(BuildMetricsTests.class));
 		addTest(new TestSuite(SignaturesTests.class));
 		addTest(new TestSuite(ApiBaselineTests.class));
 		addTest(new TestSuite(ApiTypeContainerTests.class));
@@ -75,13 +90,16 @@ public class ApiToolsTestSuite extends TestSuite {
 		addTest(new TestSuite(SearchScopeTests.class));
 		addTest(new TestSuite(ApiProblemTests.class));
 		addTest(new TestSuite(ApiProblemFactoryTests.class));
+		addTest(new TestSuite(ApiProblemListTests.class));
 		addTest(new TestSuite(ApiFilterTests.class));
 		addTest(new TestSuite(TarEntryTests.class));
 		addTest(new TestSuite(TarExceptionTests.class));
+		addTest(new TestSuite(TarFileTests.class));
 		addTest(new TestSuite(OSGiLessAnalysisTests.class));
 		addTest(new TestSuite(ApiModelCacheTests.class));
 		addTest(new TestSuite(BadClassfileTests.class));
 		addTest(new TestSuite(CRCTests.class));
+		addTest(new TestSuite(BenchmarkTests.class));
 		addTest(new AllDeltaTests());
 	}	
 }
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.tests.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.pde.api.tools.internal.provisional.IApiDescription;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiField;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiMethod;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+
+/**
+ * Measures resolving the annotations of every type, method and field of the provider
+ * component with {@link IApiDescription#resolveAnnotations(IElementDescriptor)}
+ *
+ * @since 1.0.400
+ */
+public class ApiDescriptionBenchmark extends Benchmark {
+
+	SyntheticBaseline baseline = null;
+	IApiDescription description = null;
+	IElementDescriptor[] elements = null;
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#getName()
+	 */
+	public String getName() {
+		return "ApiDescription.resolveAnnotations";
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#setUp(int)
+	 */
+	public void setUp(int size) throws Exception {
+		baseline = new SyntheticBaseline(size, 0);
+		description = baseline.getProvider().getApiDescription();
+		IApiTypeRoot[] roots = SyntheticBaseline.getTypeRoots(baseline.getProvider());
+		List<IElementDescriptor> handles = new ArrayList<IElementDescriptor>();
+		for (int i = 0; i < roots.length; i++) {
+			IApiType type = roots[i].getStructure();
+			handles.add(type.getHandle());
+			IApiMethod[] methods = type.getMethods();
+			for (int j = 0; j < methods.length; j++) {
+				handles.add(methods[j].getHandle());
+			}
+			IApiField[] fields = type.getFields();
+			for (int j = 0; j < fields.length; j++) {
+				handles.add(fields[j].getHandle());
+			}
+		}
+		elements = handles.toArray(new IElementDescriptor[handles.size()]);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#run()
+	 */
+	public int run() throws Exception {
+		int count = 0;
+		for (int i = 0; i < elements.length; i++) {
+			if(description.resolveAnnotations(elements[i]) != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#tearDown()
+	 */
+	public void tearDown() throws Exception {
+		baseline.dispose();
+	}
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.tests.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.pde.api.tools.internal.ApiFilterStore;
+import org.eclipse.pde.api.tools.internal.problems.ApiProblemFactory;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.problems.IApiProblem;
+
+/**
+ * Measures {@link ApiFilterStore#isFiltered(IApiProblem)} for a project with one filtered
+ * and one unfiltered problem per source file. Needs a workspace, so it only runs inside
+ * a running platform (the headless test application is enough).
+ *
+ * @since 1.0.400
+ */
+public class ApiFilterStoreBenchmark extends Benchmark {
+
+	IProject project = null;
+	ApiFilterStore store = null;
+	IApiProblem[] problems = null;
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#getName()
+	 */
+	public String getName() {
+		return "ApiFilterStore.isFiltered";
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#isAvailable()
+	 */
+	public boolean isAvailable() {
+		return Platform.isRunning();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#setUp(int)
+	 */
+	public void setUp(int size) throws Exception {
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject("benchmark.filters");
+		if(project.exists()) {
+			project.delete(true, true, null);
+		}
+		project.create(null);
+		project.open(null);
+		IFolder folder = project.getFolder("src");
+		folder.create(true, true, null);
+		int id = ApiProblemFactory.createProblemId(IApiProblem.CATEGORY_USAGE, IElementDescriptor.METHOD, IApiProblem.ILLEGAL_REFERENCE, IApiProblem.NO_FLAGS);
+		List<IApiProblem> filtered = new ArrayList<IApiProblem>();
+		problems = new IApiProblem[size * 2];
+		for (int i = 0; i < size; i++) {
+			IFile file = folder.getFile("Type" + i + ".java");
+			file.create(new ByteArrayInputStream(new byte[0]), true, null);
+			String path = file.getProjectRelativePath().toPortableString();
+			problems[i * 2] = ApiProblemFactory.newApiProblem(path, "Type" + i, new String[] {"filtered" + i}, null, null, -1, -1, -1, id);
+			problems[i * 2 + 1] = ApiProblemFactory.newApiProblem(path, "Type" + i, new String[] {"reported" + i}, null, null, -1, -1, -1, id);
+			filtered.add(problems[i * 2]);
+		}
+		store = new ApiFilterStore(JavaCore.create(project));
+		store.addFiltersFor(filtered.toArray(new IApiProblem[filtered.size()]));
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#run()
+	 */
+	public int run() throws Exception {
+		int count = 0;
+		for (int i = 0; i < problems.length; i++) {
+			if(store.isFiltered(problems[i])) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#tearDown()
+	 */
+	public void tearDown() throws Exception {
+		store.dispose();
+		project.delete(true, true, null);
+	}
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.tests.benchmarks;
+
+/**
+ * A single micro benchmark run by the {@link BenchmarkRunner}.
+ * <p>
+ * The runner calls {@link #setUp(int)} once per size, then calls {@link #run()} repeatedly
+ * during the warm-up and measurement iterations and finally calls {@link #tearDown()}.
+ * Only the time spent in {@link #run()} is measured.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public abstract class Benchmark {
+
+	/**
+	 * @return the name of the benchmark, used in reports and to filter benchmarks
+	 */
+	public abstract String getName();
+
+	/**
+	 * Prepares the benchmark for the given size
+	 *
+	 * @param size the number of types in the generated baseline
+	 * @throws Exception
+	 */
+	public abstract void setUp(int size) throws Exception;
+
+	/**
+	 * Runs one operation of the benchmark.
+	 *
+	 * @return the number of items processed by the operation; the runner consumes the value
+	 * so that the work cannot be optimized away
+	 * @throws Exception
+	 */
+	public abstract int run() throws Exception;
+
+	/**
+	 * Releases everything created in {@link #setUp(int)}
+	 *
+	 * @throws Exception
+	 */
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Returns if the benchmark can run in the current environment. Benchmarks that need
+	 * a workspace return <code>false</code> when run outside of a running platform.
+	 *
+	 * @return <code>true</code> if the benchmark can run
+	 */
+	public boolean isAvailable() {
+		return true;
+	}
+}
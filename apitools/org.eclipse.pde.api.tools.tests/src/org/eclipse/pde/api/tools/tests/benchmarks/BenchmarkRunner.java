@@ -0,0 +1,361 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.tests.benchmarks;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Runs {@link Benchmark}s and reports the average time per operation.
+ * <p>
+ * Each benchmark is set up once per size. It is then run for a number of warm-up iterations,
+ * whose results are discarded, followed by the measurement iterations. Every iteration calls
+ * the benchmark repeatedly until the iteration time has elapsed, and the score of the iteration
+ * is the average time per call. The reported score is the mean over the measurement iterations,
+ * the error is their standard deviation.
+ * </p>
+ * <p>
+ * The runner does not need a workbench and can be started as a plain Java application from the
+ * root of the test bundle with the test bundle and its prerequisites on the class path:
+ * </p>
+ * <pre>
+ * java org.eclipse.pde.api.tools.tests.benchmarks.BenchmarkRunner [-wi &lt;warm-up iterations&gt;] [-i &lt;iterations&gt;]
+ *     [-t &lt;iteration time in ms&gt;] [-sizes &lt;comma separated sizes&gt;] [-filter &lt;regex&gt;] [-csv &lt;file&gt;]
+ * </pre>
+ *
+ * @since 1.0.400
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * The result of running one benchmark at one size
+	 */
+	public static class Result {
+		String name;
+		int size;
+		int items;
+		double[] scores;
+
+		Result(String name, int size, int items, double[] scores) {
+			this.name = name;
+			this.size = size;
+			this.items = items;
+			this.scores = scores;
+		}
+
+		/**
+		 * @return the name of the benchmark
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the size the benchmark was run at
+		 */
+		public int getSize() {
+			return size;
+		}
+
+		/**
+		 * @return the number of items processed by one operation
+		 */
+		public int getItems() {
+			return items;
+		}
+
+		/**
+		 * @return the mean time per operation in microseconds
+		 */
+		public double getScore() {
+			double sum = 0;
+			for (int i = 0; i < scores.length; i++) {
+				sum += scores[i];
+			}
+			return sum / scores.length;
+		}
+
+		/**
+		 * @return the standard deviation of the iteration scores in microseconds
+		 */
+		public double getError() {
+			if(scores.length < 2) {
+				return 0;
+			}
+			double mean = getScore();
+			double sum = 0;
+			for (int i = 0; i < scores.length; i++) {
+				sum += (scores[i] - mean) * (scores[i] - mean);
+			}
+			return Math.sqrt(sum / (scores.length - 1));
+		}
+	}
+
+	/**
+	 * Default sizes of the generated baselines
+	 */
+	public static final int[] DEFAULT_SIZES = new int[] {100, 1000, 5000};
+
+	int warmups = 3;
+	int iterations = 5;
+	long iterationTime = 1000;
+	int[] sizes = DEFAULT_SIZES;
+	Pattern filter = null;
+
+	/**
+	 * Consumes the values returned by the benchmarks
+	 */
+	volatile int sink = 0;
+
+	/**
+	 * Returns new instances of all of the benchmarks
+	 * @return the benchmarks
+	 */
+	public static Benchmark[] getBenchmarks() {
+		return new Benchmark[] {
+				new TypeStructureBenchmark(),
+				new ReferenceExtractorBenchmark(),
+				new ReferenceResolverBenchmark(),
+				new ClassFileComparatorBenchmark(),
+				new ApiDescriptionBenchmark(),
+				new ApiFilterStoreBenchmark(),
+				new UseScanParserBenchmark()
+		};
+	}
+
+	/**
+	 * Sets the number of warm-up and measurement iterations
+	 * @param warmups
+	 * @param iterations
+	 */
+	public void setIterations(int warmups, int iterations) {
+		this.warmups = warmups;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Sets the minimum time of one iteration
+	 * @param millis
+	 */
+	public void setIterationTime(long millis) {
+		this.iterationTime = millis;
+	}
+
+	/**
+	 * Sets the sizes to run each benchmark at
+	 * @param sizes
+	 */
+	public void setSizes(int[] sizes) {
+		this.sizes = sizes;
+	}
+
+	/**
+	 * Sets a regular expression benchmark names have to contain to be run
+	 * @param regex the expression or <code>null</code> to run all benchmarks
+	 */
+	public void setFilter(String regex) {
+		this.filter = regex == null ? null : Pattern.compile(regex);
+	}
+
+	/**
+	 * Runs the given benchmarks at all sizes
+	 *
+	 * @param benchmarks
+	 * @param out stream to print progress to or <code>null</code>
+	 * @return the list of results
+	 * @throws Exception if a benchmark fails
+	 */
+	public List<Result> run(Benchmark[] benchmarks, PrintStream out) throws Exception {
+		List<Result> results = new ArrayList<Result>();
+		for (int i = 0; i < benchmarks.length; i++) {
+			Benchmark benchmark = benchmarks[i];
+			if(filter != null && !filter.matcher(benchmark.getName()).find()) {
+				continue;
+			}
+			if(!benchmark.isAvailable()) {
+				if(out != null) {
+					out.println("# Skipping " + benchmark.getName() + ": not available in this environment");
+				}
+				continue;
+			}
+			for (int j = 0; j < sizes.length; j++) {
+				if(out != null) {
+					out.println("# Running " + benchmark.getName() + ", size " + sizes[j]);
+				}
+				results.add(measure(benchmark, sizes[j], out));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Runs a single benchmark at the given size
+	 * @param benchmark
+	 * @param size
+	 * @param out
+	 * @return the result
+	 * @throws Exception
+	 */
+	Result measure(Benchmark benchmark, int size, PrintStream out) throws Exception {
+		benchmark.setUp(size);
+		try {
+			for (int i = 0; i < warmups; i++) {
+				double score = iteration(benchmark);
+				if(out != null) {
+					out.println("Warm-up " + (i + 1) + ": " + format(score) + " us/op");
+				}
+			}
+			double[] scores = new double[iterations];
+			for (int i = 0; i < iterations; i++) {
+				scores[i] = iteration(benchmark);
+				if(out != null) {
+					out.println("Iteration " + (i + 1) + ": " + format(scores[i]) + " us/op");
+				}
+			}
+			return new Result(benchmark.getName(), size, benchmark.run(), scores);
+		}
+		finally {
+			benchmark.tearDown();
+		}
+	}
+
+	/**
+	 * Runs one iteration of the given benchmark
+	 * @param benchmark
+	 * @return the average time per operation in microseconds
+	 * @throws Exception
+	 */
+	double iteration(Benchmark benchmark) throws Exception {
+		System.gc();
+		long limit = iterationTime * 1000000L;
+		long start = System.nanoTime();
+		long elapsed = 0;
+		int ops = 0;
+		int value = 0;
+		do {
+			value += benchmark.run();
+			ops++;
+			elapsed = System.nanoTime() - start;
+		}
+		while(elapsed < limit);
+		sink += value;
+		return elapsed / 1000d / ops;
+	}
+
+	/**
+	 * Prints the given results as a table
+	 * @param results
+	 * @param out
+	 */
+	public static void printResults(List<Result> results, PrintStream out) {
+		out.println(pad("Benchmark", -40) + pad("Size", 8) + pad("Items", 10) + pad("Score", 14) + pad("Error", 12) + "  Units");
+		for (Result result : results) {
+			out.println(pad(result.getName(), -40)
+					+ pad(String.valueOf(result.getSize()), 8)
+					+ pad(String.valueOf(result.getItems()), 10)
+					+ pad(format(result.getScore()), 14)
+					+ pad("+- " + format(result.getError()), 12)
+					+ "  us/op");
+		}
+	}
+
+	/**
+	 * Writes the given results to a CSV file
+	 * @param results
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void writeCsv(List<Result> results, File file) throws IOException {
+		PrintWriter writer = new PrintWriter(new FileWriter(file));
+		try {
+			writer.println("benchmark,size,items,score,error,units");
+			for (Result result : results) {
+				writer.println(result.getName() + ',' + result.getSize() + ',' + result.getItems() + ','
+						+ format(result.getScore()) + ',' + format(result.getError()) + ",us/op");
+			}
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	static String format(double value) {
+		return String.format("%.3f", value);
+	}
+
+	static String pad(String value, int width) {
+		StringBuffer buffer = new StringBuffer();
+		int count = Math.abs(width) - value.length();
+		if(width < 0) {
+			buffer.append(value);
+		}
+		for (int i = 0; i < count; i++) {
+			buffer.append(' ');
+		}
+		if(width > 0) {
+			buffer.append(value);
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Runs the benchmarks
+	 * @param args see the class comment
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner();
+		File csv = null;
+		for (int i = 0; i < args.length - 1; i += 2) {
+			String arg = args[i];
+			String value = args[i + 1];
+			if("-wi".equals(arg)) {
+				runner.warmups = Integer.parseInt(value);
+			}
+			else if("-i".equals(arg)) {
+				runner.iterations = Integer.parseInt(value);
+			}
+			else if("-t".equals(arg)) {
+				runner.iterationTime = Long.parseLong(value);
+			}
+			else if("-sizes".equals(arg)) {
+				String[] values = value.split(",");
+				int[] sizes = new int[values.length];
+				for (int j = 0; j < values.length; j++) {
+					sizes[j] = Integer.parseInt(values[j].trim());
+				}
+				runner.sizes = sizes;
+			}
+			else if("-filter".equals(arg)) {
+				runner.setFilter(value);
+			}
+			else if("-csv".equals(arg)) {
+				csv = new File(value);
+			}
+			else {
+				System.err.println("Unknown option: " + arg);
+				return;
+			}
+		}
+		List<Result> results = runner.run(getBenchmarks(), System.out);
+		System.out.println();
+		printResults(results, System.out);
+		if(csv != null) {
+			writeCsv(results, csv);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.tests.benchmarks;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.pde.api.tools.tests.benchmarks.BenchmarkRunner.Result;
+
+/**
+ * Runs every benchmark once on a tiny baseline, so that the benchmarks are kept
+ * working as the code they measure changes
+ *
+ * @since 1.0.400
+ */
+public class BenchmarkTests extends TestCase {
+
+	/**
+	 * Tests that all available benchmarks run and do some work
+	 *
+	 * @throws Exception
+	 */
+	public void testRunAllBenchmarks() throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner();
+		runner.setIterations(0, 1);
+		runner.setIterationTime(1);
+		runner.setSizes(new int[] {20});
+		Benchmark[] benchmarks = BenchmarkRunner.getBenchmarks();
+		List<Result> results = runner.run(benchmarks, null);
+		int available = 0;
+		for (int i = 0; i < benchmarks.length; i++) {
+			if(benchmarks[i].isAvailable()) {
+				available++;
+			}
+		}
+		assertEquals("every available benchmark should have a result", available, results.size());
+		for (Result result : results) {
+			assertTrue("benchmark did no work: " + result.getName(), result.getItems() > 0);
+			assertTrue("benchmark has no score: " + result.getName(), result.getScore() > 0);
+		}
+	}
+
+	/**
+	 * Tests that the filter selects benchmarks by name
+	 *
+	 * @throws Exception
+	 */
+	public void testFilter() throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner();
+		runner.setIterations(0, 1);
+		runner.setIterationTime(1);
+		runner.setSizes(new int[] {10});
+		runner.setFilter("^TypeStructure");
+		List<Result> results = runner.run(BenchmarkRunner.getBenchmarks(), null);
+		assertEquals("only one benchmark should have been run", 1, results.size());
+		assertEquals("wrong benchmark run", new TypeStructureBenchmark().getName(), results.get(0).getName());
+	}
+}
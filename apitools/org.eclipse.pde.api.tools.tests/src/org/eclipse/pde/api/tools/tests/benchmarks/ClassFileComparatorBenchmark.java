@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.tests.benchmarks;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.pde.api.tools.internal.comparator.ClassFileComparator;
+import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
+import org.eclipse.pde.api.tools.internal.provisional.comparator.IDelta;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+
+/**
+ * Measures comparing all types of two revisions of the provider component with the {@link ClassFileComparator}
+ *
+ * @since 1.0.400
+ */
+public class ClassFileComparatorBenchmark extends Benchmark {
+
+	SyntheticBaseline reference = null;
+	SyntheticBaseline current = null;
+	IApiTypeRoot[] roots = null;
+	IApiTypeRoot[] roots2 = null;
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#getName()
+	 */
+	public String getName() {
+		return "ClassFileComparator.getDelta";
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#setUp(int)
+	 */
+	public void setUp(int size) throws Exception {
+		reference = new SyntheticBaseline(size, 0);
+		current = new SyntheticBaseline(size, 1);
+		roots = SyntheticBaseline.getTypeRoots(reference.getProvider());
+		roots2 = new IApiTypeRoot[roots.length];
+		IApiComponent component2 = current.getProvider();
+		for (int i = 0; i < roots.length; i++) {
+			roots2[i] = component2.findTypeRoot(roots[i].getTypeName());
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#run()
+	 */
+	public int run() throws Exception {
+		IApiComponent component = reference.getProvider();
+		IApiComponent component2 = current.getProvider();
+		int count = 0;
+		for (int i = 0; i < roots.length; i++) {
+			ClassFileComparator comparator = new ClassFileComparator(roots[i], roots2[i], component, component2, reference.getBaseline(), current.getBaseline(), VisibilityModifiers.API);
+			IDelta delta = comparator.getDelta(new NullProgressMonitor());
+			if(delta != null) {
+				count += delta.getChildren().length;
+			}
+		}
+		return count;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#tearDown()
+	 */
+	public void tearDown() throws Exception {
+		reference.dispose();
+		current.dispose();
+	}
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.tests.benchmarks;
+
+import java.util.HashSet;
+
+import org.eclipse.pde.api.tools.internal.builder.ReferenceExtractor;
+import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Measures extracting all references from the types of the provider and consumer
+ * components with the {@link ReferenceExtractor}
+ *
+ * @since 1.0.400
+ */
+public class ReferenceExtractorBenchmark extends Benchmark {
+
+	SyntheticBaseline baseline = null;
+	IApiType[] types = null;
+	byte[][] contents = null;
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#getName()
+	 */
+	public String getName() {
+		return "ReferenceExtractor";
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#setUp(int)
+	 */
+	public void setUp(int size) throws Exception {
+		baseline = new SyntheticBaseline(size, 0);
+		IApiTypeRoot[] provider = SyntheticBaseline.getTypeRoots(baseline.getProvider());
+		IApiTypeRoot[] consumer = SyntheticBaseline.getTypeRoots(baseline.getConsumer());
+		types = new IApiType[provider.length + consumer.length];
+		contents = new byte[types.length][];
+		for (int i = 0; i < types.length; i++) {
+			IApiTypeRoot root = i < provider.length ? provider[i] : consumer[i - provider.length];
+			types[i] = root.getStructure();
+			contents[i] = root.getContents();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#run()
+	 */
+	public int run() throws Exception {
+		int count = 0;
+		HashSet<IReference> references = new HashSet<IReference>();
+		for (int i = 0; i < types.length; i++) {
+			references.clear();
+			ReferenceExtractor extractor = new ReferenceExtractor(types[i], references, IReference.MASK_REF_ALL);
+			new ClassReader(contents[i]).accept(extractor, ClassReader.SKIP_FRAMES);
+			count += references.size();
+		}
+		return count;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#tearDown()
+	 */
+	public void tearDown() throws Exception {
+		baseline.dispose();
+	}
+}
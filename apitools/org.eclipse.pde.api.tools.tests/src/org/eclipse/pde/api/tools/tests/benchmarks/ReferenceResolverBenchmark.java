@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.tests.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.pde.api.tools.internal.builder.Reference;
+import org.eclipse.pde.api.tools.internal.builder.ReferenceResolver;
+import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+
+/**
+ * Measures resolving all references made by the consumer component with the {@link ReferenceResolver}.
+ * The type structures are built before the measurement starts, so only the resolution is measured.
+ *
+ * @since 1.0.400
+ */
+public class ReferenceResolverBenchmark extends Benchmark {
+
+	SyntheticBaseline baseline = null;
+	List<IReference> references = new ArrayList<IReference>();
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#getName()
+	 */
+	public String getName() {
+		return "ReferenceResolver.resolveReferences";
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#setUp(int)
+	 */
+	@SuppressWarnings("unchecked")
+	public void setUp(int size) throws Exception {
+		baseline = new SyntheticBaseline(size, 0);
+		IApiTypeRoot[] roots = SyntheticBaseline.getTypeRoots(baseline.getConsumer());
+		for (int i = 0; i < roots.length; i++) {
+			references.addAll(roots[i].getStructure().extractReferences(IReference.MASK_REF_ALL, null));
+		}
+		//warm the type structure caches of the provider
+		ReferenceResolver.resolveReferences(references, new NullProgressMonitor());
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#run()
+	 */
+	public int run() throws Exception {
+		for (int i = 0, max = references.size(); i < max; i++) {
+			((Reference) references.get(i)).setResolution(null);
+		}
+		ReferenceResolver.resolveReferences(references, new NullProgressMonitor());
+		int count = 0;
+		for (int i = 0, max = references.size(); i < max; i++) {
+			if(references.get(i).getResolvedReference() != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#tearDown()
+	 */
+	public void tearDown() throws Exception {
+		references.clear();
+		baseline.dispose();
+	}
+}
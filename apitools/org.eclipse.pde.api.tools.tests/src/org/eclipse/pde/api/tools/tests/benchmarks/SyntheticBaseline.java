@@ -0,0 +1,379 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.tests.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.pde.api.tools.internal.model.ApiModelFactory;
+import org.eclipse.pde.api.tools.internal.provisional.model.ApiTypeContainerVisitor;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+import org.eclipse.pde.api.tools.internal.util.Util;
+import org.eclipse.pde.api.tools.model.tests.TestSuiteHelper;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * A generated API baseline of a configurable size, used by the benchmarks.
+ * <p>
+ * The baseline contains a provider bundle with <code>size</code> types spread over
+ * packages of {@link #PACKAGE_SIZE} types, and a consumer bundle with one client type
+ * for every four provider types. Provider types form short inheritance chains and call
+ * into each other, client types call provider methods that are declared in the type
+ * itself and in its super types, so reference resolution has to walk the hierarchy.
+ * </p>
+ * <p>
+ * Revision <code>1</code> of a baseline differs from revision <code>0</code> by added
+ * methods, removed fields and reduced method visibility in some of the provider types,
+ * so the two can be compared.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public class SyntheticBaseline {
+
+	/**
+	 * Symbolic name of the generated provider bundle
+	 */
+	public static final String PROVIDER = "bench.provider";
+	/**
+	 * Symbolic name of the generated consumer bundle
+	 */
+	public static final String CONSUMER = "bench.consumer";
+	/**
+	 * Number of types per package in the provider bundle
+	 */
+	public static final int PACKAGE_SIZE = 50;
+	/**
+	 * Number of fields and methods generated per type
+	 */
+	static final int MEMBERS = 5;
+	/**
+	 * Length of the inheritance chains in the provider bundle
+	 */
+	static final int CHAIN = 5;
+
+	private static final String OBJECT = "java/lang/Object";
+
+	private File fRoot = null;
+	private IApiBaseline fBaseline = null;
+	private int fSize = 0;
+
+	/**
+	 * Constructor. Generates the bundles into a temporary directory and creates a baseline from them
+	 *
+	 * @param size the number of types in the provider bundle
+	 * @param revision <code>0</code> or <code>1</code>
+	 * @throws CoreException
+	 * @throws IOException
+	 */
+	public SyntheticBaseline(int size, int revision) throws CoreException, IOException {
+		fSize = size;
+		fRoot = Util.createTempFile("benchmark", "");
+		fRoot.delete();
+		fRoot.mkdirs();
+		File provider = new File(fRoot, PROVIDER + "_1.0." + revision);
+		File consumer = new File(fRoot, CONSUMER + "_1.0." + revision);
+		generateProvider(provider, size, revision);
+		generateConsumer(consumer, size, revision);
+		fBaseline = TestSuiteHelper.newApiBaseline("benchmark_" + size + "_" + revision, TestSuiteHelper.getEEDescriptionFile());
+		fBaseline.addApiComponents(new IApiComponent[] {
+				ApiModelFactory.newApiComponent(fBaseline, provider.getAbsolutePath()),
+				ApiModelFactory.newApiComponent(fBaseline, consumer.getAbsolutePath())});
+	}
+
+	/**
+	 * @return the generated baseline
+	 */
+	public IApiBaseline getBaseline() {
+		return fBaseline;
+	}
+
+	/**
+	 * @return the provider component
+	 */
+	public IApiComponent getProvider() {
+		return fBaseline.getApiComponent(PROVIDER);
+	}
+
+	/**
+	 * @return the consumer component
+	 */
+	public IApiComponent getConsumer() {
+		return fBaseline.getApiComponent(CONSUMER);
+	}
+
+	/**
+	 * @return the number of types in the provider component
+	 */
+	public int getSize() {
+		return fSize;
+	}
+
+	/**
+	 * Returns all of the type roots in the given component sorted by type name
+	 *
+	 * @param component
+	 * @return the type roots
+	 * @throws CoreException
+	 */
+	public static IApiTypeRoot[] getTypeRoots(IApiComponent component) throws CoreException {
+		final List<IApiTypeRoot> roots = new ArrayList<IApiTypeRoot>();
+		component.accept(new ApiTypeContainerVisitor() {
+			public void visit(String packageName, IApiTypeRoot typeroot) {
+				roots.add(typeroot);
+			}
+		});
+		Collections.sort(roots, new Comparator<IApiTypeRoot>() {
+			public int compare(IApiTypeRoot o1, IApiTypeRoot o2) {
+				return o1.getTypeName().compareTo(o2.getTypeName());
+			}
+		});
+		return roots.toArray(new IApiTypeRoot[roots.size()]);
+	}
+
+	/**
+	 * Disposes the baseline and deletes the generated bundles
+	 */
+	public void dispose() {
+		if(fBaseline != null) {
+			fBaseline.dispose();
+			fBaseline = null;
+		}
+		if(fRoot != null) {
+			TestSuiteHelper.delete(fRoot);
+			fRoot = null;
+		}
+	}
+
+	/**
+	 * Returns the internal name of the provider type with the given index
+	 * @param index
+	 * @return the type name
+	 */
+	static String getTypeName(int index) {
+		return "bench/p" + (index / PACKAGE_SIZE) + "/Type" + index;
+	}
+
+	/**
+	 * Returns the internal name of the super class of the provider type with the given index
+	 * @param index
+	 * @return the super class name
+	 */
+	static String getSuperName(int index) {
+		return index % CHAIN == 0 ? OBJECT : getTypeName(index - 1);
+	}
+
+	/**
+	 * Generates the provider bundle
+	 * @param dir
+	 * @param size
+	 * @param revision
+	 * @throws IOException
+	 */
+	static void generateProvider(File dir, int size, int revision) throws IOException {
+		StringBuffer exports = new StringBuffer();
+		for (int i = 0; i < size; i += PACKAGE_SIZE) {
+			if(i > 0) {
+				exports.append(',');
+			}
+			exports.append("bench.p").append(i / PACKAGE_SIZE);
+		}
+		writeManifest(dir, PROVIDER, revision, "Export-Package: " + exports);
+		for (int i = 0; i < size; i++) {
+			write(dir, getTypeName(i), createProviderType(i, size, revision));
+		}
+	}
+
+	/**
+	 * Generates the consumer bundle
+	 * @param dir
+	 * @param size
+	 * @param revision
+	 * @throws IOException
+	 */
+	static void generateConsumer(File dir, int size, int revision) throws IOException {
+		writeManifest(dir, CONSUMER, revision, "Require-Bundle: " + PROVIDER);
+		for (int i = 0, max = Math.max(1, size / 4); i < max; i++) {
+			write(dir, "bench/consumer/Client" + i, createConsumerType(i, size));
+		}
+	}
+
+	/**
+	 * Creates the class file for the provider type with the given index
+	 * @param index
+	 * @param size
+	 * @param revision
+	 * @return the class file bytes
+	 */
+	static byte[] createProviderType(int index, int size, int revision) {
+		String name = getTypeName(index);
+		String superName = getSuperName(index);
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, superName, null);
+		writer.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "COUNT", "I", null, null).visitEnd();
+		for (int i = 0; i < MEMBERS; i++) {
+			if(revision == 1 && index % 7 == 0 && i == MEMBERS - 1) {
+				//removed field
+				continue;
+			}
+			writer.visitField(Opcodes.ACC_PUBLIC, "field" + i, "Ljava/lang/String;", null, null).visitEnd();
+		}
+		MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		method.visitCode();
+		method.visitVarInsn(Opcodes.ALOAD, 0);
+		method.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V");
+		method.visitInsn(Opcodes.RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+		method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "sm", "(I)V", null, null);
+		method.visitCode();
+		method.visitVarInsn(Opcodes.ILOAD, 0);
+		method.visitFieldInsn(Opcodes.PUTSTATIC, name, "COUNT", "I");
+		method.visitInsn(Opcodes.RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+		for (int i = 0; i < MEMBERS; i++) {
+			int access = Opcodes.ACC_PUBLIC;
+			if(revision == 1 && index % 13 == 0 && i == 0) {
+				//reduced visibility
+				access = Opcodes.ACC_PROTECTED;
+			}
+			String target = getTypeName((index * 7 + i + 1) % size);
+			String field = getTypeName((index + i + 1) % size);
+			method = writer.visitMethod(access, "m" + i, "(I)I", null, null);
+			method.visitCode();
+			method.visitVarInsn(Opcodes.ILOAD, 1);
+			method.visitMethodInsn(Opcodes.INVOKESTATIC, target, "sm", "(I)V");
+			method.visitFieldInsn(Opcodes.GETSTATIC, field, "COUNT", "I");
+			method.visitInsn(Opcodes.IRETURN);
+			method.visitMaxs(0, 0);
+			method.visitEnd();
+		}
+		method = writer.visitMethod(Opcodes.ACC_PUBLIC, "local" + index, "()Ljava/lang/String;", null, null);
+		method.visitCode();
+		method.visitVarInsn(Opcodes.ALOAD, 0);
+		method.visitFieldInsn(Opcodes.GETFIELD, name, "field0", "Ljava/lang/String;");
+		method.visitInsn(Opcodes.ARETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+		if(revision == 1 && index % 10 == 0) {
+			method = writer.visitMethod(Opcodes.ACC_PUBLIC, "added", "()V", null, null);
+			method.visitCode();
+			method.visitInsn(Opcodes.RETURN);
+			method.visitMaxs(0, 0);
+			method.visitEnd();
+		}
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Creates the class file for the consumer type with the given index
+	 * @param index
+	 * @param size
+	 * @return the class file bytes
+	 */
+	static byte[] createConsumerType(int index, int size) {
+		String name = "bench/consumer/Client" + index;
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, OBJECT, null);
+		MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		method.visitCode();
+		method.visitVarInsn(Opcodes.ALOAD, 0);
+		method.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, "<init>", "()V");
+		method.visitInsn(Opcodes.RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+		for (int i = 0; i < 4; i++) {
+			int target = (index * 4 + i) % size;
+			String type = getTypeName(target);
+			method = writer.visitMethod(Opcodes.ACC_PUBLIC, "run" + i, "()V", null, null);
+			method.visitCode();
+			method.visitTypeInsn(Opcodes.NEW, type);
+			method.visitInsn(Opcodes.DUP);
+			method.visitMethodInsn(Opcodes.INVOKESPECIAL, type, "<init>", "()V");
+			method.visitVarInsn(Opcodes.ASTORE, 1);
+			method.visitVarInsn(Opcodes.ALOAD, 1);
+			method.visitInsn(Opcodes.ICONST_1);
+			method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, type, "m" + i, "(I)I");
+			method.visitInsn(Opcodes.POP);
+			method.visitVarInsn(Opcodes.ALOAD, 1);
+			//declared in the super type, if there is one
+			int declaring = target % CHAIN == 0 ? target : target - 1;
+			method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, type, "local" + declaring, "()Ljava/lang/String;");
+			method.visitInsn(Opcodes.POP);
+			method.visitVarInsn(Opcodes.ALOAD, 1);
+			method.visitFieldInsn(Opcodes.GETFIELD, type, "field" + i, "Ljava/lang/String;");
+			method.visitInsn(Opcodes.POP);
+			method.visitInsn(Opcodes.RETURN);
+			method.visitMaxs(0, 0);
+			method.visitEnd();
+		}
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Writes the bundle manifest
+	 * @param dir
+	 * @param id
+	 * @param revision
+	 * @param header
+	 * @throws IOException
+	 */
+	static void writeManifest(File dir, String id, int revision, String header) throws IOException {
+		File file = new File(dir, "META-INF/MANIFEST.MF");
+		file.getParentFile().mkdirs();
+		PrintWriter writer = new PrintWriter(new FileOutputStream(file));
+		try {
+			writer.println("Manifest-Version: 1.0");
+			writer.println("Bundle-ManifestVersion: 2");
+			writer.println("Bundle-SymbolicName: " + id);
+			writer.println("Bundle-Version: 1.0." + revision);
+			writer.println("Bundle-RequiredExecutionEnvironment: J2SE-1.5");
+			writer.println(header);
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Writes a class file
+	 * @param dir
+	 * @param name
+	 * @param bytes
+	 * @throws IOException
+	 */
+	static void write(File dir, String name, byte[] bytes) throws IOException {
+		File file = new File(dir, name + ".class");
+		file.getParentFile().mkdirs();
+		OutputStream stream = new FileOutputStream(file);
+		try {
+			stream.write(bytes);
+		}
+		finally {
+			stream.close();
+		}
+	}
+}
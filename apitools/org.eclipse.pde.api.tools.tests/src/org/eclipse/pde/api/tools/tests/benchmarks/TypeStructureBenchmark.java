@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.tests.benchmarks;
+
+import org.eclipse.pde.api.tools.internal.model.TypeStructureBuilder;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+
+/**
+ * Measures building the type structures of all types in the provider component
+ * with {@link TypeStructureBuilder}
+ *
+ * @since 1.0.400
+ */
+public class TypeStructureBenchmark extends Benchmark {
+
+	SyntheticBaseline baseline = null;
+	IApiComponent component = null;
+	IApiTypeRoot[] roots = null;
+	byte[][] contents = null;
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#getName()
+	 */
+	public String getName() {
+		return "TypeStructureBuilder.buildTypeStructure";
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#setUp(int)
+	 */
+	public void setUp(int size) throws Exception {
+		baseline = new SyntheticBaseline(size, 0);
+		component = baseline.getProvider();
+		roots = SyntheticBaseline.getTypeRoots(component);
+		contents = new byte[roots.length][];
+		for (int i = 0; i < roots.length; i++) {
+			contents[i] = roots[i].getContents();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#run()
+	 */
+	public int run() throws Exception {
+		int count = 0;
+		for (int i = 0; i < roots.length; i++) {
+			IApiType type = TypeStructureBuilder.buildTypeStructure(contents[i], component, roots[i]);
+			count += type.getMethods().length;
+		}
+		return count;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#tearDown()
+	 */
+	public void tearDown() throws Exception {
+		baseline.dispose();
+	}
+}
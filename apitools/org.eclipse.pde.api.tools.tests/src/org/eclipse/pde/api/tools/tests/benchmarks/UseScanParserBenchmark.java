@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.tests.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.pde.api.tools.internal.builder.Reference;
+import org.eclipse.pde.api.tools.internal.builder.ReferenceResolver;
+import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+import org.eclipse.pde.api.tools.internal.search.IReferenceDescriptor;
+import org.eclipse.pde.api.tools.internal.search.UseScanParser;
+import org.eclipse.pde.api.tools.internal.search.UseScanVisitor;
+import org.eclipse.pde.api.tools.internal.search.XmlReferenceDescriptorWriter;
+import org.eclipse.pde.api.tools.internal.util.Util;
+import org.eclipse.pde.api.tools.model.tests.TestSuiteHelper;
+
+/**
+ * Measures parsing an API use scan with the {@link UseScanParser}. The scan is written
+ * during set up from the references the consumer component makes to the provider component.
+ *
+ * @since 1.0.400
+ */
+public class UseScanParserBenchmark extends Benchmark {
+
+	/**
+	 * Visitor counting the visited references
+	 */
+	static class CountingVisitor extends UseScanVisitor {
+		int count = 0;
+		public void visitReference(IReferenceDescriptor reference) {
+			count++;
+		}
+	}
+
+	File scan = null;
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#getName()
+	 */
+	public String getName() {
+		return "UseScanParser.parse";
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#setUp(int)
+	 */
+	@SuppressWarnings("unchecked")
+	public void setUp(int size) throws Exception {
+		SyntheticBaseline baseline = new SyntheticBaseline(size, 0);
+		try {
+			List<IReference> references = new ArrayList<IReference>();
+			IApiTypeRoot[] roots = SyntheticBaseline.getTypeRoots(baseline.getConsumer());
+			for (int i = 0; i < roots.length; i++) {
+				references.addAll(roots[i].getStructure().extractReferences(IReference.MASK_REF_ALL, null));
+			}
+			ReferenceResolver.resolveReferences(references, new NullProgressMonitor());
+			List<IReferenceDescriptor> descriptors = new ArrayList<IReferenceDescriptor>();
+			for (IReference reference : references) {
+				IReferenceDescriptor descriptor = ((Reference) reference).getReferenceDescriptor();
+				if(descriptor != null) {
+					descriptors.add(descriptor);
+				}
+			}
+			scan = Util.createTempFile("usescan", "");
+			scan.delete();
+			scan.mkdirs();
+			new XmlReferenceDescriptorWriter(scan.getAbsolutePath()).writeReferences(descriptors.toArray(new IReferenceDescriptor[descriptors.size()]));
+		}
+		finally {
+			baseline.dispose();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#run()
+	 */
+	public int run() throws Exception {
+		CountingVisitor visitor = new CountingVisitor();
+		new UseScanParser().parse(scan.getAbsolutePath(), new NullProgressMonitor(), visitor);
+		return visitor.count;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.tests.benchmarks.Benchmark#tearDown()
+	 */
+	public void tearDown() throws Exception {
+		TestSuiteHelper.delete(scan);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 IBM Corporation and others.
+ * Copyright (c) 2007, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,11 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.util.tests;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -48,6 +51,9 @@ import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
 import org.eclipse.jdt.core.dom.rewrite.ListRewrite;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.pde.api.tools.internal.ApiBaselineManager;
+import org.eclipse.pde.api.tools.internal.BaselineIndex;
+import org.eclipse.pde.api.tools.internal.model.ApiBaseline;
 import org.eclipse.pde.api.tools.internal.model.ApiModelFactory;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.Factory;
@@ -78,6 +84,7 @@ public class ApiBaselineManagerTests extends AbstractApiTest {
 	static final String THREE = "three";
 	static final String TESTDEFAULT = "testdefault";
 	static final String ADDTEST = "addtest";
+	static final String SAVETEST = "savetest";
 
 	class SourceChangeVisitor extends ASTVisitor {
 		String name = null;
@@ -281,6 +288,150 @@ public class ApiBaselineManagerTests extends AbstractApiTest {
 		}
 	}
 	
+	/**
+	 * Creates a baseline with the given name and the components in the given test plug-ins, adds it to
+	 * the manager and saves the manager
+	 * @param name
+	 * @param plugins the file names of the test plug-ins
+	 * @return the saved baseline
+	 * @throws Exception
+	 */
+	IApiBaseline createSavedBaseline(String name, String[] plugins) throws Exception {
+		IApiBaseline baseline = ApiModelFactory.newApiBaseline(name);
+		IApiComponent[] components = new IApiComponent[plugins.length];
+		for (int i = 0; i < plugins.length; i++) {
+			components[i] = ApiModelFactory.newApiComponent(baseline, PLUGIN_LOC.append(plugins[i]).toOSString());
+			assertNotNull("the component should have been created", components[i]);
+		}
+		baseline.addApiComponents(components);
+		fPMmanager.addApiBaseline(baseline);
+		ApiBaselineManager.getManager().saving(null);
+		assertTrue("the baseline should have been saved", getBaselineFile(name).exists());
+		assertFalse("the saved baseline should have been unloaded", ((ApiBaseline) baseline).peekInfos());
+		return baseline;
+	}
+	
+	/**
+	 * @param name
+	 * @return the file the manager saves the baseline with the given name in
+	 */
+	File getBaselineFile(String name) {
+		return ApiPlugin.getDefault().getStateLocation().append(".api_profiles").append(name+".profile").toFile();
+	}
+	
+	/**
+	 * Overwrites the given file with as many bytes as it has, keeping its time stamp, so that the
+	 * index still considers it unchanged
+	 * @param file
+	 * @return the bytes written
+	 * @throws Exception
+	 */
+	byte[] overwrite(File file) throws Exception {
+		long modified = file.lastModified();
+		byte[] bytes = new byte[(int) file.length()];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = 'x';
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.write(bytes);
+		}
+		finally {
+			raf.close();
+		}
+		assertTrue("the time stamp should have been restored", file.setLastModified(modified));
+		return bytes;
+	}
+	
+	/**
+	 * Returns the contents of the given file
+	 * @param file
+	 * @return the bytes of the file
+	 * @throws Exception
+	 */
+	byte[] read(File file) throws Exception {
+		byte[] bytes = new byte[(int) file.length()];
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			raf.readFully(bytes);
+		}
+		finally {
+			raf.close();
+		}
+		return bytes;
+	}
+	
+	/**
+	 * Tests that a saved baseline is restored from the index, without reading its description
+	 * 
+	 * @throws Exception
+	 */
+	public void testRestoreFromIndex() throws Exception {
+		try {
+			IApiBaseline baseline = createSavedBaseline(SAVETEST, new String[] {"component.a_1.0.0.jar"});
+			// the description cannot be parsed anymore, only the index can restore the baseline
+			overwrite(getBaselineFile(SAVETEST));
+			IApiComponent[] components = fPMmanager.getApiBaseline(SAVETEST).getApiComponents();
+			assertEquals("wrong number of components", 1, components.length);
+			assertNotNull("the component should be restored", baseline.getApiComponent("component.a"));
+		}
+		finally {
+			fPMmanager.removeApiBaseline(SAVETEST);
+		}
+	}
+	
+	/**
+	 * Tests that a loaded baseline that is added again unchanged is not saved again, while a changed one is
+	 * 
+	 * @throws Exception
+	 */
+	public void testSaveChangedBaselinesOnly() throws Exception {
+		try {
+			IApiBaseline baseline = createSavedBaseline(SAVETEST, new String[] {"component.a_1.0.0.jar"});
+			File file = getBaselineFile(SAVETEST);
+			baseline.getApiComponents();
+			assertTrue("the baseline should be loaded", ((ApiBaseline) baseline).peekInfos());
+			byte[] bytes = overwrite(file);
+			fPMmanager.addApiBaseline(baseline);
+			ApiBaselineManager.getManager().saving(null);
+			assertTrue("the unchanged baseline should not have been saved again", Arrays.equals(bytes, read(file)));
+			baseline.getApiComponents();
+			baseline.addApiComponents(new IApiComponent[] {ApiModelFactory.newApiComponent(baseline, PLUGIN_LOC.append("component.b_1.0.0.jar").toOSString())});
+			fPMmanager.addApiBaseline(baseline);
+			ApiBaselineManager.getManager().saving(null);
+			assertFalse("the changed baseline should have been saved", Arrays.equals(bytes, read(file)));
+			assertEquals("the saved baseline should list both components", 2, ApiBaselineManager.getManager().getBaselineEntry(baseline).size());
+			File[] files = file.getParentFile().listFiles();
+			for (int i = 0; i < files.length; i++) {
+				assertFalse("no temporary file should be left", files[i].getName().endsWith(".tmp"));
+			}
+		}
+		finally {
+			fPMmanager.removeApiBaseline(SAVETEST);
+		}
+	}
+	
+	/**
+	 * Tests that the components of a saved baseline are listed from the index without loading the baseline,
+	 * as the baseline wizard does
+	 * 
+	 * @throws Exception
+	 */
+	public void testGetBaselineEntry() throws Exception {
+		try {
+			IApiBaseline baseline = createSavedBaseline(SAVETEST, new String[] {"component.a_1.0.0.jar", "component.b_1.0.0.jar"});
+			BaselineIndex.Entry entry = ApiBaselineManager.getManager().getBaselineEntry(fPMmanager.getApiBaseline(SAVETEST));
+			assertEquals("wrong name", SAVETEST, entry.getName());
+			assertEquals("wrong number of components", 2, entry.size());
+			assertTrue("component.a should be listed", entry.indexOf("component.a") > -1);
+			assertTrue("component.b should be listed", entry.indexOf("component.b") > -1);
+			assertFalse("the baseline should not have been loaded", ((ApiBaseline) baseline).peekInfos());
+		}
+		finally {
+			fPMmanager.removeApiBaseline(SAVETEST);
+		}
+	}
+	
 	/**
 	 * Adds the given source to the given package in the given fragment root
 	 * @param root the root to add the source to
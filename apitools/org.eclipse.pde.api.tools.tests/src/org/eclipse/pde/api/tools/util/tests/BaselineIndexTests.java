@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.util.tests;
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.pde.api.tools.internal.BaselineIndex;
+import org.eclipse.pde.api.tools.internal.util.Util;
+
+/**
+ * Tests the {@link BaselineIndex} of the saved API baselines
+ *
+ * @since 1.0.400
+ */
+public class BaselineIndexTests extends TestCase {
+
+	static final String PROFILE = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n" +
+			"<apiprofile location=\"/baselines/one\" name=\"one\" version=\"2\">\n" +
+			"<apicomponent id=\"a\" location=\"/baselines/one/a_1.0.0.jar\" version=\"1.0.0\"/>\n" +
+			"<apicomponent id=\"b\" location=\"/baselines/one/b_2.0.0\" version=\"2.0.0\"/>\n" +
+			"</apiprofile>\n";
+
+	static final String POOLED_PROFILE = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n" +
+			"<apiprofile name=\"two\" version=\"1\">\n" +
+			"<pool location=\"/baselines/two\">\n" +
+			"<apicomponent id=\"a\" version=\"1.0.0\"/>\n" +
+			"</pool>\n" +
+			"</apiprofile>\n";
+
+	File dir = null;
+
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	protected void setUp() throws Exception {
+		dir = File.createTempFile("baselineindex", "tests");
+		dir.delete();
+		dir.mkdirs();
+	}
+
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#tearDown()
+	 */
+	protected void tearDown() throws Exception {
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (int i = 0; i < files.length; i++) {
+				files[i].delete();
+			}
+		}
+		dir.delete();
+	}
+
+	private String toOSString(String location) {
+		return Path.fromPortableString(location).toOSString();
+	}
+
+	/**
+	 * Asserts that the given entry lists the baseline of {@link #PROFILE}
+	 * @param entry
+	 */
+	private void assertEntry(BaselineIndex.Entry entry) {
+		assertNotNull("there should be an entry", entry);
+		assertEquals("wrong name", "one", entry.getName());
+		assertEquals("wrong location", toOSString("/baselines/one"), entry.getLocation());
+		assertEquals("wrong number of components", 2, entry.size());
+		assertEquals("wrong id", "a", entry.getComponentId(0));
+		assertEquals("wrong version", "1.0.0", entry.getComponentVersion(0));
+		assertEquals("wrong component location", toOSString("/baselines/one/a_1.0.0.jar"), entry.getComponentLocation(0));
+		assertEquals("wrong id", "b", entry.getComponentId(1));
+		assertEquals("wrong version", "2.0.0", entry.getComponentVersion(1));
+		assertEquals("wrong component location", toOSString("/baselines/one/b_2.0.0"), entry.getComponentLocation(1));
+		assertEquals("wrong index", 1, entry.indexOf("b"));
+		assertEquals("wrong index", -1, entry.indexOf("c"));
+	}
+
+	/**
+	 * Tests reading the components of a baseline description and reusing them from the saved index
+	 *
+	 * @throws Exception
+	 */
+	public void testReadEntry() throws Exception {
+		File profile = new File(dir, "one.profile");
+		Util.saveFile(profile, PROFILE);
+		File file = new File(dir, "profiles.index");
+		BaselineIndex index = new BaselineIndex(file);
+		assertNull("the baseline should not be indexed yet", index.getEntry("one", profile));
+		BaselineIndex.Entry entry = index.readEntry("one", profile);
+		assertEntry(entry);
+		index.save();
+		assertTrue("the index should be saved", file.exists());
+		index = new BaselineIndex(file);
+		index.load();
+		BaselineIndex.Entry saved = index.getEntry("one", profile);
+		assertEntry(saved);
+		assertTrue("the entries should describe the same components", saved.describes(entry));
+	}
+
+	/**
+	 * Tests that entries are dropped when the baseline description changes
+	 *
+	 * @throws Exception
+	 */
+	public void testChangedProfile() throws Exception {
+		File profile = new File(dir, "one.profile");
+		Util.saveFile(profile, PROFILE);
+		File file = new File(dir, "profiles.index");
+		BaselineIndex index = new BaselineIndex(file);
+		assertEntry(index.readEntry("one", profile));
+		index.save();
+		String changed = PROFILE.replaceAll("2\\.0\\.0", "2.1.0");
+		Util.saveFile(profile, changed);
+		profile.setLastModified(profile.lastModified() + 10000);
+		index = new BaselineIndex(file);
+		index.load();
+		assertNull("the entry should be stale", index.getEntry("one", profile));
+		BaselineIndex.Entry entry = index.readEntry("one", profile);
+		assertNotNull("there should be a new entry", entry);
+		assertEquals("wrong version", "2.1.0", entry.getComponentVersion(1));
+		index.removeEntry("one");
+		assertNull("the entry should be removed", index.getEntry("one", profile));
+	}
+
+	/**
+	 * Tests that descriptions listing pools of components are not indexed
+	 *
+	 * @throws Exception
+	 */
+	public void testPooledProfile() throws Exception {
+		File profile = new File(dir, "two.profile");
+		Util.saveFile(profile, POOLED_PROFILE);
+		BaselineIndex index = new BaselineIndex(new File(dir, "profiles.index"));
+		assertNull("pooled baselines should not be indexed", index.readEntry("two", profile));
+	}
+}
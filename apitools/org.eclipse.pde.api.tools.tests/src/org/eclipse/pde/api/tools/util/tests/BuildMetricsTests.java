@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.util.tests;
+
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+import org.eclipse.pde.api.tools.internal.builder.BuildMetrics;
+import org.eclipse.pde.api.tools.internal.builder.IBuildMetricsListener;
+
+/**
+ * Tests the {@link BuildMetrics} class
+ *
+ * @since 1.0.400
+ */
+public class BuildMetricsTests extends TestCase {
+
+	/**
+	 * Tests that the time and count of a phase are aggregated in the order the phases are first recorded
+	 */
+	public void testRecord() {
+		BuildMetrics metrics = new BuildMetrics("p1");
+		metrics.record(BuildMetrics.PHASE_COMPATIBILITY, 10);
+		metrics.record(BuildMetrics.PHASE_FILTER_LOOKUP, 1);
+		metrics.record(BuildMetrics.PHASE_FILTER_LOOKUP, 2);
+		metrics.done();
+		String[] phases = metrics.getPhases();
+		assertEquals("there should be two phases", 2, phases.length);
+		assertEquals("the compatibility phase should be first", BuildMetrics.PHASE_COMPATIBILITY, phases[0]);
+		assertEquals("the filter lookup time should be summed", 3, metrics.getTime(BuildMetrics.PHASE_FILTER_LOOKUP));
+		assertEquals("the filter lookup should be counted twice", 2, metrics.getCount(BuildMetrics.PHASE_FILTER_LOOKUP));
+		assertEquals("an unknown phase should have no time", 0, metrics.getTime("unknown"));
+		assertTrue("the total time should not be negative", metrics.getTotalTime() >= 0);
+	}
+
+	/**
+	 * Tests writing the metrics as CSV
+	 */
+	public void testWriteCSV() throws Exception {
+		BuildMetrics metrics = new BuildMetrics("a,b");
+		metrics.record(BuildMetrics.PHASE_SINCE_TAGS, 5);
+		metrics.done();
+		StringWriter writer = new StringWriter();
+		BuildMetrics.writeCSV(new BuildMetrics[] {metrics}, writer);
+		String[] lines = writer.toString().trim().split("\r?\n");
+		assertEquals("there should be a header, a total and a phase line", 3, lines.length);
+		assertEquals("name,phase,time,count", lines[0]);
+		assertTrue("the name should be quoted", lines[1].startsWith("\"a,b\",total,"));
+		assertEquals("\"a,b\",since.tags,5,1", lines[2]);
+	}
+
+	/**
+	 * Tests writing the metrics as JSON
+	 */
+	public void testWriteJSON() throws Exception {
+		BuildMetrics metrics = new BuildMetrics("p\"1");
+		metrics.record(BuildMetrics.PHASE_MARKER_CREATION, 7);
+		metrics.done();
+		StringWriter writer = new StringWriter();
+		BuildMetrics.writeJSON(new BuildMetrics[] {metrics}, writer);
+		String json = writer.toString();
+		assertTrue("the json should start with the builds array", json.startsWith("{\"builds\":["));
+		assertTrue("the name should be escaped", json.indexOf("\"name\":\"p\\\"1\"") > 0);
+		assertTrue("the phase should be written", json.indexOf("{\"phase\":\"marker.creation\",\"time\":7,\"count\":1}") > 0);
+	}
+
+	/**
+	 * Tests that registering a listener turns on the collection of metrics
+	 */
+	public void testListener() {
+		IBuildMetricsListener listener = new IBuildMetricsListener() {
+			public void metricsAvailable(BuildMetrics metrics) {
+			}
+		};
+		BuildMetrics.addListener(listener);
+		try {
+			assertTrue("metrics should be collected while a listener is registered", BuildMetrics.isCollecting());
+		}
+		finally {
+			BuildMetrics.removeListener(listener);
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.util.tests;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import junit.framework.TestCase;
+
+import org.eclipse.pde.api.tools.internal.util.PatternFilter;
+
+/**
+ * Tests the {@link PatternFilter} class
+ * 
+ * @since 1.0.400
+ */
+public class PatternFilterTests extends TestCase {
+
+	static final String[] PATTERNS = new String[] {
+		"^org\\.eclipse",
+		"org\\.eclipse\\..*",
+		"^org$",
+		"org\\.eclipse$",
+		"",
+		".*",
+		"org.eclipse",
+		"a|b.*",
+		"(?i)ORG",
+		"^org\\.eclipse\\.*x",
+		"internal"
+	};
+	
+	static final String[] NAMES = new String[] {
+		"org.eclipse.jdt",
+		"org",
+		"orgXeclipse",
+		"org.eclipse",
+		"com.foo",
+		"",
+		"org.eclipse...x",
+		"ORG.x",
+		"b.c",
+		"a",
+		"org.eclipse.pde.internal.core"
+	};
+	
+	/**
+	 * Tests that each pattern gives the same result as {@link java.util.regex.Matcher#find()}
+	 */
+	public void testFindSemantics() {
+		assertSameAsRegex(false);
+	}
+	
+	/**
+	 * Tests that each pattern gives the same result as {@link java.util.regex.Matcher#matches()}
+	 */
+	public void testMatchesSemantics() {
+		assertSameAsRegex(true);
+	}
+	
+	/**
+	 * Tests that a filter with several patterns matches if any of them matches
+	 */
+	public void testMultiplePatterns() {
+		PatternFilter filter = new PatternFilter(new String[] {"^com\\.foo", "internal"}, false);
+		assertTrue("com.foo.bar should match", filter.matches("com.foo.bar"));
+		assertTrue("org.eclipse.internal should match", filter.matches("org.eclipse.internal"));
+		assertFalse("org.eclipse.core should not match", filter.matches("org.eclipse.core"));
+		assertEquals("there should be two patterns", 2, filter.getPatterns().length);
+	}
+	
+	/**
+	 * Tests that an empty filter does not match anything
+	 */
+	public void testEmptyFilter() {
+		PatternFilter filter = new PatternFilter(false);
+		assertTrue("the filter should be empty", filter.isEmpty());
+		assertFalse("an empty filter should not match", filter.matches("org.eclipse"));
+	}
+	
+	/**
+	 * Tests that invalid patterns are reported
+	 */
+	public void testInvalidPattern() {
+		PatternFilter filter = new PatternFilter(false);
+		try {
+			filter.addPattern("org.eclipse.(");
+			fail("the pattern should not be valid");
+		}
+		catch(PatternSyntaxException pse) {
+			//expected
+		}
+		assertTrue("the filter should still be empty", filter.isEmpty());
+	}
+	
+	void assertSameAsRegex(boolean fullmatch) {
+		for (int i = 0; i < PATTERNS.length; i++) {
+			PatternFilter filter = new PatternFilter(new String[] {PATTERNS[i]}, fullmatch);
+			Pattern pattern = Pattern.compile(PATTERNS[i]);
+			for (int j = 0; j < NAMES.length; j++) {
+				boolean expected = fullmatch ? pattern.matcher(NAMES[j]).matches() : pattern.matcher(NAMES[j]).find();
+				assertEquals("wrong result for pattern ["+PATTERNS[i]+"] and name ["+NAMES[j]+"]", expected, filter.matches(NAMES[j]));
+				//the cached decision must be the same
+				assertEquals("wrong cached result for pattern ["+PATTERNS[i]+"] and name ["+NAMES[j]+"]", expected, filter.matches(NAMES[j]));
+			}
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.util.tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.eclipse.pde.api.tools.internal.builder.ProfileSymbols;
+import org.eclipse.pde.api.tools.internal.builder.Reference;
+import org.eclipse.pde.api.tools.internal.model.ApiModelFactory;
+import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.search.ComponentSymbolIndex;
+import org.eclipse.pde.api.tools.internal.util.SymbolTable;
+import org.eclipse.pde.api.tools.model.tests.TestSuiteHelper;
+
+/**
+ * Tests the fast check of references against the {@link ProfileSymbols} of a component
+ *
+ * @since 1.0.400
+ */
+public class ProfileSymbolsTests extends TestCase {
+
+	static final String TYPE = "a.b.c.FieldInitializers";
+
+	IApiBaseline baseline = null;
+	IApiComponent component = null;
+
+	/**
+	 * The references to check and the results expected for them
+	 */
+	IReference[] references = null;
+	int[] expected = null;
+
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	protected void setUp() throws Exception {
+		baseline = TestSuiteHelper.newApiBaseline("test", TestSuiteHelper.getEEDescriptionFile());
+		component = ApiModelFactory.newApiComponent(baseline, TestSuiteHelper.getPluginDirectoryPath().append("test-plugins").append("component.a_1.0.0.jar").toOSString());
+		assertNotNull("the component should have been created", component);
+		baseline.addApiComponents(new IApiComponent[] {component});
+		references = new IReference[] {
+			Reference.typeReference(null, TYPE, IReference.REF_PARAMETER),
+			Reference.typeReference(null, "a.b.c.Missing", IReference.REF_PARAMETER),
+			Reference.fieldReference(null, TYPE, "o5", IReference.REF_GETSTATIC),
+			Reference.fieldReference(null, TYPE, "missing", IReference.REF_GETFIELD),
+			Reference.methodReference(null, TYPE, "<init>", "()V", IReference.REF_CONSTRUCTORMETHOD),
+			Reference.methodReference(null, TYPE, "toString", "()Ljava/lang/String;", IReference.REF_VIRTUALMETHOD),
+			Reference.methodReference(null, "a.b.c.Missing", "m", "()V", IReference.REF_VIRTUALMETHOD),
+		};
+		expected = new int[] {
+			ProfileSymbols.RESOLVED,
+			ProfileSymbols.UNRESOLVED,
+			ProfileSymbols.RESOLVED,
+			// may be inherited
+			ProfileSymbols.UNKNOWN,
+			ProfileSymbols.RESOLVED,
+			// inherited from java.lang.Object
+			ProfileSymbols.UNKNOWN,
+			ProfileSymbols.UNRESOLVED,
+		};
+	}
+
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#tearDown()
+	 */
+	protected void tearDown() throws Exception {
+		ProfileSymbols.clearCache();
+		if(baseline != null) {
+			baseline.dispose();
+		}
+	}
+
+	/**
+	 * Checks all of the references against the component
+	 * @return the description of the first unexpected result or <code>null</code>
+	 */
+	String checkAll() {
+		for (int i = 0; i < references.length; i++) {
+			int result = ProfileSymbols.check(component, references[i]);
+			if(result != expected[i]) {
+				return "wrong result " + result + " for reference " + i;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Tests that types and members declared in the component are decided from its symbol table
+	 */
+	public void testCheck() {
+		assertNull(checkAll());
+		// the second check uses the table already loaded by this thread
+		assertNull(checkAll());
+	}
+
+	/**
+	 * Tests that the table can be checked again after the cache was cleared
+	 */
+	public void testClearCache() {
+		assertNull(checkAll());
+		ProfileSymbols.clearCache();
+		assertNull(checkAll());
+	}
+
+	/**
+	 * Tests that threads checking references at the same time all get the expected results
+	 *
+	 * @throws Exception
+	 */
+	public void testConcurrentCheck() throws Exception {
+		final String[] failures = new String[4];
+		Thread[] threads = new Thread[failures.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread("Profile symbols test " + i) {
+				public void run() {
+					try {
+						for (int j = 0; j < 500 && failures[index] == null; j++) {
+							failures[index] = checkAll();
+						}
+					}
+					catch(Throwable t) {
+						failures[index] = t.toString();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+			assertNull(failures[i]);
+		}
+	}
+
+	/**
+	 * Writes the given bytes to the given file
+	 * @param file
+	 * @param bytes
+	 * @param append
+	 * @throws Exception
+	 */
+	private void write(File file, byte[] bytes, boolean append) throws Exception {
+		FileOutputStream out = new FileOutputStream(file, append);
+		try {
+			out.write(bytes);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Tests that a symbol table installed next to a stub is only loaded for the stub it was generated with
+	 *
+	 * @throws Exception
+	 */
+	public void testLoadInstalledTable() throws Exception {
+		File stub = File.createTempFile("profile", ".zip");
+		File symbols = new File(stub.getParentFile(), stub.getName() + ComponentSymbolIndex.EXTENSION);
+		try {
+			write(stub, new byte[100], false);
+			assertNull("a missing table must not be loaded", ProfileSymbols.loadInstalledTable(symbols, stub));
+			String field = ComponentSymbolIndex.getFieldKey(TYPE, "o5");
+			SymbolTable.write(symbols, ComponentSymbolIndex.getProfileFingerprint(stub), Arrays.asList(new String[] {TYPE, field}));
+			SymbolTable table = ProfileSymbols.loadInstalledTable(symbols, stub);
+			assertNotNull("the installed table should have been loaded", table);
+			assertTrue("the type should be in the table", table.contains(TYPE));
+			assertTrue("the field should be in the table", table.contains(field));
+			assertFalse("the missing type should not be in the table", table.contains("a.b.c.Missing"));
+			// a stub generated again without its table
+			write(stub, new byte[10], true);
+			assertNull("a table generated for another stub must not be loaded", ProfileSymbols.loadInstalledTable(symbols, stub));
+		}
+		finally {
+			stub.delete();
+			symbols.delete();
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.util.tests;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+import org.eclipse.pde.api.tools.internal.util.SymbolTable;
+
+/**
+ * Tests the {@link SymbolTable} class
+ *
+ * @since 1.0.400
+ */
+public class SymbolTableTests extends TestCase {
+
+	File file = null;
+
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	protected void setUp() throws Exception {
+		file = File.createTempFile("symbols", ".symbols");
+	}
+
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#tearDown()
+	 */
+	protected void tearDown() throws Exception {
+		file.delete();
+	}
+
+	/**
+	 * Tests that all written symbols are found after loading the table
+	 *
+	 * @throws Exception
+	 */
+	public void testWriteAndLoad() throws Exception {
+		ArrayList<String> symbols = new ArrayList<String>();
+		for (int i = 0; i < 1000; i++) {
+			symbols.add("a.b.Type" + i);
+			symbols.add("a.b.Type" + i + "#method(I)V");
+		}
+		SymbolTable.write(file, 42, symbols);
+		SymbolTable table = SymbolTable.load(file, 42);
+		assertNotNull("the table should have been loaded", table);
+		assertEquals("wrong number of symbols", symbols.size(), table.size());
+		for (String symbol : symbols) {
+			assertTrue("missing symbol: " + symbol, table.contains(symbol));
+		}
+		assertFalse("unexpected symbol", table.contains("a.b.Type1000"));
+		assertFalse("unexpected symbol", table.contains("a.b.Type1#method(J)V"));
+		assertFalse("null should never be contained", table.contains(null));
+	}
+
+	/**
+	 * Tests that a table written for a different fingerprint is not loaded
+	 *
+	 * @throws Exception
+	 */
+	public void testStaleFingerprint() throws Exception {
+		SymbolTable.write(file, 1, Collections.singletonList("a.b.C"));
+		assertNull("a table with a different fingerprint must not be loaded", SymbolTable.load(file, 2));
+		assertNotNull("the table should have been loaded", SymbolTable.load(file, 1));
+	}
+
+	/**
+	 * Tests loading a file that does not exist or is not a symbol table
+	 *
+	 * @throws Exception
+	 */
+	public void testInvalidFiles() throws Exception {
+		assertNull("an empty file is not a symbol table", SymbolTable.load(file, 0));
+		assertNull("a missing file is not a symbol table", SymbolTable.load(new File(file.getParentFile(), "missing.symbols"), 0));
+	}
+
+	/**
+	 * Tests an empty table
+	 *
+	 * @throws Exception
+	 */
+	public void testEmptyTable() throws Exception {
+		SymbolTable.write(file, 0, Collections.emptyList());
+		SymbolTable table = SymbolTable.load(file, 0);
+		assertNotNull("the table should have been loaded", table);
+		assertEquals("the table should be empty", 0, table.size());
+		assertFalse("an empty table contains nothing", table.contains("a"));
+	}
+}
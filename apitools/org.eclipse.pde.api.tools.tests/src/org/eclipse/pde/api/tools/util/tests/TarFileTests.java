@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.util.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import junit.framework.TestCase;
+
+import org.eclipse.pde.api.tools.internal.util.TarEntry;
+import org.eclipse.pde.api.tools.internal.util.TarFile;
+
+/**
+ * Tests the random access to the entries of a {@link TarFile}
+ *
+ * @since 1.0.400
+ */
+public class TarFileTests extends TestCase {
+
+	static final String[] NAMES = new String[] {"a/one.txt", "a/two.bin", "b/three.bin"};
+
+	File dir = null;
+	byte[][] contents = null;
+
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	protected void setUp() throws Exception {
+		dir = File.createTempFile("tarfile", "tests");
+		dir.delete();
+		dir.mkdirs();
+		contents = new byte[NAMES.length][];
+		for (int i = 0; i < NAMES.length; i++) {
+			contents[i] = new byte[700 * (i + 1)];
+			for (int j = 0; j < contents[i].length; j++) {
+				contents[i][j] = (byte) (j * (i + 3));
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#tearDown()
+	 */
+	protected void tearDown() throws Exception {
+		delete(dir);
+	}
+
+	private void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (int i = 0; i < children.length; i++) {
+				delete(children[i]);
+			}
+		}
+		file.delete();
+	}
+
+	/**
+	 * Writes a tar archive of the test contents
+	 * @param file
+	 * @param gzip
+	 * @throws IOException
+	 */
+	private void writeTar(File file, boolean gzip) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		if (gzip) {
+			out = new GZIPOutputStream(out);
+		}
+		try {
+			for (int i = 0; i < NAMES.length; i++) {
+				byte[] header = new byte[512];
+				put(header, 0, NAMES[i]);
+				put(header, 100, "0000644");
+				put(header, 108, "0000000");
+				put(header, 116, "0000000");
+				put(header, 124, pad(Integer.toOctalString(contents[i].length), 11));
+				put(header, 136, "00000000000");
+				Arrays.fill(header, 148, 156, (byte) ' ');
+				header[156] = '0';
+				put(header, 257, "ustar");
+				put(header, 263, "00");
+				long sum = 0;
+				for (int j = 0; j < header.length; j++) {
+					sum += header[j] & 0xff;
+				}
+				put(header, 148, pad(Long.toOctalString(sum), 6));
+				header[154] = 0;
+				out.write(header);
+				out.write(contents[i]);
+				int rest = contents[i].length % 512;
+				if (rest != 0) {
+					out.write(new byte[512 - rest]);
+				}
+			}
+			out.write(new byte[1024]);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	private void put(byte[] header, int offset, String value) {
+		byte[] bytes = value.getBytes();
+		System.arraycopy(bytes, 0, header, offset, bytes.length);
+	}
+
+	private String pad(String value, int length) {
+		StringBuffer buffer = new StringBuffer();
+		for (int i = value.length(); i < length; i++) {
+			buffer.append('0');
+		}
+		return buffer.append(value).toString();
+	}
+
+	private byte[] read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[333];
+		int n = 0;
+		while ((n = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Reads the entries in reverse order and checks their contents
+	 * @param tarFile
+	 * @throws Exception
+	 */
+	private void assertContents(TarFile tarFile) throws Exception {
+		for (int i = NAMES.length - 1; i >= 0; i--) {
+			TarEntry entry = tarFile.getEntry(NAMES[i]);
+			assertNotNull("missing entry: " + NAMES[i], entry);
+			assertEquals("wrong size", contents[i].length, entry.getSize());
+			assertTrue("wrong contents for " + NAMES[i], Arrays.equals(contents[i], read(tarFile.getInputStream(entry))));
+		}
+		assertNull("unexpected entry", tarFile.getEntry("a/four.txt"));
+	}
+
+	/**
+	 * Tests reading the entries of an uncompressed archive in any order
+	 *
+	 * @throws Exception
+	 */
+	public void testRandomAccess() throws Exception {
+		File file = new File(dir, "test.tar");
+		writeTar(file, false);
+		TarFile tarFile = new TarFile(file);
+		try {
+			assertContents(tarFile);
+			// streams of uncompressed archives stay valid while other entries are read
+			InputStream first = tarFile.getInputStream(tarFile.getEntry(NAMES[0]));
+			InputStream second = tarFile.getInputStream(tarFile.getEntry(NAMES[1]));
+			assertEquals("wrong first byte", contents[0][0] & 0xff, first.read());
+			assertEquals("wrong first byte", contents[1][0] & 0xff, second.read());
+			assertEquals("wrong second byte", contents[0][1] & 0xff, first.read());
+		}
+		finally {
+			tarFile.close();
+		}
+	}
+
+	/**
+	 * Tests reading the entries of a compressed archive in any order
+	 *
+	 * @throws Exception
+	 */
+	public void testCompressedAccess() throws Exception {
+		File file = new File(dir, "test.tar.gz");
+		writeTar(file, true);
+		TarFile tarFile = new TarFile(file);
+		try {
+			assertContents(tarFile);
+		}
+		finally {
+			tarFile.close();
+		}
+	}
+
+	/**
+	 * Tests that the saved index is reused and replaced when the archive changes, deleting the stale index
+	 *
+	 * @throws Exception
+	 */
+	public void testSavedIndex() throws Exception {
+		File file = new File(dir, "test.tar");
+		File indexDir = new File(dir, "index");
+		writeTar(file, false);
+		TarFile tarFile = new TarFile(file, indexDir);
+		try {
+			assertContents(tarFile);
+		}
+		finally {
+			tarFile.close();
+		}
+		String[] indexes = indexDir.list();
+		assertNotNull("the index should have been saved", indexes);
+		assertEquals("wrong number of indexes", 1, indexes.length);
+		tarFile = new TarFile(file, indexDir);
+		try {
+			assertContents(tarFile);
+		}
+		finally {
+			tarFile.close();
+		}
+		assertEquals("the index should have been reused", 1, indexDir.list().length);
+		contents[0] = new byte[10];
+		writeTar(file, false);
+		file.setLastModified(file.lastModified() + 10000);
+		tarFile = new TarFile(file, indexDir);
+		try {
+			assertContents(tarFile);
+		}
+		finally {
+			tarFile.close();
+		}
+		String[] replaced = indexDir.list();
+		assertEquals("the stale index should have been deleted", 1, replaced.length);
+		assertFalse("a new index should have been saved", indexes[0].equals(replaced[0]));
+	}
+
+	/**
+	 * Tests that archives with the same name in different directories keep their own saved indexes
+	 *
+	 * @throws Exception
+	 */
+	public void testSharedIndexDirectory() throws Exception {
+		File indexDir = new File(dir, "index");
+		File[] files = new File[] {new File(new File(dir, "one"), "test.tar"), new File(new File(dir, "two"), "test.tar")};
+		for (int i = 0; i < files.length; i++) {
+			files[i].getParentFile().mkdirs();
+			writeTar(files[i], false);
+			TarFile tarFile = new TarFile(files[i], indexDir);
+			try {
+				assertContents(tarFile);
+			}
+			finally {
+				tarFile.close();
+			}
+		}
+		assertEquals("each archive should have its own index", 2, indexDir.list().length);
+	}
+}
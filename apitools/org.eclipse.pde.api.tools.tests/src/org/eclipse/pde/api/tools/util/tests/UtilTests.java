@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 IBM Corporation and others.
+ * Copyright (c) 2007, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,12 +13,14 @@ package org.eclipse.pde.api.tools.util.tests;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import junit.framework.TestCase;
 
@@ -664,4 +666,56 @@ public class UtilTests extends TestCase {
 			assertTrue("Should not happen", false);
 		}
 	}
+	
+	/**
+	 * Tests that unzipping an SDK archive through {@link Util#SDK_ENTRY_FILTER} skips the features
+	 * and the source bundles
+	 * 
+	 * @throws Exception
+	 */
+	public void testUnzipSDKEntryFilter() throws Exception {
+		String[] extracted = new String[] {
+				"eclipse/eclipse.ini",
+				"eclipse/plugins/a_1.0.0.jar",
+				"eclipse/plugins/b_1.0.0/META-INF/MANIFEST.MF",
+				"eclipse/plugins/c.sources_1.0.0.jar"
+		};
+		String[] skipped = new String[] {
+				"eclipse/features/f_1.0.0/feature.xml",
+				"eclipse/plugins/a.source_1.0.0.jar",
+				"eclipse/plugins/b.source_1.0.0/META-INF/MANIFEST.MF"
+		};
+		File dir = Util.createTempFile("sdk", "tests");
+		dir.delete();
+		dir.mkdirs();
+		try {
+			File zip = new File(dir, "sdk.zip");
+			ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip));
+			try {
+				String[][] entries = new String[][] {extracted, skipped};
+				for (int i = 0; i < entries.length; i++) {
+					for (int j = 0; j < entries[i].length; j++) {
+						out.putNextEntry(new ZipEntry(entries[i][j]));
+						out.write(entries[i][j].getBytes());
+						out.closeEntry();
+					}
+				}
+			}
+			finally {
+				out.close();
+			}
+			File dest = new File(dir, "install");
+			Util.unzip(zip.getAbsolutePath(), dest.getAbsolutePath(), Util.SDK_ENTRY_FILTER);
+			for (int i = 0; i < extracted.length; i++) {
+				assertTrue("the entry " + extracted[i] + " should have been extracted", new File(dest, extracted[i]).isFile());
+			}
+			for (int i = 0; i < skipped.length; i++) {
+				assertFalse("the entry " + skipped[i] + " should have been skipped", new File(dest, skipped[i]).exists());
+			}
+			assertFalse("the features folder should not have been created", new File(dest, "eclipse/features").exists());
+		}
+		finally {
+			Util.delete(dir);
+		}
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 IBM Corporation and others.
+ * Copyright (c) 2007, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -41,6 +41,7 @@ import org.eclipse.jface.viewers.ViewerFilter;
 import org.eclipse.jface.wizard.WizardPage;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.eclipse.pde.api.tools.internal.ApiBaselineManager;
+import org.eclipse.pde.api.tools.internal.BaselineIndex;
 import org.eclipse.pde.api.tools.internal.model.ApiModelFactory;
 import org.eclipse.pde.api.tools.internal.model.SystemLibraryApiComponent;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
@@ -202,16 +203,18 @@ public class ApiBaselineWizardPage extends WizardPage {
 		 */
 		public void run(IProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
 			try {
-				IApiComponent[] components = original.getApiComponents();
-				IProgressMonitor localmonitor = SubMonitor.convert(monitor, WizardMessages.ApiProfileWizardPage_create_working_copy, components.length + 1);
+				// the components of a saved baseline are listed without loading the baseline itself
+				BaselineIndex.Entry entry = ApiBaselineManager.getManager().getBaselineEntry(original);
+				int size = entry.size();
+				IProgressMonitor localmonitor = SubMonitor.convert(monitor, WizardMessages.ApiProfileWizardPage_create_working_copy, size + 1);
 				localmonitor.subTask(WizardMessages.ApiProfileWizardPage_copy_profile_attribs);
-				workingcopy = ApiModelFactory.newApiBaseline(original.getName(), original.getLocation());
+				workingcopy = ApiModelFactory.newApiBaseline(original.getName(), entry.getLocation());
 				localmonitor.worked(1);
 				localmonitor.subTask(WizardMessages.ApiProfileWizardPage_copy_api_components);
 				ArrayList comps = new ArrayList();
 				IApiComponent comp = null;
-				for(int i = 0; i < components.length; i++) {
-					comp = ApiModelFactory.newApiComponent(workingcopy, components[i].getLocation());
+				for(int i = 0; i < size; i++) {
+					comp = ApiModelFactory.newApiComponent(workingcopy, entry.getComponentLocation(i));
 					if(comp != null) {
 						comps.add(comp);
 					}
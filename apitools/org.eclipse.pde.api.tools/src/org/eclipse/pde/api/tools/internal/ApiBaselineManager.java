@@ -89,6 +89,24 @@ public final class ApiBaselineManager implements IApiBaselineManager, ISaveParti
 	 */
 	private static final String BASELINE_FILE_EXTENSION = ".profile"; //$NON-NLS-1$
 	
+	/**
+	 * Constant representing the name of the file of the {@link BaselineIndex}.
+	 * Value is: <code>profiles.index</code>
+	 */
+	private static final String INDEX_FILE = "profiles.index"; //$NON-NLS-1$
+	
+	/**
+	 * Constant representing the file extension appended to a baseline file while it is being written.
+	 * Value is: <code>.tmp</code>
+	 */
+	private static final String TEMP_FILE_EXTENSION = ".tmp"; //$NON-NLS-1$
+	
+	/**
+	 * Constant representing the file extension appended to a baseline file while it is being replaced.
+	 * Value is: <code>.bak</code>
+	 */
+	private static final String BACKUP_FILE_EXTENSION = ".bak"; //$NON-NLS-1$
+	
 	/**
 	 * The main cache for the manager.
 	 * The form of the cache is: 
@@ -105,6 +123,16 @@ public final class ApiBaselineManager implements IApiBaselineManager, ISaveParti
 	
 	private HashSet hasinfos = null;
 	
+	/**
+	 * The names of the baselines that have been added or changed since they were last saved
+	 */
+	private HashSet dirtybaselines = null;
+	
+	/**
+	 * The index of the components of the saved baselines or <code>null</code> if not running in the framework
+	 */
+	private BaselineIndex index = null;
+	
 	/**
 	 * The current default {@link IApiBaseline}
 	 */
@@ -173,12 +201,61 @@ public final class ApiBaselineManager implements IApiBaselineManager, ISaveParti
 	public synchronized void addApiBaseline(IApiBaseline newbaseline) {
 		if(newbaseline != null) {
 			initializeStateCache();
-			baselinecache.put(newbaseline.getName(), newbaseline);
+			Object old = baselinecache.put(newbaseline.getName(), newbaseline);
 			if(((ApiBaseline)newbaseline).peekInfos()) {
 				hasinfos.add(newbaseline.getName());
 			}
-			fNeedsSaving = true;
+			// baselines that are added again unchanged do not have to be saved again
+			if(old != newbaseline || isModified(newbaseline)) {
+				dirtybaselines.add(newbaseline.getName());
+				fNeedsSaving = true;
+			}
+		}
+	}
+	
+	/**
+	 * Returns if the components of the given managed baseline differ from the ones it was last saved with.
+	 * Baselines that have not been loaded cannot have been modified.
+	 * @param baseline
+	 * @return <code>true</code> if the baseline has to be saved again, <code>false</code> otherwise
+	 */
+	private boolean isModified(IApiBaseline baseline) {
+		if(!((ApiBaseline)baseline).peekInfos()) {
+			return false;
+		}
+		if(index == null) {
+			return true;
+		}
+		BaselineIndex.Entry entry = index.getEntry(baseline.getName(), getBaselineFile(baseline.getName()));
+		return entry == null || !entry.describes(BaselineIndex.createEntry(baseline));
+	}
+	
+	/**
+	 * @param name
+	 * @return the file the baseline with the given name is saved in
+	 */
+	private File getBaselineFile(String name) {
+		return savelocation.append(name+BASELINE_FILE_EXTENSION).toFile();
+	}
+	
+	/**
+	 * Returns the description of the components of the given baseline. The components of a managed baseline
+	 * that has not been loaded yet are listed from the index of the saved baselines, without loading the baseline.
+	 * Other baselines are loaded if needed.
+	 * 
+	 * @param baseline the baseline
+	 * @return the description of the components of the baseline, never <code>null</code>
+	 */
+	public synchronized BaselineIndex.Entry getBaselineEntry(IApiBaseline baseline) {
+		initializeStateCache();
+		String name = baseline.getName();
+		if(index != null && baselinecache.get(name) == baseline && !((ApiBaseline)baseline).peekInfos() && !dirtybaselines.contains(name)) {
+			BaselineIndex.Entry entry = index.readEntry(name, getBaselineFile(name));
+			if(entry != null) {
+				return entry;
+			}
 		}
+		return BaselineIndex.createEntry(baseline);
 	}
 	
 	/* (non-Javadoc)
@@ -195,10 +272,12 @@ public final class ApiBaselineManager implements IApiBaselineManager, ISaveParti
 					return success;
 				}
 				//remove from filesystem
-				File file = savelocation.append(name+BASELINE_FILE_EXTENSION).toFile();
+				File file = getBaselineFile(name);
 				if(file.exists()) {
 					success &= file.delete();
 				}
+				dirtybaselines.remove(name);
+				index.removeEntry(name);
 				fNeedsSaving = true;
 				
 				//flush the model cache
@@ -222,7 +301,13 @@ public final class ApiBaselineManager implements IApiBaselineManager, ISaveParti
 		String filename = (String) handlecache.get(baseline.getName());
 		if(filename != null) {
 			File file = new File(filename);
-			if(file.exists()) {
+			BaselineIndex.Entry entry = (index != null ? index.getEntry(baseline.getName(), file) : null);
+			if(entry != null) {
+				// the index lists the components, no need to parse the description
+				restoreBaseline(baseline, entry);
+				hasinfos.add(baseline.getName());
+			}
+			else if(file.exists()) {
 				FileInputStream inputStream = null;
 				try {
 					inputStream = new FileInputStream(file);
@@ -254,10 +339,14 @@ public final class ApiBaselineManager implements IApiBaselineManager, ISaveParti
 		if(baselinecache == null) {
 			handlecache = new HashMap(8);
 			hasinfos = new HashSet(8);
+			dirtybaselines = new HashSet(8);
 			baselinecache = new HashMap(8);
 			if(!ApiPlugin.isRunningInFramework()) {
 				return;
 			}
+			index = new BaselineIndex(savelocation.append(INDEX_FILE).toFile());
+			index.load();
+			recoverBaselineFiles();
 			File[] baselines = savelocation.toFile().listFiles(new FileFilter() {
 				public boolean accept(File pathname) {
 					return pathname.getName().endsWith(BASELINE_FILE_EXTENSION);
@@ -269,6 +358,11 @@ public final class ApiBaselineManager implements IApiBaselineManager, ISaveParti
 					File baseline = baselines[i];
 					if(baseline.exists()) {
 						newbaseline = new ApiBaseline(new Path(baseline.getName()).removeFileExtension().toString());
+						// the location of the handle is known without loading the baseline if it is indexed
+						BaselineIndex.Entry entry = index.getEntry(newbaseline.getName(), baseline);
+						if(entry != null) {
+							newbaseline.setLocation(entry.getLocation());
+						}
 						handlecache.put(newbaseline.getName(), baseline.getAbsolutePath());
 						baselinecache.put(newbaseline.getName(), newbaseline);
 					}
@@ -283,6 +377,61 @@ public final class ApiBaselineManager implements IApiBaselineManager, ISaveParti
 		}
 	}
 	
+	/**
+	 * Cleans up after a save that did not complete: a backup of a description is restored if the
+	 * description was not replaced, and left over temporary files and backups are deleted
+	 */
+	private void recoverBaselineFiles() {
+		File[] files = savelocation.toFile().listFiles(new FileFilter() {
+			public boolean accept(File pathname) {
+				String name = pathname.getName();
+				return name.endsWith(BASELINE_FILE_EXTENSION + BACKUP_FILE_EXTENSION) || name.endsWith(BASELINE_FILE_EXTENSION + TEMP_FILE_EXTENSION);
+			}
+		});
+		if(files == null) {
+			return;
+		}
+		for(int i = 0; i < files.length; i++) {
+			String path = files[i].getPath();
+			if(path.endsWith(BACKUP_FILE_EXTENSION)) {
+				File file = new File(path.substring(0, path.length() - BACKUP_FILE_EXTENSION.length()));
+				if(!file.exists() && files[i].renameTo(file)) {
+					continue;
+				}
+			}
+			files[i].delete();
+		}
+	}
+	
+	/**
+	 * Replaces the given file with the given temporary file. Where the platform cannot rename over an
+	 * existing file, the file is first moved to a backup which is restored if the replacement fails, or 
+	 * by {@link #recoverBaselineFiles()} if it does not complete.
+	 * 
+	 * @param temp the temporary file
+	 * @param file the file to replace
+	 * @return <code>true</code> if the file was replaced, <code>false</code> otherwise
+	 */
+	private static boolean replaceFile(File temp, File file) {
+		if(temp.renameTo(file)) {
+			return true;
+		}
+		if(!file.exists()) {
+			return false;
+		}
+		File backup = new File(file.getPath() + BACKUP_FILE_EXTENSION);
+		backup.delete();
+		if(!file.renameTo(backup)) {
+			return false;
+		}
+		if(temp.renameTo(file)) {
+			backup.delete();
+			return true;
+		}
+		backup.renameTo(file);
+		return false;
+	}
+	
 	/**
 	 * @return the default API baseline saved in the preferences, or <code>null</code> if there isn't one
 	 */
@@ -292,8 +441,9 @@ public final class ApiBaselineManager implements IApiBaselineManager, ISaveParti
 	}
 	
 	/**
-	 * Persists all of the cached elements to individual xml files named 
-	 * with the id of the API baseline
+	 * Persists the cached elements that have been added or changed since they were last saved
+	 * to individual xml files named with the id of the API baseline, and saves the index of the
+	 * saved baselines
 	 * @throws IOException 
 	 */
 	private void persistStateCache() throws CoreException, IOException {
@@ -314,29 +464,47 @@ public final class ApiBaselineManager implements IApiBaselineManager, ISaveParti
 			}
 			String id = null;
 			File file = null;
+			File temp = null;
 			FileOutputStream fout = null;
+			boolean saved = false;
 			IApiBaseline baseline = null;
-			for(Iterator iter = baselinecache.keySet().iterator(); iter.hasNext();) {
+			for(Iterator iter = dirtybaselines.iterator(); iter.hasNext();) {
 				id = (String) iter.next();
 				baseline = (IApiBaseline) baselinecache.get(id);
-				if(!hasinfos.contains(baseline.getName())) {
+				if(baseline == null || !hasinfos.contains(baseline.getName())) {
 					continue;
 				}
-				file = savelocation.append(id+BASELINE_FILE_EXTENSION).toFile();
-				if(!file.exists()) {
-					file.createNewFile();
-				}
+				file = getBaselineFile(id);
+				// write to a temporary file first so a partial description never replaces a saved one
+				temp = savelocation.append(id+BASELINE_FILE_EXTENSION+TEMP_FILE_EXTENSION).toFile();
+				saved = false;
 				try {
-					fout = new FileOutputStream(file);
-					writeBaselineDescription(baseline, fout);
-					// need to save the api baseline state in order to be able to reload it later
-					handlecache.put(baseline.getName(), file.getAbsolutePath());
-					fout.flush();
+					fout = new FileOutputStream(temp);
+					try {
+						writeBaselineDescription(baseline, fout);
+						fout.flush();
+					}
+					finally {
+						fout.close();
+					}
+					saved = replaceFile(temp, file);
 				}
 				finally {
-					fout.close();
+					if(!saved) {
+						temp.delete();
+					}
+				}
+				if(!saved) {
+					abort("Error saving API baseline " + id, null); //$NON-NLS-1$
 				}
+				// need to save the api baseline state in order to be able to reload it later
+				handlecache.put(baseline.getName(), file.getAbsolutePath());
+				index.setEntry(baseline, file);
 			}
+			dirtybaselines.clear();
+		}
+		if(index != null) {
+			index.save();
 		}
 	}	
 	
@@ -401,6 +569,31 @@ public final class ApiBaselineManager implements IApiBaselineManager, ISaveParti
 		throw new CoreException(new Status(IStatus.ERROR, ApiPlugin.PLUGIN_ID, message, e));
 	}	
 	
+	/**
+	 * Restores a baseline from the given index entry, creating the listed components
+	 * 
+	 * @param baseline the given baseline to restore
+	 * @param entry the index entry of the baseline
+	 * @throws CoreException if unable to restore the baseline
+	 */
+	private void restoreBaseline(IApiBaseline baseline, BaselineIndex.Entry entry) throws CoreException {
+		long start = System.currentTimeMillis();
+		if(entry.getLocation() != null) {
+			baseline.setLocation(entry.getLocation());
+		}
+		List components = new ArrayList(entry.size());
+		for(int i = 0, max = entry.size(); i < max; i++) {
+			IApiComponent component = ApiModelFactory.newApiComponent(baseline, entry.getComponentLocation(i));
+			if(component != null) {
+				components.add(component);
+			}
+		}
+		baseline.addApiComponents((IApiComponent[]) components.toArray(new IApiComponent[components.size()]));
+		if(ApiPlugin.DEBUG_BASELINE_MANAGER) {
+			System.out.println("Time to restore an indexed baseline : " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+	
 	/**
 	 * Restore a baseline from the given input stream (persisted baseline).
 	 * 
@@ -494,6 +687,12 @@ public final class ApiBaselineManager implements IApiBaselineManager, ISaveParti
 	 */
 	public void saving(ISaveContext context) throws CoreException {
 		if(!fNeedsSaving) {
+			// entries may have been read from the baseline descriptions since the last save
+			synchronized (this) {
+				if(index != null) {
+					index.save();
+				}
+			}
 			return;
 		}
 		try {
@@ -558,6 +757,12 @@ public final class ApiBaselineManager implements IApiBaselineManager, ISaveParti
 			if(hasinfos != null) {
 				hasinfos.clear();
 			}
+			if(dirtybaselines != null) {
+				dirtybaselines.clear();
+			}
+			if(index != null) {
+				index.clear();
+			}
 			StubApiComponent.disposeAllCaches();
 		}
 		finally {
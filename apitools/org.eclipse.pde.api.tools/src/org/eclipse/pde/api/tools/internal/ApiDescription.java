@@ -65,6 +65,11 @@ public class ApiDescription implements IApiDescription {
 	 */
 	private boolean fModified = false;
 	
+	/**
+	 * The number of times this description has been modified
+	 */
+	private long fModificationCount = 0;
+	
 	/**
 	 * Represents a single node in the tree of mapped manifest items
 	 */
@@ -619,6 +624,18 @@ public class ApiDescription implements IApiDescription {
 	 */
 	protected synchronized void modified() {
 		fModified = true;
+		fModificationCount++;
+	}
+	
+	/**
+	 * Returns the number of times this description has been modified since it was created. Derived
+	 * information about the restrictions in this description is current as long as the count does not change.
+	 * 
+	 * @return the modification count
+	 * @since 1.0.400
+	 */
+	public synchronized long getModificationCount() {
+		return fModificationCount;
 	}
 	
 	/**
@@ -0,0 +1,429 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.util.Util;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Index of the components of the baselines persisted by the {@link ApiBaselineManager}.
+ * <p>
+ * The index keeps the location of each baseline and the id, version and location of each of its components,
+ * so they can be listed without loading the baseline, which creates every one of its components. Each entry
+ * is tied to the size and time stamp of the <code>.profile</code> file it describes and is dropped as soon
+ * as the file changes. The index is saved next to the <code>.profile</code> files.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public final class BaselineIndex {
+
+	/**
+	 * The components of one baseline
+	 */
+	public static final class Entry {
+		String name = null;
+		String location = null;
+		String[] ids = null;
+		String[] versions = null;
+		String[] locations = null;
+		long timestamp = -1;
+		long length = -1;
+
+		Entry(String name, String location, List ids, List versions, List locations) {
+			this.name = name;
+			this.location = location;
+			this.ids = (String[]) ids.toArray(new String[ids.size()]);
+			this.versions = (String[]) versions.toArray(new String[versions.size()]);
+			this.locations = (String[]) locations.toArray(new String[locations.size()]);
+		}
+
+		Entry(String name, String location, String[] ids, String[] versions, String[] locations) {
+			this.name = name;
+			this.location = location;
+			this.ids = ids;
+			this.versions = versions;
+			this.locations = locations;
+		}
+
+		/**
+		 * @return the name of the baseline
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the location of the baseline or <code>null</code>
+		 */
+		public String getLocation() {
+			return location;
+		}
+
+		/**
+		 * @return the number of components of the baseline, system components excluded
+		 */
+		public int size() {
+			return ids.length;
+		}
+
+		/**
+		 * @param index
+		 * @return the symbolic name of the component at the given index
+		 */
+		public String getComponentId(int index) {
+			return ids[index];
+		}
+
+		/**
+		 * @param index
+		 * @return the version of the component at the given index
+		 */
+		public String getComponentVersion(int index) {
+			return versions[index];
+		}
+
+		/**
+		 * @param index
+		 * @return the OS location of the component at the given index
+		 */
+		public String getComponentLocation(int index) {
+			return locations[index];
+		}
+
+		/**
+		 * @param id
+		 * @return the index of the component with the given symbolic name or <code>-1</code>
+		 */
+		public int indexOf(String id) {
+			for (int i = 0; i < ids.length; i++) {
+				if(ids[i].equals(id)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * @param entry
+		 * @return <code>true</code> if the given entry lists the same location and components as this entry
+		 */
+		public boolean describes(Entry entry) {
+			return (location == null ? entry.location == null : location.equals(entry.location))
+					&& Arrays.equals(ids, entry.ids)
+					&& Arrays.equals(versions, entry.versions)
+					&& Arrays.equals(locations, entry.locations);
+		}
+
+		/**
+		 * @param file the <code>.profile</code> file of the baseline
+		 * @return <code>true</code> if this entry was created from the current contents of the given file
+		 */
+		boolean isValid(File file) {
+			return file.lastModified() == timestamp && file.length() == length;
+		}
+
+		/**
+		 * Ties this entry to the current contents of the given file
+		 * @param file the <code>.profile</code> file of the baseline
+		 */
+		void setFile(File file) {
+			timestamp = file.lastModified();
+			length = file.length();
+		}
+	}
+
+	/**
+	 * Marker at the start of index files
+	 */
+	private static final int INDEX_MAGIC = 0x41504249;
+	/**
+	 * Format version of index files
+	 */
+	private static final int INDEX_VERSION = 1;
+
+	/**
+	 * Map of baseline name to its {@link Entry}
+	 */
+	private HashMap fEntries = new HashMap();
+	private File fFile = null;
+	private boolean fDirty = false;
+
+	/**
+	 * Constructor
+	 * @param file the file the index is saved in
+	 */
+	public BaselineIndex(File file) {
+		fFile = file;
+	}
+
+	/**
+	 * Returns the entry of the baseline with the given name if it was created from the current
+	 * contents of the given <code>.profile</code> file, dropping it otherwise
+	 * @param name the name of the baseline
+	 * @param file the <code>.profile</code> file of the baseline
+	 * @return the entry or <code>null</code>
+	 */
+	public synchronized Entry getEntry(String name, File file) {
+		Entry entry = (Entry) fEntries.get(name);
+		if(entry != null && !entry.isValid(file)) {
+			fEntries.remove(name);
+			fDirty = true;
+			return null;
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the entry of the baseline with the given name, reading it from the given <code>.profile</code>
+	 * file if the index does not have a valid one
+	 * @param name the name of the baseline
+	 * @param file the <code>.profile</code> file of the baseline
+	 * @return the entry or <code>null</code> if the file cannot be read or indexed
+	 */
+	public synchronized Entry readEntry(String name, File file) {
+		Entry entry = getEntry(name, file);
+		if(entry == null && file.exists()) {
+			try {
+				entry = readProfile(name, file);
+				if(entry != null) {
+					entry.setFile(file);
+					fEntries.put(name, entry);
+					fDirty = true;
+				}
+			}
+			catch(CoreException e) {
+				ApiPlugin.log(e);
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Sets the entry of the given loaded baseline, which was just written to the given <code>.profile</code> file
+	 * @param baseline the baseline
+	 * @param file the <code>.profile</code> file the baseline was written to
+	 */
+	public synchronized void setEntry(IApiBaseline baseline, File file) {
+		Entry entry = createEntry(baseline);
+		entry.setFile(file);
+		fEntries.put(baseline.getName(), entry);
+		fDirty = true;
+	}
+
+	/**
+	 * Removes the entry of the baseline with the given name
+	 * @param name
+	 */
+	public synchronized void removeEntry(String name) {
+		if(fEntries.remove(name) != null) {
+			fDirty = true;
+		}
+	}
+
+	/**
+	 * Creates an entry describing the components of the given baseline, which is loaded if it was not already.
+	 * The entry is not added to any index.
+	 * @param baseline
+	 * @return a new entry
+	 */
+	public static Entry createEntry(IApiBaseline baseline) {
+		List ids = new ArrayList();
+		List versions = new ArrayList();
+		List locations = new ArrayList();
+		IApiComponent[] components = baseline.getApiComponents();
+		for (int i = 0; i < components.length; i++) {
+			IApiComponent component = components[i];
+			if(!component.isSystemComponent()) {
+				ids.add(component.getSymbolicName());
+				versions.add(component.getVersion());
+				locations.add(component.getLocation());
+			}
+		}
+		return new Entry(baseline.getName(), baseline.getLocation(), ids, versions, locations);
+	}
+
+	/**
+	 * Reads the components listed in the given <code>.profile</code> file, without creating them.
+	 * Files older than version 2, which list pools of components instead of their locations, are not read.
+	 * @param name the name of the baseline
+	 * @param file the <code>.profile</code> file
+	 * @return a new entry or <code>null</code> if the file cannot be read or lists pools of components
+	 * @throws CoreException if the file cannot be parsed
+	 */
+	static Entry readProfile(String name, File file) throws CoreException {
+		String contents = Util.getFileContentAsString(file);
+		if(contents == null) {
+			return null;
+		}
+		Element root = Util.parseDocument(contents);
+		if(!root.getNodeName().equals(IApiXmlConstants.ELEMENT_APIPROFILE)
+				|| root.getElementsByTagName(IApiXmlConstants.ELEMENT_POOL).getLength() != 0) {
+			return null;
+		}
+		String location = root.getAttribute(IApiXmlConstants.ATTR_LOCATION);
+		List ids = new ArrayList();
+		List versions = new ArrayList();
+		List locations = new ArrayList();
+		NodeList children = root.getElementsByTagName(IApiXmlConstants.ELEMENT_APICOMPONENT);
+		for(int i = 0; i < children.getLength(); i++) {
+			Element element = (Element) children.item(i);
+			if(element.getParentNode().equals(root)) {
+				ids.add(element.getAttribute(IApiXmlConstants.ATTR_ID));
+				versions.add(element.getAttribute(IApiXmlConstants.ATTR_VERSION));
+				locations.add(Path.fromPortableString(element.getAttribute(IApiXmlConstants.ATTR_LOCATION)).toOSString());
+			}
+		}
+		return new Entry(name,
+				location.length() == 0 ? null : Path.fromPortableString(location).toOSString(),
+				ids, versions, locations);
+	}
+
+	/**
+	 * Loads the saved index, if any. Entries are only checked against their <code>.profile</code> file
+	 * when they are asked for.
+	 */
+	public synchronized void load() {
+		if(!fFile.exists()) {
+			return;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(fFile)));
+			if(in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+				return;
+			}
+			HashMap entries = new HashMap();
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String name = in.readUTF();
+				long timestamp = in.readLong();
+				long length = in.readLong();
+				String location = in.readBoolean() ? in.readUTF() : null;
+				int size = in.readInt();
+				String[] ids = new String[size];
+				String[] versions = new String[size];
+				String[] locations = new String[size];
+				for (int j = 0; j < size; j++) {
+					ids[j] = in.readUTF();
+					versions[j] = in.readUTF();
+					locations[j] = in.readUTF();
+				}
+				Entry entry = new Entry(name, location, ids, versions, locations);
+				entry.timestamp = timestamp;
+				entry.length = length;
+				entries.put(name, entry);
+			}
+			fEntries = entries;
+		}
+		catch(IOException e) {
+			// a corrupted index is rebuilt from the .profile files
+			fEntries.clear();
+			fDirty = true;
+		}
+		finally {
+			if(in != null) {
+				try {
+					in.close();
+				}
+				catch(IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Saves the index if it has changed since it was loaded or last saved
+	 */
+	public synchronized void save() {
+		if(!fDirty) {
+			return;
+		}
+		File parent = fFile.getParentFile();
+		if(parent != null && !parent.exists()) {
+			parent.mkdirs();
+		}
+		// write to a temporary file first so a partial index is never loaded
+		File temp = new File(fFile.getPath() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			out.writeInt(INDEX_MAGIC);
+			out.writeInt(INDEX_VERSION);
+			out.writeInt(fEntries.size());
+			for (Iterator iter = fEntries.values().iterator(); iter.hasNext();) {
+				Entry entry = (Entry) iter.next();
+				out.writeUTF(entry.name);
+				out.writeLong(entry.timestamp);
+				out.writeLong(entry.length);
+				out.writeBoolean(entry.location != null);
+				if(entry.location != null) {
+					out.writeUTF(entry.location);
+				}
+				out.writeInt(entry.ids.length);
+				for (int i = 0; i < entry.ids.length; i++) {
+					out.writeUTF(entry.ids[i]);
+					out.writeUTF(entry.versions[i]);
+					out.writeUTF(entry.locations[i]);
+				}
+			}
+			out.close();
+			out = null;
+			fFile.delete();
+			if(!temp.renameTo(fFile)) {
+				temp.delete();
+			}
+			fDirty = false;
+		}
+		catch(IOException e) {
+			ApiPlugin.log(e);
+		}
+		finally {
+			if(out != null) {
+				try {
+					out.close();
+				}
+				catch(IOException e) {
+					// ignore
+				}
+				temp.delete();
+			}
+		}
+	}
+
+	/**
+	 * Drops all of the entries of this index, without deleting the saved index
+	 */
+	public synchronized void clear() {
+		fEntries.clear();
+	}
+}
@@ -38,6 +38,16 @@ public class CompositeApiDescription implements IApiDescription {
 	public CompositeApiDescription(IApiDescription[] descriptions) {
 		fDescriptions = descriptions;
 	}
+	
+	/**
+	 * Returns the descriptions this composite is made of
+	 * 
+	 * @return the descriptions
+	 * @since 1.0.400
+	 */
+	public IApiDescription[] getDescriptions() {
+		return fDescriptions;
+	}
 
 	/* (non-Javadoc)
 	 * @see org.eclipse.pde.api.tools.internal.provisional.IApiDescription#accept(org.eclipse.pde.api.tools.internal.provisional.ApiDescriptionVisitor)
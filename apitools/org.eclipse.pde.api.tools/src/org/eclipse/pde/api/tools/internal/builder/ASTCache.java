@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.builder;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * Cache of the ASTs of the compilation units in one project, used for the duration of one build
+ * by the @since tag and Javadoc tag checks.
+ * <p>
+ * The ASTs are parsed with doc comment support and without method bodies, which is all the
+ * {@link SinceTagChecker} and {@link TagValidator} look at. Entries are keyed by compilation unit
+ * and are only reused while the modification stamp of the underlying resource is unchanged.
+ * The cache keeps at most a fixed number of entries and only holds them softly, so it never keeps
+ * the ASTs alive under memory pressure.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public final class ASTCache {
+
+	/**
+	 * The number of compilation units parsed together by {@link #getASTs(ICompilationUnit[], IProgressMonitor)}
+	 * when callers process units in batches
+	 */
+	public static final int BATCH_SIZE = 50;
+
+	/**
+	 * Cache entry
+	 */
+	static final class Entry {
+		long stamp;
+		SoftReference ast;
+
+		Entry(long stamp, CompilationUnit ast) {
+			this.stamp = stamp;
+			this.ast = new SoftReference(ast);
+		}
+	}
+
+	/**
+	 * Map of {@link ICompilationUnit} to {@link Entry}, in access order
+	 */
+	private LinkedHashMap fEntries = null;
+	/**
+	 * The compiler options to parse with
+	 */
+	private Map fOptions = null;
+
+	/**
+	 * Constructor
+	 * @param project the project the compilation units belong to
+	 * @param maxsize the maximum number of ASTs to keep
+	 */
+	public ASTCache(IJavaProject project, final int maxsize) {
+		fOptions = project.getOptions(true);
+		fOptions.put(JavaCore.COMPILER_DOC_COMMENT_SUPPORT, JavaCore.ENABLED);
+		fEntries = new LinkedHashMap(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			protected boolean removeEldestEntry(Map.Entry eldest) {
+				return size() > maxsize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the modification stamp to key the AST of the given unit with, or
+	 * {@link IResource#NULL_STAMP} if the AST must not be cached
+	 * @param unit
+	 * @return the modification stamp
+	 */
+	static long getStamp(ICompilationUnit unit) {
+		if(unit.isWorkingCopy()) {
+			return IResource.NULL_STAMP;
+		}
+		IResource resource = unit.getResource();
+		if(resource == null) {
+			return IResource.NULL_STAMP;
+		}
+		return resource.getModificationStamp();
+	}
+
+	/**
+	 * @return a new parser configured for the tag checks
+	 */
+	private ASTParser newParser() {
+		ASTParser parser = ASTParser.newParser(AST.JLS4);
+		parser.setResolveBindings(false);
+		parser.setIgnoreMethodBodies(true);
+		parser.setCompilerOptions(fOptions);
+		return parser;
+	}
+
+	/**
+	 * Returns the cached AST for the given unit or <code>null</code>
+	 * @param unit
+	 * @return the cached AST or <code>null</code>
+	 */
+	private CompilationUnit lookup(ICompilationUnit unit) {
+		Entry entry = (Entry) fEntries.get(unit);
+		if(entry == null) {
+			return null;
+		}
+		CompilationUnit ast = (CompilationUnit) entry.ast.get();
+		if(ast == null || entry.stamp != getStamp(unit)) {
+			fEntries.remove(unit);
+			return null;
+		}
+		return ast;
+	}
+
+	/**
+	 * Caches the given AST
+	 * @param unit
+	 * @param ast
+	 */
+	private void store(ICompilationUnit unit, CompilationUnit ast) {
+		long stamp = getStamp(unit);
+		if(stamp != IResource.NULL_STAMP) {
+			fEntries.put(unit, new Entry(stamp, ast));
+		}
+	}
+
+	/**
+	 * Returns the AST for the given compilation unit, parsing it if it is not cached
+	 *
+	 * @param unit the compilation unit
+	 * @return the AST for the unit
+	 */
+	public synchronized CompilationUnit getAST(ICompilationUnit unit) {
+		CompilationUnit ast = lookup(unit);
+		if(ast == null) {
+			ASTParser parser = newParser();
+			parser.setSource(unit);
+			ast = (CompilationUnit) parser.createAST(new NullProgressMonitor());
+			store(unit, ast);
+		}
+		return ast;
+	}
+
+	/**
+	 * Returns the ASTs for the given compilation units. All of the units that are not cached
+	 * are parsed together in one pass.
+	 *
+	 * @param units the compilation units
+	 * @param monitor progress monitor or <code>null</code>
+	 * @return the ASTs, in the same order as the units
+	 */
+	public synchronized CompilationUnit[] getASTs(ICompilationUnit[] units, IProgressMonitor monitor) {
+		CompilationUnit[] asts = new CompilationUnit[units.length];
+		ArrayList missing = new ArrayList();
+		for (int i = 0; i < units.length; i++) {
+			asts[i] = lookup(units[i]);
+			if(asts[i] == null && !missing.contains(units[i])) {
+				missing.add(units[i]);
+			}
+		}
+		final HashMap parsed = new HashMap(missing.size());
+		if(missing.size() == 1) {
+			ICompilationUnit unit = (ICompilationUnit) missing.get(0);
+			parsed.put(unit, getAST(unit));
+		}
+		else if(missing.size() > 1) {
+			newParser().createASTs(
+					(ICompilationUnit[]) missing.toArray(new ICompilationUnit[missing.size()]),
+					new String[0],
+					new ASTRequestor() {
+						public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+							store(source, ast);
+							parsed.put(source, ast);
+						}
+					},
+					monitor);
+		}
+		for (int i = 0; i < units.length; i++) {
+			if(asts[i] == null) {
+				asts[i] = (CompilationUnit) parsed.get(units[i]);
+				if(asts[i] == null) {
+					//not cacheable or not returned by the batch parse
+					asts[i] = getAST(units[i]);
+				}
+			}
+		}
+		return asts;
+	}
+
+	/**
+	 * Removes all entries from the cache
+	 */
+	public synchronized void clear() {
+		fEntries.clear();
+	}
+}
@@ -56,7 +56,7 @@ public abstract class AbstractTypeLeakDetector extends AbstractLeakProblemDetect
 			int modifiers = member.getModifiers();
 			if (((Flags.AccPublic | Flags.AccProtected) & modifiers) > 0) {
 				try {
-					IApiAnnotations annotations = member.getApiComponent().getApiDescription().resolveAnnotations(member.getHandle());
+					IApiAnnotations annotations = RestrictionIndex.resolveAnnotations(member.getApiComponent(), member.getHandle());
 					// annotations can be null for members in top level non public types, but they are not visible/API
 					if (annotations != null) {
 						if (isApplicable(annotations) && isEnclosingTypeVisible(member)) {
@@ -78,7 +78,7 @@ public abstract class AbstractTypeLeakDetector extends AbstractLeakProblemDetect
 	protected boolean isProblem(IReference reference) {
 		IApiMember member = reference.getResolvedReference();
 		try {
-			IApiAnnotations annotations = member.getApiComponent().getApiDescription().resolveAnnotations(member.getHandle());
+			IApiAnnotations annotations = RestrictionIndex.resolveAnnotations(member.getApiComponent(), member.getHandle());
 			if (annotations != null) {
 				return VisibilityModifiers.isPrivate(annotations.getVisibility());
 			} else {
@@ -148,6 +148,17 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 	 */
 	private IApiAnalyzer analyzer = null;
 	
+	/**
+	 * The metrics of the current build or <code>null</code> if metrics are not being collected
+	 */
+	private BuildMetrics metrics = null;
+	
+	/**
+	 * The writer collecting the marker changes of the current build or <code>null</code> if
+	 * marker changes are applied immediately
+	 */
+	private ApiMarkerWriter markerWriter = null;
+	
 	/**
 	 * Maps prerequisite projects to their output location(s)
 	 */
@@ -163,6 +174,14 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 	 */
 	private BuildState buildstate = null;
 	
+	/**
+	 * The reverse dependents index of the last build, carried over to the next incremental build.
+	 * It is not saved with the build state, since it relies on the interned names of the JDT state
+	 * and must see every source file that changed since it was last updated. It is dropped by any
+	 * build that does not complete.
+	 */
+	private DependentsIndex dependentsIndex = null;
+	
 	/**
 	 * Cleans up markers associated with API Tools on the given resource.
 	 * 
@@ -177,6 +196,26 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 		cleanupFatalMarkers(resource);
 	}
 	
+	/**
+	 * Deletes the markers of the given type from the given resource, or records their deletion
+	 * if the marker changes of the current build are being batched
+	 * 
+	 * @param resource
+	 * @param type
+	 * @param includeSubtypes
+	 * @param depth
+	 * @throws CoreException
+	 * @see IResource#deleteMarkers(String, boolean, int)
+	 */
+	void deleteMarkers(IResource resource, String type, boolean includeSubtypes, int depth) throws CoreException {
+		if(this.markerWriter != null) {
+			this.markerWriter.deleteMarkers(resource, type, includeSubtypes, depth);
+		}
+		else {
+			resource.deleteMarkers(type, includeSubtypes, depth);
+		}
+	}
+	
 	/**
 	 * Cleans up API use scan breakage related markers on the specified resource
 	 * @param resource
@@ -187,7 +226,7 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 				if (ApiPlugin.DEBUG_BUILDER) {
 					System.out.println("cleaning api use problems"); //$NON-NLS-1$
 				}
-				resource.deleteMarkers(IApiMarkerConstants.API_USESCAN_PROBLEM_MARKER, true, IResource.DEPTH_INFINITE);
+				deleteMarkers(resource, IApiMarkerConstants.API_USESCAN_PROBLEM_MARKER, true, IResource.DEPTH_INFINITE);
 
 				IProject project = resource.getProject();
 				IMarker[] markers = project.findMarkers(IApiMarkerConstants.API_USESCAN_PROBLEM_MARKER, false, IResource.DEPTH_ZERO);
@@ -197,7 +236,12 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 					if (adaptor != null && adaptor instanceof ICompilationUnit) {
 						IType typeroot = ((ICompilationUnit)adaptor).findPrimaryType();
 						if (typeroot != null && typeName != null && typeName.startsWith(typeroot.getFullyQualifiedName())) {
-							markers[i].delete();
+							if(this.markerWriter != null) {
+								this.markerWriter.deleteMarker(markers[i]);
+							}
+							else {
+								markers[i].delete();
+							}
 						}
 					}
 				}
@@ -217,7 +261,7 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 				if(ApiPlugin.DEBUG_BUILDER) {
 					System.out.println("cleaning unsupported tag problems"); //$NON-NLS-1$
 				}
-				resource.deleteMarkers(IApiMarkerConstants.UNSUPPORTED_TAG_PROBLEM_MARKER, false, IResource.DEPTH_INFINITE);
+				deleteMarkers(resource, IApiMarkerConstants.UNSUPPORTED_TAG_PROBLEM_MARKER, false, IResource.DEPTH_INFINITE);
 			}
 		} catch (CoreException e) {
 			ApiPlugin.log(e.getStatus());
@@ -231,13 +275,13 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 	void cleanupCompatibilityMarkers(IResource resource) {
 		try {
 			if (resource != null && resource.isAccessible()) {
-				resource.deleteMarkers(IApiMarkerConstants.COMPATIBILITY_PROBLEM_MARKER, false, IResource.DEPTH_INFINITE);
-				resource.deleteMarkers(IApiMarkerConstants.SINCE_TAGS_PROBLEM_MARKER, false, IResource.DEPTH_INFINITE);
+				deleteMarkers(resource, IApiMarkerConstants.COMPATIBILITY_PROBLEM_MARKER, false, IResource.DEPTH_INFINITE);
+				deleteMarkers(resource, IApiMarkerConstants.SINCE_TAGS_PROBLEM_MARKER, false, IResource.DEPTH_INFINITE);
 				if (resource.getType() == IResource.PROJECT) {
 					// on full builds
-					resource.deleteMarkers(IApiMarkerConstants.VERSION_NUMBERING_PROBLEM_MARKER, false, IResource.DEPTH_INFINITE);
-					resource.deleteMarkers(IApiMarkerConstants.DEFAULT_API_BASELINE_PROBLEM_MARKER, true, IResource.DEPTH_ZERO);
-					resource.deleteMarkers(IApiMarkerConstants.API_COMPONENT_RESOLUTION_PROBLEM_MARKER, true, IResource.DEPTH_ZERO);
+					deleteMarkers(resource, IApiMarkerConstants.VERSION_NUMBERING_PROBLEM_MARKER, false, IResource.DEPTH_INFINITE);
+					deleteMarkers(resource, IApiMarkerConstants.DEFAULT_API_BASELINE_PROBLEM_MARKER, true, IResource.DEPTH_ZERO);
+					deleteMarkers(resource, IApiMarkerConstants.API_COMPONENT_RESOLUTION_PROBLEM_MARKER, true, IResource.DEPTH_ZERO);
 				}
 			}
 		} catch(CoreException e) {
@@ -252,11 +296,11 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 	void cleanupUsageMarkers(IResource resource) {
 		try {
 			if (resource != null && resource.isAccessible()) {
-				resource.deleteMarkers(IApiMarkerConstants.API_USAGE_PROBLEM_MARKER, false, IResource.DEPTH_INFINITE);
+				deleteMarkers(resource, IApiMarkerConstants.API_USAGE_PROBLEM_MARKER, false, IResource.DEPTH_INFINITE);
 				if(resource.getType() != IResource.PROJECT) {
 					IProject pj = resource.getProject();
 					if(pj != null) {
-						pj.deleteMarkers(IApiMarkerConstants.API_USAGE_PROBLEM_MARKER, false, IResource.DEPTH_ZERO);
+						deleteMarkers(pj, IApiMarkerConstants.API_USAGE_PROBLEM_MARKER, false, IResource.DEPTH_ZERO);
 					}
 				}
 			}
@@ -272,7 +316,7 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 	void cleanupFatalMarkers(IResource resource) {
 		try {
 			if (resource != null && resource.isAccessible()) {
-				resource.deleteMarkers(IApiMarkerConstants.FATAL_PROBLEM_MARKER, false, IResource.DEPTH_INFINITE);
+				deleteMarkers(resource, IApiMarkerConstants.FATAL_PROBLEM_MARKER, false, IResource.DEPTH_INFINITE);
 			}
 		} catch(CoreException e) {
 			ApiPlugin.log(e.getStatus());
@@ -286,7 +330,7 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 	void cleanUnusedFilterMarkers(IResource resource) {
 		try {
 			if(resource != null && resource.isAccessible()) {
-				resource.deleteMarkers(IApiMarkerConstants.UNUSED_FILTER_PROBLEM_MARKER, false, IResource.DEPTH_INFINITE);
+				deleteMarkers(resource, IApiMarkerConstants.UNUSED_FILTER_PROBLEM_MARKER, false, IResource.DEPTH_INFINITE);
 			}
 		}
 		catch(CoreException ce) {
@@ -299,6 +343,9 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 	 */
 	protected IProject[] build(int kind, Map args, IProgressMonitor monitor) throws CoreException {
 		this.currentproject = getProject();
+		// the changes built without the index would never be re-indexed
+		DependentsIndex lastindex = this.dependentsIndex;
+		this.dependentsIndex = null;
 		if (shouldAbort(this.currentproject)) {
 			return NO_PROJECTS;
 		}
@@ -308,15 +355,23 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 			System.out.println("\nApiAnalysis builder - Starting build of " + this.currentproject.getName() + " @ " + new Date(System.currentTimeMillis())); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 		SubMonitor localMonitor = SubMonitor.convert(monitor, BuilderMessages.api_analysis_builder, 8);
+		this.metrics = BuildMetrics.isCollecting() ? new BuildMetrics(this.currentproject.getName()) : null;
+		long start = System.currentTimeMillis();
 		IApiBaseline wbaseline = ApiPlugin.getDefault().getApiBaselineManager().getWorkspaceBaseline();
 		if (wbaseline == null) {
 			if (ApiPlugin.DEBUG_BUILDER) {
 				System.err.println("Could not retrieve a workspace baseline");  //$NON-NLS-1$
 			}
+			this.metrics = null;
 			return NO_PROJECTS;
 		}
 		final IProject[] projects = getRequiredProjects(true);
 		IApiBaseline baseline = ApiPlugin.getDefault().getApiBaselineManager().getDefaultApiBaseline();
+		if(this.metrics != null) {
+			this.metrics.record(BuildMetrics.PHASE_BASELINE_LOOKUP, System.currentTimeMillis() - start);
+		}
+		this.markerWriter = new ApiMarkerWriter(this.currentproject);
+		boolean built = false;
 		try {
 			switch(kind) {
 				case FULL_BUILD : {
@@ -380,7 +435,8 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 									buildAll(baseline, wbaseline, localMonitor.newChild(1));
 									break;
 								}
-								BuildState.setLastBuiltState(this.currentproject, null);
+								BuildState.beginBuild(this.currentproject, this.buildstate);
+								this.buildstate.setDependentsIndex(lastindex);
 								IncrementalApiBuilder builder = new IncrementalApiBuilder(this);
 								builder.build(baseline, wbaseline, deltas, state, this.buildstate, localMonitor.newChild(1));
 							}
@@ -388,6 +444,7 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 					}
 				}	
 			}
+			built = true;
 			Util.updateMonitor(localMonitor, 0);
 		
 		}
@@ -406,6 +463,8 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 			ApiPlugin.log(e);
 		} finally {
 			try {
+				// apply the marker deletions of an interrupted build
+				applyMarkerChanges();
 				Util.updateMonitor(localMonitor, 0);
 				if(this.analyzer != null) {
 					this.analyzer.dispose();
@@ -449,6 +508,9 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 						}
 					}
 					BuildState.saveBuiltState(this.currentproject, this.buildstate);
+					if(built) {
+						this.dependentsIndex = this.buildstate.getDependentsIndex();
+					}
 					this.buildstate = null;
 					Util.updateMonitor(monitor, 0);
 				}
@@ -463,6 +525,16 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 					System.out.println("Trapped OperationCanceledException"); //$NON-NLS-1$
 				}
 			}
+			finally {
+				if(this.metrics != null) {
+					this.metrics.done();
+					if (ApiPlugin.DEBUG_BUILDER) {
+						System.out.println(this.metrics.toString());
+					}
+					BuildMetrics.fireMetricsAvailable(this.metrics);
+					this.metrics = null;
+				}
+			}
 		}
 		if (ApiPlugin.DEBUG_BUILDER) {
 			System.out.println("Finished build of " + this.currentproject.getName() + " @ " + new Date(System.currentTimeMillis())); //$NON-NLS-1$ //$NON-NLS-2$
@@ -696,6 +768,8 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 		try {
 			BuildState.setLastBuiltState(this.currentproject, null);
 			this.buildstate = new BuildState();
+			this.dependentsIndex = null;
+			ApiChangeScheduler.getDefault().forget(this.currentproject);
 			localMonitor.subTask(NLS.bind(BuilderMessages.ApiAnalysisBuilder_initializing_analyzer, currentproject.getName()));
 			cleanupMarkers(this.currentproject);
 			IPluginModelBase currentModel = getCurrentModel();
@@ -726,13 +800,14 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 	 * no work is done.
 	 */
 	protected void createMarkers() {
+		long start = System.currentTimeMillis();
 		try {
 			IResource manifest = Util.getManifestFile(this.currentproject);
 			if(manifest != null)  {
-				manifest.deleteMarkers(IApiMarkerConstants.VERSION_NUMBERING_PROBLEM_MARKER, false, IResource.DEPTH_ZERO);
+				deleteMarkers(manifest, IApiMarkerConstants.VERSION_NUMBERING_PROBLEM_MARKER, false, IResource.DEPTH_ZERO);
 			}
-			this.currentproject.deleteMarkers(IApiMarkerConstants.DEFAULT_API_BASELINE_PROBLEM_MARKER, false, IResource.DEPTH_ZERO);
-			this.currentproject.deleteMarkers(IApiMarkerConstants.API_COMPONENT_RESOLUTION_PROBLEM_MARKER, false, IResource.DEPTH_ZERO);
+			deleteMarkers(this.currentproject, IApiMarkerConstants.DEFAULT_API_BASELINE_PROBLEM_MARKER, false, IResource.DEPTH_ZERO);
+			deleteMarkers(this.currentproject, IApiMarkerConstants.API_COMPONENT_RESOLUTION_PROBLEM_MARKER, false, IResource.DEPTH_ZERO);
 		} catch (CoreException e) {
 			ApiPlugin.log(e);
 		}
@@ -749,6 +824,27 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 			}
 			createMarkerForProblem(category, type, problems[i]);
 		}
+		applyMarkerChanges();
+		if(this.metrics != null) {
+			this.metrics.record(BuildMetrics.PHASE_MARKER_CREATION, System.currentTimeMillis() - start);
+		}
+	}
+	
+	/**
+	 * Applies the batched marker changes of the current build, if any, and stops batching
+	 * marker changes
+	 */
+	void applyMarkerChanges() {
+		if(this.markerWriter != null) {
+			ApiMarkerWriter writer = this.markerWriter;
+			this.markerWriter = null;
+			try {
+				writer.apply(null);
+			}
+			catch(CoreException e) {
+				ApiPlugin.log(e);
+			}
+		}
 	}
 	
 	/**
@@ -804,6 +900,17 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 		if(resource == null) {
 			return;
 		}
+		Map attributes = getMarkerAttributes(category, problem);
+		if(this.markerWriter != null) {
+			// identical existing markers are kept when the changes are applied
+			if (category == IApiProblem.CATEGORY_API_USE_SCAN_PROBLEM) {
+				this.markerWriter.createUseScanMarker(resource, type, attributes);
+			}
+			else {
+				this.markerWriter.createMarker(resource, type, attributes);
+			}
+			return;
+		}
 		try {
 			if (category == IApiProblem.CATEGORY_API_USE_SCAN_PROBLEM) {
 				IMarker[] markers = resource.findMarkers(type, true, IResource.DEPTH_ZERO);
@@ -821,50 +928,7 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 				}
 			}			
 			IMarker marker = resource.createMarker(type);
-			int line = problem.getLineNumber();
-			switch(category) {
-				case IApiProblem.CATEGORY_VERSION :
-				case IApiProblem.CATEGORY_API_BASELINE :
-				case IApiProblem.CATEGORY_API_COMPONENT_RESOLUTION : 
-				case IApiProblem.CATEGORY_API_USE_SCAN_PROBLEM : {
-					break;
-				}
-				default : {
-					line++;
-				}
-			}
-			marker.setAttributes(
-					new String[] {
-							IMarker.MESSAGE,
-							IMarker.SEVERITY,
-							IMarker.LINE_NUMBER,
-							IMarker.CHAR_START,
-							IMarker.CHAR_END,
-							IMarker.SOURCE_ID,
-							IApiMarkerConstants.MARKER_ATTR_PROBLEM_ID},
-					new Object[] {
-							problem.getMessage(),
-							new Integer(ApiPlugin.getDefault().getSeverityLevel(ApiProblemFactory.getProblemSeverityId(problem), this.currentproject)),
-							new Integer(line),
-							new Integer(problem.getCharStart()),
-							new Integer(problem.getCharEnd()),
-							ApiAnalysisBuilder.SOURCE,
-							new Integer(problem.getId())
-					}
-				);
-			//add message arguments, if any
-			String[] args = problem.getMessageArguments();
-			if(args.length > 0) {
-				marker.setAttribute(IApiMarkerConstants.MARKER_ATTR_MESSAGE_ARGUMENTS, createArgAttribute(args));
-			}
-			String typeName = problem.getTypeName();
-			if (typeName != null) {
-				marker.setAttribute(IApiMarkerConstants.MARKER_ATTR_PROBLEM_TYPE_NAME, typeName);
-			}
-			//add all other extra arguments, if any
-			if(problem.getExtraMarkerAttributeIds().length > 0) {
-				marker.setAttributes(problem.getExtraMarkerAttributeIds(), problem.getExtraMarkerAttributeValues());
-			}
+			marker.setAttributes(attributes);
 			if (ApiPlugin.DEBUG_BUILDER) {
 				System.out.println("Created the marker: " + marker.getId() + " - " + marker.getAttributes().entrySet()); //$NON-NLS-1$ //$NON-NLS-2$
 			}
@@ -874,6 +938,56 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 		}
 	}
 	
+	/**
+	 * Returns the attributes of the marker to create for the given problem
+	 * @param category the category of the problem - see {@link IApiProblem} for categories
+	 * @param problem the problem to create a marker from
+	 * @return the map of marker attribute name to value
+	 */
+	Map getMarkerAttributes(int category, IApiProblem problem) {
+		int line = problem.getLineNumber();
+		switch(category) {
+			case IApiProblem.CATEGORY_VERSION :
+			case IApiProblem.CATEGORY_API_BASELINE :
+			case IApiProblem.CATEGORY_API_COMPONENT_RESOLUTION : 
+			case IApiProblem.CATEGORY_API_USE_SCAN_PROBLEM : {
+				break;
+			}
+			default : {
+				line++;
+			}
+		}
+		HashMap attributes = new HashMap();
+		String message = problem.getMessage();
+		if(message != null) {
+			attributes.put(IMarker.MESSAGE, message);
+		}
+		attributes.put(IMarker.SEVERITY, new Integer(ApiPlugin.getDefault().getSeverityLevel(ApiProblemFactory.getProblemSeverityId(problem), this.currentproject)));
+		attributes.put(IMarker.LINE_NUMBER, new Integer(line));
+		attributes.put(IMarker.CHAR_START, new Integer(problem.getCharStart()));
+		attributes.put(IMarker.CHAR_END, new Integer(problem.getCharEnd()));
+		attributes.put(IMarker.SOURCE_ID, ApiAnalysisBuilder.SOURCE);
+		attributes.put(IApiMarkerConstants.MARKER_ATTR_PROBLEM_ID, new Integer(problem.getId()));
+		//add message arguments, if any
+		String[] args = problem.getMessageArguments();
+		if(args.length > 0) {
+			attributes.put(IApiMarkerConstants.MARKER_ATTR_MESSAGE_ARGUMENTS, createArgAttribute(args));
+		}
+		String typeName = problem.getTypeName();
+		if (typeName != null) {
+			attributes.put(IApiMarkerConstants.MARKER_ATTR_PROBLEM_TYPE_NAME, typeName);
+		}
+		//add all other extra arguments, if any
+		String[] ids = problem.getExtraMarkerAttributeIds();
+		Object[] values = problem.getExtraMarkerAttributeValues();
+		for (int i = 0; i < ids.length; i++) {
+			if(values[i] != null) {
+				attributes.put(ids[i], values[i]);
+			}
+		}
+		return attributes;
+	}
+	
 	/**
 	 * Resolves the resource from the path in the problem, returns <code>null</code> in 
 	 * the following cases: 
@@ -932,6 +1046,8 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 	 */
 	protected void clean(IProgressMonitor monitor) throws CoreException {
 		this.currentproject = getProject();
+		this.dependentsIndex = null;
+		ApiChangeScheduler.getDefault().forget(this.currentproject);
 		SubMonitor localmonitor = SubMonitor.convert(monitor, MessageFormat.format(BuilderMessages.CleaningAPIDescription, new String[] {this.currentproject.getName()}), 2);
 		try {
 			// clean up all existing markers
@@ -1019,7 +1135,9 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 	 */
 	protected synchronized IApiAnalyzer getAnalyzer() {
 		if(this.analyzer == null) {
-			this.analyzer = new BaseApiAnalyzer();
+			BaseApiAnalyzer base = new BaseApiAnalyzer();
+			base.setMetrics(this.metrics);
+			this.analyzer = base;
 		}
 		return this.analyzer;
 	}
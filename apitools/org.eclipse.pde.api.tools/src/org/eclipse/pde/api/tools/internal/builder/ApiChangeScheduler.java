@@ -0,0 +1,367 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.builder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiField;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiMethod;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+
+/**
+ * Decides which type changes in a required project have to be propagated to the incremental
+ * API analysis of the projects that depend on it.
+ * <p>
+ * When a project is built, the shape of the types of each changed source file that is visible to
+ * other projects (modifiers, super types and all non-private members of all of its top-level types)
+ * is recorded as a hash together with the modification stamp of the file. When a dependent project
+ * later sees the change in the delta of the required project, the change is only propagated if the
+ * recorded hash differs from the one the dependent project consumed for that file before. Changes
+ * that only touch method bodies or private members are therefore not analyzed again downstream.
+ * Whenever the recorded state is missing or not current the change is propagated.
+ * </p>
+ * <p>
+ * A propagated hash only counts as consumed once the dependent project has been analyzed, see
+ * {@link #endBuild(IProject, boolean)}. If that build fails or is cancelled the change is propagated again.
+ * </p>
+ * <p>
+ * The decisions are kept in a bounded log, see {@link #getLog()}, and are printed when builder
+ * debugging is enabled.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public final class ApiChangeScheduler {
+
+	/**
+	 * The maximum number of entries kept in the scheduling log
+	 */
+	static final int MAX_LOG_SIZE = 200;
+
+	/**
+	 * The recorded API state of a changed type
+	 */
+	static final class TypeState {
+		long modificationStamp;
+		long hash;
+
+		TypeState(long modificationStamp, long hash) {
+			this.modificationStamp = modificationStamp;
+			this.hash = hash;
+		}
+	}
+
+	/**
+	 * The singleton scheduler
+	 */
+	private static ApiChangeScheduler fgDefault = null;
+
+	/**
+	 * Map of source file path to the {@link TypeState} recorded by the last build of its project
+	 */
+	private HashMap fTypeStates = new HashMap();
+	/**
+	 * Map of dependent project name to a {@link Map} of source file path to the API hash
+	 * last propagated to that project
+	 */
+	private HashMap fConsumed = new HashMap();
+	/**
+	 * Map of dependent project name to a {@link Map} of source file path to the API hash
+	 * propagated to the current build of that project
+	 */
+	private HashMap fPending = new HashMap();
+	/**
+	 * The scheduling log, oldest entry first
+	 */
+	private LinkedList fLog = new LinkedList();
+
+	/**
+	 * Constructor
+	 * Use {@link #getDefault()}
+	 */
+	ApiChangeScheduler() {}
+
+	/**
+	 * @return the shared scheduler
+	 */
+	public static synchronized ApiChangeScheduler getDefault() {
+		if(fgDefault == null) {
+			fgDefault = new ApiChangeScheduler();
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Records the API state of the types defined in the given source file after its project has been built.
+	 *
+	 * @param file the source file of the type
+	 * @param typename the qualified name of the primary type of the file
+	 * @param component the workspace component of the project, or <code>null</code> if unknown
+	 */
+	public synchronized void recordBuiltType(IFile file, String typename, IApiComponent component) {
+		String key = file.getFullPath().toString();
+		long hash = 0;
+		if(component != null) {
+			try {
+				String[] names = getTopLevelTypeNames(file, typename.replace('/', '.'));
+				IApiType[] types = new IApiType[names.length];
+				for (int i = 0; i < names.length; i++) {
+					IApiTypeRoot root = component.findTypeRoot(names[i]);
+					types[i] = root == null ? null : root.getStructure();
+					if(types[i] == null) {
+						types = null;
+						break;
+					}
+				}
+				if(types != null) {
+					hash = computeApiHash(types);
+				}
+			}
+			catch(CoreException ce) {
+				//forget the type, changes to it are always propagated
+				hash = 0;
+			}
+		}
+		if(hash == 0 || !file.exists()) {
+			fTypeStates.remove(key);
+		}
+		else {
+			fTypeStates.put(key, new TypeState(file.getModificationStamp(), hash));
+		}
+	}
+
+	/**
+	 * Returns the qualified names of all top-level types declared in the given source file, sorted by name
+	 * @param file
+	 * @param typename the qualified name of the primary type of the file
+	 * @return the names of the top-level types
+	 * @throws JavaModelException
+	 */
+	static String[] getTopLevelTypeNames(IFile file, String typename) throws JavaModelException {
+		ICompilationUnit unit = JavaCore.createCompilationUnitFrom(file);
+		if(unit == null) {
+			return new String[] {typename};
+		}
+		IType[] types = unit.getTypes();
+		String[] names = new String[types.length];
+		for (int i = 0; i < types.length; i++) {
+			names[i] = types[i].getFullyQualifiedName();
+		}
+		Arrays.sort(names);
+		return names;
+	}
+
+	/**
+	 * Returns if a structural change to the given source file in a required project must be analyzed
+	 * by the given dependent project. The API state the decision is based on is only recorded as
+	 * consumed by the dependent project when its build completes, see {@link #endBuild(IProject, boolean)}.
+	 *
+	 * @param dependent the project being built
+	 * @param file the changed source file of the required project
+	 * @return <code>true</code> if the dependents of the type have to be analyzed
+	 */
+	public synchronized boolean shouldPropagate(IProject dependent, IFile file) {
+		String key = file.getFullPath().toString();
+		Map consumed = (Map) fConsumed.get(dependent.getName());
+		if(consumed == null) {
+			consumed = new HashMap();
+			fConsumed.put(dependent.getName(), consumed);
+		}
+		TypeState state = (TypeState) fTypeStates.get(key);
+		if(state == null || !file.exists() || state.modificationStamp != file.getModificationStamp()) {
+			consumed.remove(key);
+			log(dependent, key, true, "no current API state recorded by " + file.getProject().getName()); //$NON-NLS-1$
+			return true;
+		}
+		Long previous = (Long) consumed.get(key);
+		if(previous == null || previous.longValue() != state.hash) {
+			Map pending = (Map) fPending.get(dependent.getName());
+			if(pending == null) {
+				pending = new HashMap();
+				fPending.put(dependent.getName(), pending);
+			}
+			pending.put(key, new Long(state.hash));
+		}
+		if(previous == null) {
+			log(dependent, key, true, "API state not yet analyzed"); //$NON-NLS-1$
+			return true;
+		}
+		if(previous.longValue() != state.hash) {
+			log(dependent, key, true, "API changed since the last build"); //$NON-NLS-1$
+			return true;
+		}
+		log(dependent, key, false, "API unchanged since the last build"); //$NON-NLS-1$
+		return false;
+	}
+
+	/**
+	 * Ends the build of the given dependent project. If the build completed, the API states of the
+	 * changes propagated to it are recorded as consumed; otherwise they are dropped, so the changes
+	 * are propagated again by the next build.
+	 *
+	 * @param dependent the project that was built
+	 * @param completed whether the dependent project was analyzed successfully
+	 */
+	public synchronized void endBuild(IProject dependent, boolean completed) {
+		Map pending = (Map) fPending.remove(dependent.getName());
+		if(pending == null || !completed) {
+			return;
+		}
+		Map consumed = (Map) fConsumed.get(dependent.getName());
+		if(consumed == null) {
+			consumed = new HashMap();
+			fConsumed.put(dependent.getName(), consumed);
+		}
+		consumed.putAll(pending);
+	}
+
+	/**
+	 * Forgets everything recorded for and by the given project, for example after a full build or a clean
+	 *
+	 * @param project
+	 */
+	public synchronized void forget(IProject project) {
+		fConsumed.remove(project.getName());
+		fPending.remove(project.getName());
+		String prefix = project.getFullPath().addTrailingSeparator().toString();
+		for (Iterator iter = fTypeStates.keySet().iterator(); iter.hasNext();) {
+			if(((String) iter.next()).startsWith(prefix)) {
+				iter.remove();
+			}
+		}
+	}
+
+	/**
+	 * Returns the most recent scheduling decisions, oldest first. Each entry names the dependent project,
+	 * the changed source file, whether its dependents were scheduled for analysis and why.
+	 *
+	 * @return the scheduling log
+	 */
+	public synchronized String[] getLog() {
+		return (String[]) fLog.toArray(new String[fLog.size()]);
+	}
+
+	/**
+	 * Adds a decision to the log
+	 * @param dependent
+	 * @param key
+	 * @param scheduled
+	 * @param reason
+	 */
+	private void log(IProject dependent, String key, boolean scheduled, String reason) {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(dependent.getName()).append(": "); //$NON-NLS-1$
+		buffer.append(scheduled ? "scheduled dependents of " : "skipped dependents of "); //$NON-NLS-1$ //$NON-NLS-2$
+		buffer.append(key).append(" - ").append(reason); //$NON-NLS-1$
+		String entry = buffer.toString();
+		fLog.addLast(entry);
+		if(fLog.size() > MAX_LOG_SIZE) {
+			fLog.removeFirst();
+		}
+		if(ApiPlugin.DEBUG_BUILDER) {
+			System.out.println(entry);
+		}
+	}
+
+	/**
+	 * Computes a hash of the parts of the given types that are visible to other projects: their modifiers,
+	 * super types and all non-private fields, methods and member types.
+	 *
+	 * @param types the top-level types of a source file
+	 * @return the API hash of the types, never <code>0</code>
+	 * @throws CoreException
+	 */
+	static long computeApiHash(IApiType[] types) throws CoreException {
+		CRC32 crc = new CRC32();
+		for (int i = 0; i < types.length; i++) {
+			updateHash(crc, types[i]);
+		}
+		long hash = crc.getValue();
+		return hash == 0 ? 1 : hash;
+	}
+
+	/**
+	 * Adds the visible shape of the given type to the given checksum
+	 * @param crc
+	 * @param type
+	 * @throws CoreException
+	 */
+	private static void updateHash(CRC32 crc, IApiType type) throws CoreException {
+		ArrayList entries = new ArrayList();
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(type.getName()).append(':').append(type.getModifiers());
+		buffer.append(':').append(type.getSuperclassName());
+		buffer.append(':').append(type.getGenericSignature());
+		String[] interfaces = type.getSuperInterfaceNames();
+		if(interfaces != null) {
+			for (int i = 0; i < interfaces.length; i++) {
+				buffer.append(':').append(interfaces[i]);
+			}
+		}
+		entries.add(buffer.toString());
+		IApiField[] fields = type.getFields();
+		for (int i = 0; i < fields.length; i++) {
+			if(Flags.isPrivate(fields[i].getModifiers())) {
+				continue;
+			}
+			buffer.setLength(0);
+			buffer.append("F:").append(fields[i].getName()).append(':').append(fields[i].getModifiers()); //$NON-NLS-1$
+			buffer.append(':').append(fields[i].getSignature()).append(':').append(fields[i].getGenericSignature());
+			buffer.append(':').append(fields[i].getConstantValue());
+			entries.add(buffer.toString());
+		}
+		IApiMethod[] methods = type.getMethods();
+		for (int i = 0; i < methods.length; i++) {
+			if(Flags.isPrivate(methods[i].getModifiers()) || methods[i].isSynthetic()) {
+				continue;
+			}
+			buffer.setLength(0);
+			buffer.append("M:").append(methods[i].getName()).append(':').append(methods[i].getModifiers()); //$NON-NLS-1$
+			buffer.append(':').append(methods[i].getSignature()).append(':').append(methods[i].getGenericSignature());
+			buffer.append(':').append(methods[i].getDefaultValue());
+			String[] exceptions = methods[i].getExceptionNames();
+			if(exceptions != null) {
+				for (int j = 0; j < exceptions.length; j++) {
+					buffer.append(':').append(exceptions[j]);
+				}
+			}
+			entries.add(buffer.toString());
+		}
+		String[] sorted = (String[]) entries.toArray(new String[entries.size()]);
+		Arrays.sort(sorted);
+		for (int i = 0; i < sorted.length; i++) {
+			crc.update(sorted[i].getBytes());
+		}
+		IApiType[] members = type.getMemberTypes();
+		for (int i = 0; i < members.length; i++) {
+			if(!Flags.isPrivate(members[i].getModifiers())) {
+				updateHash(crc, members[i]);
+			}
+		}
+	}
+}
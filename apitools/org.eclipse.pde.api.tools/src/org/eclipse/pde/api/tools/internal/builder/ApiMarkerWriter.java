@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.builder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+
+/**
+ * Collects the API problem marker changes of one build and applies them at once.
+ * <p>
+ * Marker deletions requested while the writer is active are only recorded. When the writer is
+ * applied, every new marker is compared with the existing markers of the same type on its resource:
+ * an existing marker with exactly the same attributes is kept instead of being deleted and created
+ * again. Only the remaining stale markers are deleted and only the truly new markers are created, all
+ * inside a single {@link IWorkspaceRunnable}. A build whose results did not change therefore does not
+ * touch any marker.
+ * </p>
+ * <p>
+ * Markers of API use scan problems are not removed by the build, so they are matched on their message
+ * and severity alone: an existing use scan marker that matches a new one is kept, any other use scan
+ * marker of the same type on the resource is deleted.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public final class ApiMarkerWriter {
+
+	/**
+	 * A recorded request to delete markers
+	 */
+	static final class Deletion {
+		IResource resource;
+		String type;
+		boolean includeSubtypes;
+		int depth;
+
+		Deletion(IResource resource, String type, boolean includeSubtypes, int depth) {
+			this.resource = resource;
+			this.type = type;
+			this.includeSubtypes = includeSubtypes;
+			this.depth = depth;
+		}
+	}
+
+	/**
+	 * A recorded request to create a marker
+	 */
+	static final class Addition {
+		IResource resource;
+		String type;
+		Map attributes;
+		boolean useScan;
+
+		Addition(IResource resource, String type, Map attributes, boolean useScan) {
+			this.resource = resource;
+			this.type = type;
+			this.attributes = attributes;
+			this.useScan = useScan;
+		}
+	}
+
+	private IProject fProject = null;
+	/**
+	 * The recorded {@link Deletion}s, in request order
+	 */
+	private List fDeletions = new ArrayList();
+	/**
+	 * Individual markers to delete
+	 */
+	private Set fDeletedMarkers = new HashSet();
+	/**
+	 * The recorded {@link Addition}s, in request order
+	 */
+	private List fAdditions = new ArrayList();
+
+	private int fCreated = 0;
+	private int fDeleted = 0;
+	private int fKept = 0;
+
+	/**
+	 * Constructor
+	 * @param project the project being built
+	 */
+	public ApiMarkerWriter(IProject project) {
+		fProject = project;
+	}
+
+	/**
+	 * Records that the markers of the given type on the given resource have to be deleted, unless
+	 * an identical marker is added before the writer is applied.
+	 *
+	 * @param resource the resource to delete the markers from
+	 * @param type the marker type
+	 * @param includeSubtypes whether markers of sub types of the type are deleted too
+	 * @param depth the depth, one of the <code>IResource.DEPTH_*</code> constants
+	 * @see IResource#deleteMarkers(String, boolean, int)
+	 */
+	public void deleteMarkers(IResource resource, String type, boolean includeSubtypes, int depth) {
+		fDeletions.add(new Deletion(resource, type, includeSubtypes, depth));
+	}
+
+	/**
+	 * Records that the given marker has to be deleted, unless an identical marker is added
+	 * before the writer is applied.
+	 *
+	 * @param marker the marker to delete
+	 */
+	public void deleteMarker(IMarker marker) {
+		fDeletedMarkers.add(marker);
+	}
+
+	/**
+	 * Records that a marker of the given type with the given attributes has to exist on the given resource
+	 * after the writer is applied.
+	 *
+	 * @param resource the resource to create the marker on
+	 * @param type the marker type
+	 * @param attributes the map of attribute name to value, values must not be <code>null</code>
+	 */
+	public void createMarker(IResource resource, String type, Map attributes) {
+		fAdditions.add(new Addition(resource, type, attributes, false));
+	}
+
+	/**
+	 * Records that a marker of the given API use scan problem type with the given attributes has to exist on the given
+	 * resource after the writer is applied. An existing marker of the type with the same message and severity is kept,
+	 * the other existing markers of the type on the resource are deleted.
+	 *
+	 * @param resource the resource to create the marker on
+	 * @param type the marker type
+	 * @param attributes the map of attribute name to value, values must not be <code>null</code>
+	 */
+	public void createUseScanMarker(IResource resource, String type, Map attributes) {
+		fAdditions.add(new Addition(resource, type, attributes, true));
+	}
+
+	/**
+	 * @return <code>true</code> if no changes have been recorded
+	 */
+	public boolean isEmpty() {
+		return fDeletions.isEmpty() && fDeletedMarkers.isEmpty() && fAdditions.isEmpty();
+	}
+
+	/**
+	 * Applies all of the recorded changes in a single workspace operation and clears them.
+	 *
+	 * @param monitor the progress monitor, may be <code>null</code>
+	 * @throws CoreException if the changes could not be applied
+	 */
+	public void apply(IProgressMonitor monitor) throws CoreException {
+		if(isEmpty()) {
+			return;
+		}
+		final List deletions = fDeletions;
+		final Set deletedMarkers = fDeletedMarkers;
+		final List additions = fAdditions;
+		fDeletions = new ArrayList();
+		fDeletedMarkers = new HashSet();
+		fAdditions = new ArrayList();
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		IWorkspaceRunnable runnable = new IWorkspaceRunnable() {
+			public void run(IProgressMonitor runMonitor) throws CoreException {
+				write(deletions, deletedMarkers, additions);
+			}
+		};
+		workspace.run(runnable, workspace.getRuleFactory().markerRule(fProject), IWorkspace.AVOID_UPDATE, monitor);
+		if(ApiPlugin.DEBUG_BUILDER) {
+			System.out.println("API markers of " + fProject.getName() + ": " + fCreated + " created, " + fDeleted + " deleted, " + fKept + " unchanged"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		}
+	}
+
+	/**
+	 * Diffs the given additions against the stale markers and writes the differences
+	 * @param deletions
+	 * @param deletedMarkers
+	 * @param additions
+	 * @throws CoreException
+	 */
+	void write(List deletions, Set deletedMarkers, List additions) throws CoreException {
+		LinkedHashSet stale = new LinkedHashSet();
+		for (Iterator iter = deletions.iterator(); iter.hasNext();) {
+			Deletion deletion = (Deletion) iter.next();
+			if(deletion.resource.isAccessible()) {
+				IMarker[] markers = deletion.resource.findMarkers(deletion.type, deletion.includeSubtypes, deletion.depth);
+				for (int i = 0; i < markers.length; i++) {
+					stale.add(markers[i]);
+				}
+			}
+		}
+		stale.addAll(deletedMarkers);
+		// map of resource + type to the existing markers that have not been matched yet
+		HashMap existing = new HashMap();
+		// the keys of the use scan markers, whose unmatched markers are deleted
+		HashSet useScanKeys = new HashSet();
+		for (Iterator iter = additions.iterator(); iter.hasNext();) {
+			Addition addition = (Addition) iter.next();
+			if(!addition.resource.isAccessible()) {
+				continue;
+			}
+			String key = addition.resource.getFullPath().toString() + '#' + addition.type;
+			List candidates = (List) existing.get(key);
+			if(candidates == null) {
+				candidates = new ArrayList();
+				IMarker[] markers = addition.resource.findMarkers(addition.type, false, IResource.DEPTH_ZERO);
+				for (int i = 0; i < markers.length; i++) {
+					candidates.add(markers[i]);
+				}
+				existing.put(key, candidates);
+			}
+			IMarker match = null;
+			if(addition.useScan) {
+				useScanKeys.add(key);
+				match = matchUseScanMarker(candidates, addition.attributes);
+			}
+			else {
+				for (Iterator iter2 = candidates.iterator(); iter2.hasNext();) {
+					IMarker marker = (IMarker) iter2.next();
+					Map attributes = marker.getAttributes();
+					if(attributes != null && attributes.equals(addition.attributes)) {
+						match = marker;
+						iter2.remove();
+						break;
+					}
+				}
+			}
+			if(match != null) {
+				stale.remove(match);
+				fKept++;
+			}
+			else {
+				IMarker marker = addition.resource.createMarker(addition.type);
+				marker.setAttributes(addition.attributes);
+				fCreated++;
+				if (ApiPlugin.DEBUG_BUILDER) {
+					System.out.println("Created the marker: " + marker.getId() + " - " + addition.attributes.entrySet()); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
+		}
+		for (Iterator iter = useScanKeys.iterator(); iter.hasNext();) {
+			stale.addAll((List) existing.get(iter.next()));
+		}
+		for (Iterator iter = stale.iterator(); iter.hasNext();) {
+			IMarker marker = (IMarker) iter.next();
+			if(marker.exists()) {
+				marker.delete();
+				fDeleted++;
+			}
+		}
+	}
+
+	/**
+	 * Removes and returns the first of the given existing markers with the message and severity of the
+	 * given use scan marker attributes. An existing marker without a message matches any message.
+	 * 
+	 * @param candidates the existing markers that have not been matched yet
+	 * @param attributes the attributes of the new marker
+	 * @return the matching marker or <code>null</code> if there is none
+	 */
+	private IMarker matchUseScanMarker(List candidates, Map attributes) {
+		String message = (String) attributes.get(IMarker.MESSAGE);
+		Object severity = attributes.get(IMarker.SEVERITY);
+		for (Iterator iter = candidates.iterator(); iter.hasNext();) {
+			IMarker marker = (IMarker) iter.next();
+			String msg = marker.getAttribute(IMarker.MESSAGE, null);
+			if (msg == null || msg.equalsIgnoreCase(message)) {
+				if (severity != null && severity.equals(new Integer(marker.getAttribute(IMarker.SEVERITY, 0)))) {
+					iter.remove();
+					return marker;
+				}
+			}
+		}
+		return null;
+	}
+}
@@ -22,9 +22,10 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.jar.JarFile;
 
 import org.eclipse.core.resources.IFile;
@@ -35,7 +36,6 @@ import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.SubMonitor;
@@ -50,12 +50,8 @@ import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.IParent;
 import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.IType;
-import org.eclipse.jdt.core.ITypeRoot;
-import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.CharOperation;
-import org.eclipse.jdt.core.dom.AST;
-import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
@@ -100,10 +96,12 @@ import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
 import org.eclipse.pde.api.tools.internal.provisional.problems.IApiProblem;
 import org.eclipse.pde.api.tools.internal.provisional.problems.IApiProblemFilter;
 import org.eclipse.pde.api.tools.internal.provisional.problems.IApiProblemTypes;
+import org.eclipse.pde.api.tools.internal.search.ComponentSymbolIndex;
 import org.eclipse.pde.api.tools.internal.search.IReferenceDescriptor;
 import org.eclipse.pde.api.tools.internal.search.UseScanManager;
 import org.eclipse.pde.api.tools.internal.util.Signatures;
 import org.eclipse.pde.api.tools.internal.util.SinceTagVersion;
+import org.eclipse.pde.api.tools.internal.util.SymbolTable;
 import org.eclipse.pde.api.tools.internal.util.Util;
 import org.osgi.framework.Constants;
 import org.osgi.framework.Version;
@@ -140,6 +138,11 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 	 * List of pending deltas for which the @since tags should be checked
 	 */
 	private List fPendingDeltaInfos = new ArrayList(3);
+
+	/**
+	 * The maximum number of ASTs kept in the {@link ASTCache}
+	 */
+	private static final int AST_CACHE_SIZE = 200;
 		
 	/**
 	 * The current build state to use
@@ -157,6 +160,20 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 	 * The current preferences to use when the platform is not running.
 	 */
 	private Properties fPreferences = null;
+	/**
+	 * ASTs shared by the @since tag and Javadoc tag checks during one analysis
+	 */
+	private ASTCache fASTCache = null;
+	
+	/**
+	 * The metrics to record the time spent in each phase in, or <code>null</code>
+	 */
+	private BuildMetrics fMetrics = null;
+	
+	/**
+	 * The total time spent checking @since tags, used to exclude it from the compatibility phase
+	 */
+	private long fSinceTagTime = 0;
 	
 	/**
 	 * Constructs an API analyzer
@@ -230,7 +247,9 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 				if(fBuildState == null) {
 					fBuildState = getBuildState();
 				}
-				//compatibility checks
+				//compatibility checks, not counting the @since tag checks
+				long start = System.currentTimeMillis();
+				long sincetags = fSinceTagTime;
 				if(reference != null) {
 					localMonitor.subTask(NLS.bind(BuilderMessages.BaseApiAnalyzer_comparing_api_profiles, new String[] {reference.getSymbolicName(), baseline.getName()}));
 					if(bcontext.hasTypes()) {
@@ -247,8 +266,13 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 					checkCompatibility(null, component, localMonitor.newChild(1));
 					Util.updateMonitor(localMonitor);
 				}
+				if(fMetrics != null) {
+					fMetrics.record(BuildMetrics.PHASE_COMPATIBILITY, System.currentTimeMillis() - start - (fSinceTagTime - sincetags));
+				}
 				//version checks
+				start = System.currentTimeMillis();
 				checkApiComponentVersion(reference, component);
+				record(BuildMetrics.PHASE_VERSION_CHECK, start);
 				Util.updateMonitor(localMonitor);
 				checkfilters = true;
 			}
@@ -265,16 +289,22 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 			checkApiUsage(bcontext, component, localMonitor.newChild(1));
 			Util.updateMonitor(localMonitor);
 			//tag validation
+			long start = System.currentTimeMillis();
 			checkTagValidation(bcontext, component, localMonitor.newChild(1));
+			record(BuildMetrics.PHASE_TAG_VALIDATION, start);
 			Util.updateMonitor(localMonitor);
 			if(checkfilters) {
 				//check for unused filters only if the scans have been done
+				start = System.currentTimeMillis();
 				checkUnusedProblemFilters(bcontext, component, localMonitor.newChild(1));
+				record(BuildMetrics.PHASE_UNUSED_FILTERS, start);
 			}
 			Util.updateMonitor(localMonitor);
 			
 			if (component instanceof ProjectComponent) {
+				start = System.currentTimeMillis();
 				checkExternalDependencies(component, bcontext, null, localMonitor.newChild(1));
+				record(BuildMetrics.PHASE_EXTERNAL_DEPENDENCIES, start);
 			}
 		} catch(CoreException e) {
 			ApiPlugin.log(e);
@@ -344,6 +374,22 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 	 * @throws CoreException
 	 */
 	public void checkExternalDependencies(IApiComponent apiComponent, IBuildContext bcontext, Properties properties, IProgressMonitor monitor) throws CoreException {
+		checkExternalDependencies(apiComponent, bcontext, properties, null, monitor);
+	}
+
+	/**
+	 * Processes the API Use Scan report for the given API Component. References to members that are
+	 * found in the given symbol table are known to resolve and are not looked up in the API model.
+	 * 
+	 * @param apiComponent
+	 * @param bcontext
+	 * @param properties
+	 * @param symbols the symbols declared by the component, see {@link ComponentSymbolIndex}, or <code>null</code>
+	 * @param monitor
+	 * @throws CoreException
+	 * @since 1.0.400
+	 */
+	public void checkExternalDependencies(IApiComponent apiComponent, IBuildContext bcontext, Properties properties, SymbolTable symbols, IProgressMonitor monitor) throws CoreException {
 		if (!isSeverityEnabled(properties)) {
 			return;
 		}
@@ -367,6 +413,10 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 					Reference externalReference = null;
 					IApiTypeRoot type = null;
 					IMemberDescriptor referencedMember = externalDependencies[i].getReferencedMember();
+					if (symbols != null && symbols.contains(ComponentSymbolIndex.getKey(referencedMember))) {
+						//declared directly in the component, the reference resolves
+						continue;
+					}
 					IReferenceTypeDescriptor referenceMemberType = referencedMember.getEnclosingType();
 					if (referenceMemberType != null) {
 						type = apiComponent.findTypeRoot(referenceMemberType.getQualifiedName());
@@ -529,6 +579,39 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 		return problem;		
 	}
 	
+	/**
+	 * Checks the @since tags of all of the pending deltas
+	 * @param component
+	 * @throws CoreException
+	 */
+	private void checkPendingSinceTags(final IApiComponent component) throws CoreException {
+		long start = System.currentTimeMillis();
+		try {
+			prefetchSinceTagASTs(fPendingDeltaInfos);
+			for (Iterator iterator = fPendingDeltaInfos.iterator(); iterator.hasNext();) {
+				checkSinceTags((Delta) iterator.next(), component);
+			}
+		}
+		finally {
+			long time = System.currentTimeMillis() - start;
+			fSinceTagTime += time;
+			if(fMetrics != null) {
+				fMetrics.record(BuildMetrics.PHASE_SINCE_TAGS, time);
+			}
+		}
+	}
+	
+	/**
+	 * Records the time spent since the given start time in the given phase, if metrics are collected
+	 * @param phase
+	 * @param start
+	 */
+	private void record(String phase, long start) {
+		if(fMetrics != null) {
+			fMetrics.record(phase, System.currentTimeMillis() - start);
+		}
+	}
+	
 	/**
 	 * Checks the compatibility of each type.
 	 * 
@@ -793,23 +876,60 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 	}
 
 	/**
-	 * Creates and AST for the given {@link ITypeRoot} at the given offset
-	 * @param root
-	 * @param offset
-	 * @return
+	 * Returns the AST cache for the current project or <code>null</code> if there is no project
+	 * @return the {@link ASTCache} or <code>null</code>
 	 */
-	private CompilationUnit createAST(ITypeRoot root, int offset) {
+	private ASTCache getASTCache() {
 		if(fJavaProject == null) {
 			return null;
 		}
-		ASTParser parser = ASTParser.newParser(AST.JLS4);
-		parser.setFocalPosition(offset);
-		parser.setResolveBindings(false);
-		parser.setSource(root);
-		Map options = fJavaProject.getOptions(true);
-		options.put(JavaCore.COMPILER_DOC_COMMENT_SUPPORT, JavaCore.ENABLED);
-		parser.setCompilerOptions(options);
-		return (CompilationUnit) parser.createAST(new NullProgressMonitor());
+		if(fASTCache == null) {
+			fASTCache = new ASTCache(fJavaProject, AST_CACHE_SIZE);
+		}
+		return fASTCache;
+	}
+
+	/**
+	 * Returns the AST for the given {@link ICompilationUnit}, parsed with doc comment support
+	 * @param unit
+	 * @return the AST or <code>null</code> if there is no project
+	 */
+	private CompilationUnit getAST(ICompilationUnit unit) {
+		ASTCache cache = getASTCache();
+		if(cache == null) {
+			return null;
+		}
+		return cache.getAST(unit);
+	}
+
+	/**
+	 * Parses the compilation units of all of the given deltas that need their @since tags checked
+	 * in one pass, so that {@link #checkSinceTags(Delta, IApiComponent)} finds their ASTs in the cache
+	 * @param deltas
+	 */
+	private void prefetchSinceTagASTs(List deltas) {
+		ASTCache cache = getASTCache();
+		if(cache == null || deltas.size() < 2 || ignoreSinceTagCheck(null)) {
+			return;
+		}
+		LinkedHashSet units = new LinkedHashSet();
+		for (Iterator iterator = deltas.iterator(); iterator.hasNext();) {
+			IMember member = Util.getIMember((Delta) iterator.next(), fJavaProject);
+			if(member != null && !member.isBinary()) {
+				ICompilationUnit cunit = member.getCompilationUnit();
+				if(cunit != null) {
+					units.add(cunit);
+				}
+			}
+		}
+		if(units.size() > 1) {
+			ICompilationUnit[] all = (ICompilationUnit[]) units.toArray(new ICompilationUnit[units.size()]);
+			for (int i = 0; i < all.length && i < AST_CACHE_SIZE; i += ASTCache.BATCH_SIZE) {
+				ICompilationUnit[] batch = new ICompilationUnit[Math.min(ASTCache.BATCH_SIZE, all.length - i)];
+				System.arraycopy(all, i, batch, 0, batch.length);
+				cache.getASTs(batch, null);
+			}
+		}
 	}
 	
 	/**
@@ -881,6 +1001,7 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 	 * @see org.eclipse.pde.api.tools.internal.provisional.builder.IApiAnalyzer#dispose()
 	 */
 	public void dispose() {
+		fMetrics = null;
 		if(fProblems != null) {
 			fProblems.clear();
 			fProblems = null;
@@ -892,6 +1013,20 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 		if(fBuildState != null) {
 			fBuildState = null;
 		}
+		if(fASTCache != null) {
+			fASTCache.clear();
+			fASTCache = null;
+		}
+	}
+	
+	/**
+	 * Sets the metrics to record the time spent in each phase of the analysis in
+	 * 
+	 * @param metrics the metrics or <code>null</code> to not record any
+	 * @since 1.0.400
+	 */
+	public void setMetrics(BuildMetrics metrics) {
+		fMetrics = metrics;
 	}
 	
 	/**
@@ -1019,14 +1154,16 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 			localMonitor = SubMonitor.convert(monitor, BuilderMessages.BaseApiAnalyzer_validating_javadoc_tags, 1 + component.getApiTypeContainers().length);
 			if(context.hasTypes()) {
 				String[] typenames = context.getStructurallyChangedTypes();
+				LinkedHashSet units = new LinkedHashSet();
 				for(int i = 0; i < typenames.length; i++) {
 					if(typenames[i] == null) {
 						continue;
 					}
 					localMonitor.subTask(NLS.bind(BuilderMessages.BaseApiAnalyzer_scanning_0, typenames[i]));
-					processType(typenames[i]);
+					collectCompilationUnit(typenames[i], units);
 					Util.updateMonitor(localMonitor);
 				}
+				processTypes((ICompilationUnit[]) units.toArray(new ICompilationUnit[units.size()]));
 			}
 			else {
 				try {
@@ -1034,7 +1171,9 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 					for(int i = 0; i < roots.length; i++) {
 						if(roots[i].getKind() == IPackageFragmentRoot.K_SOURCE) {
 							localMonitor.subTask(NLS.bind(BuilderMessages.BaseApiAnalyzer_scanning_0, roots[i].getPath().toOSString()));
-							scanSource(roots[i], localMonitor.newChild(1));
+							ArrayList units = new ArrayList();
+							scanSource(roots[i], units, localMonitor.newChild(1));
+							processTypes((ICompilationUnit[]) units.toArray(new ICompilationUnit[units.size()]));
 							Util.updateMonitor(localMonitor);
 						}
 					}
@@ -1055,12 +1194,13 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 	}
 	
 	/**
-	 * Recursively finds all source in the given project and scans it for invalid tags 
+	 * Recursively finds all source in the given project to be scanned for invalid tags 
 	 * @param element
+	 * @param units the list to collect the {@link ICompilationUnit}s in
 	 * @param monitor
 	 * @throws JavaModelException
 	 */
-	private void scanSource(IJavaElement element, IProgressMonitor monitor) throws JavaModelException {
+	private void scanSource(IJavaElement element, List units, IProgressMonitor monitor) throws JavaModelException {
 		try {
 			switch(element.getElementType()) {
 				case IJavaElement.PACKAGE_FRAGMENT_ROOT:
@@ -1068,14 +1208,13 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 					IParent parent = (IParent) element;
 					IJavaElement[] children = parent.getChildren();
 					for (int i = 0; i < children.length; i++) {
-						scanSource(children[i], monitor);
+						scanSource(children[i], units, monitor);
 						Util.updateMonitor(monitor, 0);
 					}
 					break;
 				}
 				case IJavaElement.COMPILATION_UNIT: {
-					ICompilationUnit unit = (ICompilationUnit) element;
-					processType(unit);
+					units.add(element);
 					Util.updateMonitor(monitor, 0);
 					break;
 				}
@@ -1090,17 +1229,18 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 	}
 	
 	/**
-	 * Processes the given type name for invalid Javadoc tags
+	 * Collects the compilation unit of the given type name to be processed for invalid Javadoc tags
 	 * @param typename
+	 * @param units the set to add the {@link ICompilationUnit} to
 	 */
-	private void processType(String typename) {
+	private void collectCompilationUnit(String typename, Set units) {
 		try {
 			IType type = fJavaProject.findType(typename);
 			if(type != null && !type.isMember()) {
 				// member types are processed while processing the compilation unit
 				ICompilationUnit cunit = type.getCompilationUnit();
 				if(cunit != null) {
-					processType(cunit);
+					units.add(cunit);
 				}
 			}
 		} 
@@ -1109,16 +1249,36 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 		}
 	}
 	
+	/**
+	 * Processes the given {@link ICompilationUnit}s for invalid tags. The units are parsed in batches
+	 * of {@link ASTCache#BATCH_SIZE}.
+	 * @param units
+	 */
+	private void processTypes(ICompilationUnit[] units) {
+		ASTCache cache = getASTCache();
+		if(cache == null) {
+			return;
+		}
+		for (int i = 0; i < units.length; i += ASTCache.BATCH_SIZE) {
+			ICompilationUnit[] batch = new ICompilationUnit[Math.min(ASTCache.BATCH_SIZE, units.length - i)];
+			System.arraycopy(units, i, batch, 0, batch.length);
+			CompilationUnit[] asts = cache.getASTs(batch, null);
+			for (int j = 0; j < batch.length; j++) {
+				processType(batch[j], asts[j]);
+			}
+		}
+	}
+	
 	/**
 	 * Processes the given {@link ICompilationUnit} for invalid tags
 	 * @param cunit
+	 * @param comp the AST of the compilation unit
 	 */
-	private void processType(ICompilationUnit cunit) {
-		TagValidator tv = new TagValidator(cunit);
-		CompilationUnit comp = createAST(cunit, 0);
+	private void processType(ICompilationUnit cunit, CompilationUnit comp) {
 		if(comp == null) {
 			return;
 		}
+		TagValidator tv = new TagValidator(cunit);
 		comp.accept(tv);
 		IApiProblem[] tagProblems = tv.getTagProblems();
 		for (int i = 0; i < tagProblems.length; i++) {
@@ -1153,6 +1313,7 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 		}
 		SubMonitor localMonitor = SubMonitor.convert(monitor, MessageFormat.format(BuilderMessages.checking_api_usage, new String[] {component.getSymbolicName()}), 2);
 		ReferenceAnalyzer analyzer = new ReferenceAnalyzer();
+		analyzer.setMetrics(fMetrics);
 		try {
 			long start = System.currentTimeMillis();
 			IApiProblem[] illegal = analyzer.analyze(component, scope, localMonitor.newChild(2));
@@ -1360,9 +1521,7 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 				Util.updateMonitor(localmonitor, 1);
 				if (!fPendingDeltaInfos.isEmpty()) {
 					localmonitor.subTask(BuilderMessages.BaseApiAnalyzer_checking_since_tags);
-					for (Iterator iterator = fPendingDeltaInfos.iterator(); iterator.hasNext();) {
-						checkSinceTags((Delta) iterator.next(), component);
-					}
+					checkPendingSinceTags(component);
 				}
 				Util.updateMonitor(localmonitor, 1);
 			}
@@ -1421,9 +1580,7 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 					Util.updateMonitor(localmonitor, 1);
 					localmonitor.subTask(BuilderMessages.BaseApiAnalyzer_checking_since_tags);
 					if (!fPendingDeltaInfos.isEmpty()) {
-						for (Iterator iterator = fPendingDeltaInfos.iterator(); iterator.hasNext();) {
-							checkSinceTags((Delta) iterator.next(), component);
-						}
+						checkPendingSinceTags(component);
 					}
 					Util.updateMonitor(localmonitor, 1);
 				}
@@ -1476,7 +1633,7 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 		}
 		try {
 			int offset = nameRange.getOffset();
-			CompilationUnit comp = createAST(cunit, offset);
+			CompilationUnit comp = getAST(cunit);
 			if(comp == null) {
 				return;
 			}
@@ -2232,7 +2389,13 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 	 * @return
 	 */
 	private boolean addProblem(IApiProblem problem) {
-		if (problem == null || isProblemFiltered(problem)) {
+		if (problem == null) {
+			return false;
+		}
+		long start = System.currentTimeMillis();
+		boolean filtered = isProblemFiltered(problem);
+		record(BuildMetrics.PHASE_FILTER_LOOKUP, start);
+		if (filtered) {
 			return false;
 		}
 		return fProblems.add(problem);
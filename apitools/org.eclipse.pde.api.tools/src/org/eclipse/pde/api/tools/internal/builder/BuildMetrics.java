@@ -0,0 +1,400 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.builder;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+
+/**
+ * The time spent in each phase of the API analysis of one project (or component) in one build.
+ * <p>
+ * Phases are identified by name, see the <code>PHASE_*</code> constants. The problem detectors
+ * are recorded individually as {@link #PHASE_DETECTOR_PREFIX} followed by the simple name of the detector
+ * class. Times are in milliseconds and accumulate over all recordings of a phase, together with the
+ * number of recordings.
+ * </p>
+ * <p>
+ * The metrics of workspace builds are handed to the registered {@link IBuildMetricsListener}s.
+ * They can be written as JSON or CSV with {@link #writeJSON(BuildMetrics[], Writer)} and
+ * {@link #writeCSV(BuildMetrics[], Writer)}.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public final class BuildMetrics {
+
+	/**
+	 * Looking up the workspace and default API baselines
+	 */
+	public static final String PHASE_BASELINE_LOOKUP = "baseline.lookup"; //$NON-NLS-1$
+	/**
+	 * Comparing the component with the reference baseline
+	 */
+	public static final String PHASE_COMPATIBILITY = "compatibility"; //$NON-NLS-1$
+	/**
+	 * Checking the version of the component
+	 */
+	public static final String PHASE_VERSION_CHECK = "version.check"; //$NON-NLS-1$
+	/**
+	 * Checking the @since tags of changed elements
+	 */
+	public static final String PHASE_SINCE_TAGS = "since.tags"; //$NON-NLS-1$
+	/**
+	 * Creating the problem detectors for the API use scan
+	 */
+	public static final String PHASE_DETECTOR_CREATION = "detector.creation"; //$NON-NLS-1$
+	/**
+	 * Extracting the references of the scanned types
+	 */
+	public static final String PHASE_REFERENCE_EXTRACTION = "reference.extraction"; //$NON-NLS-1$
+	/**
+	 * Resolving the references that the problem detectors are interested in
+	 */
+	public static final String PHASE_REFERENCE_RESOLUTION = "reference.resolution"; //$NON-NLS-1$
+	/**
+	 * Prefix of the phases of the individual problem detectors creating their problems
+	 */
+	public static final String PHASE_DETECTOR_PREFIX = "detector."; //$NON-NLS-1$
+	/**
+	 * Validating the Javadoc API tags
+	 */
+	public static final String PHASE_TAG_VALIDATION = "tag.validation"; //$NON-NLS-1$
+	/**
+	 * Checking if problems are filtered
+	 */
+	public static final String PHASE_FILTER_LOOKUP = "filter.lookup"; //$NON-NLS-1$
+	/**
+	 * Checking for unused problem filters
+	 */
+	public static final String PHASE_UNUSED_FILTERS = "unused.filters"; //$NON-NLS-1$
+	/**
+	 * Checking references to external dependencies
+	 */
+	public static final String PHASE_EXTERNAL_DEPENDENCIES = "external.dependencies"; //$NON-NLS-1$
+	/**
+	 * Creating the problem markers
+	 */
+	public static final String PHASE_MARKER_CREATION = "marker.creation"; //$NON-NLS-1$
+
+	/**
+	 * The registered {@link IBuildMetricsListener}s
+	 */
+	private static Set fgListeners = new HashSet();
+
+	private String fName = null;
+	private long fStart = 0;
+	private long fEnd = 0;
+	/**
+	 * Map of phase name to <code>long[] {time, count}</code>, in the order the phases were first recorded
+	 */
+	private LinkedHashMap fPhases = new LinkedHashMap();
+
+	/**
+	 * Constructor
+	 * @param name the name of the project or component being analyzed
+	 */
+	public BuildMetrics(String name) {
+		fName = name;
+		fStart = System.currentTimeMillis();
+	}
+
+	/**
+	 * Adds the given listener. Has no effect if the listener is already registered.
+	 * @param listener
+	 */
+	public static synchronized void addListener(IBuildMetricsListener listener) {
+		if (listener == null) throw new IllegalArgumentException("The given listener cannot be null"); //$NON-NLS-1$
+		fgListeners.add(listener);
+	}
+
+	/**
+	 * Removes the given listener. Has no effect if the listener is not registered.
+	 * @param listener
+	 */
+	public static synchronized void removeListener(IBuildMetricsListener listener) {
+		fgListeners.remove(listener);
+	}
+
+	/**
+	 * @return <code>true</code> if metrics should be collected for workspace builds, because listeners are
+	 * registered or builder debugging is enabled
+	 */
+	public static synchronized boolean isCollecting() {
+		return !fgListeners.isEmpty() || ApiPlugin.DEBUG_BUILDER;
+	}
+
+	/**
+	 * Notifies all registered listeners of the given metrics
+	 * @param metrics
+	 */
+	static void fireMetricsAvailable(BuildMetrics metrics) {
+		IBuildMetricsListener[] listeners = null;
+		synchronized (BuildMetrics.class) {
+			listeners = (IBuildMetricsListener[]) fgListeners.toArray(new IBuildMetricsListener[fgListeners.size()]);
+		}
+		for (int i = 0; i < listeners.length; i++) {
+			try {
+				listeners[i].metricsAvailable(metrics);
+			}
+			catch(RuntimeException re) {
+				// a failing listener must not fail the build
+				ApiPlugin.log(re);
+			}
+		}
+	}
+
+	/**
+	 * Adds the given time to the given phase
+	 * @param phase the name of the phase
+	 * @param time the time spent in milliseconds
+	 */
+	public synchronized void record(String phase, long time) {
+		long[] value = (long[]) fPhases.get(phase);
+		if(value == null) {
+			value = new long[2];
+			fPhases.put(phase, value);
+		}
+		value[0] += time;
+		value[1]++;
+	}
+
+	/**
+	 * Marks the end of the build
+	 */
+	public void done() {
+		fEnd = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return the name of the analyzed project or component
+	 */
+	public String getName() {
+		return fName;
+	}
+
+	/**
+	 * @return the time the build started, as returned by {@link System#currentTimeMillis()}
+	 */
+	public long getStartTime() {
+		return fStart;
+	}
+
+	/**
+	 * @return the total time of the build in milliseconds, up to now if the build is not {@link #done()}
+	 */
+	public long getTotalTime() {
+		return (fEnd == 0 ? System.currentTimeMillis() : fEnd) - fStart;
+	}
+
+	/**
+	 * @return the names of the recorded phases, in the order they were first recorded
+	 */
+	public synchronized String[] getPhases() {
+		return (String[]) fPhases.keySet().toArray(new String[fPhases.size()]);
+	}
+
+	/**
+	 * Returns the accumulated time of the given phase
+	 * @param phase
+	 * @return the time in milliseconds or <code>0</code> if the phase was not recorded
+	 */
+	public synchronized long getTime(String phase) {
+		long[] value = (long[]) fPhases.get(phase);
+		return value == null ? 0 : value[0];
+	}
+
+	/**
+	 * Returns how often the given phase was recorded
+	 * @param phase
+	 * @return the number of recordings of the phase
+	 */
+	public synchronized long getCount(String phase) {
+		long[] value = (long[]) fPhases.get(phase);
+		return value == null ? 0 : value[1];
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public synchronized String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("API analysis metrics for ").append(fName).append(": ").append(getTotalTime()).append("ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		for (Iterator iter = fPhases.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry = (Map.Entry) iter.next();
+			long[] value = (long[]) entry.getValue();
+			buffer.append("\n\t").append(entry.getKey()).append(": ").append(value[0]).append("ms (").append(value[1]).append(')'); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Writes the given metrics as a JSON document of the form
+	 * <pre>
+	 * {"builds":[{"name":"...","start":0,"total":0,"phases":[{"phase":"...","time":0,"count":0}, ...]}, ...]}
+	 * </pre>
+	 * @param metrics the metrics to write
+	 * @param writer the writer to write to, not closed
+	 * @throws IOException
+	 */
+	public static void writeJSON(BuildMetrics[] metrics, Writer writer) throws IOException {
+		PrintWriter out = new PrintWriter(writer);
+		out.print("{\"builds\":["); //$NON-NLS-1$
+		for (int i = 0; i < metrics.length; i++) {
+			if(i > 0) {
+				out.print(',');
+			}
+			out.println();
+			out.print("{\"name\":"); //$NON-NLS-1$
+			out.print(quote(metrics[i].getName()));
+			out.print(",\"start\":"); //$NON-NLS-1$
+			out.print(metrics[i].getStartTime());
+			out.print(",\"total\":"); //$NON-NLS-1$
+			out.print(metrics[i].getTotalTime());
+			out.print(",\"phases\":["); //$NON-NLS-1$
+			String[] phases = metrics[i].getPhases();
+			for (int j = 0; j < phases.length; j++) {
+				if(j > 0) {
+					out.print(',');
+				}
+				out.print("{\"phase\":"); //$NON-NLS-1$
+				out.print(quote(phases[j]));
+				out.print(",\"time\":"); //$NON-NLS-1$
+				out.print(metrics[i].getTime(phases[j]));
+				out.print(",\"count\":"); //$NON-NLS-1$
+				out.print(metrics[i].getCount(phases[j]));
+				out.print('}');
+			}
+			out.print("]}"); //$NON-NLS-1$
+		}
+		out.println();
+		out.println("]}"); //$NON-NLS-1$
+		out.flush();
+		if(out.checkError()) {
+			throw new IOException();
+		}
+	}
+
+	/**
+	 * Writes the given metrics as CSV, with a header line and one line per phase: <code>name,phase,time,count</code>.
+	 * The total time of each build is written as the phase <code>total</code>.
+	 * @param metrics the metrics to write
+	 * @param writer the writer to write to, not closed
+	 * @throws IOException
+	 */
+	public static void writeCSV(BuildMetrics[] metrics, Writer writer) throws IOException {
+		PrintWriter out = new PrintWriter(writer);
+		out.println("name,phase,time,count"); //$NON-NLS-1$
+		for (int i = 0; i < metrics.length; i++) {
+			String name = csv(metrics[i].getName());
+			out.print(name);
+			out.print(",total,"); //$NON-NLS-1$
+			out.print(metrics[i].getTotalTime());
+			out.println(",1"); //$NON-NLS-1$
+			String[] phases = metrics[i].getPhases();
+			for (int j = 0; j < phases.length; j++) {
+				out.print(name);
+				out.print(',');
+				out.print(csv(phases[j]));
+				out.print(',');
+				out.print(metrics[i].getTime(phases[j]));
+				out.print(',');
+				out.println(metrics[i].getCount(phases[j]));
+			}
+		}
+		out.flush();
+		if(out.checkError()) {
+			throw new IOException();
+		}
+	}
+
+	/**
+	 * Returns the given string as a JSON string literal
+	 * @param value
+	 * @return the quoted string
+	 */
+	static String quote(String value) {
+		if(value == null) {
+			return "null"; //$NON-NLS-1$
+		}
+		StringBuffer buffer = new StringBuffer(value.length() + 2);
+		buffer.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch(c) {
+				case '"':
+				case '\\': {
+					buffer.append('\\').append(c);
+					break;
+				}
+				case '\n': {
+					buffer.append("\\n"); //$NON-NLS-1$
+					break;
+				}
+				case '\r': {
+					buffer.append("\\r"); //$NON-NLS-1$
+					break;
+				}
+				case '\t': {
+					buffer.append("\\t"); //$NON-NLS-1$
+					break;
+				}
+				default: {
+					if(c < 0x20) {
+						String hex = Integer.toHexString(c);
+						buffer.append("\\u"); //$NON-NLS-1$
+						for (int j = hex.length(); j < 4; j++) {
+							buffer.append('0');
+						}
+						buffer.append(hex);
+					}
+					else {
+						buffer.append(c);
+					}
+				}
+			}
+		}
+		buffer.append('"');
+		return buffer.toString();
+	}
+
+	/**
+	 * Returns the given string as a CSV field, quoted if needed
+	 * @param value
+	 * @return the CSV field
+	 */
+	static String csv(String value) {
+		if(value == null) {
+			return ""; //$NON-NLS-1$
+		}
+		if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			return value;
+		}
+		StringBuffer buffer = new StringBuffer(value.length() + 2);
+		buffer.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if(c == '"') {
+				buffer.append('"');
+			}
+			buffer.append(c);
+		}
+		buffer.append('"');
+		return buffer.toString();
+	}
+}
@@ -10,20 +10,27 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.internal.builder;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -57,7 +64,31 @@ import org.eclipse.pde.core.build.IBuildModel;
 public class BuildState {
 	private static final IDelta[] EMPTY_DELTAS = new IDelta[0];
 	private static final String[] NO_REEXPORTED_COMPONENTS = new String[0];
-	private static final int VERSION = 0x20;
+	private static final int VERSION = 0x21;
+	
+	/**
+	 * Record kinds of the build state log. The log is a sequence of records, each save ends with
+	 * a {@link #RECORD_COMMIT}.
+	 * @since 1.0.400
+	 */
+	private static final int RECORD_BEGIN = 1;
+	private static final int RECORD_COMMIT = 2;
+	private static final int RECORD_COMPATIBLE = 3;
+	private static final int RECORD_BREAKING = 4;
+	private static final int RECORD_CLEANUP = 5;
+	private static final int RECORD_PROPERTIES = 6;
+	
+	/**
+	 * The log is rewritten when it holds more than <code>COMPACTION_RATIO * deltas + COMPACTION_THRESHOLD</code> records
+	 * @since 1.0.400
+	 */
+	private static final int COMPACTION_RATIO = 3;
+	private static final int COMPACTION_THRESHOLD = 1000;
+	/**
+	 * Mapped files cannot be truncated or replaced on Windows while the mapping is alive
+	 * @since 1.0.400
+	 */
+	private static final boolean IS_WINDOWS = System.getProperty("os.name", Util.EMPTY_STRING).startsWith("Windows"); //$NON-NLS-1$ //$NON-NLS-2$
 	
 	private Map compatibleChanges;
 	private Map breakingChanges;
@@ -74,6 +105,35 @@ public class BuildState {
 	private String[] reexportedComponents;
 	private Set apiToolingDependentProjects;
 	private long buildpathCRC = -1L;
+	/**
+	 * Reverse index of the type names referenced by the source files of the project.
+	 * The index is not written with the state, it is kept in memory between incremental builds
+	 * @since 1.0.400
+	 */
+	private DependentsIndex dependentsIndex = null;
+	
+	/**
+	 * If this state was read from a log that the changes made since can be appended to
+	 * @since 1.0.400
+	 */
+	private boolean appendable = false;
+	/**
+	 * The length of the committed part of the log this state was read from
+	 * @since 1.0.400
+	 */
+	private long logLength = 0;
+	/**
+	 * The number of records in the log this state was read from
+	 * @since 1.0.400
+	 */
+	private int logRecords = 0;
+	/**
+	 * The changes made since this state was read, as log records
+	 * @since 1.0.400
+	 */
+	private ByteArrayOutputStream journal = null;
+	private DataOutputStream journalOut = null;
+	private int journalRecords = 0;
 	
 	/**
 	 * Constructor
@@ -92,6 +152,21 @@ public class BuildState {
 	 * @throws IOException
 	 */
 	 public static BuildState read(DataInputStream in) throws IOException {
+		return read(in, null);
+	}
+	
+	/**
+	 * Reads the build state log from the given input stream. Records are only applied once the 
+	 * {@link #RECORD_COMMIT} that ends their save has been read, so a partially written tail is ignored.
+	 * 
+	 * @param in the stream to read from
+	 * @param buffer the buffer backing the stream, used to remember where the committed part of the log ends
+	 * so that more records can be appended to it, or <code>null</code>
+	 * @return the {@link BuildState} from the given input stream or <code>null</code> if the state is from an 
+	 * older version or the last build did not complete
+	 * @throws IOException
+	 */
+	static BuildState read(DataInputStream in, ByteBuffer buffer) throws IOException {
 		String pluginID= in.readUTF();
 		if (!pluginID.equals(ApiPlugin.PLUGIN_ID)) {
 			throw new IOException(BuilderMessages.build_wrongFileFormat);
@@ -104,62 +179,149 @@ public class BuildState {
 			// this is an old build state - a full build is required
 			return null;
 		}
-		if (in.readBoolean()) {
-			// continue to read
-			BuildState state = new BuildState();
-			state.buildpathCRC = in.readLong();
-			int count = in.readInt();
-			// read all compatible deltas
-			for (int i = 0; i < count; i++) {
-				state.addCompatibleChange(readDelta(in));
+		BuildState state = new BuildState();
+		ArrayList pending = new ArrayList();
+		boolean committed = false;
+		boolean building = false;
+		int records = 0;
+		try {
+			while (true) {
+				int record = in.read();
+				if (record == -1) {
+					break;
+				}
+				switch(record) {
+					case RECORD_BEGIN: {
+						building = true;
+						break;
+					}
+					case RECORD_COMPATIBLE:
+					case RECORD_BREAKING: {
+						pending.add(new Object[] {new Integer(record), readDelta(in)});
+						break;
+					}
+					case RECORD_CLEANUP: {
+						pending.add(new Object[] {new Integer(record), in.readUTF()});
+						break;
+					}
+					case RECORD_PROPERTIES: {
+						pending.add(new Object[] {new Integer(record), readProperties(in)});
+						break;
+					}
+					case RECORD_COMMIT: {
+						records += pending.size() + 1;
+						state.apply(pending);
+						pending.clear();
+						committed = true;
+						building = false;
+						if (buffer != null) {
+							state.logLength = buffer.position();
+						}
+						break;
+					}
+					default: {
+						// not a record: the rest of the log was not written completely
+						throw new EOFException();
+					}
+				}
 			}
-			count = in.readInt();
-			// read all breaking deltas
-			for (int i = 0; i < count; i++) {
-				state.addBreakingChange(readDelta(in));
+		}
+		catch(EOFException eofe) {
+			// the tail of the log was not written completely, only use what was committed
+		}
+		catch(BufferUnderflowException bue) {
+			// the tail of the log was not written completely, only use what was committed
+		}
+		if (!committed || building) {
+			// nothing was saved or the last build did not complete - a full build is required
+			return null;
+		}
+		state.logRecords = records;
+		state.appendable = buffer != null;
+		return state;
+	}
+	
+	/**
+	 * Applies the given committed records to this state
+	 * @param records list of <code>Object[] {Integer kind, Object value}</code>
+	 */
+	private void apply(List records) {
+		Object[] record = null;
+		for (Iterator iter = records.iterator(); iter.hasNext();) {
+			record = (Object[]) iter.next();
+			switch(((Integer) record[0]).intValue()) {
+				case RECORD_COMPATIBLE: {
+					addCompatibleChange((IDelta) record[1]);
+					break;
+				}
+				case RECORD_BREAKING: {
+					addBreakingChange((IDelta) record[1]);
+					break;
+				}
+				case RECORD_CLEANUP: {
+					cleanup((String) record[1]);
+					break;
+				}
+				case RECORD_PROPERTIES: {
+					Object[] properties = (Object[]) record[1];
+					this.buildpathCRC = ((Long) properties[0]).longValue();
+					this.reexportedComponents = (String[]) properties[1];
+					this.apiToolingDependentProjects = (Set) properties[2];
+					this.manifestChanges = (Map) properties[3];
+					this.buildPropChanges = (Map) properties[4];
+					break;
+				}
 			}
-			count = in.readInt();
+		}
+	}
+	
+	/**
+	 * Reads a {@link #RECORD_PROPERTIES} record
+	 * @param in
+	 * @return the properties <code>{Long crc, String[] reexported, Set dependents, Map manifest, Map build properties}</code>
+	 * @throws IOException
+	 */
+	private static Object[] readProperties(DataInputStream in) throws IOException {
+		Long crc = new Long(in.readLong());
+		int count = in.readInt();
+		String[] components = null;
+		if (count >= 0) {
 			// read all re-exported component names
-			String[] components = new String[count];
+			components = new String[count];
 			for (int i = 0; i < count; i++) {
 				components[i] = in.readUTF();
 			}
-			state.reexportedComponents = components;
-			count = in.readInt();
+		}
+		count = in.readInt();
+		Set projects = null;
+		if (count > 0) {
+			projects = new HashSet(count);
 			for (int i = 0; i < count; i++) {
-				state.addApiToolingDependentProject(in.readUTF());
-			}
-			if(in.available() > 0) {
-				count = in.readInt();
-				if(count > 0) {
-					//read the saved headers
-					HashMap map = new HashMap(count);
-					for(int i = 0; i < count; i++) {
-						String key = in.readUTF();
-						String value = in.readUTF();
-						map.put(key, value);
-					}
-					state.setManifestState(map);
-				}
-				count = in.readInt();
-				if(count > 0) {
-					//read the saved headers
-					HashMap map = new HashMap(count);
-					for(int i = 0; i < count; i++) {
-						String key = in.readUTF();
-						String value = in.readUTF();
-						map.put(key, value);
-					}
-					state.setBuildPropertiesState(map);
-				}
+				projects.add(in.readUTF());
 			}
-			return state;
 		}
-		return null;
+		return new Object[] {crc, components, projects, readMap(in), readMap(in)};
+	}
+	
+	/**
+	 * Reads a map of strings
+	 * @param in
+	 * @return the map
+	 * @throws IOException
+	 */
+	private static Map readMap(DataInputStream in) throws IOException {
+		int count = in.readInt();
+		HashMap map = new HashMap(Math.max(count, 7));
+		for(int i = 0; i < count; i++) {
+			String key = in.readUTF();
+			String value = in.readUTF();
+			map.put(key, value);
+		}
+		return map;
 	}
 	 
 	/**
-	 * Writes the given {@link BuildState} to the given output stream
+	 * Writes the given {@link BuildState} to the given output stream as a compacted log
 	 * @param state
 	 * @param out
 	 * @throws IOException
@@ -168,33 +330,58 @@ public class BuildState {
 		out.writeUTF(ApiPlugin.PLUGIN_ID);
 		out.writeUTF("STATE"); //$NON-NLS-1$
 		out.writeInt(VERSION);
-		out.writeBoolean(true);
-		out.writeLong(state.buildpathCRC);
 		IDelta[] compatibleChangesDeltas = state.getCompatibleChanges();
 		int length = compatibleChangesDeltas.length;
-		out.writeInt(length);
 		for (int i = 0; i < length; i++) {
+			out.writeByte(RECORD_COMPATIBLE);
 			writeDelta(compatibleChangesDeltas[i], out);
 		}
 		IDelta[] breakingChangesDeltas = state.getBreakingChanges();
 		length = breakingChangesDeltas.length;
-		out.writeInt(length);
 		for (int i = 0; i < length; i++) {
+			out.writeByte(RECORD_BREAKING);
 			writeDelta(breakingChangesDeltas[i], out);
 		}
-		String[] reexportedComponents = state.getReexportedComponents();
-		length = reexportedComponents.length;
-		out.writeInt(length);
-		for (int i = 0; i < length; i++) {
-			out.writeUTF(reexportedComponents[i]);
+		writeProperties(state, out);
+		out.writeByte(RECORD_COMMIT);
+	}
+	
+	/**
+	 * Writes a {@link #RECORD_PROPERTIES} record with the current properties of the given state
+	 * @param state
+	 * @param out
+	 * @throws IOException
+	 */
+	private static void writeProperties(BuildState state, DataOutputStream out) throws IOException {
+		out.writeByte(RECORD_PROPERTIES);
+		out.writeLong(state.buildpathCRC);
+		String[] reexportedComponents = state.reexportedComponents;
+		if (reexportedComponents == null) {
+			out.writeInt(-1);
+		}
+		else {
+			int length = reexportedComponents.length;
+			out.writeInt(length);
+			for (int i = 0; i < length; i++) {
+				out.writeUTF(reexportedComponents[i]);
+			}
 		}
 		Set apiToolingDependentsProjects = state.getApiToolingDependentProjects();
-		length = apiToolingDependentsProjects.size();
-		out.writeInt(length);
+		out.writeInt(apiToolingDependentsProjects.size());
 		for (Iterator iterator = apiToolingDependentsProjects.iterator(); iterator.hasNext(); ) {
 			out.writeUTF((String) iterator.next());
 		}
-		Map map = state.getManifestState();
+		writeMap(state.getManifestState(), out);
+		writeMap(state.getBuildPropertiesState(), out);
+	}
+	
+	/**
+	 * Writes a map of strings
+	 * @param map
+	 * @param out
+	 * @throws IOException
+	 */
+	private static void writeMap(Map map, DataOutputStream out) throws IOException {
 		out.writeInt(map.size());
 		Entry entry = null;
 		for (Iterator i = map.entrySet().iterator(); i.hasNext();) {
@@ -202,13 +389,35 @@ public class BuildState {
 			out.writeUTF((String) entry.getKey());
 			out.writeUTF((String) entry.getValue());
 		}
-		map = state.getBuildPropertiesState();
-		out.writeInt(map.size());
-		entry = null;
-		for (Iterator i = map.entrySet().iterator(); i.hasNext();) {
-			entry = (Entry) i.next();
-			out.writeUTF((String) entry.getKey());
-			out.writeUTF((String) entry.getValue());
+	}
+	
+	/**
+	 * Records the given change in the journal of changes made since the state was read, if the 
+	 * state is going to be appended to its log
+	 * @param record the kind of record
+	 * @param value the {@link IDelta} or type name
+	 */
+	private void journal(int record, Object value) {
+		if (!this.appendable) {
+			return;
+		}
+		try {
+			if (this.journal == null) {
+				this.journal = new ByteArrayOutputStream();
+				this.journalOut = new DataOutputStream(this.journal);
+			}
+			this.journalOut.writeByte(record);
+			if (value instanceof IDelta) {
+				writeDelta((IDelta) value, this.journalOut);
+			}
+			else {
+				this.journalOut.writeUTF((String) value);
+			}
+			this.journalRecords++;
+		}
+		catch(IOException ioe) {
+			// cannot happen writing to memory, rewrite the whole state on save
+			this.appendable = false;
 		}
 	}
 	
@@ -287,6 +496,7 @@ public class BuildState {
 	 * @param delta the {@link IDelta} to add to the state
 	 */
 	public void addCompatibleChange(IDelta delta) {
+		journal(RECORD_COMPATIBLE, delta);
 		String typeName = delta.getTypeName();
 		Set object = (Set) this.compatibleChanges.get(typeName);
 		if (object == null) {
@@ -304,6 +514,7 @@ public class BuildState {
 	 * @param delta the {@link IDelta} to add to the state
 	 */
 	public void addBreakingChange(IDelta delta) {
+		journal(RECORD_BREAKING, delta);
 		String typeName = delta.getTypeName();
 		Set object = (Set) this.breakingChanges.get(typeName);
 		if (object == null) {
@@ -363,6 +574,7 @@ public class BuildState {
 	 * @param typeName the given type name
 	 */
 	public void cleanup(String typeName) {
+		journal(RECORD_CLEANUP, typeName);
 		this.breakingChanges.remove(typeName);
 		this.compatibleChanges.remove(typeName);
 		this.reexportedComponents = null;
@@ -386,6 +598,30 @@ public class BuildState {
 		}
 	}
 
+	/**
+	 * Returns the reverse index of the type names referenced by the source files of the project,
+	 * creating an empty index if there is none
+	 * 
+	 * @return the {@link DependentsIndex} for this state
+	 * @since 1.0.400
+	 */
+	public DependentsIndex getDependentsIndex() {
+		if (this.dependentsIndex == null) {
+			this.dependentsIndex = new DependentsIndex();
+		}
+		return this.dependentsIndex;
+	}
+	
+	/**
+	 * Sets the reverse index to use with this state, typically the index kept from the previous build
+	 * 
+	 * @param index the index or <code>null</code> to start with an empty index
+	 * @since 1.0.400
+	 */
+	public void setDependentsIndex(DependentsIndex index) {
+		this.dependentsIndex = index;
+	}
+
 	/**
 	 * Adds a dependent project to the listing of dependent projects
 	 * @param projectName
@@ -535,14 +771,15 @@ public class BuildState {
 		File file = getSerializationFile(project);
 		if (file != null && file.exists()) {
 			try {
-				DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+				FileInputStream stream = new FileInputStream(file);
 				try {
-					return read(in);
+					ByteBuffer buffer = map(stream.getChannel());
+					return read(new DataInputStream(new ByteBufferInputStream(buffer)), buffer);
 				} finally {
 					if (ApiPlugin.DEBUG_BUILDER) {
 						System.out.println("Saved state thinks last build failed for " + project.getName()); //$NON-NLS-1$
 					}
-					in.close();
+					stream.close();
 				}
 			} catch (Exception e) {
 				e.printStackTrace();
@@ -558,6 +795,119 @@ public class BuildState {
 		return null;
 	}
 	
+	/**
+	 * Returns the contents of the given channel. The file is memory mapped, except on Windows where a mapped
+	 * file cannot be appended to or replaced until the mapping is garbage collected.
+	 * 
+	 * @param channel
+	 * @return the contents of the channel
+	 * @throws IOException
+	 */
+	static ByteBuffer map(FileChannel channel) throws IOException {
+		long size = channel.size();
+		if (!IS_WINDOWS) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		ByteBuffer buffer = ByteBuffer.allocate((int) size);
+		while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+			// read fully
+		}
+		buffer.flip();
+		return buffer;
+	}
+	
+	/**
+	 * An {@link InputStream} over a {@link ByteBuffer}
+	 */
+	static final class ByteBufferInputStream extends InputStream {
+		private ByteBuffer buffer = null;
+		
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.io.InputStream#read()
+		 */
+		public int read() throws IOException {
+			return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.io.InputStream#read(byte[], int, int)
+		 */
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			int count = Math.min(len, this.buffer.remaining());
+			if (count == 0) {
+				return -1;
+			}
+			this.buffer.get(b, off, count);
+			return count;
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.io.InputStream#available()
+		 */
+		public int available() throws IOException {
+			return this.buffer.remaining();
+		}
+	}
+	
+	/**
+	 * Notes in the saved state of the given project that an incremental build using the given state has started.
+	 * If the build does not complete and save the state, the saved state is discarded the next time it is read.
+	 * 
+	 * @param project the project being built
+	 * @param state the state read for the build
+	 * @throws CoreException
+	 * @since 1.0.400
+	 */
+	public static void beginBuild(IProject project, BuildState state) throws CoreException {
+		if (state == null || !state.appendable) {
+			setLastBuiltState(project, null);
+			return;
+		}
+		File file = getSerializationFile(project);
+		if (file == null) {
+			return;
+		}
+		try {
+			state.logLength = append(file, state.logLength, new byte[] {RECORD_BEGIN});
+		}
+		catch(IOException ioe) {
+			state.appendable = false;
+			setLastBuiltState(project, null);
+		}
+	}
+	
+	/**
+	 * Appends the given bytes to the given log after its committed part
+	 * @param file the log file
+	 * @param position the end of the committed part of the log
+	 * @param bytes the records to append
+	 * @return the new length of the log
+	 * @throws IOException if the log is not as long as expected or cannot be written
+	 */
+	private static long append(File file, long position, byte[] bytes) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw"); //$NON-NLS-1$
+		try {
+			if (raf.length() < position) {
+				throw new IOException(BuilderMessages.build_wrongFileFormat);
+			}
+			// drop anything written after the committed part
+			raf.setLength(position);
+			raf.seek(position);
+			raf.write(bytes);
+			return raf.getFilePointer();
+		}
+		finally {
+			raf.close();
+		}
+	}
+	
 	/**
 	 * Sets the last built state for the given project, or null to reset it.
 	 * 
@@ -613,12 +963,40 @@ public class BuildState {
 			t = System.currentTimeMillis();
 		}
 		try {
-			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
-			try {
-				write(state, out);
-			} finally {
-				out.close();
+			boolean appended = false;
+			if (state.appendable && !state.needsCompaction()) {
+				// only append the changes made since the state was read
+				ByteArrayOutputStream bytes = state.journal == null ? new ByteArrayOutputStream() : state.journal;
+				DataOutputStream out = new DataOutputStream(bytes);
+				writeProperties(state, out);
+				out.writeByte(RECORD_COMMIT);
+				out.flush();
+				try {
+					state.logLength = append(file, state.logLength, bytes.toByteArray());
+					state.logRecords += state.journalRecords + 2;
+					appended = true;
+				}
+				catch(IOException ioe) {
+					// the log was removed or changed since it was read, write the complete state instead
+					if (ApiPlugin.DEBUG_BUILDER) {
+						System.out.println("Could not append to the build state of " + project.getName() + ", writing the complete state"); //$NON-NLS-1$ //$NON-NLS-2$
+					}
+				}
 			}
+			if (!appended) {
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+				try {
+					write(state, out);
+				} finally {
+					out.close();
+				}
+				state.logLength = file.length();
+				state.logRecords = state.getCompatibleChanges().length + state.getBreakingChanges().length + 2;
+				state.appendable = true;
+			}
+			state.journal = null;
+			state.journalOut = null;
+			state.journalRecords = 0;
 		} catch (RuntimeException e) {
 			try {
 				file.delete();
@@ -644,6 +1022,24 @@ public class BuildState {
 		}
 	}
 	
+	/**
+	 * Returns if the log of this state has grown large compared to the number of deltas in the state
+	 * and should be rewritten rather than appended to
+	 * 
+	 * @return <code>true</code> if the log should be compacted
+	 * @since 1.0.400
+	 */
+	boolean needsCompaction() {
+		int live = 0;
+		for (Iterator iter = this.compatibleChanges.values().iterator(); iter.hasNext();) {
+			live += ((Set) iter.next()).size();
+		}
+		for (Iterator iter = this.breakingChanges.values().iterator(); iter.hasNext();) {
+			live += ((Set) iter.next()).size();
+		}
+		return this.logRecords + this.journalRecords > COMPACTION_RATIO * live + COMPACTION_THRESHOLD;
+	}
+	
 	/**
 	 * Computes and returns a CRC of the projects resolved build path, or -1 if unknown.
 	 * 
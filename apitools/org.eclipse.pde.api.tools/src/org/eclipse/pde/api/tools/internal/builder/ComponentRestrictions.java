@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.builder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.WeakHashMap;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.pde.api.tools.internal.ApiDescription;
+import org.eclipse.pde.api.tools.internal.CompositeApiDescription;
+import org.eclipse.pde.api.tools.internal.ProjectApiDescription;
+import org.eclipse.pde.api.tools.internal.model.ProjectComponent;
+import org.eclipse.pde.api.tools.internal.provisional.ApiDescriptionVisitor;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.IApiAnnotations;
+import org.eclipse.pde.api.tools.internal.provisional.IApiDescription;
+import org.eclipse.pde.api.tools.internal.provisional.RestrictionModifiers;
+import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IPackageDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+
+/**
+ * Snapshot of the restricted elements and non-API packages of the API description of a
+ * prerequisite component, as collected by a {@link ProblemDetectorBuilder}.
+ * <p>
+ * Problem detectors collect references during an analysis and so have to be created for every
+ * analysis, but the restrictions they are seeded with only change when the API description of a
+ * prerequisite changes. Snapshots are kept per API description and are reused by every analysis
+ * for as long as the modification count of the description does not change, so the descriptions of
+ * the prerequisites do not have to be walked again for each incremental build. The snapshots are
+ * released when their description is garbage collected.
+ * </p>
+ * <p>
+ * Descriptions of workspace projects are never cached since they are refreshed lazily from the
+ * source while they are being visited.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public final class ComponentRestrictions {
+
+	/**
+	 * Visitor collecting the restricted elements and non-API packages of a description
+	 */
+	static final class Collector extends ApiDescriptionVisitor {
+		List elements = new ArrayList();
+		List masks = new ArrayList();
+		List packages = new ArrayList();
+
+		/* (non-Javadoc)
+		 * @see org.eclipse.pde.api.tools.internal.provisional.ApiDescriptionVisitor#visitElement(org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor, org.eclipse.pde.api.tools.internal.provisional.IApiAnnotations)
+		 */
+		public boolean visitElement(IElementDescriptor element, IApiAnnotations description) {
+			if(element.getElementType() == IElementDescriptor.PACKAGE) {
+				if (VisibilityModifiers.isPrivate(description.getVisibility())) {
+					packages.add(((IPackageDescriptor)element).getName());
+					return false;
+				}
+			}
+			else {
+				int mask = description.getRestrictions();
+				if (!RestrictionModifiers.isUnrestricted(mask)) {
+					elements.add(element);
+					masks.add(new Integer(mask));
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Map of {@link IApiDescription} to its {@link ComponentRestrictions}
+	 */
+	private static WeakHashMap fgCache = new WeakHashMap();
+
+	private long fVersion = -1;
+	private IElementDescriptor[] fElements = null;
+	private int[] fMasks = null;
+	private String[] fNonApiPackages = null;
+
+	/**
+	 * Constructor
+	 * @param version
+	 * @param collector
+	 */
+	private ComponentRestrictions(long version, Collector collector) {
+		fVersion = version;
+		fElements = (IElementDescriptor[]) collector.elements.toArray(new IElementDescriptor[collector.elements.size()]);
+		fMasks = new int[fElements.length];
+		for (int i = 0; i < fMasks.length; i++) {
+			fMasks[i] = ((Integer) collector.masks.get(i)).intValue();
+		}
+		fNonApiPackages = (String[]) collector.packages.toArray(new String[collector.packages.size()]);
+	}
+
+	/**
+	 * Returns the restrictions of the API description of the given prerequisite component, collecting
+	 * them if the description has not been seen yet or was modified since. Returns <code>null</code>
+	 * if the restrictions of the component cannot be cached, in which case its description has to be
+	 * visited directly.
+	 *
+	 * @param component the prerequisite component
+	 * @param monitor the progress monitor, may be <code>null</code>
+	 * @return the restrictions or <code>null</code>
+	 * @throws CoreException if the API description cannot be read
+	 */
+	public static ComponentRestrictions getRestrictions(IApiComponent component, IProgressMonitor monitor) throws CoreException {
+		if(component instanceof ProjectComponent) {
+			return null;
+		}
+		IApiDescription description = component.getApiDescription();
+		long version = getVersion(description);
+		if(version < 0) {
+			return null;
+		}
+		synchronized (fgCache) {
+			ComponentRestrictions restrictions = (ComponentRestrictions) fgCache.get(description);
+			if(restrictions != null && restrictions.fVersion == version) {
+				return restrictions;
+			}
+		}
+		Collector collector = new Collector();
+		description.accept(collector, monitor);
+		ComponentRestrictions restrictions = new ComponentRestrictions(version, collector);
+		synchronized (fgCache) {
+			fgCache.put(description, restrictions);
+		}
+		if(ApiPlugin.DEBUG_REFERENCE_ANALYZER) {
+			System.out.println("Cached " + restrictions.fElements.length + " restrictions of " + component.getSymbolicName()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return restrictions;
+	}
+
+	/**
+	 * Returns the version of the given description, which changes whenever any of its restrictions
+	 * or visibilities change, or <code>-1</code> if the description cannot be versioned
+	 * @param description
+	 * @return the version of the description or <code>-1</code>
+	 */
+	static long getVersion(IApiDescription description) {
+		if(description instanceof ProjectApiDescription) {
+			return -1;
+		}
+		if(description instanceof ApiDescription) {
+			return ((ApiDescription) description).getModificationCount();
+		}
+		if(description instanceof CompositeApiDescription) {
+			// modification counts only grow, so the sum changes whenever any of them does
+			IApiDescription[] descriptions = ((CompositeApiDescription) description).getDescriptions();
+			long version = 0;
+			for (int i = 0; i < descriptions.length; i++) {
+				long child = getVersion(descriptions[i]);
+				if(child < 0) {
+					return -1;
+				}
+				version += child;
+			}
+			return version;
+		}
+		return -1;
+	}
+
+	/**
+	 * Seeds the detectors of the given builder with these restrictions. The owning component of the builder
+	 * must be set to the component the restrictions were collected from.
+	 *
+	 * @param builder the problem detector builder
+	 */
+	public void addTo(ProblemDetectorBuilder builder) {
+		for (int i = 0; i < fNonApiPackages.length; i++) {
+			builder.addNonApiPackageName(fNonApiPackages[i]);
+		}
+		for (int i = 0; i < fElements.length; i++) {
+			builder.addRestriction(fElements[i], fMasks[i]);
+		}
+	}
+
+	/**
+	 * @return the number of restricted elements
+	 */
+	public int size() {
+		return fElements.length;
+	}
+
+	/**
+	 * Drops all of the cached restrictions
+	 */
+	public static void clearCache() {
+		synchronized (fgCache) {
+			fgCache.clear();
+		}
+	}
+}
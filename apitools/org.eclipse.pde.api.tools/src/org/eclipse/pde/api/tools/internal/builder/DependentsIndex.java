@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.builder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.eclipse.jdt.internal.core.builder.ReferenceCollection;
+import org.eclipse.jdt.internal.core.builder.State;
+import org.eclipse.jdt.internal.core.builder.StringSet;
+
+/**
+ * Reverse index from simple type names to the type locators (project relative source paths)
+ * of the JDT build state that reference them.
+ * <p>
+ * Names are added to the index the first time dependents are requested for them, which requires
+ * one walk over the references of the JDT build state. After that the index is kept current by
+ * re-indexing only the source files that changed, so finding the dependents of a type costs time
+ * proportional to the number of dependents rather than to the size of the project.
+ * </p>
+ * <p>
+ * The index is a superset: the reference collection of each returned locator still has to be
+ * checked against the qualified names of the changed types.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public final class DependentsIndex {
+
+	/**
+	 * Map of simple type name to the {@link Set} of type locators that reference it
+	 */
+	private HashMap fDependents = new HashMap();
+
+	/**
+	 * Interns the given simple names in the JDT name table, in the given order
+	 * @param names
+	 * @return the interned names
+	 */
+	private static char[][] intern(String[] names) {
+		char[][] interned = new char[names.length][];
+		for (int i = 0; i < names.length; i++) {
+			StringSet set = new StringSet(1);
+			set.add(names[i]);
+			char[][] result = ReferenceCollection.internSimpleNames(set, false);
+			interned[i] = result.length > 0 ? result[0] : names[i].toCharArray();
+		}
+		return interned;
+	}
+
+	/**
+	 * Returns if the given reference collection includes the given interned simple name
+	 * @param refs
+	 * @param name
+	 * @return <code>true</code> if the collection references the name
+	 */
+	private static boolean includes(ReferenceCollection refs, char[] name) {
+		return refs.includes(null, new char[][] {name}, null);
+	}
+
+	/**
+	 * Returns the type locators that may reference any of the given simple type names. Names that
+	 * have not been indexed yet are added to the index.
+	 *
+	 * @param state the current JDT build state
+	 * @param simpleNames the simple type names to find dependents of
+	 * @return the set of type locators that may reference the names
+	 */
+	public synchronized Set getDependents(State state, String[] simpleNames) {
+		ArrayList missing = new ArrayList();
+		for (int i = 0; i < simpleNames.length; i++) {
+			if(simpleNames[i] != null && !fDependents.containsKey(simpleNames[i]) && !missing.contains(simpleNames[i])) {
+				missing.add(simpleNames[i]);
+			}
+		}
+		if(missing.size() > 0) {
+			index(state, (String[]) missing.toArray(new String[missing.size()]));
+		}
+		HashSet result = new HashSet();
+		for (int i = 0; i < simpleNames.length; i++) {
+			if(simpleNames[i] != null) {
+				result.addAll((Set) fDependents.get(simpleNames[i]));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the given names to the index by walking all of the references in the given state
+	 * @param state
+	 * @param names
+	 */
+	private void index(State state, String[] names) {
+		char[][] interned = intern(names);
+		HashSet[] locators = new HashSet[names.length];
+		for (int i = 0; i < names.length; i++) {
+			locators[i] = new HashSet();
+			fDependents.put(names[i], locators[i]);
+		}
+		Object[] keyTable = state.getReferences().keyTable;
+		Object[] valueTable = state.getReferences().valueTable;
+		for (int i = 0; i < keyTable.length; i++) {
+			String typeLocator = (String) keyTable[i];
+			if(typeLocator != null) {
+				ReferenceCollection refs = (ReferenceCollection) valueTable[i];
+				for (int j = 0; j < interned.length; j++) {
+					if(includes(refs, interned[j])) {
+						locators[j].add(typeLocator);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Re-indexes the given type locators against all of the indexed names. Must be called for every
+	 * source file that was added, changed or removed since the index was last updated.
+	 *
+	 * @param state the current JDT build state
+	 * @param typeLocators the project relative paths of the changed source files
+	 */
+	public synchronized void update(State state, String[] typeLocators) {
+		if(fDependents.isEmpty() || typeLocators.length == 0) {
+			return;
+		}
+		String[] names = (String[]) fDependents.keySet().toArray(new String[fDependents.size()]);
+		char[][] interned = intern(names);
+		for (int i = 0; i < typeLocators.length; i++) {
+			ReferenceCollection refs = (ReferenceCollection) state.getReferences().get(typeLocators[i]);
+			for (int j = 0; j < names.length; j++) {
+				Set locators = (Set) fDependents.get(names[j]);
+				if(refs != null && includes(refs, interned[j])) {
+					locators.add(typeLocators[i]);
+				}
+				else {
+					locators.remove(typeLocators[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the number of indexed names
+	 */
+	public synchronized int size() {
+		return fDependents.size();
+	}
+
+	/**
+	 * Removes all names from the index
+	 */
+	public synchronized void clear() {
+		fDependents.clear();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public synchronized String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("DependentsIndex["); //$NON-NLS-1$
+		for (Iterator iter = fDependents.keySet().iterator(); iter.hasNext();) {
+			String name = (String) iter.next();
+			buffer.append(name).append('=').append(((Set) fDependents.get(name)).size());
+			if(iter.hasNext()) {
+				buffer.append(", "); //$NON-NLS-1$
+			}
+		}
+		buffer.append(']');
+		return buffer.toString();
+	}
+}
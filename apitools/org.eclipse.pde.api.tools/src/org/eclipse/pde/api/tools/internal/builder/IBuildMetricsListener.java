@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.builder;
+
+/**
+ * Listener notified with the {@link BuildMetrics} of each API analysis build.
+ * <p>
+ * Listeners are registered with {@link BuildMetrics#addListener(IBuildMetricsListener)}.
+ * Metrics are only collected while at least one listener is registered or builder debugging is enabled.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public interface IBuildMetricsListener {
+
+	/**
+	 * Notifies the listener that the API analysis of a project has completed. The metrics must
+	 * not be modified.
+	 *
+	 * @param metrics the metrics of the build
+	 */
+	public void metricsAvailable(BuildMetrics metrics);
+}
@@ -215,7 +215,7 @@ public class IllegalImplementsProblemDetector extends AbstractIllegalTypeReferen
 				continue;
 			}
 			if(!comp.equals(originalcomponent)) {
-				annot = comp.getApiDescription().resolveAnnotations(Factory.typeDescriptor(inters[i].getName()));
+				annot = RestrictionIndex.resolveAnnotations(comp, Factory.typeDescriptor(inters[i].getName()));
 				if(annot != null && RestrictionModifiers.isImplementRestriction(annot.getRestrictions())) {
 					return fRestrictedInterfaces.put(entryinterface, inters[i]) == null;
 				}
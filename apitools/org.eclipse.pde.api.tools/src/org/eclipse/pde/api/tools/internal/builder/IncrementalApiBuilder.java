@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
@@ -174,6 +175,7 @@ public class IncrementalApiBuilder {
 	ApiAnalysisBuilder builder = null;
 	BuildContext context = null;
 	IApiBaseline workspaceBaseline = null;
+	DependentsIndex dependents = null;
 	
 	/**
 	 * Constructor
@@ -202,6 +204,7 @@ public class IncrementalApiBuilder {
 		this.workspaceBaseline = wbaseline;
 		SubMonitor localmonitor = SubMonitor.convert(monitor, NLS.bind(BuilderMessages.IncrementalBuilder_builder_for_project, project.getName()), 1);
 		this.context = new BuildContext();
+		boolean completed = false;
 		try {
 			String[] projectNames = buildstate.getReexportedComponents();
 			HashSet depprojects = null;
@@ -222,21 +225,34 @@ public class IncrementalApiBuilder {
 			// check if the build path has changed
 			long prev = buildstate.getBuildPathCRC();
 			long curr = BuildState.computeBuildPathCRC(project);
+			this.dependents = buildstate.getDependentsIndex();
+			if (curr != prev) {
+				// references may have changed without a source change
+				this.dependents.clear();
+			}
 			ResourceDeltaVisitor visitor = new ResourceDeltaVisitor(curr != prev);
 			for (int i = 0; i < deltas.length; i++) {
 				deltas[i].accept(visitor);
 			}
 			buildContext(project, state, visitor.changes, depprojects);
 			build(project, baseline, wbaseline, state, buildstate, localmonitor.newChild(1));
+			recordBuiltTypes(project, visitor.changes);
+			completed = !localmonitor.isCanceled();
 		}
 		catch(OperationCanceledException oce) {
 			//do nothing, but don't forward it
 			//https://bugs.eclipse.org/bugs/show_bug.cgi?id=304315
+			//the changes of this build might not have been indexed
+			if(this.dependents != null) {
+				this.dependents.clear();
+			}
 			if(ApiPlugin.DEBUG_BUILDER) {
 				System.out.println("Trapped OperationCanceledException"); //$NON-NLS-1$
 			}
 		}
 		finally {
+			// changes propagated to a build that did not complete are propagated again
+			ApiChangeScheduler.getDefault().endBuild(project, completed);
 			if(!localmonitor.isCanceled()) {
 				localmonitor.done();
 			}
@@ -380,10 +396,18 @@ public class IncrementalApiBuilder {
 	void buildContext(final IProject project, State state, List changes, HashSet depprojects) {
 		StringSet structural = null;
 		StringSet description = null;
+		updateDependents(project, state, changes);
 		Iterator iterator = changes.iterator();
+		ApiChangeScheduler scheduler = ApiChangeScheduler.getDefault();
 		while (iterator.hasNext()) {
 			Change change = (Change) iterator.next();
 			boolean contained = change.isContained(project, depprojects);
+			if (!contained && change.fileKind == JAVA__FILE && change.changeKind == STRUCTURAL && change.deltaKind == IResourceDelta.CHANGED) {
+				// only analyze dependents of source changes in required projects that changed API
+				if (!scheduler.shouldPropagate(project, change.resource)) {
+					continue;
+				}
+			}
 			if ((change.changeKind & STRUCTURAL) > 0) {
 				// don't analyze dependents of removed types
 				if (change.deltaKind != IResourceDelta.REMOVED) {
@@ -478,28 +502,91 @@ public class IncrementalApiBuilder {
 		if (internedSimpleNames.length < typenames.elementSize) {
 			internedSimpleNames = null;
 		}
+		if (internedSimpleNames != null && this.dependents != null) {
+			// only check the type locators known to reference one of the simple names
+			Set locators = this.dependents.getDependents(state, typenames.values);
+			String typeLocator = null;
+			for (Iterator iter = locators.iterator(); iter.hasNext();) {
+				typeLocator = (String) iter.next();
+				ReferenceCollection refs = (ReferenceCollection) state.getReferences().get(typeLocator);
+				if (refs != null && refs.includes(internedQualifiedNames, internedSimpleNames, null)) {
+					addDependentLocator(project, typeLocator, kind);
+				}
+			}
+			return;
+		}
 		Object[] keyTable = state.getReferences().keyTable;
 		Object[] valueTable = state.getReferences().valueTable;
-		IFile file = null;
 		String typeLocator = null;
 		for (int i = 0; i < valueTable.length; i++) {
 			typeLocator =  (String) keyTable[i];
 			if (typeLocator != null) {
 				ReferenceCollection refs = (ReferenceCollection) valueTable[i];
 				if (refs.includes(internedQualifiedNames, internedSimpleNames, null)) {
-					file = project.getFile(typeLocator);
-					if (file == null) {
-						continue;
-					}
-					if (ApiPlugin.DEBUG_BUILDER) {
-						System.out.println("  adding affected source file " + file.getName()); //$NON-NLS-1$
-					}
-					addDependentTypeToContext(file, kind);
+					addDependentLocator(project, typeLocator, kind);
 				}
 			}
 		}
 	}
 	
+	/**
+	 * Adds the source file with the given type locator as a dependent to the build context
+	 * 
+	 * @param project the current project being built
+	 * @param typeLocator the project relative path of the source file
+	 * @param kind mask of STRUCTURAL or DESCRIPTION
+	 */
+	private void addDependentLocator(IProject project, String typeLocator, int kind) {
+		IFile file = project.getFile(typeLocator);
+		if (file == null) {
+			return;
+		}
+		if (ApiPlugin.DEBUG_BUILDER) {
+			System.out.println("  adding affected source file " + file.getName()); //$NON-NLS-1$
+		}
+		addDependentTypeToContext(file, kind);
+	}
+	
+	/**
+	 * Records the API state of the types changed in the given project with the {@link ApiChangeScheduler},
+	 * so that projects depending on it only analyze the dependents of types whose API changed
+	 * 
+	 * @param project the project that has been built
+	 * @param changes the list of {@link Change}s
+	 */
+	private void recordBuiltTypes(IProject project, List changes) {
+		ApiChangeScheduler scheduler = ApiChangeScheduler.getDefault();
+		IApiComponent component = this.workspaceBaseline.getApiComponent(project);
+		for (Iterator iter = changes.iterator(); iter.hasNext();) {
+			Change change = (Change) iter.next();
+			if (change.fileKind == JAVA__FILE && change.project.equals(project)) {
+				scheduler.recordBuiltType(change.resource, change.typeName, component);
+			}
+		}
+	}
+	
+	/**
+	 * Re-indexes the source files of the given project that changed since the last build in the 
+	 * dependents index
+	 * 
+	 * @param project the current project being built
+	 * @param state the current JDT build state
+	 * @param changes the list of {@link Change}s
+	 */
+	private void updateDependents(IProject project, State state, List changes) {
+		if (this.dependents == null) {
+			return;
+		}
+		ArrayList locators = new ArrayList();
+		for (Iterator iter = changes.iterator(); iter.hasNext();) {
+			Change change = (Change) iter.next();
+			if (change.fileKind == JAVA__FILE && change.project.equals(project)) {
+				locators.add(change.resource.getProjectRelativePath().toString());
+			}
+		}
+		this.dependents.update(state, (String[]) locators.toArray(new String[locators.size()]));
+	}
+	
 	/**
 	 * Adds a type to search for dependents of in considered projects for an incremental build
 	 * 
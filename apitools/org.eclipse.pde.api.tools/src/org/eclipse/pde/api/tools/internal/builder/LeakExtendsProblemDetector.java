@@ -21,7 +21,6 @@ import org.eclipse.jdt.core.Flags;
 import org.eclipse.pde.api.tools.internal.model.MethodKey;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.IApiAnnotations;
-import org.eclipse.pde.api.tools.internal.provisional.IApiDescription;
 import org.eclipse.pde.api.tools.internal.provisional.RestrictionModifiers;
 import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
 import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
@@ -78,7 +77,7 @@ public class LeakExtendsProblemDetector extends AbstractTypeLeakDetector {
 			try {
 				if (type.isClass()) {
 					int modifiers = 0;
-					IApiAnnotations annotations = component.getApiDescription().resolveAnnotations(type.getHandle());
+					IApiAnnotations annotations = RestrictionIndex.resolveAnnotations(component, type.getHandle());
 					if (annotations != null) {
 						// if annotations are null, the reference should not have been retained
 						// as it indicates a reference from a top level non public type
@@ -209,8 +208,7 @@ public class LeakExtendsProblemDetector extends AbstractTypeLeakDetector {
 	 * @return whether the given type has API visibility
 	 */
 	private boolean isAPIType(IApiType type) throws CoreException {
-		IApiDescription description = type.getApiComponent().getApiDescription();
-		IApiAnnotations annotations = description.resolveAnnotations(type.getHandle());
+		IApiAnnotations annotations = RestrictionIndex.resolveAnnotations(type.getApiComponent(), type.getHandle());
 		if (annotations == null) {
 			// top level non-public top can have no annotations - they are not API
 			return false;
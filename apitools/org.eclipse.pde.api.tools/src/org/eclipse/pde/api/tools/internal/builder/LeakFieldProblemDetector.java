@@ -22,7 +22,6 @@ import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.Position;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.IApiAnnotations;
-import org.eclipse.pde.api.tools.internal.provisional.IApiDescription;
 import org.eclipse.pde.api.tools.internal.provisional.RestrictionModifiers;
 import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
 import org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor;
@@ -91,8 +90,7 @@ public class LeakFieldProblemDetector extends AbstractTypeLeakDetector {
 				// TODO: could do this check before resolution - it's a check on the source location
 				// ignore protected members if contained in a @noextend type
 				try {
-					IApiDescription description = field.getApiComponent().getApiDescription();
-					IApiAnnotations annotations = description.resolveAnnotations(field.getHandle().getEnclosingType());
+					IApiAnnotations annotations = RestrictionIndex.resolveAnnotations(field.getApiComponent(), field.getHandle().getEnclosingType());
 					if (annotations == null || RestrictionModifiers.isExtendRestriction(annotations.getRestrictions())) {
 						return false;
 					}
@@ -22,7 +22,6 @@ import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.Position;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.IApiAnnotations;
-import org.eclipse.pde.api.tools.internal.provisional.IApiDescription;
 import org.eclipse.pde.api.tools.internal.provisional.RestrictionModifiers;
 import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
 import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
@@ -81,14 +80,13 @@ public abstract class MethodLeakDetector extends AbstractLeakProblemDetector {
 		IApiType type = (IApiType) reference.getResolvedReference();
 		try {
 			// referenced type is non-API
-			IApiAnnotations annotations = type.getApiComponent().getApiDescription().resolveAnnotations(type.getHandle());
+			IApiAnnotations annotations = RestrictionIndex.resolveAnnotations(type.getApiComponent(), type.getHandle());
 			if (annotations != null) {
 				if (VisibilityModifiers.isPrivate(annotations.getVisibility())) {
 					if ((Flags.AccProtected & method.getModifiers()) > 0) {
 						// ignore protected members if contained in a @noextend type
 						// TODO: we could perform this check before resolution - it's on the source location
-						IApiDescription description = method.getApiComponent().getApiDescription();
-						annotations = description.resolveAnnotations(method.getHandle().getEnclosingType());
+						annotations = RestrictionIndex.resolveAnnotations(method.getApiComponent(), method.getHandle().getEnclosingType());
 						if (annotations == null || RestrictionModifiers.isExtendRestriction(annotations.getRestrictions())) {
 							// ignore
 							return false;
@@ -169,7 +167,7 @@ public abstract class MethodLeakDetector extends AbstractLeakProblemDetector {
 		IApiComponent apiComponent = member.getApiComponent();
 		try {
 			IApiMethod method = (IApiMethod) member;
-			IApiAnnotations annotations = apiComponent.getApiDescription().resolveAnnotations(method.getHandle());
+			IApiAnnotations annotations = RestrictionIndex.resolveAnnotations(apiComponent, method.getHandle());
 			if (annotations != null) {
 				if (VisibilityModifiers.isAPI(annotations.getVisibility())) {
 					int ares = annotations.getRestrictions();
@@ -178,7 +176,7 @@ public abstract class MethodLeakDetector extends AbstractLeakProblemDetector {
 							return (ares & RestrictionModifiers.NO_REFERENCE) == 0;
 						}
 						if((ares & RestrictionModifiers.NO_OVERRIDE) == 0) {
-							IApiAnnotations annot = apiComponent.getApiDescription().resolveAnnotations(method.getEnclosingType().getHandle());
+							IApiAnnotations annot = RestrictionIndex.resolveAnnotations(apiComponent, method.getEnclosingType().getHandle());
 							int pres = 0;
 							if(annot != null) {
 								pres = annot.getRestrictions();
@@ -115,34 +115,43 @@ public class ProblemDetectorBuilder extends ApiDescriptionVisitor {
 				break;
 			}
 			default: {
-				if((fKindMask & K_USE) > 0) {
-					if (!RestrictionModifiers.isUnrestricted(mask)) {
-						if(RestrictionModifiers.isOverrideRestriction(mask) && fIllegalOverride != null) {
-							fIllegalOverride.addIllegalMethod((IMethodDescriptor) element, fComponent.getSymbolicName());
-						}
-						if (RestrictionModifiers.isExtendRestriction(mask) && fIllegalExtends != null) {
-							fIllegalExtends.addIllegalType((IReferenceTypeDescriptor) element, fComponent.getSymbolicName());
-						}
-						if (RestrictionModifiers.isImplementRestriction(mask) && fIllegalImplements != null) {
-							fIllegalImplements.addIllegalType((IReferenceTypeDescriptor) element, fComponent.getSymbolicName());
-						}
-						if (RestrictionModifiers.isInstantiateRestriction(mask) && fIllegalInstantiate != null) {
-							fIllegalInstantiate.addIllegalType((IReferenceTypeDescriptor) element, fComponent.getSymbolicName());
-						}
-						if (RestrictionModifiers.isReferenceRestriction(mask)) {
-							if (element.getElementType() == IElementDescriptor.METHOD && fIllegalMethodRef != null) {
-								fIllegalMethodRef.addIllegalMethod((IMethodDescriptor) element, fComponent.getSymbolicName());
-							} else if (element.getElementType() == IElementDescriptor.FIELD && fIllegalFieldRef != null) {
-								fIllegalFieldRef.addIllegalField((IFieldDescriptor) element, fComponent.getSymbolicName());
-							}
-						}
-					}
+				if (!RestrictionModifiers.isUnrestricted(mask)) {
+					addRestriction(element, mask);
 				}
 			}
 		}
 		return true;
 	}
 	
+	/**
+	 * Hands the given restricted element of the owning component to the interested use detectors
+	 * @param element the restricted element
+	 * @param mask the restrictions of the element
+	 */
+	void addRestriction(IElementDescriptor element, int mask) {
+		if((fKindMask & K_USE) > 0) {
+			if(RestrictionModifiers.isOverrideRestriction(mask) && fIllegalOverride != null) {
+				fIllegalOverride.addIllegalMethod((IMethodDescriptor) element, fComponent.getSymbolicName());
+			}
+			if (RestrictionModifiers.isExtendRestriction(mask) && fIllegalExtends != null) {
+				fIllegalExtends.addIllegalType((IReferenceTypeDescriptor) element, fComponent.getSymbolicName());
+			}
+			if (RestrictionModifiers.isImplementRestriction(mask) && fIllegalImplements != null) {
+				fIllegalImplements.addIllegalType((IReferenceTypeDescriptor) element, fComponent.getSymbolicName());
+			}
+			if (RestrictionModifiers.isInstantiateRestriction(mask) && fIllegalInstantiate != null) {
+				fIllegalInstantiate.addIllegalType((IReferenceTypeDescriptor) element, fComponent.getSymbolicName());
+			}
+			if (RestrictionModifiers.isReferenceRestriction(mask)) {
+				if (element.getElementType() == IElementDescriptor.METHOD && fIllegalMethodRef != null) {
+					fIllegalMethodRef.addIllegalMethod((IMethodDescriptor) element, fComponent.getSymbolicName());
+				} else if (element.getElementType() == IElementDescriptor.FIELD && fIllegalFieldRef != null) {
+					fIllegalFieldRef.addIllegalField((IFieldDescriptor) element, fComponent.getSymbolicName());
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Sets the owning component of this builder
 	 * @param component
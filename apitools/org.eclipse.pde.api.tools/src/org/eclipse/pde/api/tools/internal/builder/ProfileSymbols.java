@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.builder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.pde.api.tools.internal.model.StubApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.search.ComponentSymbolIndex;
+import org.eclipse.pde.api.tools.internal.util.SymbolTable;
+
+/**
+ * Symbol tables of the execution environment stubs, used to check references against an
+ * execution environment without loading the class files of the stub.
+ * <p>
+ * The table of a profile is created from its {@link StubApiComponent} the first time the profile is
+ * checked and saved next to the other state of the plug-in, so later sessions only memory map it. A type
+ * missing from the table is missing from the stub, and a method or field found in the table is declared in
+ * the stub, so most references are decided with one or two hash probes. Members that are not declared
+ * directly in the referenced type may still be inherited and are resolved against the stub.
+ * </p>
+ * <p>
+ * Tables generated together with the stubs (see the <code>-binary</code> option of the EE generator) and
+ * installed next to them are used directly instead.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public final class ProfileSymbols {
+
+	/**
+	 * Result of a fast check that could not decide if the reference resolves
+	 */
+	public static final int UNKNOWN = 0;
+	/**
+	 * Result of a fast check for a reference that resolves in the profile
+	 */
+	public static final int RESOLVED = 1;
+	/**
+	 * Result of a fast check for a reference that does not resolve in the profile
+	 */
+	public static final int UNRESOLVED = 2;
+
+	/**
+	 * Name of the directory the tables are saved in
+	 */
+	private static final String DIRECTORY = ".ee_symbols"; //$NON-NLS-1$
+
+	/**
+	 * Map of the {@link StubApiComponent} of a profile to its {@link SymbolTable}, or to the component itself
+	 * if no table could be created for it. Guarded by the class lock.
+	 */
+	private static HashMap fgTables = new HashMap();
+
+	/**
+	 * Per thread copy of the entries of {@link #fgTables} used by that thread, so that checking a reference
+	 * only takes the class lock the first time a thread checks against a profile
+	 */
+	private static final ThreadLocal fgLocalTables = new ThreadLocal() {
+		protected Object initialValue() {
+			return new LocalTables();
+		}
+	};
+
+	/**
+	 * Incremented each time the cache is cleared, so that each thread drops its copies of the cleared
+	 * tables the next time it checks a reference
+	 */
+	private static volatile int fgGeneration = 0;
+
+	/**
+	 * The entries of {@link #fgTables} copied by one thread and the generation of the cache they were
+	 * copied from
+	 */
+	private static final class LocalTables {
+		int generation = 0;
+		HashMap tables = new HashMap(4);
+	}
+
+	/**
+	 * Constructor
+	 * No instantiation
+	 */
+	private ProfileSymbols() {}
+
+	/**
+	 * Checks if the given reference resolves in the given execution environment stub using its symbol table.
+	 *
+	 * @param stub the stub component of the execution environment
+	 * @param reference the reference to check
+	 * @return one of {@link #RESOLVED}, {@link #UNRESOLVED} or {@link #UNKNOWN} if the reference has to be resolved
+	 * against the stub
+	 */
+	public static int check(IApiComponent stub, IReference reference) {
+		SymbolTable table = getTable(stub);
+		if(table == null) {
+			return UNKNOWN;
+		}
+		String typename = reference.getReferencedTypeName();
+		if(!table.contains(typename)) {
+			return UNRESOLVED;
+		}
+		switch(reference.getReferenceType()) {
+			case IReference.T_TYPE_REFERENCE: {
+				return RESOLVED;
+			}
+			case IReference.T_FIELD_REFERENCE: {
+				if(table.contains(ComponentSymbolIndex.getFieldKey(typename, reference.getReferencedMemberName()))) {
+					return RESOLVED;
+				}
+				break;
+			}
+			case IReference.T_METHOD_REFERENCE: {
+				if(table.contains(ComponentSymbolIndex.getMethodKey(typename, reference.getReferencedMemberName(), reference.getReferencedSignature()))) {
+					return RESOLVED;
+				}
+				break;
+			}
+		}
+		return UNKNOWN;
+	}
+
+	/**
+	 * Returns the symbol table of the given stub, loading or creating it if needed
+	 * @param stub
+	 * @return the symbol table or <code>null</code> if it could not be created
+	 */
+	static SymbolTable getTable(IApiComponent stub) {
+		LocalTables local = (LocalTables) fgLocalTables.get();
+		int generation = fgGeneration;
+		if(local.generation != generation) {
+			local.tables.clear();
+			local.generation = generation;
+		}
+		Object table = local.tables.get(stub);
+		if(table == null) {
+			table = getSharedTable(stub);
+			local.tables.put(stub, table);
+		}
+		if(table instanceof SymbolTable) {
+			return (SymbolTable) table;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the shared entry of the given stub, loading or creating its table if needed
+	 * @param stub
+	 * @return the {@link SymbolTable} of the stub or the stub itself if no table could be created
+	 */
+	private static synchronized Object getSharedTable(IApiComponent stub) {
+		Object table = fgTables.get(stub);
+		if(table == null) {
+			long start = System.currentTimeMillis();
+			table = loadInstalledTable(stub);
+			if(table == null) {
+				table = ComponentSymbolIndex.getSymbols(stub, getDirectory());
+			}
+			if(table == null) {
+				table = stub;
+			}
+			fgTables.put(stub, table);
+			if(ApiPlugin.DEBUG_REFERENCE_RESOLVER) {
+				System.out.println("Loaded the symbols of " + stub.getSymbolicName() + " in " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Loads the symbol table generated with the given stub, if one was installed with it
+	 * @param stub
+	 * @return the installed symbol table or <code>null</code>
+	 */
+	private static SymbolTable loadInstalledTable(IApiComponent stub) {
+		if(!(stub instanceof StubApiComponent)) {
+			return null;
+		}
+		File file = ((StubApiComponent) stub).getSymbolsFile();
+		if(file == null || stub.getLocation() == null) {
+			return null;
+		}
+		try {
+			return loadInstalledTable(file, new File(stub.getLocation()));
+		}
+		catch(IOException e) {
+			ApiPlugin.log(e);
+		}
+		return null;
+	}
+
+	/**
+	 * Loads the given symbol table installed with the given stub zip file. The table is only loaded if
+	 * it was generated for that stub, see {@link ComponentSymbolIndex#getProfileFingerprint(File)}.
+	 *
+	 * @param symbols the installed symbol table file
+	 * @param stub the stub zip file
+	 * @return the symbol table or <code>null</code> if the file does not exist or was not generated
+	 * for the stub
+	 * @throws IOException if the file cannot be read
+	 */
+	public static SymbolTable loadInstalledTable(File symbols, File stub) throws IOException {
+		return SymbolTable.load(symbols, ComponentSymbolIndex.getProfileFingerprint(stub));
+	}
+
+	/**
+	 * @return the directory to save the symbol tables in
+	 */
+	private static File getDirectory() {
+		if(Platform.isRunning() && ApiPlugin.getDefault() != null) {
+			return ApiPlugin.getDefault().getStateLocation().append(DIRECTORY).toFile();
+		}
+		return new File(System.getProperty("java.io.tmpdir"), DIRECTORY); //$NON-NLS-1$
+	}
+
+	/**
+	 * Drops all of the loaded tables. The copies kept by other threads are dropped the next time
+	 * those threads check a reference.
+	 */
+	public static synchronized void clearCache() {
+		fgTables.clear();
+		fgGeneration++;
+	}
+}
@@ -320,6 +320,12 @@ public class Reference implements IReference {
 			// if there is no source component for the ee value, the reference is considered as resolved
 			return true;
 		}
+		switch(ProfileSymbols.check(sourceComponent, this)) {
+			case ProfileSymbols.RESOLVED :
+				return true;
+			case ProfileSymbols.UNRESOLVED :
+				return false;
+		}
 		IApiTypeRoot result = Util.getClassFile(
 				new IApiComponent[] { sourceComponent },
 				getReferencedTypeName());
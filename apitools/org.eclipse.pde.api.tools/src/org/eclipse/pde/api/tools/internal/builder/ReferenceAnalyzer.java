@@ -139,6 +139,22 @@ public class ReferenceAnalyzer {
 	 */
 	IApiProblemDetector[][] fIndexedDetectors;
 	
+	/**
+	 * The metrics to record the time spent in each phase in, or <code>null</code>
+	 */
+	BuildMetrics fMetrics = null;
+	
+	/**
+	 * Sets the metrics to record the time spent extracting and resolving references and
+	 * in each problem detector in
+	 * 
+	 * @param metrics the metrics or <code>null</code> to not record any
+	 * @since 1.0.400
+	 */
+	public void setMetrics(BuildMetrics metrics) {
+		fMetrics = metrics;
+	}
+	
 	/**
 	 * Indexes the problem detectors by the reference kinds they are interested in.
 	 * For example, a detector interested in a
@@ -203,6 +219,9 @@ public class ReferenceAnalyzer {
 			fStatus.add(e.getStatus());
 		}
 		long end = System.currentTimeMillis();
+		if (fMetrics != null) {
+			fMetrics.record(BuildMetrics.PHASE_REFERENCE_EXTRACTION, end - start);
+		}
 		if (!fStatus.isOK()) {
 			throw new CoreException(fStatus);
 		}
@@ -237,7 +256,11 @@ public class ReferenceAnalyzer {
 			// 2. resolve problematic references
 			localMonitor.subTask(BuilderMessages.ReferenceAnalyzer_analyzing_api_checking_use);
 			if (fReferences.size() != 0) {
+				long start = System.currentTimeMillis();
 				ReferenceResolver.resolveReferences(fReferences, localMonitor);
+				if (fMetrics != null) {
+					fMetrics.record(BuildMetrics.PHASE_REFERENCE_RESOLUTION, System.currentTimeMillis() - start);
+				}
 			}
 			localMonitor.worked(1);
 			if (localMonitor.isCanceled()) {
@@ -248,7 +271,12 @@ public class ReferenceAnalyzer {
 			localMonitor.subTask(BuilderMessages.ReferenceAnalyzer_analyzing_api_checking_use);
 			for (int i = 0; i < detectors.length; i++) {
 				IApiProblemDetector detector = detectors[i];
+				long start = System.currentTimeMillis();
 				List problems = detector.createProblems();
+				if (fMetrics != null) {
+					String name = detector.getClass().getName();
+					fMetrics.record(BuildMetrics.PHASE_DETECTOR_PREFIX + name.substring(name.lastIndexOf('.') + 1), System.currentTimeMillis() - start);
+				}
 				allProblems.addAll(problems);
 				if (localMonitor.isCanceled()) {
 					return EMPTY_RESULT;
@@ -304,13 +332,21 @@ public class ReferenceAnalyzer {
 				if (!prereq.equals(component)) {
 					visitor.setOwningComponent(prereq);
 					try {
-						prereq.getApiDescription().accept(visitor, monitor);
+						ComponentRestrictions restrictions = ComponentRestrictions.getRestrictions(prereq, monitor);
+						if (restrictions != null) {
+							restrictions.addTo(visitor);
+						} else {
+							prereq.getApiDescription().accept(visitor, monitor);
+						}
 					} catch (CoreException e) {
 						ApiPlugin.log(e.getStatus());
 					}
 				}
 			}
 			long end = System.currentTimeMillis();
+			if (fMetrics != null) {
+				fMetrics.record(BuildMetrics.PHASE_DETECTOR_CREATION, end - start);
+			}
 			if (ApiPlugin.DEBUG_REFERENCE_ANALYZER) {
 				System.out.println("Time to build problem detectors: " + (end-start) + "ms");  //$NON-NLS-1$//$NON-NLS-2$
 			}		
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.builder;
+
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.pde.api.tools.internal.ApiAnnotations;
+import org.eclipse.pde.api.tools.internal.CompositeApiDescription;
+import org.eclipse.pde.api.tools.internal.provisional.ApiDescriptionVisitor;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.IApiAnnotations;
+import org.eclipse.pde.api.tools.internal.provisional.IApiDescription;
+import org.eclipse.pde.api.tools.internal.provisional.RestrictionModifiers;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+
+/**
+ * Flattened, read-only index of the annotations of an API description.
+ * <p>
+ * Every element of the description is mapped to its resolved annotations, so resolving the annotations
+ * of an element is a single hash lookup (plus one lookup per enclosing element for elements without a
+ * node of their own) instead of a walk down the tree of the description. The results are the same as
+ * {@link IApiDescription#resolveAnnotations(IElementDescriptor)}.
+ * </p>
+ * <p>
+ * Indexes are created once per API description and shared by all threads until the description is
+ * modified, see {@link ComponentRestrictions#getVersion(IApiDescription)}. Descriptions of workspace projects
+ * create their nodes lazily when they are resolved and are never indexed; lookups in them are delegated
+ * to the description.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public final class RestrictionIndex {
+
+	/**
+	 * Map of {@link IApiDescription} to its {@link RestrictionIndex}
+	 */
+	private static WeakHashMap fgCache = new WeakHashMap();
+
+	private long fVersion = -1;
+	/**
+	 * Map of {@link IElementDescriptor} to its resolved {@link IApiAnnotations}, <code>null</code> for composites
+	 */
+	private HashMap fAnnotations = null;
+	/**
+	 * The indexes of the parts of a composite description, <code>null</code> otherwise
+	 */
+	private RestrictionIndex[] fParts = null;
+
+	/**
+	 * Constructor
+	 * @param version
+	 */
+	private RestrictionIndex(long version) {
+		fVersion = version;
+	}
+
+	/**
+	 * Resolves the annotations of the given element in the API description of the given component,
+	 * using the index of the description if it can be indexed.
+	 *
+	 * @param component the component owning the element
+	 * @param element the element to resolve the annotations of
+	 * @return the annotations or <code>null</code> if the element is not described
+	 * @throws CoreException if the API description cannot be read
+	 * @see IApiDescription#resolveAnnotations(IElementDescriptor)
+	 */
+	public static IApiAnnotations resolveAnnotations(IApiComponent component, IElementDescriptor element) throws CoreException {
+		IApiDescription description = component.getApiDescription();
+		RestrictionIndex index = getIndex(description);
+		if(index == null) {
+			return description.resolveAnnotations(element);
+		}
+		return index.resolve(element);
+	}
+
+	/**
+	 * Returns the current index of the given description, creating it if needed, or <code>null</code>
+	 * if the description cannot be indexed.
+	 *
+	 * @param description the API description
+	 * @return the index or <code>null</code>
+	 */
+	public static RestrictionIndex getIndex(IApiDescription description) {
+		long version = ComponentRestrictions.getVersion(description);
+		if(version < 0) {
+			return null;
+		}
+		synchronized (fgCache) {
+			RestrictionIndex index = (RestrictionIndex) fgCache.get(description);
+			if(index != null && index.fVersion == version) {
+				return index;
+			}
+		}
+		RestrictionIndex index = new RestrictionIndex(version);
+		if(description instanceof CompositeApiDescription) {
+			IApiDescription[] descriptions = ((CompositeApiDescription) description).getDescriptions();
+			index.fParts = new RestrictionIndex[descriptions.length];
+			for (int i = 0; i < descriptions.length; i++) {
+				index.fParts[i] = getIndex(descriptions[i]);
+				if(index.fParts[i] == null) {
+					return null;
+				}
+			}
+		}
+		else {
+			final HashMap annotations = new HashMap();
+			description.accept(new ApiDescriptionVisitor() {
+				public boolean visitElement(IElementDescriptor element, IApiAnnotations desc) {
+					annotations.put(element, desc);
+					return true;
+				}
+			}, null);
+			index.fAnnotations = annotations;
+			if(ApiPlugin.DEBUG_REFERENCE_ANALYZER) {
+				System.out.println("Indexed " + annotations.size() + " elements of " + description); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		synchronized (fgCache) {
+			fgCache.put(description, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Resolves the annotations of the given element. An element without a node of its own gets the
+	 * visibility of its closest enclosing element and no restrictions.
+	 *
+	 * @param element the element to resolve the annotations of
+	 * @return the annotations or <code>null</code> if neither the element nor any of its enclosing elements are indexed
+	 */
+	public IApiAnnotations resolve(IElementDescriptor element) {
+		if(fParts != null) {
+			for (int i = 0; i < fParts.length; i++) {
+				IApiAnnotations annotations = fParts[i].resolve(element);
+				if(annotations != null) {
+					return annotations;
+				}
+			}
+			return null;
+		}
+		IApiAnnotations annotations = (IApiAnnotations) fAnnotations.get(element);
+		if(annotations != null) {
+			return annotations;
+		}
+		IElementDescriptor[] path = element.getPath();
+		for (int i = path.length - 2; i >= 0; i--) {
+			annotations = (IApiAnnotations) fAnnotations.get(path[i]);
+			if(annotations != null) {
+				return new ApiAnnotations(annotations.getVisibility(), RestrictionModifiers.NO_RESTRICTIONS);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the number of indexed elements
+	 */
+	public int size() {
+		if(fParts != null) {
+			int size = 0;
+			for (int i = 0; i < fParts.length; i++) {
+				size += fParts[i].size();
+			}
+			return size;
+		}
+		return fAnnotations.size();
+	}
+
+	/**
+	 * Drops all of the cached indexes
+	 */
+	public static void clearCache() {
+		synchronized (fgCache) {
+			fgCache.clear();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 IBM Corporation and others.
+ * Copyright (c) 2009, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,6 +19,11 @@ import org.eclipse.pde.api.tools.internal.provisional.model.IApiElement;
 
 /**
  * Manages the caches of {@link IApiElement}s
+ * <p>
+ * The cache is shared by all threads, for example the workers of a parallel analysis or search. The 
+ * underlying LRU caches are not thread-safe, so they are only accessed while holding the lock of this 
+ * cache. Elements are never asked for their component or baseline while the lock is held.
+ * </p>
  * 
  * @since 1.0.2
  */
@@ -111,48 +116,60 @@ public final class ApiModelCache {
 	public void cacheElementInfo(IApiElement element) throws CoreException {
 		switch(element.getType()) {
 			case IApiElement.TYPE: {
-				if(fRootCache == null) {
-					fRootCache = new Cache(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
-				}
 				IApiComponent comp = element.getApiComponent();
 				if(comp != null) {
-					IApiBaseline baseline = comp.getBaseline();
+					String baselineid = comp.getBaseline().getName();
 					String id = comp.getSymbolicName();
 					if(id == null) {
 						return;
 					}
-					Cache compcache = (Cache) fRootCache.get(baseline.getName());
-					if(compcache == null) {
-						compcache = new Cache(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
-						fRootCache.put(baseline.getName(), compcache);
-					}
-					Cache typecache = (Cache) compcache.get(id);
-					if(typecache == null) {
-						typecache = new Cache(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
-						compcache.put(comp.getSymbolicName(), typecache);
-					}
 					ApiType type = (ApiType) element;
-					if(type.isMemberType() || isMemberType(type.getName()) /*cache even a root type with a '$' in its name here as well*/) {
-						if(this.fMemberTypeCache == null) {
-							this.fMemberTypeCache = new Cache(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
-						}
-						String key = getCacheKey(baseline.getName(), id, getRootName(type.getName()));
-						Cache mcache = (Cache) this.fMemberTypeCache.get(key);
-						if(mcache == null) {
-							mcache = new Cache(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
-							this.fMemberTypeCache.put(key, mcache);
-						}
-						mcache.put(type.getName(), type);
-					}
-					else {
-						typecache.put(element.getName(), element);
-					}
+					/*cache even a root type with a '$' in its name in the member type cache as well*/
+					cacheType(baselineid, id, type, type.isMemberType() || isMemberType(type.getName()));
 				}
 				break;
 			}
 		}
 	}
 	
+	/**
+	 * Caches the given type of the component with the given id
+	 * @param baselineid the name of the baseline of the component
+	 * @param componentid the id of the component
+	 * @param type the type to cache
+	 * @param member if the type is cached as a member type
+	 */
+	private synchronized void cacheType(String baselineid, String componentid, ApiType type, boolean member) {
+		if(fRootCache == null) {
+			fRootCache = new Cache(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
+		}
+		Cache compcache = (Cache) fRootCache.get(baselineid);
+		if(compcache == null) {
+			compcache = new Cache(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
+			fRootCache.put(baselineid, compcache);
+		}
+		Cache typecache = (Cache) compcache.get(componentid);
+		if(typecache == null) {
+			typecache = new Cache(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
+			compcache.put(componentid, typecache);
+		}
+		if(member) {
+			if(this.fMemberTypeCache == null) {
+				this.fMemberTypeCache = new Cache(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
+			}
+			String key = getCacheKey(baselineid, componentid, getRootName(type.getName()));
+			Cache mcache = (Cache) this.fMemberTypeCache.get(key);
+			if(mcache == null) {
+				mcache = new Cache(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
+				this.fMemberTypeCache.put(key, mcache);
+			}
+			mcache.put(type.getName(), type);
+		}
+		else {
+			typecache.put(type.getName(), type);
+		}
+	}
+	
 	/**
 	 * Returns the root type name assuming that the '$' char is a member type boundary 
 	 * @param typename
@@ -186,7 +203,7 @@ public final class ApiModelCache {
 	 * 
 	 * @return the cached {@link IApiElement} or <code>null</code> if no such element is cached
 	 */
-	public IApiElement getElementInfo(String baselineid, String componentid, String identifier, int type) {
+	public synchronized IApiElement getElementInfo(String baselineid, String componentid, String identifier, int type) {
 		if(baselineid == null || componentid == null) {
 			return null;
 		}
@@ -227,7 +244,7 @@ public final class ApiModelCache {
 	 * 
 	 * @return true if the element was removed, false otherwise
 	 */
-	public boolean removeElementInfo(String baselineid, String componentid, String identifier, int type) {
+	public synchronized boolean removeElementInfo(String baselineid, String componentid, String identifier, int type) {
 		if(baselineid == null) {
 			return false;
 		}
@@ -309,25 +326,18 @@ public final class ApiModelCache {
  		switch(element.getType()) {
 			case IApiElement.COMPONENT:
 			case IApiElement.TYPE: {
-				if(fRootCache != null) {
-					IApiComponent comp = element.getApiComponent();
-					if(comp != null) {
-						try {
-							IApiBaseline baseline = comp.getBaseline();
-							return removeElementInfo(baseline.getName(), comp.getSymbolicName(), element.getName(), element.getType());
-						}
-						catch(CoreException ce) {}
+				IApiComponent comp = element.getApiComponent();
+				if(comp != null) {
+					try {
+						IApiBaseline baseline = comp.getBaseline();
+						return removeElementInfo(baseline.getName(), comp.getSymbolicName(), element.getName(), element.getType());
 					}
+					catch(CoreException ce) {}
 				}
 				break;
 			}
 			case IApiElement.BASELINE: {
-				flushMemberCache();
-				if(fRootCache != null) {
-					IApiBaseline baseline = (IApiBaseline) element;
-					return fRootCache.remove(baseline.getName()) != null;
-				}
-				break;
+				return removeElementInfo(element.getName(), null, null, IApiElement.BASELINE);
 			}
 		}
 		return false;
@@ -336,7 +346,7 @@ public final class ApiModelCache {
 	/**
 	 * Clears out all cached information.
 	 */
-	public void flushCaches() {
+	public synchronized void flushCaches() {
 		if(fRootCache != null) {
 			fRootCache.flush();
 		}
@@ -357,7 +367,7 @@ public final class ApiModelCache {
 	 * 
 	 * @return true if the cache has no entries, false otherwise
 	 */
-	public boolean isEmpty() {
+	public synchronized boolean isEmpty() {
 		boolean empty = true;
 		if(fRootCache != null) {
 			empty &= fRootCache.isEmpty();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 IBM Corporation and others.
+ * Copyright (c) 2009, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -33,6 +33,7 @@ import org.eclipse.pde.api.tools.internal.provisional.IApiFilterStore;
 import org.eclipse.pde.api.tools.internal.provisional.ProfileModifiers;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.search.ComponentSymbolIndex;
 
 /**
  * An API component for a system library.
@@ -43,7 +44,7 @@ public class StubApiComponent extends SystemLibraryApiComponent {
 	private static final String STUB_PATH = "/org/eclipse/pde/api/tools/internal/api_stubs/"; //$NON-NLS-1$
 	private static Map AllSystemLibraryApiComponents;
 
-	public static IApiComponent getStubApiComponent(int eeValue) {
+	public static synchronized IApiComponent getStubApiComponent(int eeValue) {
 		if (AllSystemLibraryApiComponents == null) {
 			AllSystemLibraryApiComponents = new HashMap();
 		}
@@ -62,6 +63,17 @@ public class StubApiComponent extends SystemLibraryApiComponent {
 	}
 
 	private static File getFileFor(int eeValue, String name) {
+		return getFileFor(eeValue, name, ".zip"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the file of the given kind installed for the given profile
+	 * @param eeValue the profile value
+	 * @param name the profile name
+	 * @param extension the extension of the file
+	 * @return the file or <code>null</code> if it is not installed
+	 */
+	private static File getFileFor(int eeValue, String name, String extension) {
 		try {
 			String lname = name;
 			switch(eeValue) {
@@ -72,7 +84,7 @@ public class StubApiComponent extends SystemLibraryApiComponent {
 				case ProfileModifiers.OSGI_MINIMUM_1_2 :
 					lname = lname.replace('/', '_');
 			}
-			String stubName = lname + ".zip"; //$NON-NLS-1$
+			String stubName = lname + extension;
 			URL stub = null;
 			if (Platform.isRunning()) {
 				stub = ApiPlugin.getDefault().getBundle().getResource(STUB_PATH + stubName);
@@ -96,6 +108,24 @@ public class StubApiComponent extends SystemLibraryApiComponent {
 		}
 	}
 	
+	/**
+	 * Returns the pre-computed symbol table installed with this stub, see {@link ComponentSymbolIndex#getProfileFingerprint(File)}
+	 * @return the symbol table file or <code>null</code> if none was installed with the stub
+	 */
+	public File getSymbolsFile() {
+		int eeValue = ProfileModifiers.getValue(fExecEnv[0]);
+		String name = fExecEnv[0];
+		switch(eeValue) {
+			case ProfileModifiers.CDC_1_0_FOUNDATION_1_0 :
+			case ProfileModifiers.CDC_1_1_FOUNDATION_1_1 :
+			case ProfileModifiers.OSGI_MINIMUM_1_0 :
+			case ProfileModifiers.OSGI_MINIMUM_1_1 :
+			case ProfileModifiers.OSGI_MINIMUM_1_2 :
+				name = name.replace('/', '_');
+		}
+		return getFileFor(eeValue, name, ComponentSymbolIndex.EXTENSION);
+	}
+
 	/**
 	 * Returns a listing of all of the installed meta-data or an empty array, never <code>null</code>
 	 * @return list of installed meta-data or an empty list, never <code>null</code>
@@ -178,7 +208,7 @@ public class StubApiComponent extends SystemLibraryApiComponent {
 	public boolean isSystemComponent() {
 		return false;
 	}
-	public static void disposeAllCaches() {
+	public static synchronized void disposeAllCaches() {
 		if (AllSystemLibraryApiComponents != null) {
 			for (Iterator iterator = AllSystemLibraryApiComponents.values().iterator(); iterator.hasNext(); ) {
 				IApiComponent apiComponent = (IApiComponent) iterator.next();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2011 IBM Corporation and others.
+ * Copyright (c) 2008, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,8 +24,8 @@ import org.eclipse.pde.api.tools.internal.util.Util;
 public class ApiProblem implements IApiProblem {
 
 	/**
-	 * Human readable message for the problem
-	 * TODO should not be passed in  by user, should be derived (lazily loaded)
+	 * Human readable message for the problem, derived from the message id and arguments
+	 * the first time it is asked for
 	 */
 	private String fMessage = null;
 	/**
@@ -66,6 +66,11 @@ public class ApiProblem implements IApiProblem {
 	 */
 	private int fCharEnd = -1;
 	
+	/**
+	 * Shared empty array returned for problems without arguments
+	 */
+	private static final String[] NO_STRINGS = new String[0];
+	
 	/**
 	 * Masks to get the original bits out of the id
 	 */
@@ -202,10 +207,10 @@ public class ApiProblem implements IApiProblem {
 	 */
 	public String[] getExtraMarkerAttributeIds() {
 		if(fExtraArguments == null || fExtraArgumentIds == null) {
-			return new String[0];
+			return NO_STRINGS;
 		}
 		if(fExtraArgumentIds.length != fExtraArguments.length) {
-			return new String[0];
+			return NO_STRINGS;
 		}
 		return fExtraArgumentIds;
 	}
@@ -215,10 +220,10 @@ public class ApiProblem implements IApiProblem {
 	 */
 	public Object[] getExtraMarkerAttributeValues() {
 		if(fExtraArguments == null || fExtraArgumentIds == null) {
-			return new String[0];
+			return NO_STRINGS;
 		}
 		if(fExtraArgumentIds.length != fExtraArguments.length) {
-			return new String[0];
+			return NO_STRINGS;
 		}
 		return fExtraArguments;
 	}
@@ -228,7 +233,7 @@ public class ApiProblem implements IApiProblem {
 	 */
 	public String[] getMessageArguments() {
 		if(fMessageArguments == null) {
-			return new String[0];
+			return NO_STRINGS;
 		}
 		return fMessageArguments;
 	}
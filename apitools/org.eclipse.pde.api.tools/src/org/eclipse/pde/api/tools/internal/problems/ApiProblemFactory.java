@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2011 IBM Corporation and others.
+ * Copyright (c) 2008, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,9 +11,12 @@
 package org.eclipse.pde.api.tools.internal.problems;
 
 import java.text.ChoiceFormat;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 
@@ -38,10 +41,80 @@ public class ApiProblemFactory {
 	
 	public static final int TYPE_CONVERSION_ID = 76;
 
+	/**
+	 * The maximum number of formatted messages kept in the message cache
+	 */
+	private static final int MESSAGE_CACHE_SIZE = 4096;
+
+	/**
+	 * Key of the message cache: a message id and the arguments it was formatted with
+	 * 
+	 * @since 1.0.400
+	 */
+	static final class MessageKey {
+		final int id;
+		final String[] args;
+		final int hash;
+
+		MessageKey(int id, String[] args) {
+			this.id = id;
+			this.args = args;
+			this.hash = id * 31 + argumentsHashcode(args);
+		}
+
+		private static int argumentsHashcode(String[] args) {
+			if(args == null) {
+				return 0;
+			}
+			int hashcode = 1;
+			for (int i = 0; i < args.length; i++) {
+				hashcode = hashcode * 31 + (args[i] == null ? 0 : args[i].hashCode());
+			}
+			return hashcode;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		public int hashCode() {
+			return hash;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		public boolean equals(Object obj) {
+			if(obj instanceof MessageKey) {
+				MessageKey key = (MessageKey) obj;
+				return id == key.id && hash == key.hash && Arrays.equals(args, key.args);
+			}
+			return false;
+		}
+	}
+
 	/**
 	 * The current mapping of problem id to message
 	 */
 	private static Hashtable fMessages = null;
+	/**
+	 * The locale the message templates were loaded for
+	 */
+	private static Locale fLocale = null;
+	/**
+	 * Mapping of message id to its parsed {@link MessageFormat}, filled as the messages are first used.
+	 * Formats are not thread safe and are locked while formatting.
+	 */
+	private static Hashtable fFormats = null;
+	/**
+	 * The most recently formatted messages, keyed by {@link MessageKey}. Builds and reports tend to
+	 * format the same message with the same arguments many times.
+	 */
+	private static Map fMessageCache = new LinkedHashMap(256, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		protected boolean removeEldestEntry(Map.Entry eldest) {
+			return size() > MESSAGE_CACHE_SIZE;
+		}
+	};
 	
 	/**
 	 * Creates a new {@link IApiProblemFilter}
@@ -260,15 +333,77 @@ public class ApiProblemFactory {
 	 * @return a localized message for the given arguments or a 'not found' message
 	 */
 	public static String getLocalizedMessage(int messageid, String[] messageargs){
-		if(fMessages == null) {
-			fMessages = loadMessageTemplates(Locale.getDefault());
+		MessageKey key = new MessageKey(messageid, messageargs);
+		synchronized (fMessageCache) {
+			checkLocale();
+			String message = (String) fMessageCache.get(key);
+			if(message != null) {
+				return message;
+			}
 		}
-		String pattern = (String) fMessages.get(new Integer(messageid));
-		if(pattern == null) {
+		MessageFormat format = getMessageFormat(messageid);
+		if(format == null) {
 			return MessageFormat.format(BuilderMessages.ApiProblemFactory_problem_message_not_found, new String[] {Integer.toString(messageid)});
 		}
+		String message = null;
+		synchronized (format) {
+			if (messageid == TYPE_CONVERSION_ID) {
+				Object[] args = new Object[messageargs.length];
+				args[0] = messageargs[0];
+				args[1] = Integer.decode(messageargs[1]);
+				args[2] = Integer.decode(messageargs[2]);
+				message = format.format(args);
+			}
+			else {
+				message = format.format(messageargs);
+			}
+		}
+		synchronized (fMessageCache) {
+			// the key must not change if the caller reuses its argument array
+			fMessageCache.put(new MessageKey(messageid, messageargs == null ? null : (String[]) messageargs.clone()), message);
+		}
+		return message;
+	}
+	
+	/**
+	 * Reloads the message templates if they have not been loaded yet or the default locale changed
+	 * since they were loaded, dropping the parsed formats and the cached messages. Must be called while
+	 * holding the lock of the message cache.
+	 */
+	private static void checkLocale() {
+		Locale locale = Locale.getDefault();
+		if(fMessages == null || !locale.equals(fLocale)) {
+			fMessages = loadMessageTemplates(locale);
+			fFormats = new Hashtable(fMessages.size());
+			fLocale = locale;
+			fMessageCache.clear();
+		}
+	}
+	
+	/**
+	 * Returns the parsed format of the message with the given id, parsing its template the first time
+	 * it is asked for, or <code>null</code> if there is no such message
+	 * @param messageid
+	 * @return the {@link MessageFormat} of the message or <code>null</code>
+	 */
+	private static MessageFormat getMessageFormat(int messageid) {
+		Hashtable messages = null;
+		Hashtable formats = null;
+		synchronized (fMessageCache) {
+			messages = fMessages;
+			formats = fFormats;
+		}
+		Integer id = new Integer(messageid);
+		MessageFormat format = (MessageFormat) formats.get(id);
+		if(format != null) {
+			return format;
+		}
+		String pattern = (String) messages.get(id);
+		if(pattern == null) {
+			return null;
+		}
+		format = new MessageFormat(pattern);
 		if (messageid == TYPE_CONVERSION_ID) {
-			MessageFormat messageFormat = new MessageFormat(pattern);
 			double[] typeElementTypes = {
 				IDelta.ANNOTATION_ELEMENT_TYPE,
 				IDelta.CLASS_ELEMENT_TYPE,
@@ -276,21 +411,18 @@ public class ApiProblemFactory {
 				IDelta.INTERFACE_ELEMENT_TYPE,
 			};
 			String [] typeElementTypesStrings = {
-					(String) fMessages.get(Util.getDeltaElementType(IDelta.ANNOTATION_ELEMENT_TYPE)),
-					(String) fMessages.get(Util.getDeltaElementType(IDelta.CLASS_ELEMENT_TYPE)),
-					(String) fMessages.get(Util.getDeltaElementType(IDelta.ENUM_ELEMENT_TYPE)),
-					(String) fMessages.get(Util.getDeltaElementType(IDelta.INTERFACE_ELEMENT_TYPE)),
+					(String) messages.get(Util.getDeltaElementType(IDelta.ANNOTATION_ELEMENT_TYPE)),
+					(String) messages.get(Util.getDeltaElementType(IDelta.CLASS_ELEMENT_TYPE)),
+					(String) messages.get(Util.getDeltaElementType(IDelta.ENUM_ELEMENT_TYPE)),
+					(String) messages.get(Util.getDeltaElementType(IDelta.INTERFACE_ELEMENT_TYPE)),
 			};
 			ChoiceFormat choiceFormat = new ChoiceFormat(typeElementTypes, typeElementTypesStrings);
-			messageFormat.setFormatByArgumentIndex(1, choiceFormat);
-			messageFormat.setFormatByArgumentIndex(2, choiceFormat);
-			Object[] args = new Object[messageargs.length];
-			args[0] = messageargs[0];
-			args[1] = Integer.decode(messageargs[1]);
-			args[2] = Integer.decode(messageargs[2]);
-			return messageFormat.format(args);
+			format.setFormatByArgumentIndex(1, choiceFormat);
+			format.setFormatByArgumentIndex(2, choiceFormat);
 		}
-		return MessageFormat.format(pattern, messageargs);
+		// two threads may parse the same template, either format can be used
+		formats.put(id, format);
+		return format;
 	}
 	
 	/**
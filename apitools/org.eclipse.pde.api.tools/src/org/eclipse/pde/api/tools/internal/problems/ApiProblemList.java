@@ -0,0 +1,617 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.problems;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import org.eclipse.pde.api.tools.internal.provisional.problems.IApiProblem;
+
+/**
+ * Compact, column oriented list of {@link IApiProblem}s.
+ * <p>
+ * The int fields of the problems (id, line number and character range) are kept in arrays, one per field,
+ * and the strings and arrays of the problems are pooled: equal resource paths, type names and message
+ * arguments are stored once per list, however many problems they are used by. Equal extra marker attribute
+ * ids and values are shared the same way. Problems are only materialized when they are asked for with
+ * {@link #get(int)}; bulk operations like sorting by type name, filtering by category and reading or
+ * writing the list work on the columns directly.
+ * </p>
+ * <p>
+ * Lists are not thread safe. Lists created from another list with {@link #getProblems(int)} share its
+ * pools and must be used from the same thread.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public final class ApiProblemList {
+
+	/**
+	 * Pooled array, compared by contents
+	 */
+	static final class ArrayKey {
+		final Object[] array;
+		final int hash;
+
+		ArrayKey(Object[] array) {
+			this.array = array;
+			int h = 1;
+			for (int i = 0; i < array.length; i++) {
+				h = h * 31 + (array[i] == null ? 0 : array[i].hashCode());
+			}
+			this.hash = h;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		public int hashCode() {
+			return hash;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		public boolean equals(Object obj) {
+			if(obj instanceof ArrayKey) {
+				ArrayKey key = (ArrayKey) obj;
+				return hash == key.hash && key.array.getClass() == array.getClass() && Arrays.equals(array, key.array);
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Pool of the strings and arrays of the problems of one or more lists
+	 */
+	static final class Pool {
+		List values = new ArrayList();
+		HashMap indexes = new HashMap();
+
+		/**
+		 * Returns the index of the given value in this pool, adding it if needed
+		 * @param value a {@link String} or an array, may be <code>null</code>
+		 * @return the index of the value or <code>-1</code> for <code>null</code>
+		 */
+		int add(Object value) {
+			if(value == null) {
+				return -1;
+			}
+			Object key = value instanceof Object[] ? new ArrayKey((Object[]) value) : value;
+			Integer index = (Integer) indexes.get(key);
+			if(index == null) {
+				index = new Integer(values.size());
+				values.add(value instanceof Object[] ? ((Object[]) value).clone() : value);
+				indexes.put(key instanceof ArrayKey ? new ArrayKey((Object[]) values.get(index.intValue())) : key, index);
+			}
+			return index.intValue();
+		}
+
+		/**
+		 * @param index
+		 * @return the pooled value at the given index or <code>null</code> if the index is <code>-1</code>
+		 */
+		Object get(int index) {
+			return index < 0 ? null : values.get(index);
+		}
+	}
+
+	/**
+	 * Compares two problems of this list by their index
+	 */
+	interface IndexComparator {
+		int compare(int index1, int index2);
+	}
+
+	/**
+	 * Format version of written lists
+	 */
+	private static final int VERSION = 1;
+	/**
+	 * Tags of the extra marker attribute values of written lists
+	 */
+	private static final byte NULL_VALUE = 0;
+	private static final byte STRING_VALUE = 1;
+	private static final byte INTEGER_VALUE = 2;
+	private static final byte BOOLEAN_VALUE = 3;
+
+	private Pool fPool = null;
+	private int fSize = 0;
+	private int[] fIds = null;
+	private int[] fLineNumbers = null;
+	private int[] fCharStarts = null;
+	private int[] fCharEnds = null;
+	/**
+	 * Pool indexes of the resource paths, type names, message arguments, extra marker attribute ids
+	 * and extra marker attribute values of the problems
+	 */
+	private int[] fResourcePaths = null;
+	private int[] fTypeNames = null;
+	private int[] fMessageArguments = null;
+	private int[] fExtraIds = null;
+	private int[] fExtraValues = null;
+
+	/**
+	 * Constructor
+	 * @param capacity the initial number of problems the list can hold
+	 */
+	public ApiProblemList(int capacity) {
+		this(new Pool(), capacity);
+	}
+
+	/**
+	 * Constructor
+	 * @param problems the initial problems of the list
+	 */
+	public ApiProblemList(IApiProblem[] problems) {
+		this(new Pool(), problems.length);
+		for (int i = 0; i < problems.length; i++) {
+			add(problems[i]);
+		}
+	}
+
+	/**
+	 * Constructor
+	 * @param pool
+	 * @param capacity
+	 */
+	private ApiProblemList(Pool pool, int capacity) {
+		fPool = pool;
+		allocate(Math.max(capacity, 4));
+	}
+
+	/**
+	 * Resizes the columns to the given capacity
+	 * @param capacity
+	 */
+	private void allocate(int capacity) {
+		fIds = resize(fIds, capacity);
+		fLineNumbers = resize(fLineNumbers, capacity);
+		fCharStarts = resize(fCharStarts, capacity);
+		fCharEnds = resize(fCharEnds, capacity);
+		fResourcePaths = resize(fResourcePaths, capacity);
+		fTypeNames = resize(fTypeNames, capacity);
+		fMessageArguments = resize(fMessageArguments, capacity);
+		fExtraIds = resize(fExtraIds, capacity);
+		fExtraValues = resize(fExtraValues, capacity);
+	}
+
+	private int[] resize(int[] column, int capacity) {
+		int[] result = new int[capacity];
+		if(column != null) {
+			System.arraycopy(column, 0, result, 0, fSize);
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the given problem to the end of this list
+	 * @param problem
+	 */
+	public void add(IApiProblem problem) {
+		String[] ids = problem.getExtraMarkerAttributeIds();
+		Object[] values = problem.getExtraMarkerAttributeValues();
+		if(ids == null || ids.length == 0) {
+			ids = null;
+			values = null;
+		}
+		add(problem.getId(), problem.getLineNumber(), problem.getCharStart(), problem.getCharEnd(),
+				fPool.add(problem.getResourcePath()),
+				fPool.add(problem.getTypeName()),
+				fPool.add(problem.getMessageArguments()),
+				fPool.add(ids),
+				fPool.add(values));
+	}
+
+	private void add(int id, int line, int start, int end, int path, int type, int args, int ids, int values) {
+		if(fSize == fIds.length) {
+			allocate(fSize * 2);
+		}
+		fIds[fSize] = id;
+		fLineNumbers[fSize] = line;
+		fCharStarts[fSize] = start;
+		fCharEnds[fSize] = end;
+		fResourcePaths[fSize] = path;
+		fTypeNames[fSize] = type;
+		fMessageArguments[fSize] = args;
+		fExtraIds[fSize] = ids;
+		fExtraValues[fSize] = values;
+		fSize++;
+	}
+
+	/**
+	 * Copies the problem at the given index of the given list, which shares the pool of this list, to the end of this list
+	 * @param list
+	 * @param index
+	 */
+	private void add(ApiProblemList list, int index) {
+		add(list.fIds[index], list.fLineNumbers[index], list.fCharStarts[index], list.fCharEnds[index],
+				list.fResourcePaths[index], list.fTypeNames[index], list.fMessageArguments[index],
+				list.fExtraIds[index], list.fExtraValues[index]);
+	}
+
+	/**
+	 * @return the number of problems in this list
+	 */
+	public int size() {
+		return fSize;
+	}
+
+	/**
+	 * Returns the problem at the given index. A new problem is created for every call, sharing the
+	 * pooled strings and arrays of this list.
+	 *
+	 * @param index
+	 * @return the problem at the given index
+	 */
+	public IApiProblem get(int index) {
+		checkIndex(index);
+		return new ApiProblem(getResourcePath(index),
+				getTypeName(index),
+				(String[]) fPool.get(fMessageArguments[index]),
+				(String[]) fPool.get(fExtraIds[index]),
+				(Object[]) fPool.get(fExtraValues[index]),
+				fLineNumbers[index],
+				fCharStarts[index],
+				fCharEnds[index],
+				fIds[index]);
+	}
+
+	private void checkIndex(int index) {
+		if(index < 0 || index >= fSize) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+	}
+
+	/**
+	 * @param index
+	 * @return the composite id of the problem at the given index
+	 */
+	public int getId(int index) {
+		checkIndex(index);
+		return fIds[index];
+	}
+
+	/**
+	 * @param index
+	 * @return the category of the problem at the given index
+	 */
+	public int getCategory(int index) {
+		return ApiProblemFactory.getProblemCategory(getId(index));
+	}
+
+	/**
+	 * @param index
+	 * @return the resource path of the problem at the given index or <code>null</code>
+	 */
+	public String getResourcePath(int index) {
+		checkIndex(index);
+		return (String) fPool.get(fResourcePaths[index]);
+	}
+
+	/**
+	 * @param index
+	 * @return the type name of the problem at the given index or <code>null</code>
+	 */
+	public String getTypeName(int index) {
+		checkIndex(index);
+		return (String) fPool.get(fTypeNames[index]);
+	}
+
+	/**
+	 * @param index
+	 * @return the localized message of the problem at the given index
+	 */
+	public String getMessage(int index) {
+		checkIndex(index);
+		return ApiProblemFactory.getLocalizedMessage(ApiProblemFactory.getProblemMessageId(fIds[index]), (String[]) fPool.get(fMessageArguments[index]));
+	}
+
+	/**
+	 * @return all of the problems of this list
+	 */
+	public IApiProblem[] toArray() {
+		IApiProblem[] problems = new IApiProblem[fSize];
+		for (int i = 0; i < fSize; i++) {
+			problems[i] = get(i);
+		}
+		return problems;
+	}
+
+	/**
+	 * Returns a new list of the problems of the given category, in the order of this list.
+	 * The new list shares the pool of this list.
+	 *
+	 * @param category the category of the problems, see {@link IApiProblem#getCategory()}
+	 * @return the problems of the given category
+	 */
+	public ApiProblemList getProblems(int category) {
+		ApiProblemList list = new ApiProblemList(fPool, fSize);
+		for (int i = 0; i < fSize; i++) {
+			if(ApiProblemFactory.getProblemCategory(fIds[i]) == category) {
+				list.add(this, i);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Removes all but the first of the problems with the same message from this list
+	 */
+	public void removeDuplicateMessages() {
+		HashMap seen = new HashMap(fSize);
+		int[] kept = new int[fSize];
+		int count = 0;
+		for (int i = 0; i < fSize; i++) {
+			if(seen.put(getMessage(i), Boolean.TRUE) == null) {
+				kept[count++] = i;
+			}
+		}
+		if(count < fSize) {
+			reorder(kept, count);
+		}
+	}
+
+	/**
+	 * Sorts this list by the type names of the problems, problems without a type name first.
+	 * The sort is stable.
+	 */
+	public void sortByTypeName() {
+		sort(new IndexComparator() {
+			public int compare(int index1, int index2) {
+				int type1 = fTypeNames[index1];
+				int type2 = fTypeNames[index2];
+				if(type1 == type2) {
+					return 0;
+				}
+				if(type1 < 0) {
+					return -1;
+				}
+				if(type2 < 0) {
+					return 1;
+				}
+				return ((String) fPool.get(type1)).compareTo((String) fPool.get(type2));
+			}
+		});
+	}
+
+	/**
+	 * Sorts this list with the given comparator of {@link IApiProblem}s. The sort is stable.
+	 * @param comparator
+	 */
+	public void sort(final Comparator comparator) {
+		final IApiProblem[] problems = toArray();
+		sort(new IndexComparator() {
+			public int compare(int index1, int index2) {
+				return comparator.compare(problems[index1], problems[index2]);
+			}
+		});
+	}
+
+	/**
+	 * Sorts the problems of this list with the given comparator
+	 * @param comparator
+	 */
+	private void sort(IndexComparator comparator) {
+		int[] order = new int[fSize];
+		for (int i = 0; i < fSize; i++) {
+			order[i] = i;
+		}
+		mergeSort((int[]) order.clone(), order, 0, fSize, comparator);
+		reorder(order, fSize);
+	}
+
+	/**
+	 * Stable merge sort of the indexes of <code>dest</code> between <code>low</code> and <code>high</code>,
+	 * using <code>src</code> as scratch space. Both arrays must hold the same indexes on entry.
+	 */
+	private static void mergeSort(int[] src, int[] dest, int low, int high, IndexComparator comparator) {
+		int length = high - low;
+		if(length < 7) {
+			for (int i = low; i < high; i++) {
+				for (int j = i; j > low && comparator.compare(dest[j - 1], dest[j]) > 0; j--) {
+					int swap = dest[j];
+					dest[j] = dest[j - 1];
+					dest[j - 1] = swap;
+				}
+			}
+			return;
+		}
+		int mid = (low + high) >>> 1;
+		mergeSort(dest, src, low, mid, comparator);
+		mergeSort(dest, src, mid, high, comparator);
+		if(comparator.compare(src[mid - 1], src[mid]) <= 0) {
+			System.arraycopy(src, low, dest, low, length);
+			return;
+		}
+		for (int i = low, p = low, q = mid; i < high; i++) {
+			if(q >= high || p < mid && comparator.compare(src[p], src[q]) <= 0) {
+				dest[i] = src[p++];
+			}
+			else {
+				dest[i] = src[q++];
+			}
+		}
+	}
+
+	/**
+	 * Keeps the given number of problems, at the given indexes of this list
+	 * @param order
+	 * @param count
+	 */
+	private void reorder(int[] order, int count) {
+		fIds = reorder(fIds, order, count);
+		fLineNumbers = reorder(fLineNumbers, order, count);
+		fCharStarts = reorder(fCharStarts, order, count);
+		fCharEnds = reorder(fCharEnds, order, count);
+		fResourcePaths = reorder(fResourcePaths, order, count);
+		fTypeNames = reorder(fTypeNames, order, count);
+		fMessageArguments = reorder(fMessageArguments, order, count);
+		fExtraIds = reorder(fExtraIds, order, count);
+		fExtraValues = reorder(fExtraValues, order, count);
+		fSize = count;
+	}
+
+	private int[] reorder(int[] column, int[] order, int count) {
+		int[] result = new int[Math.max(count, 4)];
+		for (int i = 0; i < count; i++) {
+			result[i] = column[order[i]];
+		}
+		return result;
+	}
+
+	/**
+	 * Writes this list to the given stream. The pooled strings and arrays used by the problems of this list
+	 * are written once. Extra marker attribute values that are not strings, integers or booleans are written
+	 * as strings.
+	 *
+	 * @param out
+	 * @throws IOException
+	 * @see #read(DataInputStream)
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		// only write the pooled values used by this list, renumbered in order of first use
+		int[] mapping = new int[fPool.values.size()];
+		Arrays.fill(mapping, -1);
+		List used = new ArrayList();
+		int[][] columns = new int[][] {fResourcePaths, fTypeNames, fMessageArguments, fExtraIds, fExtraValues};
+		for (int i = 0; i < fSize; i++) {
+			for (int j = 0; j < columns.length; j++) {
+				int index = columns[j][i];
+				if(index >= 0 && mapping[index] < 0) {
+					mapping[index] = used.size();
+					used.add(fPool.get(index));
+				}
+			}
+		}
+		out.writeInt(VERSION);
+		out.writeInt(used.size());
+		for (int i = 0, max = used.size(); i < max; i++) {
+			Object value = used.get(i);
+			if(value instanceof String) {
+				out.writeByte(STRING_VALUE);
+				out.writeUTF((String) value);
+			}
+			else {
+				Object[] array = (Object[]) value;
+				out.writeByte(array instanceof String[] ? -1 : -2);
+				out.writeInt(array.length);
+				for (int j = 0; j < array.length; j++) {
+					writeValue(out, array[j]);
+				}
+			}
+		}
+		out.writeInt(fSize);
+		for (int i = 0; i < fSize; i++) {
+			out.writeInt(fIds[i]);
+			out.writeInt(fLineNumbers[i]);
+			out.writeInt(fCharStarts[i]);
+			out.writeInt(fCharEnds[i]);
+			for (int j = 0; j < columns.length; j++) {
+				int index = columns[j][i];
+				out.writeInt(index < 0 ? -1 : mapping[index]);
+			}
+		}
+	}
+
+	private void writeValue(DataOutputStream out, Object value) throws IOException {
+		if(value == null) {
+			out.writeByte(NULL_VALUE);
+		}
+		else if(value instanceof Integer) {
+			out.writeByte(INTEGER_VALUE);
+			out.writeInt(((Integer) value).intValue());
+		}
+		else if(value instanceof Boolean) {
+			out.writeByte(BOOLEAN_VALUE);
+			out.writeBoolean(((Boolean) value).booleanValue());
+		}
+		else {
+			out.writeByte(STRING_VALUE);
+			out.writeUTF(String.valueOf(value));
+		}
+	}
+
+	/**
+	 * Reads a list written with {@link #write(DataOutputStream)}
+	 * @param in
+	 * @return the list
+	 * @throws IOException if the stream cannot be read or does not contain a list
+	 */
+	public static ApiProblemList read(DataInputStream in) throws IOException {
+		if(in.readInt() != VERSION) {
+			throw new IOException("Unsupported problem list version"); //$NON-NLS-1$
+		}
+		int count = in.readInt();
+		Object[] values = new Object[count];
+		for (int i = 0; i < count; i++) {
+			byte kind = in.readByte();
+			switch(kind) {
+				case STRING_VALUE: {
+					values[i] = in.readUTF();
+					break;
+				}
+				case -1:
+				case -2: {
+					int length = in.readInt();
+					Object[] array = kind == -1 ? new String[length] : new Object[length];
+					for (int j = 0; j < length; j++) {
+						array[j] = readValue(in);
+					}
+					values[i] = array;
+					break;
+				}
+				default: {
+					throw new IOException("Corrupted problem list"); //$NON-NLS-1$
+				}
+			}
+		}
+		Pool pool = new Pool();
+		int[] mapping = new int[count];
+		for (int i = 0; i < count; i++) {
+			mapping[i] = pool.add(values[i]);
+		}
+		int size = in.readInt();
+		ApiProblemList list = new ApiProblemList(pool, size);
+		int[] indexes = new int[5];
+		for (int i = 0; i < size; i++) {
+			int id = in.readInt();
+			int line = in.readInt();
+			int start = in.readInt();
+			int end = in.readInt();
+			for (int j = 0; j < indexes.length; j++) {
+				int index = in.readInt();
+				if(index >= count) {
+					throw new IOException("Corrupted problem list"); //$NON-NLS-1$
+				}
+				indexes[j] = index < 0 ? -1 : mapping[index];
+			}
+			list.add(id, line, start, end, indexes[0], indexes[1], indexes[2], indexes[3], indexes[4]);
+		}
+		return list;
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		switch(in.readByte()) {
+			case NULL_VALUE: return null;
+			case INTEGER_VALUE: return new Integer(in.readInt());
+			case BOOLEAN_VALUE: return Boolean.valueOf(in.readBoolean());
+			case STRING_VALUE: return in.readUTF();
+		}
+		throw new IOException("Corrupted problem list"); //$NON-NLS-1$
+	}
+}
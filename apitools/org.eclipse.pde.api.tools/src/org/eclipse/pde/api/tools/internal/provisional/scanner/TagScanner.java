@@ -15,6 +15,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -22,6 +23,8 @@ import java.util.Map;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.jdt.core.Flags;
@@ -99,6 +102,12 @@ public class TagScanner {
 		 */
 		private CoreException fException;
 		
+		/**
+		 * Lock guarding the description and the container when several visitors
+		 * share them, or <code>null</code>
+		 */
+		private Object fLock = null;
+		
 		/**
 		 * Constructor
 		 * @param description API description to annotate
@@ -110,6 +119,18 @@ public class TagScanner {
 			fContainer = container;
 		}
 		
+		/**
+		 * Constructor
+		 * @param description API description to annotate
+		 * @param container class file container or <code>null</code>, used
+		 * 	to resolve method signatures
+		 * @param lock the lock to hold while updating the description or using the container
+		 */
+		Visitor(IApiDescription description, IApiTypeContainer container, Object lock) {
+			this(description, container);
+			fLock = lock;
+		}
+		
 		/* (non-Javadoc)
 		 * @see org.eclipse.jdt.core.dom.ASTVisitor#visit(org.eclipse.jdt.core.dom.Javadoc)
 		 */
@@ -209,16 +230,33 @@ public class TagScanner {
 				restrictions |= jtm.getRestrictionsForTag(tagname, type, member);
 			}
 			if (restrictions != RestrictionModifiers.NO_RESTRICTIONS) {
-				IElementDescriptor ldesc = descriptor;
-				if (ldesc.getElementType() == IElementDescriptor.METHOD) {
-					try {
-						ldesc = resolveMethod((IMethodDescriptor)ldesc);
-					} catch (CoreException e) {
-						fException = e;
+				if (fLock != null) {
+					synchronized (fLock) {
+						setRestrictions(descriptor, restrictions);
 					}
 				}
-				fDescription.setRestrictions(ldesc, restrictions);
+				else {
+					setRestrictions(descriptor, restrictions);
+				}
+			}
+		}
+		
+		/**
+		 * Sets the given restrictions on the given element in the description, resolving the
+		 * signature of methods first
+		 * @param descriptor
+		 * @param restrictions
+		 */
+		private void setRestrictions(IElementDescriptor descriptor, int restrictions) {
+			IElementDescriptor ldesc = descriptor;
+			if (ldesc.getElementType() == IElementDescriptor.METHOD) {
+				try {
+					ldesc = resolveMethod((IMethodDescriptor)ldesc);
+				} catch (CoreException e) {
+					fException = e;
+				}
 			}
+			fDescription.setRestrictions(ldesc, restrictions);
 		}
 		
 		/**
@@ -453,6 +491,135 @@ public class TagScanner {
 	 */
 	private static TagScanner fSingleton = null;
 	
+	/**
+	 * Worker used to scan compilation units in parallel. Each worker has its own parser and
+	 * pulls the next unscanned unit from the shared list until all units have been scanned or
+	 * the scan is canceled.
+	 */
+	static class ScanWorker extends Thread {
+		private CompilationUnit[] sources = null;
+		private IApiDescription description = null;
+		private IApiTypeContainer container = null;
+		private Map options = null;
+		private IProgressMonitor monitor = null;
+		private ScanState state = null;
+		
+		/**
+		 * Constructor
+		 */
+		public ScanWorker(String name, ScanState state, CompilationUnit[] sources, IApiDescription description, IApiTypeContainer container, Map options, IProgressMonitor monitor) {
+			super(name);
+			setDaemon(true);
+			this.state = state;
+			this.sources = sources;
+			this.description = description;
+			this.container = container;
+			this.options = options;
+			this.monitor = monitor;
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.lang.Thread#run()
+		 */
+		public void run() {
+			ASTParser parser = ASTParser.newParser(AST.JLS4);
+			int index = state.nextUnit();
+			while(index > -1 && !monitor.isCanceled()) {
+				try {
+					org.eclipse.jdt.core.dom.CompilationUnit cunit = parse(parser, sources[index], options, null);
+					Visitor visitor = new Visitor(description, container, state);
+					cunit.accept(visitor);
+					if (visitor.getException() != null) {
+						state.addStatus(visitor.getException().getStatus());
+					}
+				}
+				catch(CoreException ce) {
+					state.addStatus(ce.getStatus());
+				}
+				catch(RuntimeException re) {
+					state.addStatus(new Status(IStatus.ERROR, ApiPlugin.PLUGIN_ID, re.getMessage(), re));
+				}
+				catch(Error e) {
+					state.addStatus(new Status(IStatus.ERROR, ApiPlugin.PLUGIN_ID, e.getMessage(), e));
+					throw e;
+				}
+				finally {
+					//always count the unit, the scan waits until all units are done
+					state.unitDone();
+				}
+				index = state.nextUnit();
+			}
+		}
+	}
+	
+	/**
+	 * State shared by the {@link ScanWorker}s of one parallel scan. Also used as the lock
+	 * guarding the API description and the class file container.
+	 */
+	static class ScanState {
+		private int fNext = 0;
+		private int fCount = 0;
+		private int fDone = 0;
+		private MultiStatus fStatus = null;
+		
+		ScanState(int count) {
+			fCount = count;
+		}
+		
+		/**
+		 * @return the index of the next unit to scan or <code>-1</code> if all units have been handed out
+		 */
+		synchronized int nextUnit() {
+			if(fNext < fCount) {
+				return fNext++;
+			}
+			return -1;
+		}
+		
+		/**
+		 * Records that a unit has been scanned
+		 */
+		synchronized void unitDone() {
+			fDone++;
+			notifyAll();
+		}
+		
+		/**
+		 * Waits until a unit has been scanned or the timeout elapses
+		 * @param timeout the time to wait in milliseconds
+		 * @return the number of units scanned so far
+		 */
+		synchronized int waitForProgress(long timeout) {
+			if(fDone < fCount) {
+				try {
+					wait(timeout);
+				}
+				catch(InterruptedException ie) {
+					//return the current count
+				}
+			}
+			return fDone;
+		}
+		
+		/**
+		 * Records a failure to scan a unit
+		 * @param status
+		 */
+		synchronized void addStatus(IStatus status) {
+			if(fStatus == null) {
+				fStatus = new MultiStatus(ApiPlugin.PLUGIN_ID, IStatus.ERROR, "Errors occurred scanning for API tags", null); //$NON-NLS-1$
+			}
+			fStatus.add(status);
+		}
+		
+		/**
+		 * @return the collected failures or <code>null</code>
+		 */
+		synchronized MultiStatus getStatus() {
+			return fStatus;
+		}
+	}
+	
 	/**
 	 * Delegate for getting the singleton instance of the scanner
 	 * @return
@@ -503,7 +670,124 @@ public class TagScanner {
 	 */
 	public void scan(CompilationUnit source, IApiDescription description, IApiTypeContainer container, Map options, IProgressMonitor monitor) throws CoreException {
 		SubMonitor localmonitor = SubMonitor.convert(monitor, 2);
-		ASTParser parser = ASTParser.newParser(AST.JLS4);
+		Map loptions = options;
+		if(loptions == null) {
+			loptions = JavaCore.getOptions();
+		}
+		loptions.put(JavaCore.COMPILER_DOC_COMMENT_SUPPORT, JavaCore.ENABLED);
+		org.eclipse.jdt.core.dom.CompilationUnit cunit = parse(ASTParser.newParser(AST.JLS4), source, loptions, localmonitor);
+		Visitor visitor = new Visitor(description, container);
+		cunit.accept(visitor);
+		if (visitor.getException() != null) {
+			throw visitor.getException();
+		}
+	}
+	
+	/**
+	 * Scans the specified source {@linkplain CompilationUnit}s for contributed API javadoc tags, using the 
+	 * given number of threads. Tags on methods will have unresolved signatures.
+	 * <p>
+	 * If more than one thread is requested the units are parsed and scanned on worker threads, each with its 
+	 * own parser. Updates to the description and uses of the container are serialized, so neither has to 
+	 * be thread-safe. All units are scanned even if some of them fail.
+	 * </p>
+	 * 
+	 * @param sources the source files to scan for tags
+	 * @param description the API description to annotate with any new tag rules found
+	 * @param container optional class file container containing the class files for the given sources
+	 * 	that can be used to resolve method signatures if required (for tags on methods). If 
+	 * 	not provided (<code>null</code>), method signatures will be unresolved.
+	 * @param options a map of Java compiler options to use when creating the ASTs to scan
+	 *  or <code>null</code> if default options should be used
+	 * @param threads the number of threads to scan with, values less than 2 scan on the calling thread
+	 * @param monitor
+	 * 
+	 * @throws CoreException if any of the units could not be scanned, the status contains all of the failures
+	 * @since 1.0.400
+	 */
+	public void scan(CompilationUnit[] sources, IApiDescription description, IApiTypeContainer container, Map options, int threads, IProgressMonitor monitor) throws CoreException {
+		SubMonitor localmonitor = SubMonitor.convert(monitor, sources.length);
+		Map loptions = options == null ? JavaCore.getOptions() : new HashMap(options);
+		loptions.put(JavaCore.COMPILER_DOC_COMMENT_SUPPORT, JavaCore.ENABLED);
+		ScanState state = new ScanState(sources.length);
+		if(threads < 2 || sources.length < 2) {
+			for (int i = 0; i < sources.length; i++) {
+				Util.updateMonitor(localmonitor);
+				try {
+					scan(sources[i], description, container, loptions, localmonitor.newChild(1));
+				}
+				catch(CoreException ce) {
+					state.addStatus(ce.getStatus());
+				}
+			}
+		}
+		else {
+			//make sure the shared tag manager is created before the workers use it
+			ApiPlugin.getJavadocTagManager();
+			ScanWorker[] workers = new ScanWorker[Math.min(threads, sources.length)];
+			NullProgressMonitor workermonitor = new NullProgressMonitor();
+			long start = System.currentTimeMillis();
+			for (int i = 0; i < workers.length; i++) {
+				workers[i] = new ScanWorker("Api Tag Scanner "+(i+1), state, sources, description, container, loptions, workermonitor); //$NON-NLS-1$
+				workers[i].start();
+			}
+			int done = 0;
+			while(done < sources.length) {
+				if(localmonitor.isCanceled()) {
+					workermonitor.setCanceled(true);
+					break;
+				}
+				int count = state.waitForProgress(250);
+				localmonitor.worked(count - done);
+				done = count;
+				if(!isAlive(workers)) {
+					//the workers died on errors, do not wait for units that will not be scanned
+					break;
+				}
+			}
+			for (int i = 0; i < workers.length; i++) {
+				try {
+					workers[i].join();
+				}
+				catch(InterruptedException ie) {
+					//continue waiting for the remaining workers
+				}
+			}
+			if (ApiPlugin.DEBUG_TAG_SCANNER) {
+				System.out.println("Scanned " + sources.length + " units with " + workers.length + " threads in " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			}
+		}
+		localmonitor.done();
+		if(state.getStatus() != null) {
+			throw new CoreException(state.getStatus());
+		}
+	}
+	
+	/**
+	 * Returns if any of the given workers is still running
+	 * @param workers
+	 * @return <code>true</code> if a worker is alive
+	 */
+	static boolean isAlive(ScanWorker[] workers) {
+		for (int i = 0; i < workers.length; i++) {
+			if(workers[i].isAlive()) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Parses the given source with the given parser
+	 * @param parser the parser to use
+	 * @param source the source to parse
+	 * @param options the compiler options, with Javadoc support enabled
+	 * @param monitor
+	 * @return the AST of the source
+	 * @throws CoreException if the source cannot be read
+	 */
+	static org.eclipse.jdt.core.dom.CompilationUnit parse(ASTParser parser, CompilationUnit source, Map options, IProgressMonitor monitor) throws CoreException {
+		SubMonitor localmonitor = SubMonitor.convert(monitor, 2);
 		InputStream inputStream = null;
 		try {
 			inputStream = source.getInputStream();
@@ -527,17 +811,7 @@ public class TagScanner {
 			}
 		}
 		Util.updateMonitor(localmonitor);
-		Map loptions = options;
-		if(loptions == null) {
-			loptions = JavaCore.getOptions();
-		}
-		loptions.put(JavaCore.COMPILER_DOC_COMMENT_SUPPORT, JavaCore.ENABLED);
-		parser.setCompilerOptions(loptions);
-		org.eclipse.jdt.core.dom.CompilationUnit cunit = (org.eclipse.jdt.core.dom.CompilationUnit) parser.createAST(localmonitor.newChild(1));
-		Visitor visitor = new Visitor(description, container);
-		cunit.accept(visitor);
-		if (visitor.getException() != null) {
-			throw visitor.getException();
-		}
-	}	
+		parser.setCompilerOptions(options);
+		return (org.eclipse.jdt.core.dom.CompilationUnit) parser.createAST(localmonitor.newChild(1));
+	}
 }
@@ -19,6 +19,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.pde.api.tools.internal.builder.Reference;
@@ -34,6 +35,7 @@ import org.eclipse.pde.api.tools.internal.provisional.model.IApiScope;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeContainer;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+import org.eclipse.pde.api.tools.internal.search.ConcurrentSearchReporter;
 import org.eclipse.pde.api.tools.internal.search.SearchMessages;
 import org.eclipse.pde.api.tools.internal.util.Util;
 
@@ -133,11 +135,111 @@ public final class ApiSearchEngine {
 		}
 	}
 	
+	/**
+	 * Worker used to search scope elements in parallel. Each worker pulls the next
+	 * unsearched element from the shared scope until all elements have been searched or
+	 * the search is canceled.
+	 */
+	class SearchWorker extends Thread {
+		private IApiSearchRequestor requestor = null;
+		private ConcurrentSearchReporter reporter = null;
+		private IApiElement[] elements = null;
+		private IProgressMonitor monitor = new NullProgressMonitor();
+		
+		/**
+		 * Constructor
+		 */
+		public SearchWorker(String name, IApiSearchRequestor requestor, ConcurrentSearchReporter reporter, IApiElement[] elements) {
+			super(name);
+			setDaemon(true);
+			this.requestor = requestor;
+			this.reporter = reporter;
+			this.elements = elements;
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.lang.Thread#run()
+		 */
+		public void run() {
+			int index = nextElement();
+			while(index > -1 && !monitor.isCanceled()) {
+				long loopstart = System.currentTimeMillis();
+				try {
+					searchReferences(requestor, elements[index], reporter, monitor);
+				}
+				catch(CoreException ce) {
+					addStatus(new Status(IStatus.ERROR, ApiPlugin.PLUGIN_ID, ce.getMessage(), ce));
+				}
+				catch(RuntimeException re) {
+					addStatus(new Status(IStatus.ERROR, ApiPlugin.PLUGIN_ID, re.getMessage(), re));
+				}
+				finally {
+					reporter.elementDone(elements[index]);
+				}
+				if(ApiPlugin.DEBUG_SEARCH_ENGINE) {
+					System.out.println(getName()+" searched "+elements[index].getApiComponent().getSymbolicName()+" in "+(System.currentTimeMillis()-loopstart)+" ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				}
+				index = nextElement();
+			}
+			//make sure the remaining elements do not block the ordered reporting
+			while(index > -1) {
+				reporter.elementDone(elements[index]);
+				index = nextElement();
+			}
+		}
+		
+		/**
+		 * Cancels this worker. The element currently being searched is aborted as soon
+		 * as the search checks its progress monitor.
+		 */
+		public void cancel() {
+			monitor.setCanceled(true);
+		}
+	}
+	
 	/**
 	 * Simple string used for reporting what is being searched
 	 */
 	private String fRequestorContext = null;
 	
+	/**
+	 * Index of the next scope element to be searched by a {@link SearchWorker}
+	 */
+	private int fNextElement = 0;
+	
+	/**
+	 * Total number of scope elements being searched by {@link SearchWorker}s
+	 */
+	private int fElementCount = 0;
+	
+	/**
+	 * Collected error status from {@link SearchWorker}s or <code>null</code>
+	 */
+	private MultiStatus fWorkerStatus = null;
+	
+	/**
+	 * Returns the index of the next scope element to search or <code>-1</code> if
+	 * all elements have been handed out
+	 * @return the index of the next element to search or <code>-1</code>
+	 */
+	synchronized int nextElement() {
+		if(fNextElement < fElementCount) {
+			return fNextElement++;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Records an error that occurred in a {@link SearchWorker}
+	 * @param status
+	 */
+	synchronized void addStatus(IStatus status) {
+		if(fWorkerStatus == null) {
+			fWorkerStatus = new MultiStatus(ApiPlugin.PLUGIN_ID, IStatus.ERROR, null, null);
+		}
+		fWorkerStatus.add(status);
+	}
+	
 	/**
 	 * Returns the set of resolved references for the given {@link IApiType}
 	 * @param requestor
@@ -325,6 +427,104 @@ public final class ApiSearchEngine {
 		}
 	}
 	
+	/**
+	 * Searches for all of the use of API or internal code from the given 
+	 * {@link IApiComponent} within the given {@link IApiBaseline}, using the given number of threads.
+	 * <p>
+	 * If more than one thread is requested each scope element is searched on its own worker thread. Results are 
+	 * batched per scope element and passed on to the given reporter from one thread at a time, in scope order, 
+	 * so the reporter does not have to be thread-safe and the reported results are the same as for a single-threaded search.
+	 * </p>
+	 * <p>
+	 * The requestor however is called from all worker threads and must be thread-safe. A component and the references 
+	 * extracted from it are always passed to the requestor on the same thread, so state the requestor derives from 
+	 * {@link IApiSearchRequestor#acceptComponent(IApiComponent)} has to be kept per thread.
+	 * </p>
+	 * <p>
+	 * All workers resolve types through the shared {@link org.eclipse.pde.api.tools.internal.model.ApiModelCache}, 
+	 * which is synchronized so it can be used from several threads at once.
+	 * </p>
+	 * 
+	 * @param baseline the baseline to search within
+	 * @param requestor the requestor to use for the search
+	 * @param reporter the reporter to use when reporting any search results to the user
+	 * @param threads the number of threads to search with, values less than 2 perform a single-threaded search
+	 * @param monitor the monitor to report progress to
+	 * @throws CoreException if the search fails
+	 * @since 1.0.400
+	 */
+	public void search(IApiBaseline baseline, IApiSearchRequestor requestor, IApiSearchReporter reporter, int threads, IProgressMonitor monitor) throws CoreException {
+		if(threads < 2) {
+			search(baseline, requestor, reporter, monitor);
+			return;
+		}
+		if(baseline == null || reporter == null || requestor == null) {
+			return;
+		}
+		IApiScope scope = requestor.getScope();
+		if(scope == null) {
+			return;
+		}
+		fRequestorContext = computeContext(requestor);
+		IApiElement[] scopeelements = scope.getApiElements();
+		SubMonitor localmonitor = SubMonitor.convert(monitor, 
+				MessageFormat.format(SearchMessages.ApiSearchEngine_searching_projects, new String[] {fRequestorContext}), scopeelements.length*2+1);
+		synchronized (this) {
+			fNextElement = 0;
+			fElementCount = scopeelements.length;
+			fWorkerStatus = null;
+		}
+		ConcurrentSearchReporter concurrentreporter = new ConcurrentSearchReporter(reporter, scopeelements);
+		SearchWorker[] workers = new SearchWorker[Math.min(threads, scopeelements.length)];
+		try {
+			long start = System.currentTimeMillis();
+			for (int i = 0; i < workers.length; i++) {
+				workers[i] = new SearchWorker("Api Search Worker "+(i+1), requestor, concurrentreporter, scopeelements); //$NON-NLS-1$
+				workers[i].start();
+			}
+			int reported = 0;
+			boolean finished = scopeelements.length == 0;
+			while(!finished) {
+				if(localmonitor.isCanceled()) {
+					for (int i = 0; i < workers.length; i++) {
+						workers[i].cancel();
+					}
+					break;
+				}
+				finished = concurrentreporter.waitForProgress(250);
+				int count = concurrentreporter.getReportedCount();
+				if(count > reported) {
+					localmonitor.setTaskName(MessageFormat.format(SearchMessages.ApiSearchEngine_searching_project, 
+							new String[] {scopeelements[count-1].getApiComponent().getSymbolicName(), fRequestorContext}));
+					localmonitor.worked((count-reported)*2);
+					reported = count;
+				}
+			}
+			for (int i = 0; i < workers.length; i++) {
+				try {
+					workers[i].join();
+				}
+				catch(InterruptedException ie) {
+					//continue waiting for the remaining workers
+				}
+			}
+			if(ApiPlugin.DEBUG_SEARCH_ENGINE) {
+				System.out.println("Total Search Time ("+workers.length+" threads): "+((System.currentTimeMillis()-start)/1000)+" seconds");  //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$
+			}
+			MultiStatus mstatus = null;
+			synchronized (this) {
+				mstatus = fWorkerStatus;
+				fWorkerStatus = null;
+			}
+			if(mstatus != null) {
+				throw new CoreException(mstatus);
+			}
+		}
+		finally {
+			localmonitor.done();
+		}
+	}
+	
 	/**
 	 * Computes the process context (label)
 	 * @param requestor
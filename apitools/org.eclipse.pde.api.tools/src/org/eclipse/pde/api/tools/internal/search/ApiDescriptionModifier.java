@@ -10,7 +10,6 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.internal.search;
 
-import java.util.regex.Pattern;
 
 import org.eclipse.pde.api.tools.internal.provisional.ApiDescriptionVisitor;
 import org.eclipse.pde.api.tools.internal.provisional.IApiAnnotations;
@@ -18,6 +17,7 @@ import org.eclipse.pde.api.tools.internal.provisional.IApiDescription;
 import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
 import org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor;
 import org.eclipse.pde.api.tools.internal.provisional.descriptors.IPackageDescriptor;
+import org.eclipse.pde.api.tools.internal.util.PatternFilter;
 
 /**
  * Visits an API description modifying package visibility based on pattern
@@ -28,12 +28,12 @@ public class ApiDescriptionModifier extends ApiDescriptionVisitor {
 	/**
 	 * Internal package patterns or <code>null</code> if none.
 	 */
-	private Pattern[] fInternalPackages;
+	private PatternFilter fInternalPackages;
 		
 	/**
 	 * API package patterns of <code>null</code> if none.
 	 */
-	private Pattern[] fApiPackages; 
+	private PatternFilter fApiPackages; 
 	
 	/**
 	 * API description to modify.
@@ -70,10 +70,7 @@ public class ApiDescriptionModifier extends ApiDescriptionVisitor {
 		if (patterns == null || patterns.length == 0) {
 			fInternalPackages = null;
 		} else {
-			fInternalPackages = new Pattern[patterns.length];
-			for (int i = 0; i < patterns.length; i++) {
-				fInternalPackages[i] = Pattern.compile(patterns[i]);
-			}
+			fInternalPackages = new PatternFilter(patterns, false);
 		}
 	}
 	
@@ -87,10 +84,7 @@ public class ApiDescriptionModifier extends ApiDescriptionVisitor {
 		if (patterns == null || patterns.length == 0) {
 			fApiPackages = null;
 		} else {
-			fApiPackages = new Pattern[patterns.length];
-			for (int i = 0; i < patterns.length; i++) {
-				fApiPackages[i] = Pattern.compile(patterns[i]);
-			}
+			fApiPackages = new PatternFilter(patterns, false);
 		}
 	}
 	
@@ -104,12 +98,12 @@ public class ApiDescriptionModifier extends ApiDescriptionVisitor {
 			case IElementDescriptor.PACKAGE:
 				IPackageDescriptor pkg = (IPackageDescriptor) element;
 				if (fInternalPackages != null) {
-					if (matchesPattern(pkg.getName(), fInternalPackages)) {
+					if (fInternalPackages.matches(pkg.getName())) {
 						fDescription.setVisibility(element, VisibilityModifiers.PRIVATE);
 					}
 				}
 				if (fApiPackages != null) {
-					if (matchesPattern(pkg.getName(), fApiPackages)) {
+					if (fApiPackages.matches(pkg.getName())) {
 						fDescription.setVisibility(element, VisibilityModifiers.API);
 					}
 				}
@@ -118,20 +112,4 @@ public class ApiDescriptionModifier extends ApiDescriptionVisitor {
 				return false;
 		}
 	}
-	
-	/**
-	 * Returns whether the package matches any of the given patterns.
-	 * 
-	 * @param name name to match
-	 * @param patterns patterns to match against
-	 * @return whether there's a match
-	 */
-	private boolean matchesPattern(String name, Pattern[] patterns) {
-		for (int i = 0; i < patterns.length; i++) {
-			if (patterns[i].matcher(name).find()) {
-				return true;
-			}
-		}
-		return false;
-	}
 }
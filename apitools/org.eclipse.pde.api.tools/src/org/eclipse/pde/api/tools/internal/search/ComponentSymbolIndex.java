@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IMemberDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IMethodDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IReferenceTypeDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.model.ApiTypeContainerVisitor;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiField;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiMethod;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+import org.eclipse.pde.api.tools.internal.util.SymbolTable;
+
+/**
+ * Creates and caches {@link SymbolTable}s of all of the types, methods and fields declared
+ * in an {@link IApiComponent}.
+ * <p>
+ * The tables are used by the missing reference analysis to confirm that a referenced member
+ * exists with a single hash probe, instead of loading the type structure and resolving the
+ * reference through the API model. Only members declared directly in a type are indexed, so a
+ * member that is not found may still be inherited and has to be checked the slow way.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public final class ComponentSymbolIndex {
+
+	/**
+	 * File extension of cached symbol tables
+	 */
+	public static final String EXTENSION = ".symbols"; //$NON-NLS-1$
+
+	/**
+	 * Version of the symbols collected for a component, part of the fingerprint of the tables
+	 */
+	private static final int FORMAT = 2;
+	/**
+	 * Distinguishes the fingerprint of the generated profile tables from the fingerprints of components
+	 */
+	private static final int PROFILE_SYMBOLS = 0x45453031;
+
+	/**
+	 * Visitor collecting the symbol keys of all types in a component
+	 */
+	static final class SymbolCollector extends ApiTypeContainerVisitor {
+		HashSet symbols = new HashSet();
+
+		/* (non-Javadoc)
+		 * @see org.eclipse.pde.api.tools.internal.provisional.model.ApiTypeContainerVisitor#visit(java.lang.String, org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot)
+		 */
+		public void visit(String packageName, IApiTypeRoot typeroot) {
+			try {
+				IApiType type = typeroot.getStructure();
+				if(type == null) {
+					return;
+				}
+				String name = type.getName();
+				symbols.add(name);
+				IApiMethod[] methods = type.getMethods();
+				for (int i = 0; i < methods.length; i++) {
+					if(methods[i].isSynthetic()) {
+						//references to synthetic methods never resolve
+						continue;
+					}
+					symbols.add(getMethodKey(name, methods[i].getName(), methods[i].getSignature()));
+				}
+				IApiField[] fields = type.getFields();
+				for (int i = 0; i < fields.length; i++) {
+					symbols.add(getFieldKey(name, fields[i].getName()));
+				}
+			}
+			catch(CoreException ce) {
+				ApiPlugin.log(ce);
+			}
+		}
+	}
+
+	/**
+	 * Constructor
+	 * No instantiation
+	 */
+	private ComponentSymbolIndex() {}
+
+	/**
+	 * Returns the symbol key for the given method
+	 * @param typename the qualified name of the declaring type
+	 * @param name the method name
+	 * @param signature the method signature
+	 * @return the symbol key
+	 */
+	public static String getMethodKey(String typename, String name, String signature) {
+		StringBuffer buffer = new StringBuffer(typename.length() + name.length() + signature.length() + 1);
+		buffer.append(typename).append('#').append(name).append(signature);
+		return buffer.toString();
+	}
+
+	/**
+	 * Returns the symbol key for the given field
+	 * @param typename the qualified name of the declaring type
+	 * @param name the field name
+	 * @return the symbol key
+	 */
+	public static String getFieldKey(String typename, String name) {
+		StringBuffer buffer = new StringBuffer(typename.length() + name.length() + 1);
+		buffer.append(typename).append('#').append(name);
+		return buffer.toString();
+	}
+
+	/**
+	 * Returns the symbol key for the given member or <code>null</code> if the member kind is not indexed
+	 *
+	 * @param member the member to get the key for
+	 * @return the symbol key or <code>null</code>
+	 */
+	public static String getKey(IMemberDescriptor member) {
+		switch(member.getElementType()) {
+			case IElementDescriptor.TYPE: {
+				return ((IReferenceTypeDescriptor) member).getQualifiedName();
+			}
+			case IElementDescriptor.METHOD: {
+				return getMethodKey(member.getEnclosingType().getQualifiedName(), member.getName(), ((IMethodDescriptor) member).getSignature());
+			}
+			case IElementDescriptor.FIELD: {
+				return getFieldKey(member.getEnclosingType().getQualifiedName(), member.getName());
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a value that changes whenever the given component is replaced by a different build
+	 * of the same component
+	 *
+	 * @param component
+	 * @return the fingerprint for the component
+	 */
+	static long getFingerprint(IApiComponent component) {
+		long fingerprint = 17 + FORMAT;
+		String location = component.getLocation();
+		if(location != null) {
+			fingerprint = 31 * fingerprint + location.hashCode();
+			File file = new File(location);
+			fingerprint = 31 * fingerprint + file.lastModified();
+			fingerprint = 31 * fingerprint + file.length();
+		}
+		fingerprint = 31 * fingerprint + String.valueOf(component.getVersion()).hashCode();
+		return fingerprint;
+	}
+
+	/**
+	 * Returns the fingerprint of the symbol table generated for the given execution environment stub.
+	 * These tables are shipped next to the stub they were generated with. The fingerprint identifies
+	 * the format of the symbols and the size of the stub, so a table is not used with a stub that was
+	 * generated again without it.
+	 *
+	 * @param stub the stub zip file the table is generated for
+	 * @return the fingerprint for the profile symbol table of the stub
+	 */
+	public static long getProfileFingerprint(File stub) {
+		long fingerprint = 31 * (17 + FORMAT) + PROFILE_SYMBOLS;
+		return 31 * fingerprint + stub.length();
+	}
+
+	/**
+	 * Returns the symbol table for the given component. The table is loaded from the given
+	 * directory if it has been written there before for the same build of the component,
+	 * otherwise it is computed from the component and saved to the directory.
+	 *
+	 * @param component the component to get the symbols of
+	 * @param directory the directory to cache symbol tables in
+	 * @return the symbol table for the component or <code>null</code> if it could not be created
+	 */
+	public static SymbolTable getSymbols(IApiComponent component, File directory) {
+		File file = new File(directory, component.getSymbolicName() + '_' + component.getVersion() + EXTENSION);
+		long fingerprint = getFingerprint(component);
+		try {
+			SymbolTable table = SymbolTable.load(file, fingerprint);
+			if(table != null) {
+				return table;
+			}
+			SymbolCollector collector = new SymbolCollector();
+			component.accept(collector);
+			SymbolTable.write(file, fingerprint, collector.symbols);
+			return SymbolTable.load(file, fingerprint);
+		}
+		catch(CoreException ce) {
+			ApiPlugin.log(ce);
+		}
+		catch(IOException ioe) {
+			ApiPlugin.log(ioe);
+		}
+		return null;
+	}
+}
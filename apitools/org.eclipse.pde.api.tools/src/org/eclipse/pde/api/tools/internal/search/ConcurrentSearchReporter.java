@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.search;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiElement;
+import org.eclipse.pde.api.tools.internal.provisional.search.IApiSearchReporter;
+import org.eclipse.pde.api.tools.internal.provisional.search.IMetadata;
+
+/**
+ * Thread-safe {@link IApiSearchReporter} used when the scope of a search is processed
+ * by more than one thread.
+ * <p>
+ * Results reported for a scope element are batched until the element has been completely
+ * searched (see {@link #elementDone(IApiElement)}). Batches are then handed to the wrapped reporter
+ * in the order the elements appear in the search scope, so the wrapped reporter sees
+ * exactly the same sequence of calls as it would for a single-threaded search and never
+ * has to deal with concurrent callers.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public class ConcurrentSearchReporter implements IApiSearchReporter {
+
+	/**
+	 * The reporter all calls are eventually forwarded to
+	 */
+	private IApiSearchReporter fReporter = null;
+	/**
+	 * The scope elements in search order
+	 */
+	private IApiElement[] fElements = null;
+	/**
+	 * Map of scope element to its index in {@link #fElements}
+	 */
+	private IdentityHashMap fIndices = null;
+	/**
+	 * Pending batches of {@link IReference}s per scope element
+	 */
+	private List[] fBatches = null;
+	/**
+	 * Completion state per scope element
+	 */
+	private boolean[] fDone = null;
+	/**
+	 * Index of the next scope element to forward to the wrapped reporter
+	 */
+	private int fNext = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param reporter the reporter to forward results to
+	 * @param elements the scope elements in the order they should be reported
+	 */
+	public ConcurrentSearchReporter(IApiSearchReporter reporter, IApiElement[] elements) {
+		fReporter = reporter;
+		fElements = elements;
+		fIndices = new IdentityHashMap(elements.length);
+		fBatches = new List[elements.length];
+		fDone = new boolean[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			fIndices.put(elements[i], new Integer(i));
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.internal.provisional.search.IApiSearchReporter#reportResults(org.eclipse.pde.api.tools.internal.provisional.model.IApiElement, org.eclipse.pde.api.tools.internal.provisional.builder.IReference[])
+	 */
+	public synchronized void reportResults(IApiElement element, IReference[] references) {
+		Integer index = (Integer) fIndices.get(element);
+		if(index == null) {
+			//not a scope element, nothing to order it against
+			fReporter.reportResults(element, references);
+			return;
+		}
+		int idx = index.intValue();
+		if(fBatches[idx] == null) {
+			fBatches[idx] = new ArrayList();
+		}
+		fBatches[idx].add(references);
+	}
+
+	/**
+	 * Notifies this reporter that the given scope element has been completely searched.
+	 * Any results for it and for the completed elements following it are forwarded
+	 * to the wrapped reporter once all preceding elements have been completed.
+	 *
+	 * @param element the scope element that is done
+	 */
+	public synchronized void elementDone(IApiElement element) {
+		Integer index = (Integer) fIndices.get(element);
+		if(index == null) {
+			return;
+		}
+		fDone[index.intValue()] = true;
+		while(fNext < fElements.length && fDone[fNext]) {
+			List batches = fBatches[fNext];
+			if(batches != null) {
+				for (int i = 0; i < batches.size(); i++) {
+					fReporter.reportResults(fElements[fNext], (IReference[]) batches.get(i));
+				}
+				fBatches[fNext] = null;
+			}
+			fNext++;
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Returns the number of scope elements that have been forwarded to the wrapped reporter
+	 *
+	 * @return the number of completed scope elements
+	 */
+	public synchronized int getReportedCount() {
+		return fNext;
+	}
+
+	/**
+	 * Waits at most the given number of milliseconds for another scope element to be completed
+	 *
+	 * @param timeout the maximum time to wait in milliseconds
+	 * @return <code>true</code> if all scope elements have been completed, <code>false</code> otherwise
+	 */
+	public synchronized boolean waitForProgress(long timeout) {
+		if(fNext < fElements.length) {
+			try {
+				wait(timeout);
+			}
+			catch(InterruptedException ie) {
+				//just return the current state
+			}
+		}
+		return fNext >= fElements.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.internal.provisional.search.IApiSearchReporter#reportNotSearched(org.eclipse.pde.api.tools.internal.provisional.model.IApiElement[])
+	 */
+	public synchronized void reportNotSearched(IApiElement[] elements) {
+		fReporter.reportNotSearched(elements);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.internal.provisional.search.IApiSearchReporter#reportMetadata(org.eclipse.pde.api.tools.internal.provisional.search.IMetadata)
+	 */
+	public synchronized void reportMetadata(IMetadata data) {
+		fReporter.reportMetadata(data);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.pde.api.tools.internal.provisional.search.IApiSearchReporter#reportCounts()
+	 */
+	public synchronized void reportCounts() {
+		fReporter.reportCounts();
+	}
+}
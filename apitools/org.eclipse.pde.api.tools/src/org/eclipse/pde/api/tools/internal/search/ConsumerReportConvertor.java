@@ -24,7 +24,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Pattern;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Path;
@@ -37,6 +36,7 @@ import org.eclipse.pde.api.tools.internal.provisional.descriptors.IComponentDesc
 import org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor;
 import org.eclipse.pde.api.tools.internal.provisional.descriptors.IMemberDescriptor;
 import org.eclipse.pde.api.tools.internal.provisional.descriptors.IReferenceTypeDescriptor;
+import org.eclipse.pde.api.tools.internal.util.PatternFilter;
 import org.eclipse.pde.api.tools.internal.util.Signatures;
 
 /**
@@ -229,8 +229,8 @@ public class ConsumerReportConvertor extends UseReportConverter {
 		 */
 		public void visitReference(IReferenceDescriptor reference) {
 			IMemberDescriptor fromMember = reference.getMember();
-			if(!acceptReference(reference.getReferencedMember(), topatterns) || 
-					!acceptReference(fromMember, frompatterns)) {
+			if(!acceptReference(reference.getReferencedMember(), tofilter) || 
+					!acceptReference(fromMember, fromfilter)) {
 				return;
 			}
 			int lineNumber = reference.getLineNumber();
@@ -372,15 +372,8 @@ public class ConsumerReportConvertor extends UseReportConverter {
 		 * @param desc
 		 * @return true if the reference should be reported false otherwise
 		 */
-		private boolean acceptReference(IMemberDescriptor desc, Pattern[] patterns) {
-			if(patterns != null) {
-				for (int i = 0; i < patterns.length; i++) {
-					if(patterns[i].matcher(desc.getPackage().getName()).find()) {
-						return false;
-					}
-				}
-			}
-			return true;
+		private boolean acceptReference(IMemberDescriptor desc, PatternFilter filter) {
+			return filter == null || !filter.matches(desc.getPackage().getName());
 		}
 		
 		/**
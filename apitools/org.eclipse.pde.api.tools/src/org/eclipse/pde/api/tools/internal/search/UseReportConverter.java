@@ -28,7 +28,6 @@ import java.util.Map.Entry;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -60,6 +59,7 @@ import org.eclipse.pde.api.tools.internal.provisional.descriptors.IMemberDescrip
 import org.eclipse.pde.api.tools.internal.provisional.descriptors.IMethodDescriptor;
 import org.eclipse.pde.api.tools.internal.provisional.descriptors.IReferenceTypeDescriptor;
 import org.eclipse.pde.api.tools.internal.provisional.search.IMetadata;
+import org.eclipse.pde.api.tools.internal.util.PatternFilter;
 import org.eclipse.pde.api.tools.internal.util.Signatures;
 import org.eclipse.pde.api.tools.internal.util.Util;
 import org.osgi.framework.Version;
@@ -95,15 +95,8 @@ public class UseReportConverter extends HTMLConvertor {
 		 * @param desc
 		 * @return true if the reference should be reported false otherwise
 		 */
-		private boolean acceptReference(IMemberDescriptor desc, Pattern[] patterns) {
-			if(patterns != null) {
-				for (int i = 0; i < patterns.length; i++) {
-					if(patterns[i].matcher(desc.getPackage().getName()).find()) {
-						return false;
-					}
-				}
-			}
-			return true;
+		private boolean acceptReference(IMemberDescriptor desc, PatternFilter filter) {
+			return filter == null || !filter.matches(desc.getPackage().getName());
 		}
 		
 		/**
@@ -248,8 +241,8 @@ public class UseReportConverter extends HTMLConvertor {
 		 */
 		public void visitReference(IReferenceDescriptor reference) {
 			IMemberDescriptor fromMember = reference.getMember();
-			if(!acceptReference(reference.getReferencedMember(), topatterns) || 
-					!acceptReference(fromMember, frompatterns)) {
+			if(!acceptReference(reference.getReferencedMember(), tofilter) || 
+					!acceptReference(fromMember, fromfilter)) {
 				return;
 			}
 			int lineNumber = reference.getLineNumber();
@@ -620,8 +613,8 @@ public class UseReportConverter extends HTMLConvertor {
 	private boolean hasmissing = false;
 	SAXParser parser = null;
 	private UseMetadata metadata = null;
-	Pattern[] topatterns = null;
-	Pattern[] frompatterns = null;
+	PatternFilter tofilter = null;
+	PatternFilter fromfilter = null;
 	
 	/**
 	 * Constructor
@@ -633,40 +626,32 @@ public class UseReportConverter extends HTMLConvertor {
 	public UseReportConverter(String htmlroot, String xmlroot, String[] topatterns, String[] frompatterns) {
 		this.xmlLocation = xmlroot;
 		this.htmlLocation = htmlroot;
-		if(topatterns != null) {
-			ArrayList pats = new ArrayList(topatterns.length);
-			for (int i = 0; i < topatterns.length; i++) {
-				try {
-					pats.add(Pattern.compile(topatterns[i]));
-				}
-				catch(PatternSyntaxException pse) {
-					if(ApiPlugin.DEBUG_USE_REPORT_CONVERTER) {
-						System.out.println(NLS.bind(SearchMessages.UseReportConverter_filter_pattern_not_valid, topatterns[i]));
-						System.out.println(pse.getMessage());
-					}
-				}
-			}
-			if(!pats.isEmpty()) {
-				this.topatterns = (Pattern[]) pats.toArray(new Pattern[pats.size()]);
-			}
+		this.tofilter = createFilter(topatterns);
+		this.fromfilter = createFilter(frompatterns);
+	}
+	
+	/**
+	 * Creates a {@link PatternFilter} for the given regular expressions. Invalid expressions are skipped.
+	 * @param patterns the regular expressions or <code>null</code>
+	 * @return a new {@link PatternFilter} or <code>null</code> if there are no valid patterns
+	 */
+	static PatternFilter createFilter(String[] patterns) {
+		if(patterns == null) {
+			return null;
 		}
-		if(frompatterns != null) {
-			ArrayList pats = new ArrayList(frompatterns.length);
-			for (int i = 0; i < frompatterns.length; i++) {
-				try {
-					pats.add(Pattern.compile(frompatterns[i]));
-				}
-				catch(PatternSyntaxException pse) {
-					if(ApiPlugin.DEBUG_USE_REPORT_CONVERTER) {
-						System.out.println(NLS.bind(SearchMessages.UseReportConverter_filter_pattern_not_valid, frompatterns[i]));
-						System.out.println(pse.getMessage());
-					}
-				}
+		PatternFilter filter = new PatternFilter(false);
+		for (int i = 0; i < patterns.length; i++) {
+			try {
+				filter.addPattern(patterns[i]);
 			}
-			if(!pats.isEmpty()) {
-				this.frompatterns = (Pattern[]) pats.toArray(new Pattern[pats.size()]);
+			catch(PatternSyntaxException pse) {
+				if(ApiPlugin.DEBUG_USE_REPORT_CONVERTER) {
+					System.out.println(NLS.bind(SearchMessages.UseReportConverter_filter_pattern_not_valid, patterns[i]));
+					System.out.println(pse.getMessage());
+				}
 			}
 		}
+		return filter.isEmpty() ? null : filter;
 	}
 	
 	protected String getHtmlLocation(){
@@ -1655,9 +1640,10 @@ public class UseReportConverter extends HTMLConvertor {
 			buffer.append(OPEN_TR);
 			buffer.append(openTD(14)).append(SearchMessages.UseReportConverter_filter_pattern).append(CLOSE_TD); 
 			buffer.append(openTD(36)); 
-			if(this.frompatterns != null) {
-				for (int i = 0; i < this.frompatterns.length; i++) {
-					buffer.append(this.frompatterns[i].pattern()).append(BR);
+			if(this.fromfilter != null) {
+				String[] patterns = this.fromfilter.getPatterns();
+				for (int i = 0; i < patterns.length; i++) {
+					buffer.append(patterns[i]).append(BR);
 				}
 			}
 			else {
@@ -1669,9 +1655,10 @@ public class UseReportConverter extends HTMLConvertor {
 			buffer.append(OPEN_TR);
 			buffer.append(openTD(14)).append(SearchMessages.UseReportConverter_to_filter_patterns).append(CLOSE_TD); 
 			buffer.append(openTD(36)); 
-			if(this.topatterns != null) {
-				for (int i = 0; i < this.topatterns.length; i++) {
-					buffer.append(this.topatterns[i].pattern()).append(BR);
+			if(this.tofilter != null) {
+				String[] patterns = this.tofilter.getPatterns();
+				for (int i = 0; i < patterns.length; i++) {
+					buffer.append(patterns[i]).append(BR);
 				}
 			}
 			else {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2010 IBM Corporation and others.
+ * Copyright (c) 2009, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -62,10 +62,15 @@ public class UseSearchRequestor implements IApiSearchRequestor {
 	private String[] jarPatterns = null;
 
 	/**
-	 * The default {@link ReferenceAnalyzer} for detecting illegal API use
+	 * The {@link ReferenceAnalyzer}s for detecting illegal API use. The problem detectors 
+	 * are built for the component being searched, so each searching thread needs its own analyzer
 	 * @see #includesIllegalUse()
 	 */
-	ReferenceAnalyzer fAnalyzer = null;
+	ThreadLocal fAnalyzer = new ThreadLocal() {
+		protected Object initialValue() {
+			return new ReferenceAnalyzer();
+		}
+	};
 	
 	/**
 	 * Constructor
@@ -81,7 +86,6 @@ public class UseSearchRequestor implements IApiSearchRequestor {
 	public UseSearchRequestor(Set/*<String>*/ elementnames, IApiElement[] scope, int searchkinds) {
 		fSearchMask = searchkinds;
 		fComponentIds = elementnames;
-		fAnalyzer = new ReferenceAnalyzer();
 		prepareScope(scope);
 	}
 	
@@ -92,7 +96,7 @@ public class UseSearchRequestor implements IApiSearchRequestor {
 		try {
 			if(!component.isSystemComponent() && getScope().encloses(component)) {
 				if(includesIllegalUse()) {
-					fAnalyzer.buildProblemDetectors(component, ProblemDetectorBuilder.K_USE, null);
+					getAnalyzer().buildProblemDetectors(component, ProblemDetectorBuilder.K_USE, null);
 				}
 				return true;
 			}
@@ -181,6 +185,14 @@ public class UseSearchRequestor implements IApiSearchRequestor {
 		return false;
 	}
 	
+	/**
+	 * Returns the {@link ReferenceAnalyzer} of the calling thread
+	 * @return the {@link ReferenceAnalyzer} of the calling thread
+	 */
+	ReferenceAnalyzer getAnalyzer() {
+		return (ReferenceAnalyzer) fAnalyzer.get();
+	}
+	
 	/**
 	 * Returns true if the given reference is an illegal usage reference
 	 * iff illegal use is part of the search mask.
@@ -189,7 +201,7 @@ public class UseSearchRequestor implements IApiSearchRequestor {
 	 * @since 1.1
 	 */
 	boolean isIllegalUse(IReference reference) {
-		IApiProblemDetector[] detectors = fAnalyzer.getProblemDetectors(reference.getReferenceKind());
+		IApiProblemDetector[] detectors = getAnalyzer().getProblemDetectors(reference.getReferenceKind());
 		for (int i = 0; i < detectors.length; i++) {
 			if(detectors[i].considerReference(reference)) {
 				Reference ref = (Reference) reference;
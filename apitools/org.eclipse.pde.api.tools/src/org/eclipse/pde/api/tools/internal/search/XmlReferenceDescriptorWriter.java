@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2011 IBM Corporation and others.
+ * Copyright (c) 2009, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,20 +12,24 @@ package org.eclipse.pde.api.tools.internal.search;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.FactoryConfigurationError;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.pde.api.tools.internal.IApiCoreConstants;
@@ -41,15 +45,18 @@ import org.eclipse.pde.api.tools.internal.provisional.descriptors.IMemberDescrip
 import org.eclipse.pde.api.tools.internal.provisional.descriptors.IMethodDescriptor;
 import org.eclipse.pde.api.tools.internal.provisional.descriptors.IReferenceTypeDescriptor;
 import org.eclipse.pde.api.tools.internal.util.Signatures;
-import org.eclipse.pde.api.tools.internal.util.Util;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import org.eclipse.pde.api.tools.internal.util.XmlStreamWriter;
+import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * Writes reference descriptions to XML files.
+ * <p>
+ * References are collated and sorted in memory per output file and then streamed out. If an output 
+ * file already exists it is read with a SAX parser and copied to the new file, merging the new 
+ * references into the matching target and reference kind elements as they stream past.
+ * </p>
  * 
  * @since 1.0.1
  */
@@ -64,7 +71,7 @@ public class XmlReferenceDescriptorWriter {
 	private static final Integer V_ILLEGAL = new Integer(VisibilityModifiers.ILLEGAL_API);
 	private String fLocation = null;
 	private HashMap fReferenceMap = null;
-	private DocumentBuilder parser = null;
+	private SAXParser parser = null;
 	
 	/**
 	 * Alternate API component where references were unresolved, or <code>null</code>
@@ -72,6 +79,204 @@ public class XmlReferenceDescriptorWriter {
 	 */
 	private IComponentDescriptor alternate;
 	
+	/**
+	 * A reference waiting to be written, with its pre-computed origin text
+	 */
+	static final class PendingReference {
+		IReferenceDescriptor reference = null;
+		String origin = null;
+		PendingReference(IReferenceDescriptor reference, String origin) {
+			this.reference = reference;
+			this.origin = origin;
+		}
+	}
+	
+	/**
+	 * Orders {@link PendingReference}s by origin and then line number
+	 */
+	static final Comparator PENDING_COMPARATOR = new Comparator() {
+		public int compare(Object o1, Object o2) {
+			PendingReference p1 = (PendingReference) o1;
+			PendingReference p2 = (PendingReference) o2;
+			int result = String.valueOf(p1.origin).compareTo(String.valueOf(p2.origin));
+			if(result == 0) {
+				return p1.reference.getLineNumber() - p2.reference.getLineNumber();
+			}
+			return result;
+		}
+	};
+	
+	/**
+	 * The collated references to one target (referenced member), grouped by reference kind
+	 */
+	static final class TargetGroup {
+		/**
+		 * The distinct references to the target
+		 */
+		HashSet references = new HashSet();
+		/**
+		 * Map of reference kind ({@link Integer}) to {@link List} of {@link PendingReference}s
+		 */
+		TreeMap kinds = new TreeMap();
+		/**
+		 * The resolved referenced member
+		 */
+		IMemberDescriptor resolved = null;
+		
+		/**
+		 * Adds the given reference to the group if no equal reference has already been added
+		 * @param reference
+		 * @param origin
+		 */
+		void add(IReferenceDescriptor reference, String origin) {
+			if(!references.add(reference)) {
+				return;
+			}
+			Integer kind = new Integer(reference.getReferenceKind());
+			List list = (List) kinds.get(kind);
+			if(list == null) {
+				list = new ArrayList();
+				kinds.put(kind, list);
+			}
+			list.add(new PendingReference(reference, origin));
+			if(resolved == null) {
+				resolved = reference.getReferencedMember();
+			}
+		}
+		
+		/**
+		 * Sorts the pending references of each kind
+		 */
+		void sort() {
+			for (Iterator iter = kinds.values().iterator(); iter.hasNext();) {
+				Collections.sort((List) iter.next(), PENDING_COMPARATOR);
+			}
+		}
+	}
+	
+	/**
+	 * Handler that copies an existing reference file to an {@link XmlStreamWriter}, merging
+	 * in the pending references as the matching elements are closed.
+	 */
+	final class MergeHandler extends DefaultHandler {
+		private XmlStreamWriter writer = null;
+		private TreeMap targets = null;
+		private int added = 0;
+		private TargetGroup target = null;
+		private List kind = null;
+		
+		/**
+		 * Constructor
+		 * @param writer the writer to copy to
+		 * @param targets the pending references, entries are removed as they are merged
+		 * @param added the number of pending references
+		 */
+		MergeHandler(XmlStreamWriter writer, TreeMap targets, int added) {
+			this.writer = writer;
+			this.targets = targets;
+			this.added = added;
+		}
+		
+		/* (non-Javadoc)
+		 * @see org.xml.sax.helpers.DefaultHandler#startElement(java.lang.String, java.lang.String, java.lang.String, org.xml.sax.Attributes)
+		 */
+		public void startElement(String uri, String localName, String name, Attributes attributes) throws SAXException {
+			try {
+				writer.startElement(name);
+				LinkedHashMap overrides = null;
+				if(IApiXmlConstants.REFERENCES.equals(name)) {
+					int count = 0;
+					try {
+						count = Integer.parseInt(attributes.getValue(IApiXmlConstants.ATTR_REFERENCE_COUNT));
+					}
+					catch(NumberFormatException nfe) {
+						//treat as no previous references
+					}
+					overrides = new LinkedHashMap();
+					overrides.put(IApiXmlConstants.ATTR_REFERENCE_COUNT, Integer.toString(count + added));
+				}
+				else if(IApiXmlConstants.ELEMENT_TARGET.equals(name)) {
+					String tname = attributes.getValue(IApiXmlConstants.ATTR_NAME);
+					target = tname == null ? null : (TargetGroup) targets.remove(tname);
+					if(target != null && target.resolved != null) {
+						overrides = getMemberDetails(target.resolved);
+					}
+				}
+				else if(IApiXmlConstants.REFERENCE_KIND.equals(name)) {
+					kind = null;
+					if(target != null) {
+						try {
+							kind = (List) target.kinds.remove(Integer.valueOf(attributes.getValue(IApiXmlConstants.ATTR_KIND)));
+						}
+						catch(NumberFormatException nfe) {
+							//not a kind we know about, copy it as is
+						}
+					}
+				}
+				copyAttributes(attributes, overrides);
+			}
+			catch(IOException ioe) {
+				throw new SAXException(ioe);
+			}
+		}
+		
+		/* (non-Javadoc)
+		 * @see org.xml.sax.helpers.DefaultHandler#endElement(java.lang.String, java.lang.String, java.lang.String)
+		 */
+		public void endElement(String uri, String localName, String name) throws SAXException {
+			try {
+				if(IApiXmlConstants.REFERENCE_KIND.equals(name)) {
+					if(kind != null) {
+						writeReferences(writer, kind);
+						kind = null;
+					}
+				}
+				else if(IApiXmlConstants.ELEMENT_TARGET.equals(name)) {
+					if(target != null) {
+						writeKinds(writer, target);
+						target = null;
+					}
+				}
+				else if(IApiXmlConstants.REFERENCES.equals(name)) {
+					writeTargets(writer, targets);
+				}
+				writer.endElement();
+			}
+			catch(IOException ioe) {
+				throw new SAXException(ioe);
+			}
+			catch(CoreException ce) {
+				throw new SAXException(ce);
+			}
+		}
+		
+		/**
+		 * Copies the given attributes to the current element, replacing the values of any attributes found
+		 * in the given overrides map and adding any remaining overrides
+		 * @param attributes
+		 * @param overrides map of attribute name to value or <code>null</code>
+		 * @throws IOException
+		 */
+		private void copyAttributes(Attributes attributes, Map overrides) throws IOException {
+			String aname = null;
+			for (int i = 0; i < attributes.getLength(); i++) {
+				aname = attributes.getQName(i);
+				if(overrides != null && overrides.containsKey(aname)) {
+					writer.attribute(aname, (String) overrides.remove(aname));
+				}
+				else {
+					writer.attribute(aname, attributes.getValue(i));
+				}
+			}
+			if(overrides != null) {
+				for (Iterator iter = overrides.entrySet().iterator(); iter.hasNext();) {
+					Map.Entry entry = (Map.Entry) iter.next();
+					writer.attribute((String) entry.getKey(), (String) entry.getValue());
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Constructor
 	 * 
@@ -81,8 +286,7 @@ public class XmlReferenceDescriptorWriter {
 	public XmlReferenceDescriptorWriter(String location) {
 		fLocation = location;
 		try {
-			parser = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-			parser.setErrorHandler(new DefaultHandler());
+			parser = SAXParserFactory.newInstance().newSAXParser();
 		}
 		catch(FactoryConfigurationError fce) {
 			ApiPlugin.log(fce);
@@ -90,6 +294,9 @@ public class XmlReferenceDescriptorWriter {
 		catch (ParserConfigurationException pce) {
 			ApiPlugin.log(pce);
 		}
+		catch (SAXException se) {
+			ApiPlugin.log(se);
+		}
 	}
 
 	/**
@@ -128,7 +335,7 @@ public class XmlReferenceDescriptorWriter {
 	 * rmap (Referencing Component ID -> mmap)
 	 * mmap (Visibility -> vmap)
 	 * vmap (Reference Type -> tmap)
-	 * tmap (Referenced Member -> Reference Descriptor) 
+	 * tmap (Referenced Member -> {@link TargetGroup}), sorted by referenced member 
 	 * </pre>
 	 * @param references
 	 */
@@ -143,8 +350,8 @@ public class XmlReferenceDescriptorWriter {
 		HashMap rmap = null;
 		HashMap mmap = null;
 		HashMap vmap = null;
-		HashMap tmap = null;
-		HashSet reflist = null;
+		TreeMap tmap = null;
+		TargetGroup group = null;
 		IComponentDescriptor rcomponent = null;
 		IComponentDescriptor mcomponent = null;
 		for (int i = 0; i < references.length; i++) {
@@ -174,18 +381,18 @@ public class XmlReferenceDescriptorWriter {
 				mmap.put(visibility, vmap);
 			}
 			type = new Integer(references[i].getReferenceType());
-			tmap = (HashMap) vmap.get(type);
+			tmap = (TreeMap) vmap.get(type);
 			if(tmap == null) {
-				tmap = new HashMap();
+				tmap = new TreeMap();
 				vmap.put(type, tmap);
 			}
 			tname = getText(references[i].getReferencedMember());
-			reflist = (HashSet) tmap.get(tname);
-			if(reflist == null) {
-				reflist = new HashSet();
-				tmap.put(tname, reflist);
+			group = (TargetGroup) tmap.get(tname);
+			if(group == null) {
+				group = new TargetGroup();
+				tmap.put(tname, group);
 			}
-			reflist.add(references[i]);
+			group.add(references[i], getText(references[i].getMember()));
 		}
 	}
 	
@@ -238,12 +445,11 @@ public class XmlReferenceDescriptorWriter {
 	 * Writes out the XML for the given api element using the collated {@link IReference}s
 	 * @param parent
 	 * @throws CoreException
-	 * @throws FileNotFoundException
 	 * @throws IOException
 	 */
-	private void writeXML(File parent) throws CoreException, FileNotFoundException, IOException {
+	private void writeXML(File parent) throws CoreException, IOException {
 		HashMap vismap = null;
-		HashMap typemap = null;
+		TreeMap typemap = null;
 		HashMap rmap = null;
 		HashMap mmap = null;
 		Integer type = null;
@@ -281,7 +487,7 @@ public class XmlReferenceDescriptorWriter {
 					for(Iterator iter3 = vismap.entrySet().iterator(); iter3.hasNext();) {
 						Map.Entry entry4 = (Map.Entry) iter3.next();
 						type = (Integer) entry4.getKey();
-						typemap = (HashMap) entry4.getValue();
+						typemap = (TreeMap) entry4.getValue();
 						writeGroup(id, referee, location, getRefTypeName(type.intValue()), typemap, vis.intValue());
 					}
 				}
@@ -290,7 +496,9 @@ public class XmlReferenceDescriptorWriter {
 	}
 	
 	/**
-	 * Writes out a group of references under the newly created element with the given name
+	 * Writes out a group of references under the newly created element with the given name. If the file for 
+	 * the group already exists the references are merged into it.
+	 * 
 	 * @param origin the name of the bundle that has the references in it
 	 * @param referee the name of the bundle that is referenced
 	 * @param parent
@@ -298,191 +506,191 @@ public class XmlReferenceDescriptorWriter {
 	 * @param map
 	 * @param visibility
 	 */
-	private void writeGroup(String origin, String referee, File parent, String name, HashMap map, int visibility) throws CoreException, FileNotFoundException, IOException {
-		if(parent.exists()) {
-			BufferedWriter writer = null;
+	private void writeGroup(String origin, String referee, File parent, String name, TreeMap map, int visibility) throws CoreException, IOException {
+		if(!parent.exists()) {
+			return;
+		}
+		int count = 0;
+		for (Iterator iter = map.values().iterator(); iter.hasNext();) {
+			TargetGroup group = (TargetGroup) iter.next();
+			group.sort();
+			count += group.references.size();
+		}
+		File out = new File(parent, name+".xml"); //$NON-NLS-1$
+		if(out.exists()) {
+			if(this.parser == null) {
+				return;
+			}
+			File temp = new File(parent, name+".xml.tmp"); //$NON-NLS-1$
+			XmlStreamWriter writer = newWriter(temp);
+			boolean merged = false;
 			try {
-				Document doc = null;
-				Element root = null;
-				int count = 0;
-				File out = new File(parent, name+".xml"); //$NON-NLS-1$
-				if(out.exists()) {
-					try {
-						FileInputStream inputStream = null;
-						try {
-							inputStream = new FileInputStream(out);
-							doc = this.parser.parse(inputStream);
-						} catch (IOException e) {
-							e.printStackTrace();
-						} finally {
-							if (inputStream != null) {
-								inputStream.close();
-							}
-						}
-						if (doc == null) {
-							return;
-						}
-						root = doc.getDocumentElement();
-						String value = root.getAttribute(IApiXmlConstants.ATTR_REFERENCE_COUNT);
-						count = Integer.parseInt(value);
-					}
-					catch(SAXException se) {
-						se.printStackTrace();
-					}
-				}
-				else {
-					doc = Util.newDocument();
-					root = doc.createElement(IApiXmlConstants.REFERENCES);
-					doc.appendChild(root);
-					root.setAttribute(IApiXmlConstants.ATTR_REFERENCE_VISIBILITY, Integer.toString(visibility));
-					root.setAttribute(IApiXmlConstants.ATTR_ORIGIN, origin);
-					root.setAttribute(IApiXmlConstants.ATTR_REFEREE, referee);
-					root.setAttribute(IApiXmlConstants.ATTR_NAME, getFormattedTypeName(name));
-					if (alternate != null) {
-						root.setAttribute(IApiXmlConstants.ATTR_ALTERNATE, getId(alternate));
-					}
-				}
-				if(doc == null) {
-					return;
-				}
-				String tname = null;
-				HashSet refs = null;
-				Element telement = null;
-				for(Iterator iter = map.entrySet().iterator(); iter.hasNext();) {
-					Map.Entry entry = (Map.Entry) iter.next();
-					tname = (String) entry.getKey();
-					telement = findTypeElement(root, tname);
-					if(telement == null) {
-						telement = doc.createElement(IApiXmlConstants.ELEMENT_TARGET);
-						telement.setAttribute(IApiXmlConstants.ATTR_NAME, tname);
-						root.appendChild(telement);
-					}
-					refs = (HashSet) entry.getValue();
-					if(refs != null) {
-						for(Iterator iter2 = refs.iterator(); iter2.hasNext();) {
-							count++;
-							IReferenceDescriptor ref = (IReferenceDescriptor) iter2.next();
-							writeReference(doc, telement, ref);
-							if (!iter2.hasNext()) {
-								// set qualified referenced attributes
-								IMemberDescriptor resolved  = ref.getReferencedMember();
-								if (resolved != null) {
-									addMemberDetails(telement, resolved);
-								}
-							}
-						}
-					}
-				}
-				root.setAttribute(IApiXmlConstants.ATTR_REFERENCE_COUNT, Integer.toString(count));
-				writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out), IApiCoreConstants.UTF_8));
-				writer.write(Util.serializeDocument(doc));
-				writer.flush();
+				this.parser.parse(out, new MergeHandler(writer, map, count));
+				writer.endDocument();
+				merged = true;
+			}
+			catch(SAXException se) {
+				se.printStackTrace();
 			}
 			finally {
-				if (writer != null) {
-					writer.close();
-				}
+				writer.close();
+			}
+			if(merged && out.delete() && temp.renameTo(out)) {
+				return;
 			}
+			temp.delete();
+			return;
+		}
+		XmlStreamWriter writer = newWriter(out);
+		try {
+			writer.startElement(IApiXmlConstants.REFERENCES);
+			writer.attribute(IApiXmlConstants.ATTR_REFERENCE_VISIBILITY, Integer.toString(visibility));
+			writer.attribute(IApiXmlConstants.ATTR_ORIGIN, origin);
+			writer.attribute(IApiXmlConstants.ATTR_REFEREE, referee);
+			writer.attribute(IApiXmlConstants.ATTR_NAME, getFormattedTypeName(name));
+			if (alternate != null) {
+				writer.attribute(IApiXmlConstants.ATTR_ALTERNATE, getId(alternate));
+			}
+			writer.attribute(IApiXmlConstants.ATTR_REFERENCE_COUNT, Integer.toString(count));
+			writeTargets(writer, map);
+			writer.endDocument();
+		}
+		finally {
+			writer.close();
 		}
 	}
 	
 	/**
-	 * Add member descriptor details to the given element.
-	 * 
-	 * @param element XML element
-	 * @param member member to add details for
+	 * Creates a new {@link XmlStreamWriter} on the given file and writes the XML declaration
+	 * @param file
+	 * @return a new writer
+	 * @throws IOException
 	 */
-	private void addMemberDetails(Element element, IMemberDescriptor member) {
-		switch (member.getElementType()) {
-		case IElementDescriptor.TYPE:
-			element.setAttribute(IApiXmlConstants.ATTR_TYPE, ((IReferenceTypeDescriptor)member).getQualifiedName());
-			break;
-		case IElementDescriptor.FIELD:
-			IReferenceTypeDescriptor encl = member.getEnclosingType();
-			element.setAttribute(IApiXmlConstants.ATTR_TYPE, encl.getQualifiedName());
-			element.setAttribute(IApiXmlConstants.ATTR_MEMBER_NAME, member.getName());
-			break;
-		case IElementDescriptor.METHOD:
-			encl = member.getEnclosingType();
-			element.setAttribute(IApiXmlConstants.ATTR_TYPE, encl.getQualifiedName());
-			element.setAttribute(IApiXmlConstants.ATTR_MEMBER_NAME, member.getName());
-			element.setAttribute(IApiXmlConstants.ATTR_SIGNATURE, ((IMethodDescriptor)member).getSignature());
-			break;
-		}
+	private XmlStreamWriter newWriter(File file) throws IOException {
+		XmlStreamWriter writer = new XmlStreamWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), IApiCoreConstants.UTF_8)));
+		writer.startDocument();
+		return writer;
 	}
 	
 	/**
-	 * gets the root kind element
-	 * @param root
-	 * @param kind
-	 * @return
+	 * Writes a target element with all of its references for each of the given targets
+	 * @param writer
+	 * @param targets map of target name to {@link TargetGroup}
+	 * @throws IOException
+	 * @throws CoreException
 	 */
-	private Element findTypeElement(Element root, String tname) {
-		if(tname == null) {
-			return null;
-		}
-		Element kelement = null;
-		NodeList nodes = root.getElementsByTagName(IApiXmlConstants.ELEMENT_TARGET);
-		for (int i = 0; i < nodes.getLength(); i++) {
-			kelement = (Element) nodes.item(i);
-			if(tname.equals(kelement.getAttribute(IApiXmlConstants.ATTR_NAME))) {
-				return kelement;
+	void writeTargets(XmlStreamWriter writer, TreeMap targets) throws IOException, CoreException {
+		for (Iterator iter = targets.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry = (Map.Entry) iter.next();
+			TargetGroup group = (TargetGroup) entry.getValue();
+			writer.startElement(IApiXmlConstants.ELEMENT_TARGET);
+			writer.attribute(IApiXmlConstants.ATTR_NAME, (String) entry.getKey());
+			if(group.resolved != null) {
+				writeAttributes(writer, getMemberDetails(group.resolved));
 			}
+			writeKinds(writer, group);
+			writer.endElement();
 		}
-		return null;
+		targets.clear();
 	}
 	
 	/**
-	 * gets the root kind element
-	 * @param root
-	 * @param kind
-	 * @return
+	 * Writes a reference kind element with all of its references for each kind in the given group
+	 * @param writer
+	 * @param group
+	 * @throws IOException
+	 * @throws CoreException 
 	 */
-	private Element findKindElement(Element root, Integer kind) {
-		Element kelement = null;
-		NodeList nodes = root.getElementsByTagName(IApiXmlConstants.REFERENCE_KIND);
-		for (int i = 0; i < nodes.getLength(); i++) {
-			kelement = (Element) nodes.item(i);
-			if(kind.toString().equals(kelement.getAttribute(IApiXmlConstants.ATTR_KIND))) {
-				return kelement;
-			}
+	void writeKinds(XmlStreamWriter writer, TargetGroup group) throws IOException, CoreException {
+		for (Iterator iter = group.kinds.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry = (Map.Entry) iter.next();
+			Integer kind = (Integer) entry.getKey();
+			List refs = (List) entry.getValue();
+			writer.startElement(IApiXmlConstants.REFERENCE_KIND);
+			writer.attribute(IApiXmlConstants.ATTR_REFERENCE_KIND_NAME, Reference.getReferenceText(kind.intValue()));
+			writer.attribute(IApiXmlConstants.ATTR_KIND, kind.toString());
+			writer.attribute(IApiXmlConstants.ATTR_FLAGS, Integer.toString(((PendingReference) refs.get(0)).reference.getReferenceFlags()));
+			writeReferences(writer, refs);
+			writer.endElement();
+		}
+		group.kinds.clear();
+	}
+	
+	/**
+	 * Writes a reference element for each of the given {@link PendingReference}s
+	 * @param writer
+	 * @param references
+	 * @throws IOException
+	 * @throws CoreException 
+	 */
+	void writeReferences(XmlStreamWriter writer, List references) throws IOException, CoreException {
+		for (int i = 0; i < references.size(); i++) {
+			writeReference(writer, (PendingReference) references.get(i));
 		}
-		return null;
 	}
 	
 	/**
-	 * Writes the attributes from the given {@link IReference} into a new {@link Element} that is added to 
-	 * the given parent.
+	 * Writes the given attributes to the current element
+	 * @param writer
+	 * @param attributes map of attribute name to value
+	 * @throws IOException
+	 */
+	private void writeAttributes(XmlStreamWriter writer, Map attributes) throws IOException {
+		for (Iterator iter = attributes.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry = (Map.Entry) iter.next();
+			writer.attribute((String) entry.getKey(), (String) entry.getValue());
+		}
+	}
+	
+	/**
+	 * Returns the member descriptor detail attributes for the given member.
 	 * 
-	 * @param document
-	 * @param parent
-	 * @param reference
+	 * @param member member to get details for
+	 * @return map of attribute name to value
 	 */
-	private void writeReference(Document document, Element parent, IReferenceDescriptor reference) throws CoreException {
-		Element kelement = null;
-		Integer kind = new Integer(reference.getReferenceKind());
-		kelement = findKindElement(parent, kind);
-		if(kelement == null) {
-			kelement = document.createElement(IApiXmlConstants.REFERENCE_KIND);
-			kelement.setAttribute(IApiXmlConstants.ATTR_REFERENCE_KIND_NAME, Reference.getReferenceText(kind.intValue()));
-			kelement.setAttribute(IApiXmlConstants.ATTR_KIND, kind.toString());
-			kelement.setAttribute(IApiXmlConstants.ATTR_FLAGS, Integer.toString(reference.getReferenceFlags()));
-			parent.appendChild(kelement);
-		}
-		Element relement = document.createElement(IApiXmlConstants.ATTR_REFERENCE);
-		IMemberDescriptor member = reference.getMember();
-		relement.setAttribute(IApiXmlConstants.ATTR_ORIGIN, getText(member));
+	LinkedHashMap getMemberDetails(IMemberDescriptor member) {
+		LinkedHashMap details = new LinkedHashMap(4);
+		switch (member.getElementType()) {
+		case IElementDescriptor.TYPE:
+			details.put(IApiXmlConstants.ATTR_TYPE, ((IReferenceTypeDescriptor)member).getQualifiedName());
+			break;
+		case IElementDescriptor.FIELD:
+			IReferenceTypeDescriptor encl = member.getEnclosingType();
+			details.put(IApiXmlConstants.ATTR_TYPE, encl.getQualifiedName());
+			details.put(IApiXmlConstants.ATTR_MEMBER_NAME, member.getName());
+			break;
+		case IElementDescriptor.METHOD:
+			encl = member.getEnclosingType();
+			details.put(IApiXmlConstants.ATTR_TYPE, encl.getQualifiedName());
+			details.put(IApiXmlConstants.ATTR_MEMBER_NAME, member.getName());
+			details.put(IApiXmlConstants.ATTR_SIGNATURE, ((IMethodDescriptor)member).getSignature());
+			break;
+		}
+		return details;
+	}
+	
+	/**
+	 * Writes the attributes from the given {@link PendingReference} into a new reference element.
+	 * References without a referenced member are not written.
+	 * 
+	 * @param writer
+	 * @param pending
+	 */
+	private void writeReference(XmlStreamWriter writer, PendingReference pending) throws IOException {
+		IReferenceDescriptor reference = pending.reference;
+		if(reference.getReferencedMember() == null) {
+			return;
+		}
+		writer.startElement(IApiXmlConstants.ATTR_REFERENCE);
+		writer.attribute(IApiXmlConstants.ATTR_ORIGIN, pending.origin);
 		String[] messages = reference.getProblemMessages();
 		if(messages != null) {
-			relement.setAttribute(IApiXmlConstants.ELEMENT_PROBLEM_MESSAGE_ARGUMENTS, getText(messages));
+			writer.attribute(IApiXmlConstants.ELEMENT_PROBLEM_MESSAGE_ARGUMENTS, getText(messages));
 		}
 		// add detailed information about origin
-		addMemberDetails(relement, member);
-		member = reference.getReferencedMember();
-		if(member != null) {
-			relement.setAttribute(IApiXmlConstants.ATTR_LINE_NUMBER, Integer.toString(reference.getLineNumber()));
-			kelement.appendChild(relement);
-		}
+		writeAttributes(writer, getMemberDetails(reference.getMember()));
+		writer.attribute(IApiXmlConstants.ATTR_LINE_NUMBER, Integer.toString(reference.getLineNumber()));
+		writer.endElement();
 	}
 	
 	/**
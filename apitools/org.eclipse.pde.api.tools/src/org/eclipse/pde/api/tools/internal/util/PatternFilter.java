@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A set of regular expressions that is tested against names (package names, component ids, ...).
+ * <p>
+ * Patterns that are simple literals anchored at the start of the name (such as <code>^org\.eclipse\.jdt</code>
+ * or, when matching the whole name, <code>org\.eclipse\..*</code>) are compiled into a prefix trie,
+ * literals that must match the whole name are kept in a hash set, and only the remaining patterns are
+ * evaluated as regular expressions. The outcome for each name is remembered, so repeated queries for the
+ * same name cost a single hash lookup.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public final class PatternFilter {
+
+	/**
+	 * Node in the prefix trie
+	 */
+	static final class Node {
+		char[] keys = new char[0];
+		Node[] children = new Node[0];
+		/**
+		 * If a prefix pattern ends at this node
+		 */
+		boolean terminal = false;
+
+		Node getChild(char c) {
+			for (int i = 0; i < keys.length; i++) {
+				if(keys[i] == c) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		Node addChild(char c) {
+			Node child = getChild(c);
+			if(child == null) {
+				child = new Node();
+				char[] newkeys = new char[keys.length + 1];
+				Node[] newchildren = new Node[keys.length + 1];
+				System.arraycopy(keys, 0, newkeys, 0, keys.length);
+				System.arraycopy(children, 0, newchildren, 0, keys.length);
+				newkeys[keys.length] = c;
+				newchildren[keys.length] = child;
+				keys = newkeys;
+				children = newchildren;
+			}
+			return child;
+		}
+	}
+
+	/**
+	 * If a pattern has to match the complete name (as {@link java.util.regex.Matcher#matches()}) or
+	 * any part of it (as {@link java.util.regex.Matcher#find()})
+	 */
+	private boolean fullmatch = false;
+	/**
+	 * Root of the prefix trie
+	 */
+	private Node prefixes = new Node();
+	/**
+	 * Literal names that match exactly
+	 */
+	private HashSet exact = new HashSet();
+	/**
+	 * Literal strings that match anywhere in the name
+	 */
+	private List substrings = new ArrayList();
+	/**
+	 * Patterns that could not be reduced to a literal
+	 */
+	private List residual = new ArrayList();
+	/**
+	 * All of the pattern sources in the order they were added
+	 */
+	private List sources = new ArrayList();
+	/**
+	 * Map of name to {@link Boolean} for names that have already been tested
+	 */
+	private HashMap decisions = new HashMap();
+
+	/**
+	 * Constructor
+	 *
+	 * @param fullmatch <code>true</code> if patterns must match complete names, <code>false</code> if
+	 * a pattern matching any part of a name is enough
+	 */
+	public PatternFilter(boolean fullmatch) {
+		this.fullmatch = fullmatch;
+	}
+
+	/**
+	 * Constructor. Creates a filter for the given patterns
+	 *
+	 * @param patterns the patterns or <code>null</code>
+	 * @param fullmatch <code>true</code> if patterns must match complete names, <code>false</code> if
+	 * a pattern matching any part of a name is enough
+	 * @throws PatternSyntaxException if one of the patterns is not a valid regular expression
+	 */
+	public PatternFilter(String[] patterns, boolean fullmatch) throws PatternSyntaxException {
+		this(fullmatch);
+		if(patterns != null) {
+			for (int i = 0; i < patterns.length; i++) {
+				addPattern(patterns[i]);
+			}
+		}
+	}
+
+	/**
+	 * Adds the given regular expression to this filter
+	 *
+	 * @param pattern the pattern
+	 * @throws PatternSyntaxException if the pattern is not a valid regular expression
+	 */
+	public synchronized void addPattern(String pattern) throws PatternSyntaxException {
+		//always compile to report syntax errors the same way as before
+		Pattern compiled = Pattern.compile(pattern);
+		sources.add(pattern);
+		decisions.clear();
+		String regex = pattern;
+		boolean anchored = fullmatch;
+		if(regex.startsWith("^")) { //$NON-NLS-1$
+			anchored = true;
+			regex = regex.substring(1);
+		}
+		boolean prefix = !fullmatch;
+		if(regex.endsWith(".*$")) { //$NON-NLS-1$
+			prefix = true;
+			regex = regex.substring(0, regex.length() - 3);
+		}
+		else if(regex.endsWith(".*") && !regex.endsWith("\\.*")) { //$NON-NLS-1$ //$NON-NLS-2$
+			prefix = true;
+			regex = regex.substring(0, regex.length() - 2);
+		}
+		else if(regex.endsWith("$") && !regex.endsWith("\\$")) { //$NON-NLS-1$ //$NON-NLS-2$
+			prefix = false;
+			regex = regex.substring(0, regex.length() - 1);
+			if(!fullmatch && !anchored) {
+				residual.add(compiled);
+				return;
+			}
+		}
+		String literal = getLiteral(regex);
+		if(literal == null) {
+			residual.add(compiled);
+			return;
+		}
+		if(!anchored) {
+			substrings.add(literal);
+		}
+		else if(prefix) {
+			Node node = prefixes;
+			for (int i = 0; i < literal.length(); i++) {
+				node = node.addChild(literal.charAt(i));
+			}
+			node.terminal = true;
+		}
+		else {
+			exact.add(literal);
+		}
+	}
+
+	/**
+	 * Returns the literal string the given regular expression matches or <code>null</code> if
+	 * it contains any constructs other than literal characters
+	 * @param regex
+	 * @return the literal or <code>null</code>
+	 */
+	static String getLiteral(String regex) {
+		StringBuffer buffer = new StringBuffer(regex.length());
+		char c = 0;
+		for (int i = 0; i < regex.length(); i++) {
+			c = regex.charAt(i);
+			if(c == '\\') {
+				if(i + 1 >= regex.length()) {
+					return null;
+				}
+				c = regex.charAt(++i);
+				if(Character.isLetterOrDigit(c)) {
+					//character classes and other escapes
+					return null;
+				}
+				buffer.append(c);
+			}
+			else if(Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '/' || c == ':' || c == ' ') {
+				buffer.append(c);
+			}
+			else {
+				return null;
+			}
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Returns if any of the patterns in this filter matches the given name
+	 *
+	 * @param name the name to test
+	 * @return <code>true</code> if the name is matched by a pattern, <code>false</code> otherwise
+	 */
+	public synchronized boolean matches(String name) {
+		if(name == null || sources.isEmpty()) {
+			return false;
+		}
+		Boolean decision = (Boolean) decisions.get(name);
+		if(decision == null) {
+			decision = Boolean.valueOf(computeMatch(name));
+			decisions.put(name, decision);
+		}
+		return decision.booleanValue();
+	}
+
+	/**
+	 * Tests the given name against all of the patterns
+	 * @param name
+	 * @return if the name is matched by a pattern
+	 */
+	private boolean computeMatch(String name) {
+		if(exact.contains(name)) {
+			return true;
+		}
+		Node node = prefixes;
+		if(node.terminal) {
+			return true;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			node = node.getChild(name.charAt(i));
+			if(node == null) {
+				break;
+			}
+			if(node.terminal) {
+				return true;
+			}
+		}
+		for (int i = 0; i < substrings.size(); i++) {
+			if(name.indexOf((String) substrings.get(i)) > -1) {
+				return true;
+			}
+		}
+		Pattern pattern = null;
+		for (int i = 0; i < residual.size(); i++) {
+			pattern = (Pattern) residual.get(i);
+			if(fullmatch ? pattern.matcher(name).matches() : pattern.matcher(name).find()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns if this filter has no patterns
+	 * @return <code>true</code> if no patterns have been added
+	 */
+	public synchronized boolean isEmpty() {
+		return sources.isEmpty();
+	}
+
+	/**
+	 * Returns the patterns in this filter, in the order they were added
+	 * @return the patterns, never <code>null</code>
+	 */
+	public synchronized String[] getPatterns() {
+		return (String[]) sources.toArray(new String[sources.size()]);
+	}
+}
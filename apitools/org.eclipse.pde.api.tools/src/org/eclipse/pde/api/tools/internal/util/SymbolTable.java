@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * A compact, read-only set of symbol names (type names, member keys, ...) stored as an
+ * open-addressing hash table of 64-bit symbol hashes.
+ * <p>
+ * Tables are written to disk once with {@link #write(File, long, Collection)} and loaded again with
+ * {@link #load(File, long)}, which memory maps the file so that no table data has to be copied
+ * onto the heap. Membership tests are a single hash probe (plus linear probing on collisions).
+ * </p>
+ * <p>
+ * Only the hashes of the symbols are stored, so {@link #contains(String)} can report a false positive
+ * if two symbols have the same 64-bit hash. Clients must only use a positive answer as a hint that
+ * saves a more expensive check, or accept that (very unlikely) risk.
+ * </p>
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public final class SymbolTable {
+
+	/**
+	 * Marker at the start of every symbol table file
+	 */
+	private static final int MAGIC = 0x41504953;
+	/**
+	 * Format version of symbol table files
+	 */
+	private static final int VERSION = 1;
+	/**
+	 * Size of the file header in bytes: magic, version, fingerprint, count, capacity
+	 */
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4;
+
+	/**
+	 * The hash table, starting at {@link #HEADER_SIZE}
+	 */
+	private ByteBuffer fTable = null;
+	private int fMask = 0;
+	private int fCount = 0;
+
+	private SymbolTable(ByteBuffer table, int capacity, int count) {
+		fTable = table;
+		fMask = capacity - 1;
+		fCount = count;
+	}
+
+	/**
+	 * Returns the 64-bit FNV-1a hash of the given symbol, never <code>0</code>
+	 * @param symbol
+	 * @return the hash of the symbol
+	 */
+	static long hash(String symbol) {
+		long hash = 0xcbf29ce484222325L;
+		char c = 0;
+		for (int i = 0, max = symbol.length(); i < max; i++) {
+			c = symbol.charAt(i);
+			hash ^= (c & 0xFF);
+			hash *= 0x100000001b3L;
+			hash ^= (c >>> 8);
+			hash *= 0x100000001b3L;
+		}
+		return hash == 0 ? 1 : hash;
+	}
+
+	/**
+	 * Returns the table slot to start probing at for the given hash
+	 * @param hash
+	 * @param mask
+	 * @return the first slot for the hash
+	 */
+	static int slot(long hash, int mask) {
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	/**
+	 * Returns if the given symbol is contained in this table
+	 * @param symbol the symbol to look up
+	 * @return <code>true</code> if the symbol is (very likely) in the table, <code>false</code> if it is definitely not
+	 */
+	public boolean contains(String symbol) {
+		if(symbol == null || fCount == 0) {
+			return false;
+		}
+		long hash = hash(symbol);
+		int index = slot(hash, fMask);
+		long value = 0;
+		while(true) {
+			value = fTable.getLong(HEADER_SIZE + (index << 3));
+			if(value == 0) {
+				return false;
+			}
+			if(value == hash) {
+				return true;
+			}
+			index = (index + 1) & fMask;
+		}
+	}
+
+	/**
+	 * Returns the number of symbols in this table
+	 * @return the number of symbols
+	 */
+	public int size() {
+		return fCount;
+	}
+
+	/**
+	 * Writes a new symbol table containing the given symbols to the given file
+	 *
+	 * @param file the file to write to, it is replaced if it exists
+	 * @param fingerprint a value identifying the source the symbols were computed from, checked by {@link #load(File, long)}
+	 * @param symbols collection of {@link String} symbols
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(File file, long fingerprint, Collection symbols) throws IOException {
+		int capacity = 16;
+		while(capacity < symbols.size() * 2) {
+			capacity <<= 1;
+		}
+		int mask = capacity - 1;
+		long[] table = new long[capacity];
+		int count = 0;
+		long hash = 0;
+		int index = 0;
+		for (Iterator iter = symbols.iterator(); iter.hasNext();) {
+			hash = hash((String) iter.next());
+			index = slot(hash, mask);
+			while(table[index] != 0 && table[index] != hash) {
+				index = (index + 1) & mask;
+			}
+			if(table[index] == 0) {
+				table[index] = hash;
+				count++;
+			}
+		}
+		File parent = file.getParentFile();
+		if(parent != null && !parent.exists()) {
+			parent.mkdirs();
+		}
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(fingerprint);
+			out.writeInt(count);
+			out.writeInt(capacity);
+			for (int i = 0; i < capacity; i++) {
+				out.writeLong(table[i]);
+			}
+		}
+		finally {
+			if(out != null) {
+				out.close();
+			}
+		}
+	}
+
+	/**
+	 * Memory maps the symbol table in the given file
+	 *
+	 * @param file the file to load
+	 * @param fingerprint the expected fingerprint
+	 * @return the symbol table or <code>null</code> if the file does not exist, is not a symbol table
+	 * or was written with a different fingerprint
+	 * @throws IOException if the file cannot be read
+	 */
+	public static SymbolTable load(File file, long fingerprint) throws IOException {
+		if(!file.isFile() || file.length() < HEADER_SIZE) {
+			return null;
+		}
+		FileInputStream in = null;
+		try {
+			in = new FileInputStream(file);
+			FileChannel channel = in.getChannel();
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != fingerprint) {
+				return null;
+			}
+			int count = buffer.getInt(16);
+			int capacity = buffer.getInt(20);
+			if(capacity < 1 || (capacity & (capacity - 1)) != 0 || buffer.capacity() < HEADER_SIZE + ((long) capacity << 3)) {
+				return null;
+			}
+			return new SymbolTable(buffer, capacity, count);
+		}
+		finally {
+			if(in != null) {
+				//the mapping stays valid after the channel is closed
+				in.close();
+			}
+		}
+	}
+}
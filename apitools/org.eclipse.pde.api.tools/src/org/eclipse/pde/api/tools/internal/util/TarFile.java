@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 IBM Corporation and others.
+ * Copyright (c) 2008, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,19 +11,102 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.internal.util;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.zip.GZIPInputStream;
 /**
  * Reads a .tar or .tar.gz archive file, providing an index enumeration
  * and allows for accessing an InputStream for arbitrary files in the
  * archive.
+ * <p>
+ * Entries can also be looked up by name with {@link #getEntry(String)}. The offsets of all of the
+ * entries are indexed the first time an entry is looked up; when an index directory is given the
+ * index is saved there and reused for as long as the archive does not change. The contents of the
+ * entries of an uncompressed archive are read directly from their offset, in any order, without
+ * reading the archive from the beginning. Saving a new index deletes the indexes saved for earlier
+ * versions of the same archive.
+ * </p>
  */
 public class TarFile {
+	/**
+	 * Stream over the contents of one entry of an uncompressed archive, read directly from the file
+	 * of the archive
+	 */
+	private class EntryInputStream extends InputStream {
+		private long position = 0;
+		private long remaining = 0;
+
+		/**
+		 * Constructor
+		 * @param position the offset of the contents in the archive
+		 * @param size the size of the contents
+		 */
+		EntryInputStream(long position, long size) {
+			this.position = position;
+			this.remaining = size;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.io.InputStream#read(byte[], int, int)
+		 */
+		public int read(byte[] b, int off, int len) throws IOException {
+			if(remaining <= 0) {
+				return -1;
+			}
+			int size = readAt(position, b, off, (len > remaining ? (int) remaining : len));
+			if(size < 0) {
+				throw new IOException("early end of stream"); //$NON-NLS-1$
+			}
+			position += size;
+			remaining -= size;
+			return size;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.io.InputStream#read()
+		 */
+		public int read() throws IOException {
+			byte[] data = new byte[1];
+			int size = read(data, 0, 1);
+			if (size < 0) {
+				return size;
+			}
+			return data[0] & 0xff;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.io.InputStream#skip(long)
+		 */
+		public long skip(long n) throws IOException {
+			if(n <= 0) {
+				return 0;
+			}
+			long skipped = n > remaining ? remaining : n;
+			position += skipped;
+			remaining -= skipped;
+			return skipped;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.io.InputStream#available()
+		 */
+		public int available() throws IOException {
+			return remaining > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) remaining;
+		}
+	}
+
 	private static class TarInputStream extends FilterInputStream {
 		private int nextEntry = 0;
 		private int nextEOF = 0;
@@ -341,12 +424,41 @@ public class TarFile {
 			return data[0];
 		}
 	}
+	/**
+	 * Identifies the files of saved indexes
+	 */
+	private static final int INDEX_MAGIC = 0x54415249;
+	/**
+	 * Version of the format of saved indexes
+	 */
+	private static final int INDEX_VERSION = 1;
+	/**
+	 * Extension of the files of saved indexes
+	 */
+	private static final String INDEX_EXTENSION = ".tarindex"; //$NON-NLS-1$
+
 	private File file;
 	TarInputStream entryEnumerationStream;
 	TarEntry curEntry;
 	private TarInputStream entryStream;
 
 	private InputStream internalEntryStream;
+	/**
+	 * If the archive is compressed, in which case entries can only be read sequentially
+	 */
+	private boolean compressed = false;
+	/**
+	 * The directory to save the index in or <code>null</code>
+	 */
+	private File indexDirectory = null;
+	/**
+	 * Map of entry names to {@link TarEntry}, created on the first lookup
+	 */
+	private HashMap index = null;
+	/**
+	 * The file of an uncompressed archive opened for random access
+	 */
+	private RandomAccessFile randomAccessFile = null;
 	
 	/**
 	 * Create a new TarFile for the given file.
@@ -356,7 +468,22 @@ public class TarFile {
 	 * @throws IOException
 	 */
 	public TarFile(File file) throws TarException, IOException {
+		this(file, null);
+	}
+
+	/**
+	 * Create a new TarFile for the given file, saving the index of its entries in the given directory.
+	 * 
+	 * @param file
+	 * @param indexDirectory the directory to save the index of the entries in or <code>null</code>
+	 * to only keep the index in memory
+	 * @throws TarException
+	 * @throws IOException
+	 * @since 1.0.400
+	 */
+	public TarFile(File file, File indexDirectory) throws TarException, IOException {
 		this.file = file;
+		this.indexDirectory = indexDirectory;
 
 		InputStream in = new FileInputStream(file);
 		// First, check if it's a GZIPInputStream.
@@ -368,6 +495,7 @@ public class TarFile {
 			in.close();
 			in = new FileInputStream(file);
 		}
+		compressed = in instanceof GZIPInputStream;
 		try {
 			entryEnumerationStream = new TarInputStream(in);
 		} catch (TarException ex) {
@@ -376,6 +504,231 @@ public class TarFile {
 		}
 		curEntry = entryEnumerationStream.getNextEntry();
 	}
+
+	/**
+	 * Opens a new stream on the contents of the archive, uncompressing them if needed
+	 * @return a new stream on the archive
+	 * @throws IOException
+	 */
+	private InputStream openStream() throws IOException {
+		InputStream in = new FileInputStream(file);
+		if(compressed) {
+			try {
+				in = new GZIPInputStream(in);
+			} catch(IOException e) {
+				in.close();
+				throw e;
+			}
+		}
+		return in;
+	}
+
+	/**
+	 * Returns the entry with the given name or <code>null</code> if the archive has no such entry.
+	 * The first call indexes all of the entries of the archive, or loads the saved index.
+	 * 
+	 * @param name the name of the entry
+	 * @return the entry or <code>null</code>
+	 * @throws TarException if the archive is not a valid tar archive
+	 * @throws IOException if the archive cannot be read
+	 * @since 1.0.400
+	 */
+	public synchronized TarEntry getEntry(String name) throws TarException, IOException {
+		if(index == null) {
+			index = loadIndex();
+			if(index == null) {
+				index = buildIndex();
+				saveIndex(index);
+			}
+		}
+		TarEntry entry = (TarEntry) index.get(name);
+		return entry == null ? null : (TarEntry) entry.clone();
+	}
+
+	/**
+	 * Reads the headers of all of the entries of the archive
+	 * @return the map of entry names to entries
+	 * @throws TarException
+	 * @throws IOException
+	 */
+	private HashMap buildIndex() throws TarException, IOException {
+		HashMap entries = new HashMap();
+		TarInputStream in = new TarInputStream(openStream());
+		try {
+			TarEntry entry = null;
+			while((entry = in.getNextEntry()) != null) {
+				// like an extraction, a later entry replaces an earlier one with the same name
+				entries.put(entry.getName(), entry);
+			}
+		}
+		finally {
+			in.close();
+		}
+		return entries;
+	}
+
+	/**
+	 * @return the file of the saved index or <code>null</code> if the index is not saved
+	 */
+	private File getIndexFile() {
+		if(indexDirectory == null) {
+			return null;
+		}
+		return new File(indexDirectory, getIndexPrefix() + Long.toHexString(getFingerprint()) + INDEX_EXTENSION);
+	}
+
+	/**
+	 * Returns the prefix of the names of all of the indexes saved for this archive, which identifies
+	 * the archive by its name and location
+	 * @return the prefix of the index file names
+	 */
+	private String getIndexPrefix() {
+		return file.getName() + '_' + Integer.toHexString(file.getAbsolutePath().hashCode()) + '_';
+	}
+
+	/**
+	 * Deletes the indexes saved for earlier versions of this archive
+	 * @param indexFile the current index, which is kept
+	 */
+	private void deleteStaleIndexes(File indexFile) {
+		File[] files = indexDirectory.listFiles();
+		if(files == null) {
+			return;
+		}
+		String prefix = getIndexPrefix();
+		for (int i = 0; i < files.length; i++) {
+			String name = files[i].getName();
+			if(name.startsWith(prefix) && name.endsWith(INDEX_EXTENSION) && !name.equals(indexFile.getName())) {
+				files[i].delete();
+			}
+		}
+	}
+
+	/**
+	 * Returns a value that changes whenever the archive is replaced
+	 * @return the fingerprint of the archive
+	 */
+	private long getFingerprint() {
+		long fingerprint = 17 + INDEX_VERSION;
+		fingerprint = 31 * fingerprint + file.getAbsolutePath().hashCode();
+		fingerprint = 31 * fingerprint + file.length();
+		fingerprint = 31 * fingerprint + file.lastModified();
+		return fingerprint;
+	}
+
+	/**
+	 * Loads the saved index of the archive
+	 * @return the map of entry names to entries or <code>null</code> if no valid index was saved
+	 */
+	private HashMap loadIndex() {
+		File indexFile = getIndexFile();
+		if(indexFile == null || !indexFile.isFile()) {
+			return null;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+			if(in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION || in.readLong() != getFingerprint()) {
+				return null;
+			}
+			int count = in.readInt();
+			HashMap entries = new HashMap(count * 2);
+			for (int i = 0; i < count; i++) {
+				TarEntry entry = new TarEntry(in.readUTF(), in.readInt());
+				entry.setSize(in.readLong());
+				entry.setMode(in.readLong());
+				entry.setTime(in.readLong());
+				entry.setFileType(in.readInt());
+				entries.put(entry.getName(), entry);
+			}
+			return entries;
+		}
+		catch(IOException e) {
+			// rebuild an unreadable index
+			return null;
+		}
+		finally {
+			if(in != null) {
+				try {
+					in.close();
+				}
+				catch(IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Saves the given index of the archive, if an index directory was given
+	 * @param entries the map of entry names to entries
+	 */
+	private void saveIndex(HashMap entries) {
+		File indexFile = getIndexFile();
+		if(indexFile == null) {
+			return;
+		}
+		if(!indexDirectory.exists()) {
+			indexDirectory.mkdirs();
+		}
+		// write to a temporary file first so a partial index is never loaded
+		File temp = new File(indexDirectory, indexFile.getName() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			out.writeInt(INDEX_MAGIC);
+			out.writeInt(INDEX_VERSION);
+			out.writeLong(getFingerprint());
+			out.writeInt(entries.size());
+			for (Iterator iter = entries.values().iterator(); iter.hasNext();) {
+				TarEntry entry = (TarEntry) iter.next();
+				out.writeUTF(entry.getName());
+				out.writeInt(entry.filepos);
+				out.writeLong(entry.getSize());
+				out.writeLong(entry.getMode());
+				out.writeLong(entry.getTime());
+				out.writeInt(entry.getFileType());
+			}
+			out.close();
+			out = null;
+			if(temp.renameTo(indexFile)) {
+				deleteStaleIndexes(indexFile);
+			}
+			else {
+				temp.delete();
+			}
+		}
+		catch(IOException e) {
+			temp.delete();
+		}
+		finally {
+			if(out != null) {
+				try {
+					out.close();
+				}
+				catch(IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads bytes of an uncompressed archive at the given offset
+	 * @param position the offset in the archive
+	 * @param b the buffer to read into
+	 * @param off the offset in the buffer
+	 * @param len the maximum number of bytes to read
+	 * @return the number of bytes read or <code>-1</code> at the end of the archive
+	 * @throws IOException
+	 */
+	synchronized int readAt(long position, byte[] b, int off, int len) throws IOException {
+		if(randomAccessFile == null) {
+			randomAccessFile = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+		}
+		randomAccessFile.seek(position);
+		return randomAccessFile.read(b, off, len);
+	}
 	
 	/**
 	 * Close the tar file input stream.
@@ -387,6 +740,12 @@ public class TarFile {
 			entryEnumerationStream.close();
 		if (internalEntryStream != null)
 			internalEntryStream.close();
+		synchronized (this) {
+			if (randomAccessFile != null) {
+				randomAccessFile.close();
+				randomAccessFile = null;
+			}
+		}
 	}
 
 	/**
@@ -427,6 +786,11 @@ public class TarFile {
 
 	/**
 	 * Returns a new InputStream for the given file in the tar archive.
+	 * <p>
+	 * The contents of an entry of an uncompressed archive are read directly from the archive, so the
+	 * returned streams stay valid when other entries are read. For a compressed archive the archive is
+	 * read up to the entry, and the returned stream is only valid until the next call.
+	 * </p>
 	 * 
 	 * @param entry
 	 * @return an input stream for the given file
@@ -434,6 +798,10 @@ public class TarFile {
 	 * @throws IOException
 	 */
 	public InputStream getInputStream(TarEntry entry) throws TarException, IOException {
+		if(!compressed && entry.filepos >= 0) {
+			// the contents follow the header of the entry
+			return new EntryInputStream(entry.filepos + 512L, entry.getSize());
+		}
 		if(entryStream == null || !entryStream.skipToEntry(entry)) {
 			if (internalEntryStream != null) {
 				internalEntryStream.close();
@@ -36,6 +36,8 @@ import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.UnsupportedCharsetException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -1189,6 +1191,36 @@ public final class Util {
 		return null;
 	}
 
+	/**
+	 * Returns the hex encoded MD5 digest of the contents of the given input stream.
+	 * Note the specified stream is not closed in this method
+	 * @param stream the stream to digest
+	 * @return the hex encoded digest of the stream contents
+	 * @throws IOException if the stream cannot be read or MD5 is not available
+	 * @since 1.0.400
+	 */
+	public static String getMD5Digest(InputStream stream) throws IOException {
+		MessageDigest digest = null;
+		try {
+			digest = MessageDigest.getInstance("MD5"); //$NON-NLS-1$
+		}
+		catch(NoSuchAlgorithmException e) {
+			throw new IOException(e.getMessage());
+		}
+		byte[] buffer = new byte[8192];
+		int n = 0;
+		while((n = stream.read(buffer)) != -1) {
+			digest.update(buffer, 0, n);
+		}
+		byte[] bytes = digest.digest();
+		StringBuffer result = new StringBuffer(bytes.length * 2);
+		for (int i = 0; i < bytes.length; i++) {
+			result.append(Character.forDigit((bytes[i] >> 4) & 0xF, 16));
+			result.append(Character.forDigit(bytes[i] & 0xF, 16));
+		}
+		return String.valueOf(result);
+	}
+	
 	/**
 	 * Returns the given input stream as a byte array
 	 * @param stream the stream to get as a byte array
@@ -1649,10 +1681,49 @@ public final class Util {
 		}
 		return null;
 	}
+	/**
+	 * Filter of the entries of an SDK archive that are needed to create a baseline, to pass to
+	 * {@link #unzip(String, String, FilenameFilter)} or {@link #guntar(String, String, FilenameFilter)}.
+	 * Features and source bundles are never read by the baselines, so they are not extracted.
+	 * 
+	 * @since 1.0.400
+	 */
+	public static final FilenameFilter SDK_ENTRY_FILTER = new FilenameFilter() {
+		public boolean accept(File dir, String name) {
+			String path = name.replace('\\', '/');
+			if (path.startsWith("eclipse/")) { //$NON-NLS-1$
+				path = path.substring(8);
+			}
+			if (path.startsWith("features/")) { //$NON-NLS-1$
+				return false;
+			}
+			if (path.startsWith("plugins/")) { //$NON-NLS-1$
+				int index = path.indexOf('/', 8);
+				String bundle = index == -1 ? path.substring(8) : path.substring(8, index);
+				// source bundles are named <id>.source_<version>
+				return bundle.indexOf(".source_") == -1; //$NON-NLS-1$
+			}
+			return true;
+		}
+	};
 	/**
 	 * Unzip the contents of the given zip in the given directory (create it if it doesn't exist)
 	 */
 	public static void unzip(String zipPath, String destDirPath) throws IOException {
+		unzip(zipPath, destDirPath, null);
+	}
+	/**
+	 * Unzip the contents of the given zip in the given directory (create it if it doesn't exist).
+	 * Only the entries accepted by the given filter are extracted; the filter is called with the
+	 * destination directory and the name of the entry.
+	 * 
+	 * @param zipPath the path to the zip file
+	 * @param destDirPath the directory to extract to
+	 * @param filter the filter to apply to the entry names or <code>null</code> to extract all entries
+	 * @throws IOException
+	 * @since 1.0.400
+	 */
+	public static void unzip(String zipPath, String destDirPath, FilenameFilter filter) throws IOException {
 		InputStream zipIn = new FileInputStream(zipPath);
 		byte[] buf = new byte[8192];
 		File destDir = new File(destDirPath);
@@ -1661,6 +1732,9 @@ public final class Util {
 		try {
 			ZipEntry zEntry;
 			while ((zEntry = zis.getNextEntry()) != null) {
+				if (filter != null && !filter.accept(destDir, zEntry.getName())) {
+					continue;
+				}
 				// if it is empty directory, create it
 				if (zEntry.isDirectory()) {
 					new File(destDir, zEntry.getName()).mkdirs();
@@ -1703,12 +1777,31 @@ public final class Util {
 	 * Unzip the contents of the given zip in the given directory (create it if it doesn't exist)
 	 */
 	public static void guntar(String zipPath, String destDirPath) throws TarException, IOException {
+		guntar(zipPath, destDirPath, null);
+	}
+	/**
+	 * Extracts the contents of the given tar.gz file in the given directory (create it if it doesn't exist).
+	 * Only the entries accepted by the given filter are extracted; the filter is called with the
+	 * destination directory and the name of the entry.
+	 * 
+	 * @param zipPath the path to the tar.gz file
+	 * @param destDirPath the directory to extract to
+	 * @param filter the filter to apply to the entry names or <code>null</code> to extract all entries
+	 * @throws TarException
+	 * @throws IOException
+	 * @since 1.0.400
+	 */
+	public static void guntar(String zipPath, String destDirPath, FilenameFilter filter) throws TarException, IOException {
+		File destDir = new File(destDirPath);
 		TarFile tarFile = new TarFile(zipPath);
 		Enumeration entries = tarFile.entries();
 		byte[] buf = new byte[8192];
 		for (;entries.hasMoreElements(); ) {
 			TarEntry zEntry;
 			while ((zEntry = (TarEntry) entries.nextElement()) != null) {
+				if (filter != null && !filter.accept(destDir, zEntry.getName())) {
+					continue;
+				}
 				// if it is empty directory, create it
 				if (zEntry.getFileType() == TarEntry.DIRECTORY) {
 					new File(destDirPath, zEntry.getName()).mkdirs();
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+
+import org.eclipse.pde.api.tools.internal.IApiCoreConstants;
+
+/**
+ * Simple forward-only XML writer. Elements and attributes are written to the underlying
+ * {@link Writer} as they are added, so arbitrarily large documents can be produced without
+ * building a DOM first. The output is indented the same way as {@link Util#serializeDocument(org.w3c.dom.Document)}.
+ * <p>
+ * Attributes must be added directly after {@link #startElement(String)} and before any
+ * child element is started.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public class XmlStreamWriter {
+
+	private static final String INDENT = "    "; //$NON-NLS-1$
+
+	private Writer fWriter = null;
+	/**
+	 * Stack of open element names
+	 */
+	private ArrayList fElements = new ArrayList();
+	/**
+	 * If the start tag of the current element has not been closed yet
+	 */
+	private boolean fStartTagOpen = false;
+
+	/**
+	 * Constructor
+	 * @param writer the writer to write the XML to, the caller is responsible for buffering
+	 */
+	public XmlStreamWriter(Writer writer) {
+		fWriter = writer;
+	}
+
+	/**
+	 * Writes the XML declaration. The caller is responsible for creating the underlying
+	 * writer with the UTF-8 encoding.
+	 * @throws IOException
+	 */
+	public void startDocument() throws IOException {
+		fWriter.write("<?xml version=\"1.0\" encoding=\""); //$NON-NLS-1$
+		fWriter.write(IApiCoreConstants.UTF_8);
+		fWriter.write("\" standalone=\"no\"?>"); //$NON-NLS-1$
+		fWriter.write(Util.LINE_DELIMITER);
+	}
+
+	/**
+	 * Starts a new element with the given name as a child of the current element
+	 * @param name the element name
+	 * @throws IOException
+	 */
+	public void startElement(String name) throws IOException {
+		closeStartTag();
+		indent(fElements.size());
+		fWriter.write('<');
+		fWriter.write(name);
+		fElements.add(name);
+		fStartTagOpen = true;
+	}
+
+	/**
+	 * Adds an attribute to the element that has just been started. Does nothing if the value is <code>null</code>.
+	 * @param name the attribute name
+	 * @param value the attribute value or <code>null</code>
+	 * @throws IOException
+	 */
+	public void attribute(String name, String value) throws IOException {
+		if(!fStartTagOpen) {
+			throw new IllegalStateException("Attributes can only be added to a start tag"); //$NON-NLS-1$
+		}
+		if(value == null) {
+			return;
+		}
+		fWriter.write(' ');
+		fWriter.write(name);
+		fWriter.write("=\""); //$NON-NLS-1$
+		escape(value);
+		fWriter.write('"');
+	}
+
+	/**
+	 * Ends the current element
+	 * @throws IOException
+	 */
+	public void endElement() throws IOException {
+		String name = (String) fElements.remove(fElements.size() - 1);
+		if(fStartTagOpen) {
+			fWriter.write("/>"); //$NON-NLS-1$
+			fWriter.write(Util.LINE_DELIMITER);
+			fStartTagOpen = false;
+			return;
+		}
+		indent(fElements.size());
+		fWriter.write("</"); //$NON-NLS-1$
+		fWriter.write(name);
+		fWriter.write('>');
+		fWriter.write(Util.LINE_DELIMITER);
+	}
+
+	/**
+	 * Ends all open elements and flushes the underlying writer
+	 * @throws IOException
+	 */
+	public void endDocument() throws IOException {
+		while(!fElements.isEmpty()) {
+			endElement();
+		}
+		fWriter.flush();
+	}
+
+	/**
+	 * Returns the number of currently open elements
+	 * @return the element depth
+	 */
+	public int getDepth() {
+		return fElements.size();
+	}
+
+	/**
+	 * Closes the underlying writer
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		fWriter.close();
+	}
+
+	private void closeStartTag() throws IOException {
+		if(fStartTagOpen) {
+			fWriter.write('>');
+			fWriter.write(Util.LINE_DELIMITER);
+			fStartTagOpen = false;
+		}
+	}
+
+	private void indent(int depth) throws IOException {
+		for (int i = 0; i < depth; i++) {
+			fWriter.write(INDENT);
+		}
+	}
+
+	/**
+	 * Writes the given attribute value escaping XML markup characters
+	 * @param value
+	 * @throws IOException
+	 */
+	private void escape(String value) throws IOException {
+		char c = 0;
+		for (int i = 0, max = value.length(); i < max; i++) {
+			c = value.charAt(i);
+			switch(c) {
+				case '&': fWriter.write("&amp;"); break; //$NON-NLS-1$
+				case '<': fWriter.write("&lt;"); break; //$NON-NLS-1$
+				case '>': fWriter.write("&gt;"); break; //$NON-NLS-1$
+				case '"': fWriter.write("&quot;"); break; //$NON-NLS-1$
+				case '\n': fWriter.write("&#10;"); break; //$NON-NLS-1$
+				case '\r': fWriter.write("&#13;"); break; //$NON-NLS-1$
+				case '\t': fWriter.write("&#9;"); break; //$NON-NLS-1$
+				default: fWriter.write(c);
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2011 IBM Corporation and others.
+ * Copyright (c) 2008, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,13 @@
 package org.eclipse.pde.api.tools.internal.tasks;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
@@ -38,9 +43,11 @@ import org.eclipse.pde.api.tools.internal.IApiCoreConstants;
 import org.eclipse.pde.api.tools.internal.IApiXmlConstants;
 import org.eclipse.pde.api.tools.internal.builder.BaseApiAnalyzer;
 import org.eclipse.pde.api.tools.internal.builder.BuildContext;
+import org.eclipse.pde.api.tools.internal.builder.BuildMetrics;
 import org.eclipse.pde.api.tools.internal.model.StubApiComponent;
 import org.eclipse.pde.api.tools.internal.problems.ApiProblemFactory;
 import org.eclipse.pde.api.tools.internal.problems.ApiProblemFilter;
+import org.eclipse.pde.api.tools.internal.problems.ApiProblemList;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.IApiFilterStore;
 import org.eclipse.pde.api.tools.internal.provisional.IApiMarkerConstants;
@@ -51,8 +58,7 @@ import org.eclipse.pde.api.tools.internal.provisional.problems.IApiProblem;
 import org.eclipse.pde.api.tools.internal.provisional.problems.IApiProblemFilter;
 import org.eclipse.pde.api.tools.internal.util.FilteredElements;
 import org.eclipse.pde.api.tools.internal.util.Util;
-import org.w3c.dom.DOMException;
-import org.w3c.dom.Document;
+import org.eclipse.pde.api.tools.internal.util.XmlStreamWriter;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
@@ -348,34 +354,23 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 		}
 	}
 	private static class Summary {
-		List apiBundleVersionProblems = new ArrayList();
-		List apiCompatibilityProblems = new ArrayList();
-		List apiUsageProblems = new ArrayList();
+		ApiProblemList apiBundleVersionProblems;
+		ApiProblemList apiCompatibilityProblems;
+		ApiProblemList apiUsageProblems;
 		String componentID;
 
-		public Summary(String componentID, IApiProblem[] apiProblems) {
+		public Summary(String componentID, ApiProblemList apiProblems) {
 			this.componentID = componentID;
-			for (int i = 0, max = apiProblems.length; i < max; i++) {
-				IApiProblem problem = apiProblems[i];
-				switch(problem.getCategory()) {
-					case IApiProblem.CATEGORY_COMPATIBILITY :
-						apiCompatibilityProblems.add(problem);
-						break;
-					case IApiProblem.CATEGORY_USAGE :
-						apiUsageProblems.add(problem);
-						break;
-					case IApiProblem.CATEGORY_VERSION :
-						apiBundleVersionProblems.add(problem);
-				}
-			}
+			apiCompatibilityProblems = apiProblems.getProblems(IApiProblem.CATEGORY_COMPATIBILITY);
+			apiUsageProblems = apiProblems.getProblems(IApiProblem.CATEGORY_USAGE);
+			apiBundleVersionProblems = apiProblems.getProblems(IApiProblem.CATEGORY_VERSION);
 		}
-		private void dumpProblems(String title, List problemsList,
+		private void dumpProblems(String title, ApiProblemList problemsList,
 				PrintWriter printWriter) {
 			printWriter.println(title);
 			if (problemsList.size() != 0) {
-				for (Iterator iterator = problemsList.iterator(); iterator.hasNext(); ) {
-					IApiProblem problem = (IApiProblem) iterator.next();
-					printWriter.println(problem.getMessage());
+				for (int i = 0, max = problemsList.size(); i < max; i++) {
+					printWriter.println(problemsList.getMessage(i));
 				}
 			} else {
 				printWriter.println("None"); //$NON-NLS-1$
@@ -454,17 +449,33 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 				warnings++;
 			}
 		}
+		public void add(ProblemCounter counter) {
+			total += counter.total;
+			warnings += counter.warnings;
+			errors += counter.errors;
+		}
 	}
 	public static final String BUNDLE_VERSION = "bundleVersion"; //$NON-NLS-1$
 	public static final String COMPATIBILITY = "compatibility"; //$NON-NLS-1$
 	
 	private static final Summary[] NO_SUMMARIES = new Summary[0];
+	/**
+	 * Marker at the start of binary summary files, the characters 'APIT'
+	 */
+	private static final int SUMMARY_MAGIC = 0x41504954;
+	/**
+	 * Format version of binary summary files
+	 */
+	private static final int SUMMARY_VERSION = 1;
 	public static final String USAGE = "usage"; //$NON-NLS-1$
 
 	private FilteredElements excludedElements;
 	private FilteredElements includedElements;
 	private String filters;
 	private Properties properties;
+	private String metricsLocation;
+	private String summaryLocation;
+	private int threads = 1;
 
 	private Summary[] createAllSummaries(Map allProblems) {
 		Set entrySet = allProblems.entrySet();
@@ -485,21 +496,22 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 		int i = 0;
 		for (Iterator iterator = allEntries.iterator(); iterator.hasNext();) {
 			Map.Entry entry = (Map.Entry) iterator.next();
-			summaries[i++] = createProblemSummary((String) entry.getKey(), (IApiProblem[]) entry.getValue());
+			summaries[i++] = createProblemSummary((String) entry.getKey(), (ApiProblemList) entry.getValue());
 		}
 		if (this.debug) {
 			dumpSummaries(summaries);
 		}
 		return summaries;
 	}
-	private Summary createProblemSummary(String componentID, IApiProblem[] apiProblems) {
+	private Summary createProblemSummary(String componentID, ApiProblemList apiProblems) {
 		return new Summary(componentID, apiProblems);
 	}
 	private void dumpReport(Summary[] summaries, List bundlesNames) {
 		ProblemCounter counter = new ProblemCounter();
+		List reported = new ArrayList(summaries.length);
+		List reportedCounters = new ArrayList(summaries.length);
 		for (int i = 0, max = summaries.length; i < max; i++) {
 			Summary summary = summaries[i];
-			String contents = null;
 			String componentID = summary.componentID;
 			if (this.excludedElements != null
 					&& (this.excludedElements.containsExactMatch(componentID)
@@ -511,85 +523,125 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 						|| this.includedElements.containsPartialMatch(componentID))) {
 				continue;
 			}
+			ProblemCounter componentCounter = new ProblemCounter();
+			XmlStreamWriter writer = null;
 			try {
-				Document document = Util.newDocument();
-				Element report = document.createElement(IApiXmlConstants.ELEMENT_API_TOOL_REPORT);
-				report.setAttribute(IApiXmlConstants.ATTR_VERSION, IApiXmlConstants.API_REPORT_CURRENT_VERSION);
-				report.setAttribute(IApiXmlConstants.ATTR_COMPONENT_ID, componentID);
-				document.appendChild(report);
-				
-				Element category = document.createElement(IApiXmlConstants.ATTR_CATEGORY);
-				category.setAttribute(IApiXmlConstants.ATTR_KEY, Integer.toString(IApiProblem.CATEGORY_COMPATIBILITY));
-				category.setAttribute(IApiXmlConstants.ATTR_VALUE, COMPATIBILITY);
-				insertAPIProblems(category, document, summary.apiCompatibilityProblems, counter);
-				report.appendChild(category);
-
-				category = document.createElement(IApiXmlConstants.ATTR_CATEGORY);
-				category.setAttribute(IApiXmlConstants.ATTR_KEY, Integer.toString(IApiProblem.CATEGORY_USAGE));
-				category.setAttribute(IApiXmlConstants.ATTR_VALUE, USAGE);
-				insertAPIProblems(category, document, summary.apiUsageProblems, counter);
-				report.appendChild(category);
-				
-				category = document.createElement(IApiXmlConstants.ATTR_CATEGORY);
-				category.setAttribute(IApiXmlConstants.ATTR_KEY, Integer.toString(IApiProblem.CATEGORY_VERSION));
-				category.setAttribute(IApiXmlConstants.ATTR_VALUE, BUNDLE_VERSION);
-				insertAPIProblems(category, document, summary.apiBundleVersionProblems, counter);
-				report.appendChild(category);
-
-				contents = Util.serializeDocument(document);
-			} catch (DOMException e) {
-				throw new BuildException(e);
-			} catch (CoreException e) {
-				throw new BuildException(e);
-			}
-			if (contents != null) {
-				saveReport(componentID, contents, "report.xml"); //$NON-NLS-1$
+				writer = openReport(componentID, "report.xml"); //$NON-NLS-1$
+				writer.startDocument();
+				writer.startElement(IApiXmlConstants.ELEMENT_API_TOOL_REPORT);
+				writer.attribute(IApiXmlConstants.ATTR_COMPONENT_ID, componentID);
+				writer.attribute(IApiXmlConstants.ATTR_VERSION, IApiXmlConstants.API_REPORT_CURRENT_VERSION);
+				writeAPIProblems(writer, IApiProblem.CATEGORY_COMPATIBILITY, COMPATIBILITY, summary.apiCompatibilityProblems, componentCounter);
+				writeAPIProblems(writer, IApiProblem.CATEGORY_USAGE, USAGE, summary.apiUsageProblems, componentCounter);
+				writeAPIProblems(writer, IApiProblem.CATEGORY_VERSION, BUNDLE_VERSION, summary.apiBundleVersionProblems, componentCounter);
+				writer.endDocument();
+			} catch (IOException e) {
+				ApiPlugin.log(e);
+			} finally {
+				close(writer);
 			}
+			counter.add(componentCounter);
+			reported.add(summary);
+			reportedCounters.add(componentCounter);
 		}
 		if (bundlesNames != null && bundlesNames.size() != 0) {
-			String contents = null;
+			XmlStreamWriter writer = null;
 			try {
-				Document document = Util.newDocument();
-				Element report = document.createElement(IApiXmlConstants.ELEMENT_API_TOOL_REPORT);
-				report.setAttribute(IApiXmlConstants.ATTR_VERSION, IApiXmlConstants.API_REPORT_CURRENT_VERSION);
-				document.appendChild(report);
-				
+				writer = openReport("allNonApiBundles", "report.xml"); //$NON-NLS-1$ //$NON-NLS-2$
+				writer.startDocument();
+				writer.startElement(IApiXmlConstants.ELEMENT_API_TOOL_REPORT);
+				writer.attribute(IApiXmlConstants.ATTR_VERSION, IApiXmlConstants.API_REPORT_CURRENT_VERSION);
 				for (Iterator iterator = bundlesNames.iterator(); iterator.hasNext();) {
 					String bundleName = (String) iterator.next();
 					if (this.excludedElements == null || !this.excludedElements.containsPartialMatch(bundleName)
 							&& (this.includedElements == null || this.includedElements.isEmpty() || this.includedElements.containsPartialMatch(bundleName))) {
-						Element bundle = document.createElement(IApiXmlConstants.ELEMENT_BUNDLE);
-						bundle.setAttribute(IApiXmlConstants.ATTR_NAME, bundleName);
-						report.appendChild(bundle);
+						writer.startElement(IApiXmlConstants.ELEMENT_BUNDLE);
+						writer.attribute(IApiXmlConstants.ATTR_NAME, bundleName);
+						writer.endElement();
 					}
 				}
-				contents = Util.serializeDocument(document);
-			} catch (DOMException e) {
-				throw new BuildException(e);
-			} catch (CoreException e) {
-				throw new BuildException(e);
-			}
-			if (contents != null) {
-				saveReport("allNonApiBundles", contents, "report.xml"); //$NON-NLS-1$ //$NON-NLS-2$
+				writer.endDocument();
+			} catch (IOException e) {
+				ApiPlugin.log(e);
+			} finally {
+				close(writer);
 			}
 		}
 		// Write out problem count file
-		String contents = null;
+		XmlStreamWriter writer = null;
 		try {
-			Document document = Util.newDocument();
-			Element root = document.createElement(IApiXmlConstants.ELEMENT_REPORTED_COUNT);
-			document.appendChild(root);
-			root.setAttribute(IApiXmlConstants.ATTR_TOTAL, Integer.toString(counter.total));
-			root.setAttribute(IApiXmlConstants.ATTR_COUNT_WARNINGS, Integer.toString(counter.warnings));
-			root.setAttribute(IApiXmlConstants.ATTR_COUNT_ERRORS, Integer.toString(counter.errors));
-			contents = Util.serializeDocument(document);
-		} catch (DOMException e) {
-			throw new BuildException(e);
-		} catch (CoreException e) {
-			throw new BuildException(e);
+			writer = openReport(null, "counts.xml"); //$NON-NLS-1$
+			writer.startDocument();
+			writer.startElement(IApiXmlConstants.ELEMENT_REPORTED_COUNT);
+			writer.attribute(IApiXmlConstants.ATTR_COUNT_ERRORS, Integer.toString(counter.errors));
+			writer.attribute(IApiXmlConstants.ATTR_TOTAL, Integer.toString(counter.total));
+			writer.attribute(IApiXmlConstants.ATTR_COUNT_WARNINGS, Integer.toString(counter.warnings));
+			writer.endDocument();
+		} catch (IOException e) {
+			ApiPlugin.log(e);
+		} finally {
+			close(writer);
 		}
-		if (contents != null) {
-			saveReport(null, contents, "counts.xml"); //$NON-NLS-1$
+		if (this.summaryLocation != null) {
+			saveSummary(reported, reportedCounters, counter);
+		}
+	}
+	/**
+	 * Closes the given report writer if it is not <code>null</code>
+	 * @param writer
+	 */
+	private void close(XmlStreamWriter writer) {
+		if (writer != null) {
+			try {
+				writer.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+	/**
+	 * Writes the binary summary of the reported components, see {@link #setSummary(String)}
+	 * @param summaries the reported {@link Summary}s
+	 * @param counters the {@link ProblemCounter} of each of the reported summaries
+	 * @param total the counter of all reported problems
+	 */
+	private void saveSummary(List summaries, List counters, ProblemCounter total) {
+		File file = new File(this.summaryLocation);
+		File parent = file.getParentFile();
+		if (parent != null && !parent.exists()) {
+			if (!parent.mkdirs()) {
+				throw new BuildException(NLS.bind(Messages.errorCreatingReportDirectory, parent));
+			}
+		}
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			out.writeInt(SUMMARY_MAGIC);
+			out.writeInt(SUMMARY_VERSION);
+			out.writeInt(total.total);
+			out.writeInt(total.errors);
+			out.writeInt(total.warnings);
+			out.writeInt(summaries.size());
+			for (int i = 0, max = summaries.size(); i < max; i++) {
+				Summary summary = (Summary) summaries.get(i);
+				ProblemCounter counter = (ProblemCounter) counters.get(i);
+				out.writeUTF(summary.componentID);
+				out.writeInt(summary.apiCompatibilityProblems.size());
+				out.writeInt(summary.apiUsageProblems.size());
+				out.writeInt(summary.apiBundleVersionProblems.size());
+				out.writeInt(counter.errors);
+				out.writeInt(counter.warnings);
+			}
+		} catch (IOException e) {
+			ApiPlugin.log(e);
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
 		}
 	}
 	private void dumpSummaries(Summary[] summaries) {
@@ -648,7 +700,13 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 		if (this.debug) {
 			time = System.currentTimeMillis();
 		}
-		File referenceInstallDir = extractSDK(REFERENCE, this.referenceBaselineLocation);
+		BaselineSnapshot referenceSnapshot = getSnapshot(this.referenceBaselineLocation);
+		File referenceInstallDir = null;
+		if (referenceSnapshot != null) {
+			referenceInstallDir = referenceSnapshot.getInstallDir();
+		} else {
+			referenceInstallDir = extractSDK(REFERENCE, this.referenceBaselineLocation);
+		}
 
 		File baselineInstallDir = extractSDK(CURRENT, this.currentBaselineLocation);
 		if (this.debug) {
@@ -657,7 +715,12 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 		}
 		// run the comparison
 		// create baseline for the reference
-		IApiBaseline referenceBaseline = createBaseline(REFERENCE_BASELINE_NAME, referenceInstallDir.getAbsolutePath(), this.eeFileLocation);
+		IApiBaseline referenceBaseline = null;
+		if (referenceSnapshot != null) {
+			referenceBaseline = createBaseline(REFERENCE_BASELINE_NAME, referenceSnapshot, this.eeFileLocation);
+		} else {
+			referenceBaseline = createBaseline(REFERENCE_BASELINE_NAME, referenceInstallDir.getAbsolutePath(), this.eeFileLocation);
+		}
 		IApiBaseline currentBaseline = createBaseline(CURRENT_BASELINE_NAME, baselineInstallDir.getAbsolutePath(), this.eeFileLocation);
 		
 		if (this.excludeListLocation != null) {
@@ -683,10 +746,12 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 		Map allProblems = new HashMap();
 		List allNonApiBundles = new ArrayList();
 		List allApiBundles = new ArrayList();
+		List allMetrics = new ArrayList();
 		try {
 			IApiComponent[] apiComponents = currentBaseline.getApiComponents();
 			int length = apiComponents.length;
 			Set visitedApiComponentNames = new HashSet();
+			List analyzedComponents = new ArrayList();
 			for (int i = 0; i < length; i++) {
 				IApiComponent apiComponent = apiComponents[i];
 				String name = apiComponent.getSymbolicName();
@@ -699,20 +764,22 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 					continue;
 				}
 				allApiBundles.add(name);
-				BaseApiAnalyzer analyzer = new BaseApiAnalyzer();
-				try {
-					analyzer.analyzeComponent(null, getFilterStore(name), this.properties, referenceBaseline, apiComponent, new BuildContext(), new NullProgressMonitor());
-					IApiProblem[] problems = analyzer.getProblems();
-					// remove duplicates
-					problems = removeDuplicates(problems);
-					if (problems.length != 0) {
-						allProblems.put(name, problems);
-					}
-				} catch(RuntimeException e) {
-					ApiPlugin.log(e);
-					throw e;
-				} finally {
-					analyzer.dispose();
+				analyzedComponents.add(apiComponent);
+			}
+			IApiComponent[] components = (IApiComponent[]) analyzedComponents.toArray(new IApiComponent[analyzedComponents.size()]);
+			ApiProblemList[] results = new ApiProblemList[components.length];
+			BuildMetrics[] metrics = null;
+			if (this.metricsLocation != null) {
+				metrics = new BuildMetrics[components.length];
+			}
+			analyzeComponents(components, referenceBaseline, results, metrics);
+			// merge in the order of the baseline so the report does not depend on the number of threads
+			for (int i = 0; i < components.length; i++) {
+				if (results[i] != null && results[i].size() != 0) {
+					allProblems.put(components[i].getSymbolicName(), results[i]);
+				}
+				if (metrics != null) {
+					allMetrics.add(metrics[i]);
 				}
 			}
 			if (debug) {
@@ -755,7 +822,7 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 							IDelta.API_BASELINE_ELEMENT_TYPE,
 							IDelta.REMOVED,
 							IDelta.API_COMPONENT);
-					allProblems.put(id, new IApiProblem[] { problem });
+					allProblems.put(id, new ApiProblemList(new IApiProblem[] { problem }));
 				}
 			}
 		} finally {
@@ -766,7 +833,9 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 			referenceBaseline.dispose();
 			currentBaseline.dispose();
 			StubApiComponent.disposeAllCaches();
-			deleteBaseline(this.referenceBaselineLocation, referenceInstallDir);
+			if (referenceSnapshot == null) {
+				deleteBaseline(this.referenceBaselineLocation, referenceInstallDir);
+			}
 			deleteBaseline(this.currentBaselineLocation, baselineInstallDir);
 			if (this.debug) {
 				System.out.println("Cleanup : " + (System.currentTimeMillis() - time) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -780,90 +849,207 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 			ApiPlugin.log(e);
 			throw e;
 		}
+		if (this.metricsLocation != null) {
+			saveMetrics((BuildMetrics[]) allMetrics.toArray(new BuildMetrics[allMetrics.size()]));
+		}
+	}
+	/**
+	 * Writes the given metrics to the metrics location, as JSON if the location ends with
+	 * <code>.json</code> and as CSV otherwise
+	 * 
+	 * @param metrics the metrics of the analyzed components
+	 */
+	private void saveMetrics(BuildMetrics[] metrics) {
+		File metricsFile = new File(this.metricsLocation);
+		File parent = metricsFile.getParentFile();
+		if (parent != null && !parent.exists()) {
+			if (!parent.mkdirs()) {
+				throw new BuildException(NLS.bind(Messages.errorCreatingReportDirectory, parent));
+			}
+		}
+		BufferedWriter writer = null;
+		try {
+			writer = new BufferedWriter(new FileWriter(metricsFile));
+			if (this.metricsLocation.toLowerCase().endsWith(".json")) { //$NON-NLS-1$
+				BuildMetrics.writeJSON(metrics, writer);
+			} else {
+				BuildMetrics.writeCSV(metrics, writer);
+			}
+			writer.flush();
+		} catch (IOException e) {
+			ApiPlugin.log(e);
+		} finally {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
 	}
-	private IApiProblem[] removeDuplicates(IApiProblem[] problems) {
-		int length = problems.length;
-		if (length <= 1) return problems;
-		Set uniqueProblems = new HashSet(length);
-		List allProblems = null;
-		for (int i = 0; i < length; i++) {
-			IApiProblem apiProblem = problems[i];
-			String message = apiProblem.getMessage();
-			if (!uniqueProblems.contains(message)) {
-				if (allProblems == null) {
-					allProblems = new ArrayList(length);
+	/**
+	 * Analyzes the given components against the given reference baseline, using {@link #threads} threads.
+	 * Each component is analyzed by its own analyzer.
+	 * 
+	 * @param components the components to analyze
+	 * @param referenceBaseline the reference baseline
+	 * @param results the array to store the list of problems found for each component in, at the index of the component
+	 * @param metrics the array to store the metrics of each component in or <code>null</code> if no metrics are collected
+	 */
+	private void analyzeComponents(final IApiComponent[] components, final IApiBaseline referenceBaseline, final ApiProblemList[] results, final BuildMetrics[] metrics) {
+		if (this.threads < 2 || components.length < 2) {
+			for (int i = 0; i < components.length; i++) {
+				analyzeComponent(components, i, referenceBaseline, results, metrics);
+			}
+			return;
+		}
+		final int[] next = new int[1];
+		final Throwable[] failure = new Throwable[1];
+		Thread[] workers = new Thread[Math.min(this.threads, components.length)];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Thread("API Analysis " + (i + 1)) { //$NON-NLS-1$
+				public void run() {
+					while (true) {
+						int index = -1;
+						synchronized (next) {
+							if (failure[0] != null || next[0] >= components.length) {
+								return;
+							}
+							index = next[0]++;
+						}
+						try {
+							analyzeComponent(components, index, referenceBaseline, results, metrics);
+						} catch (Throwable e) {
+							// also record errors, so they are not lost with the worker
+							synchronized (next) {
+								if (failure[0] == null) {
+									failure[0] = e;
+								}
+							}
+						}
+					}
 				}
-				uniqueProblems.add(message);
-				allProblems.add(apiProblem);
+			};
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+		for (int i = 0; i < workers.length; i++) {
+			try {
+				workers[i].join();
+			} catch (InterruptedException e) {
+				// keep waiting for the remaining workers
+			}
+		}
+		if (failure[0] instanceof RuntimeException) {
+			throw (RuntimeException) failure[0];
+		}
+		if (failure[0] instanceof Error) {
+			throw (Error) failure[0];
+		}
+		if (failure[0] != null) {
+			throw new BuildException(failure[0]);
+		}
+	}
+	/**
+	 * Analyzes the component at the given index
+	 * @param components
+	 * @param index
+	 * @param referenceBaseline
+	 * @param results
+	 * @param metrics
+	 */
+	void analyzeComponent(IApiComponent[] components, int index, IApiBaseline referenceBaseline, ApiProblemList[] results, BuildMetrics[] metrics) {
+		IApiComponent apiComponent = components[index];
+		String name = apiComponent.getSymbolicName();
+		BaseApiAnalyzer analyzer = new BaseApiAnalyzer();
+		BuildMetrics componentMetrics = null;
+		if (metrics != null) {
+			componentMetrics = new BuildMetrics(name);
+			analyzer.setMetrics(componentMetrics);
+			metrics[index] = componentMetrics;
+		}
+		try {
+			analyzer.analyzeComponent(null, getFilterStore(name), this.properties, referenceBaseline, apiComponent, new BuildContext(), new NullProgressMonitor());
+			// keep the problems in a compact list until the report is written
+			ApiProblemList problems = new ApiProblemList(analyzer.getProblems());
+			problems.removeDuplicateMessages();
+			results[index] = problems;
+		} catch(RuntimeException e) {
+			ApiPlugin.log(e);
+			throw e;
+		} finally {
+			analyzer.dispose();
+			if (componentMetrics != null) {
+				componentMetrics.done();
 			}
 		}
-		return (IApiProblem[]) allProblems.toArray(new IApiProblem[allProblems.size()]);
 	}
 	private IApiFilterStore getFilterStore(String name) {
 		if (this.filters == null) return null;
 		return new AntFilterStore(this.debug, this.filters, name);
 	}
 	/**
-	 * Returns an element that contains all the api problem nodes.
+	 * Writes a category element with all the api problem nodes of the given problems.
 	 *
-	 * @param document the given xml document
-	 * @param problems the given problem to dump into the document
+	 * @param writer the writer of the report
+	 * @param category the category key
+	 * @param name the category name
+	 * @param problems the given problem to dump into the report
 	 * @param counter a counter object to which the reported problems can be added
-	 * @return an element that contains all the api problem nodes or null if an error occured
+	 * @throws IOException if the report cannot be written
 	 */
-	private void insertAPIProblems(Element root, Document document, List problems, ProblemCounter counter) throws CoreException {
-		Element apiProblems = document.createElement(IApiXmlConstants.ELEMENT_API_PROBLEMS);
-		root.appendChild(apiProblems);
-		Element element = null;
+	private void writeAPIProblems(XmlStreamWriter writer, int category, String name, ApiProblemList problems, ProblemCounter counter) throws IOException {
+		writer.startElement(IApiXmlConstants.ATTR_CATEGORY);
+		writer.attribute(IApiXmlConstants.ATTR_KEY, Integer.toString(category));
+		writer.attribute(IApiXmlConstants.ATTR_VALUE, name);
+		writer.startElement(IApiXmlConstants.ELEMENT_API_PROBLEMS);
 		// sort the problem by type name
-		Collections.sort(problems, new Comparator() {
-			public int compare(Object o1, Object o2) {
-				IApiProblem p1 = (IApiProblem) o1;
-				IApiProblem p2 = (IApiProblem) o2;
-				return p1.getTypeName().compareTo(p2.getTypeName());
-			}
-		});
-		for(Iterator iterator = problems.iterator(); iterator.hasNext(); ) {
-			IApiProblem problem = (IApiProblem) iterator.next();
+		problems.sortByTypeName();
+		// attributes are written in the same (alphabetical) order as the DOM serializer used to
+		for(int i = 0, max = problems.size(); i < max; i++) {
+			IApiProblem problem = problems.get(i);
 			int severity = getSeverity(problem);
 			counter.addProblem(severity);
-			element = document.createElement(IApiXmlConstants.ELEMENT_API_PROBLEM);
-			element.setAttribute(IApiXmlConstants.ATTR_TYPE_NAME, String.valueOf(problem.getTypeName()));
-			element.setAttribute(IApiXmlConstants.ATTR_ID, Integer.toString(problem.getId()));
-			element.setAttribute(IApiXmlConstants.ATTR_LINE_NUMBER, Integer.toString(problem.getLineNumber()));
-			element.setAttribute(IApiXmlConstants.ATTR_CHAR_START, Integer.toString(problem.getCharStart()));
-			element.setAttribute(IApiXmlConstants.ATTR_CHAR_END, Integer.toString(problem.getCharEnd()));
-			element.setAttribute(IApiXmlConstants.ATTR_ELEMENT_KIND, Integer.toString(problem.getElementKind()));
-			element.setAttribute(IApiXmlConstants.ATTR_SEVERITY, Integer.toString(severity));
-			element.setAttribute(IApiXmlConstants.ATTR_KIND, Integer.toString(problem.getKind()));
-			element.setAttribute(IApiXmlConstants.ATTR_FLAGS, Integer.toString(problem.getFlags()));
-			element.setAttribute(IApiXmlConstants.ATTR_MESSAGE, problem.getMessage());
+			writer.startElement(IApiXmlConstants.ELEMENT_API_PROBLEM);
+			writer.attribute(IApiXmlConstants.ATTR_CHAR_END, Integer.toString(problem.getCharEnd()));
+			writer.attribute(IApiXmlConstants.ATTR_CHAR_START, Integer.toString(problem.getCharStart()));
+			writer.attribute(IApiXmlConstants.ATTR_ELEMENT_KIND, Integer.toString(problem.getElementKind()));
+			writer.attribute(IApiXmlConstants.ATTR_FLAGS, Integer.toString(problem.getFlags()));
+			writer.attribute(IApiXmlConstants.ATTR_ID, Integer.toString(problem.getId()));
+			writer.attribute(IApiXmlConstants.ATTR_KIND, Integer.toString(problem.getKind()));
+			writer.attribute(IApiXmlConstants.ATTR_LINE_NUMBER, Integer.toString(problem.getLineNumber()));
+			writer.attribute(IApiXmlConstants.ATTR_MESSAGE, problem.getMessage());
+			writer.attribute(IApiXmlConstants.ATTR_SEVERITY, Integer.toString(severity));
+			writer.attribute(IApiXmlConstants.ATTR_TYPE_NAME, String.valueOf(problem.getTypeName()));
 			String[] extraMarkerAttributeIds = problem.getExtraMarkerAttributeIds();
 			if (extraMarkerAttributeIds != null && extraMarkerAttributeIds.length != 0) {
 				int length = extraMarkerAttributeIds.length;
 				Object[] extraMarkerAttributeValues = problem.getExtraMarkerAttributeValues();
-				Element extraArgumentsElement = document.createElement(IApiXmlConstants.ELEMENT_PROBLEM_EXTRA_ARGUMENTS);
+				writer.startElement(IApiXmlConstants.ELEMENT_PROBLEM_EXTRA_ARGUMENTS);
 				for (int j = 0; j < length; j++) {
-					Element extraArgumentElement = document.createElement(IApiXmlConstants.ELEMENT_PROBLEM_EXTRA_ARGUMENT);
-					extraArgumentElement.setAttribute(IApiXmlConstants.ATTR_ID, extraMarkerAttributeIds[j]);
-					extraArgumentElement.setAttribute(IApiXmlConstants.ATTR_VALUE, String.valueOf(extraMarkerAttributeValues[j]));
-					extraArgumentsElement.appendChild(extraArgumentElement);
+					writer.startElement(IApiXmlConstants.ELEMENT_PROBLEM_EXTRA_ARGUMENT);
+					writer.attribute(IApiXmlConstants.ATTR_ID, extraMarkerAttributeIds[j]);
+					writer.attribute(IApiXmlConstants.ATTR_VALUE, String.valueOf(extraMarkerAttributeValues[j]));
+					writer.endElement();
 				}
-				element.appendChild(extraArgumentsElement);
+				writer.endElement();
 			}
 			String[] messageArguments = problem.getMessageArguments();
 			if (messageArguments != null && messageArguments.length != 0) {
 				int length = messageArguments.length;
-				Element messageArgumentsElement = document.createElement(IApiXmlConstants.ELEMENT_PROBLEM_MESSAGE_ARGUMENTS);
+				writer.startElement(IApiXmlConstants.ELEMENT_PROBLEM_MESSAGE_ARGUMENTS);
 				for (int j = 0; j < length; j++) {
-					Element messageArgumentElement = document.createElement(IApiXmlConstants.ELEMENT_PROBLEM_MESSAGE_ARGUMENT);
-					messageArgumentElement.setAttribute(IApiXmlConstants.ATTR_VALUE, String.valueOf(messageArguments[j]));
-					messageArgumentsElement.appendChild(messageArgumentElement);
+					writer.startElement(IApiXmlConstants.ELEMENT_PROBLEM_MESSAGE_ARGUMENT);
+					writer.attribute(IApiXmlConstants.ATTR_VALUE, String.valueOf(messageArguments[j]));
+					writer.endElement();
 				}
-				element.appendChild(messageArgumentsElement);
+				writer.endElement();
 			}
-			apiProblems.appendChild(element);
+			writer.endElement();
 		}
+		writer.endElement();
+		writer.endElement();
 	}
 	
 	/**
@@ -981,6 +1167,47 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 	public void setFilters(String filters) {
 		this.filters = filters; 
 	}
+	/**
+	 * Set the location of the file to write the analysis metrics to.
+	 * 
+	 * <p>The metrics contain the time spent in each phase of the analysis of each component (compatibility
+	 * check, reference extraction and resolution, each problem detector, since tag checks, filter lookup...).
+	 * If the location ends with <code>.json</code> the metrics are written as JSON, otherwise as CSV with the
+	 * columns <code>name,phase,time,count</code>. Times are in milliseconds.</p>
+	 * <p>The location is set using an absolute path. This is optional, by default no metrics are collected.</p>
+	 *
+	 * @param metricsLocation the location of the metrics file
+	 */
+	public void setMetrics(String metricsLocation) {
+		this.metricsLocation = metricsLocation;
+	}
+	/**
+	 * Set the location of the binary summary file.
+	 * 
+	 * <p>If set, a compact binary summary of the reported problems is written to this file in addition to the
+	 * XML reports, so dashboards can be generated without parsing the reports. The file is written with a
+	 * {@link DataOutputStream}: a magic number, the format version, the total, error and warning counts, the
+	 * number of components and then for each reported component its id (<code>writeUTF</code>) followed by the
+	 * number of compatibility, usage and bundle version problems and the number of errors and warnings.</p>
+	 * <p>The location is set using an absolute path. This is optional, by default no summary is written.</p>
+	 *
+	 * @param summaryLocation the location of the summary file
+	 */
+	public void setSummary(String summaryLocation) {
+		this.summaryLocation = summaryLocation;
+	}
+	/**
+	 * Set the number of threads used to analyze the components.
+	 * 
+	 * <p>Each component of the current baseline is analyzed on one of the threads with its own analyzer;
+	 * the reports are the same as for a single-threaded analysis.</p>
+	 * <p>Default is <code>1</code>.</p>
+	 *
+	 * @param threads the number of threads to use
+	 */
+	public void setThreads(String threads) {
+		this.threads = parseThreadCount(threads);
+	}
 	/**
 	 * Set the preferences for the task.
 	 * 
@@ -1060,6 +1287,20 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 	public void setBaseline(String baselineLocation) {
 		this.referenceBaselineLocation = baselineLocation;
 	}
+	/**
+	 * Set the location of the baseline cache.
+	 * 
+	 * <p>If set and the reference baseline is an archive, the reference baseline is extracted into this
+	 * directory once and kept there, together with the list of its components, for the next runs
+	 * with the same archive. The archive is identified by the digest of its contents.</p>
+	 * <p>The location is set using an absolute path. This is optional, by default the reference baseline
+	 * is extracted into a temporary directory and deleted after each run.</p>
+	 *
+	 * @param baselineCacheLocation the given location for the baseline cache
+	 */
+	public void setBaselineCache(String baselineCacheLocation) {
+		this.baselineCacheLocation = baselineCacheLocation;
+	}
 	/**
 	 * Set the output location where the reports will be generated.
 	 * 
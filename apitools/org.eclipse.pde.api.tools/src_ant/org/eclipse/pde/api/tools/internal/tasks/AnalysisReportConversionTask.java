@@ -230,6 +230,7 @@ public class AnalysisReportConversionTask extends Task {
 	private File htmlRoot;
 	private File reportsRoot;
 	private String xmlReportsLocation;
+	private int threads = 1;
 
 	private void dumpFooter(PrintWriter writer) {
 		writer.println(Messages.W3C_page_footer);
@@ -456,19 +457,20 @@ public class AnalysisReportConversionTask extends Task {
 				int length = allFiles.length;
 				List summariesList = new ArrayList(length);
 				Summary nonApiBundleSummary = null;
+				Report[] reports = new Report[length];
+				if (this.threads < 2 || length < 2) {
+					for (int i = 0; i < length; i++) {
+						reports[i] = convert(parser, allFiles[i]);
+					}
+				} else {
+					convert(factory, allFiles, reports);
+				}
+				// the index lists the reports in file order, whatever the number of threads
 				for (int i = 0; i < length; i++) {
-					File file = allFiles[i];
-					ConverterDefaultHandler defaultHandler = new ConverterDefaultHandler(this.debug);
-					parser.parse(file, defaultHandler);
-					Report report = defaultHandler.getReport();
+					Report report = reports[i];
 					if (report == null) {
-						// ignore that file. It could be the counts.xml file.
-						if (this.debug) {
-							System.out.println("Skipped file : " + file.getAbsolutePath()); //$NON-NLS-1$
-						}
 						continue;
 					}
-					dumpReport(file, report);
 					if (report.isNonApiBundlesReport()) {
 						nonApiBundleSummary = new Summary(report);
 					} else {
@@ -486,6 +488,85 @@ public class AnalysisReportConversionTask extends Task {
 			// ignore
 		}
 	}
+	/**
+	 * Parses the given XML report and writes its HTML report
+	 * @param parser the parser to use
+	 * @param file the XML report
+	 * @return the parsed report or <code>null</code> if the file is not a report
+	 * @throws SAXException
+	 * @throws IOException
+	 */
+	private Report convert(SAXParser parser, File file) throws SAXException, IOException {
+		ConverterDefaultHandler defaultHandler = new ConverterDefaultHandler(this.debug);
+		parser.parse(file, defaultHandler);
+		Report report = defaultHandler.getReport();
+		if (report == null) {
+			// ignore that file. It could be the counts.xml file.
+			if (this.debug) {
+				System.out.println("Skipped file : " + file.getAbsolutePath()); //$NON-NLS-1$
+			}
+			return null;
+		}
+		dumpReport(file, report);
+		return report;
+	}
+	/**
+	 * Converts the given XML reports on {@link #threads} threads, each with its own parser. Each component
+	 * report is a separate file, so the reports are converted independently.
+	 * @param factory the factory to create the parsers with
+	 * @param files the XML reports
+	 * @param reports the array to store the parsed reports in, at the index of their file
+	 * @throws SAXException if one of the reports could not be parsed
+	 * @throws IOException if one of the reports could not be read
+	 */
+	private void convert(final SAXParserFactory factory, final File[] files, final Report[] reports) throws SAXException, IOException {
+		final int[] next = new int[1];
+		final Exception[] failure = new Exception[1];
+		Thread[] workers = new Thread[Math.min(this.threads, files.length)];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Thread("API Report Conversion " + (i + 1)) { //$NON-NLS-1$
+				public void run() {
+					try {
+						SAXParser parser = factory.newSAXParser();
+						while (true) {
+							int index = -1;
+							synchronized (next) {
+								if (failure[0] != null || next[0] >= files.length) {
+									return;
+								}
+								index = next[0]++;
+							}
+							reports[index] = convert(parser, files[index]);
+						}
+					} catch (Exception e) {
+						synchronized (next) {
+							if (failure[0] == null) {
+								failure[0] = e;
+							}
+						}
+					}
+				}
+			};
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+		for (int i = 0; i < workers.length; i++) {
+			try {
+				workers[i].join();
+			} catch (InterruptedException e) {
+				// keep waiting for the remaining workers
+			}
+		}
+		if (failure[0] instanceof SAXException) {
+			throw (SAXException) failure[0];
+		} else if (failure[0] instanceof IOException) {
+			throw (IOException) failure[0];
+		} else if (failure[0] instanceof RuntimeException) {
+			throw (RuntimeException) failure[0];
+		} else if (failure[0] != null) {
+			throw new BuildException(failure[0]);
+		}
+	}
 	private String extractLinkFrom(String fileName) {
 		StringBuffer buffer = new StringBuffer();
 		buffer.append('.').append(fileName.substring(this.htmlRoot.getAbsolutePath().length()).replace('\\', '/'));
@@ -509,6 +590,17 @@ public class AnalysisReportConversionTask extends Task {
 	public void setDebug(String debugValue) {
 		this.debug = Boolean.toString(true).equals(debugValue); 
 	}
+	/**
+	 * Set the number of threads used to convert the reports.
+	 * <p>The report of each component is converted on one of the threads; the generated files are
+	 * the same as for a single-threaded conversion.</p>
+	 * <p>Default is <code>1</code>.</p>
+	 *
+	 * @param threads the number of threads to use
+	 */
+	public void setThreads(String threads) {
+		this.threads = CommonUtilsTask.parseThreadCount(threads);
+	}
 	/**
 	 * Set the location where the html reports are generated.
 	 * 
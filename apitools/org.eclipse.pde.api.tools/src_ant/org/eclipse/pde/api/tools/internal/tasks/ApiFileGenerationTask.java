@@ -12,6 +12,7 @@ package org.eclipse.pde.api.tools.internal.tasks;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
@@ -21,6 +22,7 @@ import java.io.PrintWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -110,6 +112,8 @@ public class ApiFileGenerationTask extends Task {
 	String manifests;
 	String sourceLocations;
 	boolean allowNonApiProject = false;
+	int threads = 1;
+	String fingerprintLocation;
 	Set apiPackages = new HashSet(0);
 
 	/**
@@ -202,6 +206,33 @@ public class ApiFileGenerationTask extends Task {
 	public void setExtraSourceLocations(String sourceLocations) {
 		this.sourceLocations = sourceLocations;
 	}
+	/**
+	 * Set the number of threads used to scan the source files.
+	 * 
+	 * <p>The source files are parsed in parallel; the generated file is the same as for a
+	 * single-threaded scan.</p>
+	 * <p>Default is <code>1</code>.</p>
+	 *
+	 * @param threads the number of threads to use
+	 */
+	public void setThreads(String threads) {
+		this.threads = CommonUtilsTask.parseThreadCount(threads);
+	}
+	/**
+	 * Set the location of the fingerprints used for incremental generation.
+	 * 
+	 * <p>When set, the task stores a fingerprint of the scanned source files (their names, sizes and
+	 * time stamps), the manifest files and the binary locations in this directory after each generation. An
+	 * existing .api_description file is only kept when the current fingerprint matches the stored one,
+	 * otherwise it is generated again.</p>
+	 * <p>When not set, an existing .api_description file is always kept.</p>
+	 * <br><br>The location is set using an absolute path.
+	 *
+	 * @param fingerprintLocation the directory to store the fingerprints in
+	 */
+	public void setFingerprints(String fingerprintLocation) {
+		this.fingerprintLocation = fingerprintLocation;
+	}
 	/**
 	 * Execute the ant task
 	 */
@@ -265,7 +296,7 @@ public class ApiFileGenerationTask extends Task {
 				NLS.bind(Messages.api_generation_targetFolderNotADirectory, this.targetFolder));
 		}
 		File apiDescriptionFile = new File(targetProjectFolder, IApiCoreConstants.API_DESCRIPTION_XML_NAME);
-		if (apiDescriptionFile.exists()) {
+		if (apiDescriptionFile.exists() && this.fingerprintLocation == null) {
 			return;
 		}
 		File[] allFiles = null;
@@ -390,29 +421,58 @@ public class ApiFileGenerationTask extends Task {
 				}
 			}
 		}
+		File fingerprintFile = null;
+		String fingerprint = null;
+		if (this.fingerprintLocation != null) {
+			fingerprintFile = new File(this.fingerprintLocation, this.projectName + ".fingerprint"); //$NON-NLS-1$
+			fingerprint = computeFingerprint(allFiles, resolveCompliance(manifestMap));
+			if (apiDescriptionFile.exists()
+					&& fingerprintFile.exists()
+					&& fingerprint.equals(Util.getFileContentAsString(fingerprintFile))) {
+				if (this.debug) {
+					System.out.println("Up to date : " + apiDescriptionFile.getAbsolutePath()); //$NON-NLS-1$
+				}
+				if (classFileContainer != null) {
+					try {
+						classFileContainer.close();
+					}
+					catch (CoreException e) {}
+				}
+				return;
+			}
+			// never keep a fingerprint for a description that is being replaced
+			fingerprintFile.delete();
+		}
 		ApiDescription apiDescription = new ApiDescription(this.projectName);
 		TagScanner tagScanner = TagScanner.newScanner();
 		if (allFiles != null && allFiles.length != 0) {
 			Map options = JavaCore.getOptions();
 			options.put(JavaCore.COMPILER_COMPLIANCE, resolveCompliance(manifestMap));
-			CompilationUnit unit = null;
+			CompilationUnit[] units = new CompilationUnit[allFiles.length];
 			for (int i = 0, max = allFiles.length; i < max; i++) {
-				unit = new CompilationUnit(allFiles[i].getAbsolutePath());
+				units[i] = new CompilationUnit(allFiles[i].getAbsolutePath());
 				if (this.debug) {
-					System.out.println("Unit name[" + i + "] : " + unit.getName()); //$NON-NLS-1$ //$NON-NLS-2$
+					System.out.println("Unit name[" + i + "] : " + units[i].getName()); //$NON-NLS-1$ //$NON-NLS-2$
 				}
+			}
+			long time = 0;
+			if (this.debug) {
+				time = System.currentTimeMillis();
+			}
+			try {
+				tagScanner.scan(units, apiDescription, classFileContainer, options, this.threads, null);
+			} catch (CoreException e) {
+				ApiPlugin.log(e);
+			} finally {
 				try {
-					tagScanner.scan(unit, apiDescription, classFileContainer, options, null);
-				} catch (CoreException e) {
-					ApiPlugin.log(e);
-				} finally {
-					try {
-						if (classFileContainer != null) {
-							classFileContainer.close();
-						}
-					} 
-					catch (CoreException e) {}
-				}
+					if (classFileContainer != null) {
+						classFileContainer.close();
+					}
+				} 
+				catch (CoreException e) {}
+			}
+			if (this.debug) {
+				System.out.println("Scanned " + units.length + " units with " + this.threads + " thread(s) in " + (System.currentTimeMillis() - time) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 			}
 		}
 		try {
@@ -420,6 +480,10 @@ public class ApiFileGenerationTask extends Task {
 			apiDescription.accept(xmlVisitor, null);
 			String xml = xmlVisitor.getXML();
 			Util.saveFile(apiDescriptionFile, xml);
+			if (fingerprintFile != null) {
+				fingerprintFile.getParentFile().mkdirs();
+				Util.saveFile(fingerprintFile, fingerprint);
+			}
 		} catch (CoreException e) {
 			ApiPlugin.log(e);
 		} catch (IOException e) {
@@ -483,6 +547,49 @@ public class ApiFileGenerationTask extends Task {
 		return set;
 	}
 	
+	/**
+	 * Computes the fingerprint of the inputs of the generation: the given source files, the manifest
+	 * files, the binary locations and the compiler compliance. Only the names, sizes and time stamps
+	 * of the files are used, their contents are not read.
+	 * 
+	 * @param sourceFiles the source files to scan, may be <code>null</code>
+	 * @param compliance the compiler compliance used to scan the source files
+	 * @return the hex encoded fingerprint
+	 */
+	private String computeFingerprint(File[] sourceFiles, String compliance) {
+		List entries = new ArrayList();
+		if (sourceFiles != null) {
+			for (int i = 0; i < sourceFiles.length; i++) {
+				entries.add(sourceFiles[i]);
+			}
+		}
+		entries.add(new File(new File(this.projectLocation, "META-INF"), "MANIFEST.MF")); //$NON-NLS-1$ //$NON-NLS-2$
+		if (this.manifests != null) {
+			String[] allManifestFiles = this.manifests.split(File.pathSeparator);
+			for (int i = 0; i < allManifestFiles.length; i++) {
+				entries.add(new File(allManifestFiles[i]));
+			}
+		}
+		File[] files = (File[]) entries.toArray(new File[entries.size()]);
+		Arrays.sort(files);
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(compliance).append('\n');
+		buffer.append(this.binaryLocations).append('\n');
+		for (int i = 0; i < files.length; i++) {
+			buffer.append(files[i].getAbsolutePath())
+				.append('|').append(files[i].length())
+				.append('|').append(files[i].lastModified())
+				.append('\n');
+		}
+		try {
+			return Util.getMD5Digest(new ByteArrayInputStream(String.valueOf(buffer).getBytes(IApiCoreConstants.UTF_8)));
+		}
+		catch (IOException e) {
+			// fall back to the description of the inputs itself
+		}
+		return String.valueOf(buffer);
+	}
+	
 	private IApiTypeContainer getContainer(String location) {
 		File f = new File(location);
 		if (!f.exists()) return null;
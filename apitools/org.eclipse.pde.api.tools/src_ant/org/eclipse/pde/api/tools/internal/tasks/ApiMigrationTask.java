@@ -15,7 +15,6 @@ import java.io.File;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.TreeSet;
-import java.util.regex.Pattern;
 
 import org.apache.tools.ant.BuildException;
 import org.eclipse.core.runtime.CoreException;
@@ -28,6 +27,7 @@ import org.eclipse.pde.api.tools.internal.search.ReferenceLookupVisitor;
 import org.eclipse.pde.api.tools.internal.search.SkippedComponent;
 import org.eclipse.pde.api.tools.internal.search.UseScanParser;
 import org.eclipse.pde.api.tools.internal.util.FilteredElements;
+import org.eclipse.pde.api.tools.internal.util.PatternFilter;
 import org.eclipse.pde.api.tools.internal.util.Util;
 
 /**
@@ -265,12 +265,12 @@ public final class ApiMigrationTask extends CommonUtilsTask {
 	/**
 	 * Returns if we should add the given component to our search scope
 	 * @param component
-	 * @param pattern
+	 * @param filter
 	 * @param allowresolve
 	 * @return true if the given component should be considered, false otherwise
 	 * @throws CoreException
 	 */
-	boolean acceptComponent(IApiComponent component, Pattern pattern, boolean allowresolve) throws CoreException {
+	boolean acceptComponent(IApiComponent component, PatternFilter filter, boolean allowresolve) throws CoreException {
 		if(!allowresolve) {
 			ResolverError[] errors = component.getErrors();
 			if(errors != null) {
@@ -281,8 +281,8 @@ public final class ApiMigrationTask extends CommonUtilsTask {
 		if(component.isSystemComponent()) {
 			return false;
 		}
-		if(pattern != null) {
-			return pattern.matcher(component.getSymbolicName()).matches();
+		if(filter != null) {
+			return filter.matches(component.getSymbolicName());
 		}
 		return true;
 	}
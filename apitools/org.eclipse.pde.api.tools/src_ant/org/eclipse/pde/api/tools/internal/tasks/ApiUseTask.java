@@ -18,7 +18,6 @@ import java.util.Calendar;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.regex.Pattern;
 
 import org.apache.tools.ant.BuildException;
 import org.eclipse.core.runtime.CoreException;
@@ -37,6 +36,7 @@ import org.eclipse.pde.api.tools.internal.search.UseMetadata;
 import org.eclipse.pde.api.tools.internal.search.UseSearchRequestor;
 import org.eclipse.pde.api.tools.internal.search.XmlSearchReporter;
 import org.eclipse.pde.api.tools.internal.util.FilteredElements;
+import org.eclipse.pde.api.tools.internal.util.PatternFilter;
 import org.eclipse.pde.api.tools.internal.util.Util;
 
 import com.ibm.icu.text.DateFormat;
@@ -98,6 +98,11 @@ public final class ApiUseTask extends CommonUtilsTask {
 	 */
 	private String[] archivePatterns = null;
 	
+	/**
+	 * The number of threads to search the scope with
+	 */
+	private int threads = 1;
+	
 	/**
 	 * List of elements excluded from the scope
 	 */
@@ -237,6 +242,18 @@ public final class ApiUseTask extends CommonUtilsTask {
 		archivePatterns = parsePatterns(patterns);
 	}
 	
+	/**
+	 * Sets the number of threads used to search the components in the scope.
+	 * <p>Each component in the scope is searched on one of the threads; the report is the same
+	 * as for a single-threaded search.</p>
+	 * <p>Default is <code>1</code>.</p>
+	 * 
+	 * @param threads the number of threads to use
+	 */
+	public void setThreads(String threads) {
+		this.threads = parseThreadCount(threads);
+	}
+	
 	/**
 	 * @see org.eclipse.pde.api.tools.internal.tasks.UseTask#assertParameters()
 	 */
@@ -313,7 +330,7 @@ public final class ApiUseTask extends CommonUtilsTask {
 			}
 			
 			ApiPlugin.DEBUG_SEARCH_ENGINE = this.debug;
-			engine.search(baseline, requestor, reporter, null);
+			engine.search(baseline, requestor, reporter, this.threads, null);
 		}
 		catch(CoreException ce) {
 			throw new BuildException(Messages.ApiUseTask_search_engine_problem, ce);
@@ -332,12 +349,12 @@ public final class ApiUseTask extends CommonUtilsTask {
 	/**
 	 * Returns if we should add the given component to our search scope
 	 * @param component
-	 * @param pattern
+	 * @param filter
 	 * @param allowresolve
 	 * @return true if the given component should be considered, false otherwise
 	 * @throws CoreException
 	 */
-	boolean acceptComponent(IApiComponent component, Pattern pattern, boolean allowresolve) throws CoreException {
+	boolean acceptComponent(IApiComponent component, PatternFilter filter, boolean allowresolve) throws CoreException {
 		if(!allowresolve) {
 			ResolverError[] errors = component.getErrors();
 			if(errors != null) {
@@ -348,8 +365,8 @@ public final class ApiUseTask extends CommonUtilsTask {
 		if(component.isSystemComponent()) {
 			return false;
 		}
-		if(pattern != null) {
-			return pattern.matcher(component.getSymbolicName()).matches();
+		if(filter != null) {
+			return filter.matches(component.getSymbolicName());
 		}
 		return true;
 	}
@@ -379,12 +396,12 @@ public final class ApiUseTask extends CommonUtilsTask {
 
 		IApiComponent[] components = baseline.getApiComponents();
 		this.notsearched = new TreeSet(Util.componentsorter);
-		Pattern refPattern = null, scopePattern = null;
+		PatternFilter refPattern = null, scopePattern = null;
 		if(this.referencepattern != null) {
-			refPattern = Pattern.compile(this.referencepattern);
+			refPattern = new PatternFilter(new String[] {this.referencepattern}, true);
 		}
 		if(this.scopepattern != null) {
-			scopePattern = Pattern.compile(this.scopepattern);
+			scopePattern = new PatternFilter(new String[] {this.scopepattern}, true);
 		}
 		for (int i = 0; i < components.length; i++) {
 			String symbolicName = components[i].getSymbolicName();
@@ -491,6 +508,7 @@ public final class ApiUseTask extends CommonUtilsTask {
 			System.out.println("Searching for API references : " + this.considerapi); //$NON-NLS-1$
 			System.out.println("Searching for internal references : " + this.considerinternal); //$NON-NLS-1$
 			System.out.println("Searching for illegal API use : "+ this.considerillegaluse); //$NON-NLS-1$
+			System.out.println("Search threads : " + this.threads); //$NON-NLS-1$
 			if (this.excludeListLocation != null) {
 				System.out.println("exclude list location : " + this.excludeListLocation); //$NON-NLS-1$
 			} else {
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.tasks;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.pde.api.tools.internal.model.ApiModelFactory;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.util.Util;
+
+/**
+ * A snapshot of a baseline installation that is kept between runs of the API tools Ant tasks.
+ * <p>
+ * The snapshot lives in a directory of the baseline cache named after the digest of the SDK archive it was
+ * extracted from, so an archive is only extracted once no matter where it is downloaded to. Once a baseline
+ * has been created from the snapshot, the locations of its components are saved with it: later runs add
+ * the same components to a new baseline directly, without resolving the installation again. Everything else
+ * (the API descriptions, type structures...) is read lazily from the bundles of the snapshot as before.
+ * </p>
+ *
+ * @since 1.0.400
+ */
+public class BaselineSnapshot {
+
+	/**
+	 * Marker file written once the archive has been completely extracted
+	 */
+	private static final String EXTRACTED_MARKER = ".extracted"; //$NON-NLS-1$
+	/**
+	 * File listing the locations of the components of the baseline, one per line
+	 */
+	private static final String COMPONENTS_FILE = "components.txt"; //$NON-NLS-1$
+
+	private File fDirectory = null;
+	private String fArchiveLocation = null;
+	private File fInstallDir = null;
+
+	/**
+	 * Constructor
+	 * @param cacheDir the directory containing all of the snapshots
+	 * @param archiveLocation the location of the SDK archive
+	 * @throws IOException if the archive cannot be read
+	 */
+	public BaselineSnapshot(File cacheDir, String archiveLocation) throws IOException {
+		fArchiveLocation = archiveLocation;
+		fDirectory = new File(cacheDir, getDigest(new File(archiveLocation)));
+		fInstallDir = CommonUtilsTask.getInstallDir(fDirectory);
+	}
+
+	/**
+	 * Returns the hex encoded MD5 digest of the contents of the given file
+	 * @param file
+	 * @return the digest of the file
+	 * @throws IOException
+	 */
+	static String getDigest(File file) throws IOException {
+		InputStream in = null;
+		try {
+			in = new BufferedInputStream(new FileInputStream(file), 65536);
+			return Util.getMD5Digest(in);
+		}
+		finally {
+			if(in != null) {
+				in.close();
+			}
+		}
+	}
+
+	/**
+	 * @return the directory of the extracted installation
+	 */
+	public File getInstallDir() {
+		return fInstallDir;
+	}
+
+	/**
+	 * @return <code>true</code> if the archive has been completely extracted into the snapshot
+	 */
+	public boolean isExtracted() {
+		return new File(fDirectory, EXTRACTED_MARKER).exists();
+	}
+
+	/**
+	 * Extracts the archive into the snapshot, replacing any partial extraction
+	 * @throws IOException if the snapshot cannot be marked as extracted
+	 */
+	public void extract() throws IOException {
+		CommonUtilsTask.extractSDK(fDirectory, fArchiveLocation);
+		new File(fDirectory, EXTRACTED_MARKER).createNewFile();
+	}
+
+	/**
+	 * Adds the components saved with this snapshot to the given baseline
+	 *
+	 * @param baseline the baseline to add the components to
+	 * @return the added components or <code>null</code> if no components were saved or one of them no longer exists,
+	 * in which case nothing is added to the baseline
+	 * @throws CoreException if the components cannot be created
+	 */
+	public IApiComponent[] restore(IApiBaseline baseline) throws CoreException {
+		File file = new File(fDirectory, COMPONENTS_FILE);
+		if(!file.exists()) {
+			return null;
+		}
+		List locations = new ArrayList();
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new FileReader(file));
+			String line = null;
+			while((line = reader.readLine()) != null) {
+				if(line.length() > 0) {
+					if(!new File(line).exists()) {
+						return null;
+					}
+					locations.add(line);
+				}
+			}
+		}
+		catch(IOException e) {
+			ApiPlugin.log(e);
+			return null;
+		}
+		finally {
+			if(reader != null) {
+				try {
+					reader.close();
+				}
+				catch(IOException e) {
+					// ignore
+				}
+			}
+		}
+		List components = new ArrayList(locations.size());
+		for (int i = 0, max = locations.size(); i < max; i++) {
+			IApiComponent component = ApiModelFactory.newApiComponent(baseline, (String) locations.get(i));
+			if(component != null) {
+				components.add(component);
+			}
+		}
+		IApiComponent[] result = (IApiComponent[]) components.toArray(new IApiComponent[components.size()]);
+		baseline.addApiComponents(result);
+		return result;
+	}
+
+	/**
+	 * Saves the locations of the given components with this snapshot
+	 * @param components the components of the baseline created from this snapshot
+	 */
+	public void save(IApiComponent[] components) {
+		File file = new File(fDirectory, COMPONENTS_FILE);
+		// write to a temporary file first so a partial list is never restored
+		File temp = new File(fDirectory, COMPONENTS_FILE + ".tmp"); //$NON-NLS-1$
+		BufferedWriter writer = null;
+		try {
+			writer = new BufferedWriter(new FileWriter(temp));
+			for (int i = 0; i < components.length; i++) {
+				String location = components[i].getLocation();
+				if(location != null) {
+					writer.write(location);
+					writer.newLine();
+				}
+			}
+			writer.close();
+			writer = null;
+			if(!temp.renameTo(file)) {
+				temp.delete();
+			}
+		}
+		catch(IOException e) {
+			ApiPlugin.log(e);
+		}
+		finally {
+			if(writer != null) {
+				try {
+					writer.close();
+				}
+				catch(IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2011 IBM Corporation and others.
+ * Copyright (c) 2008, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,8 +12,10 @@ package org.eclipse.pde.api.tools.internal.tasks;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,6 +23,7 @@ import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Task;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.osgi.util.NLS;
+import org.eclipse.pde.api.tools.internal.IApiCoreConstants;
 import org.eclipse.pde.api.tools.internal.model.ApiModelFactory;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
@@ -28,6 +31,7 @@ import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
 import org.eclipse.pde.api.tools.internal.util.FilteredElements;
 import org.eclipse.pde.api.tools.internal.util.TarException;
 import org.eclipse.pde.api.tools.internal.util.Util;
+import org.eclipse.pde.api.tools.internal.util.XmlStreamWriter;
 
 /**
  * Common code for API Tools Ant tasks.
@@ -51,6 +55,10 @@ public abstract class CommonUtilsTask extends Task {
 	protected String includeListLocation;
 	
 	protected String reportLocation;
+	/**
+	 * Directory to keep {@link BaselineSnapshot}s of the reference baseline in, or <code>null</code>
+	 */
+	protected String baselineCacheLocation;
 	
 	/**
 	 * Creates a baseline with the given name and EE file location in the given directory.  The installLocation
@@ -63,15 +71,7 @@ public abstract class CommonUtilsTask extends Task {
 	 */
 	protected IApiBaseline createBaseline(String baselineName, String installLocation, String eeFileLocation) {
 		try {
-			IApiBaseline baseline = null;
-			if (ApiPlugin.isRunningInFramework()) {
-				baseline = ApiModelFactory.newApiBaseline(baselineName);
-			} else if (eeFileLocation != null) {
-				baseline = ApiModelFactory.newApiBaseline(baselineName, new File(eeFileLocation));
-			} else {
-				baseline = ApiModelFactory.newApiBaseline(baselineName, Util.getEEDescriptionFile());
-			}
-			
+			IApiBaseline baseline = newBaseline(baselineName, eeFileLocation);
 			IApiComponent[] components = ApiModelFactory.addComponents(baseline, installLocation, null);
 			if (components.length == 0){			
 				throw new BuildException(NLS.bind(Messages.directoryIsEmpty, installLocation));
@@ -83,6 +83,82 @@ public abstract class CommonUtilsTask extends Task {
 		}
 	}
 	
+	/**
+	 * Creates a baseline with the given name and EE file location from the given snapshot. If the snapshot
+	 * is complete its components are added directly, otherwise the components are collected from the
+	 * installation of the snapshot and saved to it for the next run.
+	 * 
+	 * @param baselineName Name to use for the new baseline
+	 * @param snapshot the snapshot of the installation, already extracted
+	 * @param eeFileLocation execution environment location or <code>null</code> to have the EE determined from API components
+	 * @return a new {@link IApiBaseline}
+	 */
+	protected IApiBaseline createBaseline(String baselineName, BaselineSnapshot snapshot, String eeFileLocation) {
+		try {
+			IApiBaseline baseline = newBaseline(baselineName, eeFileLocation);
+			IApiComponent[] components = snapshot.restore(baseline);
+			if (components == null) {
+				components = ApiModelFactory.addComponents(baseline, snapshot.getInstallDir().getAbsolutePath(), null);
+				snapshot.save(components);
+			}
+			else if (this.debug) {
+				System.out.println("Restored " + components.length + " components from the snapshot " + snapshot.getInstallDir()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			if (components.length == 0){			
+				throw new BuildException(NLS.bind(Messages.directoryIsEmpty, snapshot.getInstallDir().getAbsolutePath()));
+			}
+			return baseline;
+		} catch (CoreException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+	
+	/**
+	 * Creates a new empty baseline
+	 * @param baselineName
+	 * @param eeFileLocation
+	 * @return a new {@link IApiBaseline}
+	 * @throws CoreException
+	 */
+	private IApiBaseline newBaseline(String baselineName, String eeFileLocation) throws CoreException {
+		if (ApiPlugin.isRunningInFramework()) {
+			return ApiModelFactory.newApiBaseline(baselineName);
+		} else if (eeFileLocation != null) {
+			return ApiModelFactory.newApiBaseline(baselineName, new File(eeFileLocation));
+		}
+		return ApiModelFactory.newApiBaseline(baselineName, Util.getEEDescriptionFile());
+	}
+	
+	/**
+	 * Returns the snapshot of the installation at the given location, extracting it into the baseline cache
+	 * if it is not there yet, or <code>null</code> if no baseline cache is set or the location is not an archive
+	 * 
+	 * @param location the location of the installation
+	 * @return the extracted snapshot or <code>null</code>
+	 */
+	protected BaselineSnapshot getSnapshot(String location) {
+		if (this.baselineCacheLocation == null || !Util.isArchive(location)) {
+			return null;
+		}
+		if (!new File(location).exists()) {
+			throw new BuildException(NLS.bind(Messages.fileDoesnotExist, location));
+		}
+		try {
+			BaselineSnapshot snapshot = new BaselineSnapshot(new File(this.baselineCacheLocation), location);
+			if (!snapshot.isExtracted()) {
+				snapshot.extract();
+			}
+			else if (this.debug) {
+				System.out.println("Reusing the snapshot " + snapshot.getInstallDir()); //$NON-NLS-1$
+			}
+			return snapshot;
+		}
+		catch (IOException e) {
+			throw new BuildException(NLS.bind(Messages.couldNotCreate, this.baselineCacheLocation), e);
+		}
+	}
+	
 	/**
 	 * Deletes an {@link IApiBaseline} from the given folder
 	 * @param referenceLocation
@@ -95,7 +171,8 @@ public abstract class CommonUtilsTask extends Task {
 	}
 	
 	/**
-	 * Extract extracts the SDK from the given location to the given directory name
+	 * Extract extracts the SDK from the given location to the given directory name. 
+	 * Only the parts of the SDK that are read by baselines are extracted, see {@link Util#SDK_ENTRY_FILTER}.
 	 * @param installDirName
 	 * @param location
 	 * @return the {@link File} handle to the extracted SDK
@@ -108,49 +185,67 @@ public abstract class CommonUtilsTask extends Task {
 		}
 		if (Util.isArchive(location)) {
 			File tempDir = new File(System.getProperty("java.io.tmpdir")); //$NON-NLS-1$
-			File installDir = new File(tempDir, installDirName);
-			if (installDir.exists()) {
-				// delete existing folder
-				if (!Util.delete(installDir)) {
-					throw new BuildException(
-						NLS.bind(
-							Messages.couldNotDelete,
-							installDir.getAbsolutePath()));
-				}
-			}
-			if (!installDir.mkdirs()) {
+			return extractSDK(new File(tempDir, installDirName), location);
+		} else {
+			return locationFile;
+		}
+	}
+	
+	/**
+	 * Extracts the SDK archive at the given location into the given directory, replacing its contents
+	 * @param installDir the directory to extract to
+	 * @param location the location of the archive
+	 * @return the {@link File} handle to the extracted SDK
+	 */
+	static File extractSDK(File installDir, String location) {
+		if (installDir.exists()) {
+			// delete existing folder
+			if (!Util.delete(installDir)) {
 				throw new BuildException(
-						NLS.bind(
-								Messages.couldNotCreate,
-								installDir.getAbsolutePath()));
+					NLS.bind(
+						Messages.couldNotDelete,
+						installDir.getAbsolutePath()));
 			}
-			try {
-				if (Util.isZipJarFile(location)) {
-					Util.unzip(location, installDir.getAbsolutePath());
-				} else if (Util.isTGZFile(location)) {
-					Util.guntar(location, installDir.getAbsolutePath());
-				}
-			} catch (IOException e) {
-				throw new BuildException(
+		}
+		if (!installDir.mkdirs()) {
+			throw new BuildException(
 					NLS.bind(
-						Messages.couldNotUnzip,
-						new String[] {
-								location,
-								installDir.getAbsolutePath()
-						}));
-			} catch (TarException e) {
-				throw new BuildException(
-						NLS.bind(
-								Messages.couldNotUntar,
-								new String[] {
-										location,
-										installDir.getAbsolutePath()
-								}));
+							Messages.couldNotCreate,
+							installDir.getAbsolutePath()));
+		}
+		try {
+			if (Util.isZipJarFile(location)) {
+				Util.unzip(location, installDir.getAbsolutePath(), Util.SDK_ENTRY_FILTER);
+			} else if (Util.isTGZFile(location)) {
+				Util.guntar(location, installDir.getAbsolutePath(), Util.SDK_ENTRY_FILTER);
 			}
-			return new File(installDir, ECLIPSE_FOLDER_NAME);
-		} else {
-			return locationFile;
+		} catch (IOException e) {
+			throw new BuildException(
+				NLS.bind(
+					Messages.couldNotUnzip,
+					new String[] {
+							location,
+							installDir.getAbsolutePath()
+					}));
+		} catch (TarException e) {
+			throw new BuildException(
+					NLS.bind(
+							Messages.couldNotUntar,
+							new String[] {
+									location,
+									installDir.getAbsolutePath()
+							}));
 		}
+		return getInstallDir(installDir);
+	}
+	
+	/**
+	 * Returns the directory of the installation extracted into the given directory
+	 * @param extractDir
+	 * @return the {@link File} handle to the extracted SDK
+	 */
+	static File getInstallDir(File extractDir) {
+		return new File(extractDir, ECLIPSE_FOLDER_NAME);
 	}
 	
 	/**
@@ -172,22 +267,7 @@ public abstract class CommonUtilsTask extends Task {
 	 * @param reportname name of the file to output to
 	 */
 	protected void saveReport(String componentID, String contents, String reportname) {
-		File dir = new File(this.reportLocation);
-		if (!dir.exists()) {
-			if (!dir.mkdirs()) {
-				throw new BuildException(NLS.bind(Messages.errorCreatingReportDirectory, this.reportLocation));
-			}
-		}
-		// If the caller has provided a component id, create a child directory
-		if (componentID != null){
-			dir = new File(dir, componentID);
-			if (!dir.exists()) {
-				if (!dir.mkdirs()) {
-					throw new BuildException(NLS.bind(Messages.errorCreatingReportDirectory, dir));
-				}
-			}
-		}
-		File reportFile = new File(dir, reportname);
+		File reportFile = new File(getReportDirectory(componentID), reportname);
 		BufferedWriter writer = null;
 		try {
 			writer = new BufferedWriter(new FileWriter(reportFile));
@@ -206,6 +286,45 @@ public abstract class CommonUtilsTask extends Task {
 		}
 	}
 	
+	/**
+	 * Opens a streaming XML writer on the report with the given name, in the report directory of the given component.
+	 * The report is written in UTF-8, the caller is responsible for closing the writer.
+	 * 
+	 * @param componentID the component id or <code>null</code> for the report root
+	 * @param reportname the file name of the report
+	 * @return a new {@link XmlStreamWriter} on the report
+	 * @throws IOException if the report cannot be created
+	 * @since 1.0.400
+	 */
+	protected XmlStreamWriter openReport(String componentID, String reportname) throws IOException {
+		File reportFile = new File(getReportDirectory(componentID), reportname);
+		return new XmlStreamWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(reportFile), IApiCoreConstants.UTF_8)));
+	}
+	
+	/**
+	 * Returns the report directory of the given component, creating it if needed
+	 * @param componentID the component id or <code>null</code> for the report root
+	 * @return the report directory
+	 */
+	private File getReportDirectory(String componentID) {
+		File dir = new File(this.reportLocation);
+		if (!dir.exists()) {
+			if (!dir.mkdirs()) {
+				throw new BuildException(NLS.bind(Messages.errorCreatingReportDirectory, this.reportLocation));
+			}
+		}
+		// If the caller has provided a component id, create a child directory
+		if (componentID != null){
+			dir = new File(dir, componentID);
+			if (!dir.exists()) {
+				if (!dir.mkdirs()) {
+					throw new BuildException(NLS.bind(Messages.errorCreatingReportDirectory, dir));
+				}
+			}
+		}
+		return dir;
+	}
+	
 	/**
 	 * Parses and returns patterns as an array of Strings or <code>null</code> if none.
 	 * 
@@ -227,6 +346,28 @@ public abstract class CommonUtilsTask extends Task {
 		return (String[]) list.toArray(new String[list.size()]);
 	}
 
+	/**
+	 * Parses the given thread count attribute value.
+	 * 
+	 * @param threads the attribute value or <code>null</code>
+	 * @return the number of threads to use, <code>1</code> if no value was given
+	 * @throws BuildException if the value is not a positive integer
+	 */
+	protected static int parseThreadCount(String threads) throws BuildException {
+		if (threads == null || threads.trim().length() == 0) {
+			return 1;
+		}
+		try {
+			int count = Integer.parseInt(threads.trim());
+			if (count > 0) {
+				return count;
+			}
+		} catch (NumberFormatException e) {
+			// fall through to the build exception
+		}
+		throw new BuildException(NLS.bind(Messages.invalidThreadCount, threads));
+	}
+
 	public static String convertToHtml(String s) {
 		char[] contents = s.toCharArray();
 		StringBuffer buffer = new StringBuffer();
@@ -79,6 +79,7 @@ public class Messages extends NLS {
 	public static String couldNotUnzip;
 	public static String couldNotUntar;
 	public static String reportLocationHasToBeAFile;
+	public static String invalidThreadCount;
 
 	public static String api_generation_printArguments;
 	public static String api_generation_projectLocationNotADirectory;
@@ -49,10 +49,12 @@ import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
 import org.eclipse.pde.api.tools.internal.provisional.problems.IApiProblem;
 import org.eclipse.pde.api.tools.internal.provisional.problems.IApiProblemTypes;
+import org.eclipse.pde.api.tools.internal.search.ComponentSymbolIndex;
 import org.eclipse.pde.api.tools.internal.search.MissingRefMetadata;
 import org.eclipse.pde.api.tools.internal.search.SkippedComponent;
 import org.eclipse.pde.api.tools.internal.search.UseScanManager;
 import org.eclipse.pde.api.tools.internal.util.FilteredElements;
+import org.eclipse.pde.api.tools.internal.util.SymbolTable;
 import org.eclipse.pde.api.tools.internal.util.Util;
 import org.osgi.framework.Version;
 import org.w3c.dom.DOMException;
@@ -70,6 +72,7 @@ public class MissingRefProblemsTask extends CommonUtilsTask {
 	private String apiUseScans;
 	private String[] usescans;
 	private Properties properties = new Properties();
+	private String symbolIndexLocation;
 	TreeSet notsearched = new TreeSet(Util.componentsorter);
 
 	public static final String COMPATIBILITY = "compatibility"; //$NON-NLS-1$
@@ -116,6 +119,9 @@ public class MissingRefProblemsTask extends CommonUtilsTask {
 		if (super.debug) {
 			System.out.println("profile to compare : " + super.currentBaselineLocation); //$NON-NLS-1$
 			System.out.println("report location : " + super.reportLocation); //$NON-NLS-1$
+			if (this.symbolIndexLocation != null) {
+				System.out.println("symbol index location : " + this.symbolIndexLocation); //$NON-NLS-1$
+			}
 
 			if (super.excludeListLocation != null) {
 				System.out.println("exclude list location : " + super.excludeListLocation); //$NON-NLS-1$
@@ -179,7 +185,11 @@ public class MissingRefProblemsTask extends CommonUtilsTask {
 					if (this.properties.isEmpty()) {
 						addDefaultProperties();
 					}
-					analyzer.checkExternalDependencies(apiComponent, new BuildContext(), this.properties, new NullProgressMonitor());
+					SymbolTable symbols = null;
+					if (this.symbolIndexLocation != null) {
+						symbols = ComponentSymbolIndex.getSymbols(apiComponent, new File(this.symbolIndexLocation));
+					}
+					analyzer.checkExternalDependencies(apiComponent, new BuildContext(), this.properties, symbols, new NullProgressMonitor());
 					IApiProblem[] problems = analyzer.getProblems();
 					if (problems.length != 0) {
 						allProblems.put(name +" ("+new Version(version).toString()+")", problems); //$NON-NLS-1$ //$NON-NLS-2$
@@ -637,4 +647,24 @@ public class MissingRefProblemsTask extends CommonUtilsTask {
 	public void setReport(String reportLocation) {
 		this.reportLocation = reportLocation;
 	}
+
+	/**
+	 * Set the location of the directory used to cache the symbol index of each component.
+	 * 
+	 * <p>
+	 * When set, the types, methods and fields declared by each analyzed component are
+	 * written to an index file in this directory, and references found in the index
+	 * are not resolved again. Index files are reused by later runs as long as the
+	 * component has not changed. If not set, no index is used.
+	 * </p>
+	 * <p>
+	 * The location is set using an absolute path.
+	 * </p>
+	 * 
+	 * @param symbolIndexLocation
+	 *            the given location for the symbol index directory
+	 */
+	public void setSymbolIndex(String symbolIndexLocation) {
+		this.symbolIndexLocation = symbolIndexLocation;
+	}
 }